@@ -88,6 +88,11 @@ configure<SourceSetContainer> {
         compileClasspath += sourceSets["main"].output
         runtimeClasspath += sourceSets["main"].output
     }
+    register("jmh") {
+        java.srcDir("src/jmh/java")
+        compileClasspath += sourceSets["main"].output
+        runtimeClasspath += sourceSets["main"].output
+    }
 }
 
 
@@ -128,6 +133,9 @@ dependencies {
     // since jna is a transitive runtime dependency of opus-java we don't include it explicitly as dependency
     compileOnly(libs.jna)
 
+    //Zstd transport compression is optional, we fall back to zlib if this library is missing
+    compileOnly(libs.zstd)
+
     /* Internal dependencies */
 
     //General Utility
@@ -141,12 +149,21 @@ dependencies {
         addAll(configurations["compileOnly"].allDependencies)
     }
 
+    //Sets the dependencies for the benchmarks
+    configurations["jmhImplementation"].withDependencies {
+        addAll(configurations["api"].allDependencies)
+        addAll(configurations["implementation"].allDependencies)
+    }
+    "jmhImplementation"(libs.jmh.core)
+    "jmhAnnotationProcessor"(libs.jmh.generator)
+
     testImplementation(libs.junit)
     testImplementation(libs.reflections)
     testImplementation(libs.mockito)
     testImplementation(libs.assertj)
     testImplementation(libs.commons.lang3)
     testImplementation(libs.logback.classic)
+    testImplementation(libs.zstd)
 }
 
 
@@ -325,6 +342,14 @@ val test by tasks.getting(Test::class) {
     failFast = true
 }
 
+// Runs the benchmarks, arguments are passed with -PjmhArgs="..." (e.g. -PjmhArgs="-prof gc")
+val jmh by tasks.creating(JavaExec::class) {
+    group = "verification"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    args = (findProperty("jmhArgs") as String?)?.split(" ")?.filter { it.isNotEmpty() } ?: emptyList()
+}
+
 
 ////////////////////////////////////
 //                                //
@@ -13,6 +13,8 @@ dependencyResolutionManagement {
             library("findbugs",              "com.google.code.findbugs", "jsr305"              ).version("3.0.2")
             library("websocket-client",      "com.neovisionaries",       "nv-websocket-client" ).version("2.14")
             library("okhttp",                "com.squareup.okhttp3",     "okhttp"              ).version("4.12.0")
+            library("jmh-core",              "org.openjdk.jmh",          "jmh-core"            ).version("1.37")
+            library("jmh-generator",         "org.openjdk.jmh",          "jmh-generator-annprocess").version("1.37")
             library("jna",                   "net.java.dev.jna",         "jna"                 ).version("5.14.0")
             library("trove4j",               "net.sf.trove4j",           "core"                ).version("3.1.0")
             library("commons-collections",   "org.apache.commons",       "commons-collections4").version("4.4")
@@ -23,6 +25,7 @@ dependencyResolutionManagement {
             library("mockito",               "org.mockito",              "mockito-core"        ).version("5.11.0")
             library("reflections",           "org.reflections",          "reflections"         ).version("0.10.2")
             library("slf4j",                 "org.slf4j",                "slf4j-api"           ).version("1.7.36")
+            library("zstd",                  "com.github.luben",         "zstd-jni"            ).version("1.5.6-3")
         }
     }
 }
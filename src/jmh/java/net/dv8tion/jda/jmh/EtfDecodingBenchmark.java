@@ -0,0 +1,61 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.jmh;
+
+import net.dv8tion.jda.api.utils.data.DataObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares decoding the same synthetic GUILD_CREATE from JSON and ETF.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EtfDecodingBenchmark
+{
+    @Param({"100000"})
+    public int members;
+
+    private byte[] json;
+    private byte[] etf;
+
+    @Setup
+    public void setup()
+    {
+        String guild = Payloads.guildCreate(members);
+        json = guild.getBytes(StandardCharsets.UTF_8);
+        etf = DataObject.fromJson(guild).toETF();
+    }
+
+    @Benchmark
+    public DataObject json()
+    {
+        return DataObject.fromJson(json);
+    }
+
+    @Benchmark
+    public DataObject etf()
+    {
+        return DataObject.fromETF(etf);
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.jmh;
+
+/**
+ * Synthetic gateway payloads for the benchmarks.
+ */
+final class Payloads
+{
+    private Payloads() {}
+
+    /**
+     * Creates the JSON of a GUILD_CREATE event data with the provided number of members.
+     *
+     * @param  members
+     *         The number of members
+     *
+     * @return The JSON string
+     */
+    static String guildCreate(int members)
+    {
+        StringBuilder json = new StringBuilder(members * 256);
+        json.append("{\"id\":\"81384788765712384\",\"name\":\"Benchmark\",\"owner_id\":\"107562988810027008\",\"member_count\":")
+            .append(members)
+            .append(",\"roles\":[],\"channels\":[],\"members\":[");
+        long userId = 107562988810027008L;
+        for (int i = 0; i < members; i++)
+        {
+            if (i > 0)
+                json.append(',');
+            json.append("{\"user\":{\"id\":\"").append(userId + i)
+                .append("\",\"username\":\"user").append(i)
+                .append("\",\"discriminator\":\"0\",\"avatar\":null},\"roles\":[\"")
+                .append(81384788765712384L + i % 7).append("\",\"")
+                .append(81384788765712384L + i % 13)
+                .append("\"],\"joined_at\":\"2020-01-01T00:00:00.000000+00:00\",\"deaf\":false,\"mute\":false,\"flags\":0}");
+        }
+        json.append("]}");
+        return json.toString();
+    }
+}
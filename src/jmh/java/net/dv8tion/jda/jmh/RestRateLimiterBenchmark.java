@@ -0,0 +1,167 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.jmh;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.requests.ConcurrentRestRateLimiter;
+import net.dv8tion.jda.api.requests.RestRateLimiter;
+import net.dv8tion.jda.api.requests.Route;
+import net.dv8tion.jda.api.requests.SequentialRestRateLimiter;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import org.openjdk.jmh.annotations.*;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.*;
+
+/**
+ * Enqueues requests from several threads into one shared rate-limiter, like the shards of a ShardManager do.
+ * <br>Every request completes immediately with rate-limit headers, which leaves only the bookkeeping of the rate-limiter.
+ *
+ * <p>The score is in requests per second, a bot with many shards needs well above 10k.
+ * Run with {@code ./gradlew jmh -PjmhArgs="RestRateLimiterBenchmark"} to compare both implementations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class RestRateLimiterBenchmark
+{
+    private static final int BATCH = 100;
+    private static final Route ROUTE = Route.get("channels/{channel_id}/messages");
+
+    @Param({"sequential", "concurrent"})
+    public String limiter;
+
+    @Param({"1000"})
+    public int buckets;
+
+    private ScheduledExecutorService scheduler;
+    private RestRateLimiter rateLimiter;
+    private Route.CompiledRoute[] routes;
+    private Response response;
+
+    @Setup
+    public void setup()
+    {
+        scheduler = Executors.newScheduledThreadPool(4);
+        RestRateLimiter.RateLimitConfig config = new RestRateLimiter.RateLimitConfig(scheduler, RestRateLimiter.GlobalRateLimit.create(), true);
+        rateLimiter = limiter.equals("sequential") ? new SequentialRestRateLimiter(config) : new ConcurrentRestRateLimiter(config);
+
+        routes = new Route.CompiledRoute[buckets];
+        for (int i = 0; i < buckets; i++)
+            routes[i] = ROUTE.compile(Integer.toString(i));
+
+        response = new Response.Builder()
+                .request(new okhttp3.Request.Builder().url("http://localhost/").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .header(RestRateLimiter.HASH_HEADER, "abc")
+                .header(RestRateLimiter.LIMIT_HEADER, "1000000")
+                .header(RestRateLimiter.REMAINING_HEADER, "1000000")
+                .header(RestRateLimiter.RESET_AFTER_HEADER, "60")
+                .header("via", "1.1 google")
+                .build();
+    }
+
+    @TearDown
+    public void teardown()
+    {
+        rateLimiter.stop(true, () -> {});
+        scheduler.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void enqueue() throws InterruptedException
+    {
+        // Waiting for the batch keeps the queues bounded
+        CountDownLatch latch = new CountDownLatch(BATCH);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < BATCH; i++)
+            rateLimiter.enqueue(new Task(routes[random.nextInt(routes.length)], latch));
+        latch.await();
+    }
+
+    private class Task implements RestRateLimiter.Work
+    {
+        private final Route.CompiledRoute route;
+        private final CountDownLatch latch;
+        private volatile boolean done;
+
+        private Task(Route.CompiledRoute route, CountDownLatch latch)
+        {
+            this.route = route;
+            this.latch = latch;
+        }
+
+        @Nonnull
+        @Override
+        public Route.CompiledRoute getRoute()
+        {
+            return route;
+        }
+
+        @Nonnull
+        @Override
+        public JDA getJDA()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Response execute()
+        {
+            done = true;
+            latch.countDown();
+            return response;
+        }
+
+        @Override
+        public boolean isSkipped()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean isDone()
+        {
+            return done;
+        }
+
+        @Override
+        public boolean isPriority()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled()
+        {
+            return false;
+        }
+
+        @Override
+        public void cancel()
+        {
+        }
+    }
+}
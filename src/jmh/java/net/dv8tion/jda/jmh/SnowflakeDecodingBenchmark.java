@@ -0,0 +1,76 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.jmh;
+
+import net.dv8tion.jda.api.utils.data.DataArray;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes a synthetic GUILD_CREATE with 100k members and reads all member and role ids.
+ *
+ * <p>Run with {@code ./gradlew jmh -PjmhArgs="SnowflakeDecodingBenchmark -prof gc"} to compare allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnowflakeDecodingBenchmark
+{
+    @Param({"100000"})
+    public int members;
+
+    private byte[] payload;
+
+    @Setup
+    public void setup()
+    {
+        payload = Payloads.guildCreate(members).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public long strings()
+    {
+        return readIds(DataObject.fromJson(payload, false));
+    }
+
+    @Benchmark
+    public long snowflakes()
+    {
+        return readIds(DataObject.fromJson(payload, true));
+    }
+
+    private static long readIds(DataObject guild)
+    {
+        long sum = guild.getUnsignedLong("id") + guild.getUnsignedLong("owner_id");
+        DataArray list = guild.getArray("members");
+        for (int i = 0; i < list.length(); i++)
+        {
+            DataObject member = list.getObject(i);
+            sum += member.getObject("user").getUnsignedLong("id");
+            DataArray roles = member.getArray("roles");
+            for (int j = 0; j < roles.length(); j++)
+                sum += roles.getUnsignedLong(j);
+        }
+        return sum;
+    }
+}
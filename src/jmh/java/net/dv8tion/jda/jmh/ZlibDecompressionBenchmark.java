@@ -0,0 +1,96 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.jmh;
+
+import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.internal.utils.compress.Decompressor;
+import net.dv8tion.jda.internal.utils.compress.ZlibDecompressor;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+
+/**
+ * Decompresses and parses a zlib compressed GUILD_CREATE, either from the inflated buffer or by streaming it into the parser.
+ *
+ * <p>Run with {@code ./gradlew jmh -PjmhArgs="ZlibDecompressionBenchmark -prof gc"} to compare allocations.
+ * The streaming path should not allocate a full copy of the inflated payload.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ZlibDecompressionBenchmark
+{
+    @Param({"5000"})
+    public int members;
+
+    private byte[] frame;
+    private Decompressor decompressor;
+
+    @Setup
+    public void setup()
+    {
+        frame = compress(Payloads.guildCreate(members).getBytes(StandardCharsets.UTF_8));
+        decompressor = new ZlibDecompressor(2048);
+    }
+
+    @TearDown
+    public void teardown()
+    {
+        decompressor.shutdown();
+    }
+
+    @Benchmark
+    public DataObject buffered() throws DataFormatException
+    {
+        // Every frame is compressed with its own zlib context
+        decompressor.reset();
+        return DataObject.fromJson(decompressor.decompress(frame));
+    }
+
+    @Benchmark
+    public DataObject streaming() throws DataFormatException, IOException
+    {
+        decompressor.reset();
+        try (InputStream stream = decompressor.decompressStream(frame))
+        {
+            return DataObject.fromJson(stream);
+        }
+    }
+
+    private static byte[] compress(byte[] payload)
+    {
+        // Discord ends each message with a sync flush
+        Deflater deflater = new Deflater();
+        deflater.setInput(payload);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int length;
+        while ((length = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH)) > 0)
+            output.write(buffer, 0, length);
+        deflater.end();
+        return output.toByteArray();
+    }
+}
@@ -34,12 +34,17 @@ import net.dv8tion.jda.api.managers.AudioManager;
 import net.dv8tion.jda.api.managers.DirectAudioController;
 import net.dv8tion.jda.api.managers.Presence;
 import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.requests.GatewayPriority;
+import net.dv8tion.jda.api.requests.QueueTime;
+import net.dv8tion.jda.api.requests.RequestPriority;
 import net.dv8tion.jda.api.requests.RestAction;
+import net.dv8tion.jda.api.requests.RestConfig;
 import net.dv8tion.jda.api.requests.Route;
 import net.dv8tion.jda.api.requests.restaction.*;
 import net.dv8tion.jda.api.requests.restaction.pagination.EntitlementPaginationAction;
 import net.dv8tion.jda.api.sharding.ShardManager;
 import net.dv8tion.jda.api.utils.MiscUtil;
+import net.dv8tion.jda.api.utils.SessionResumeStore;
 import net.dv8tion.jda.api.utils.cache.CacheFlag;
 import net.dv8tion.jda.api.utils.cache.CacheView;
 import net.dv8tion.jda.api.utils.cache.SnowflakeCacheView;
@@ -262,6 +267,83 @@ public interface JDA extends IGuildChannelContainer<Channel>
      */
     long getGatewayPing();
 
+    /**
+     * The number of gateway messages which are waiting to be handled.
+     * <br>This is always {@code 0} if the gateway queue is not enabled.
+     *
+     * @return The current size of the gateway queue
+     *
+     * @see    net.dv8tion.jda.api.JDABuilder#setGatewayQueue(int, net.dv8tion.jda.api.utils.GatewayQueuePolicy)
+     */
+    int getGatewayQueueSize();
+
+    /**
+     * The time in milliseconds that the last handled gateway message waited in the gateway queue.
+     * <br>This is always {@code 0} if the gateway queue is not enabled.
+     *
+     * <p>Heartbeat acknowledgements are not queued, so this time is not included in the {@link #getGatewayPing() gateway ping}.
+     *
+     * @return The time in milliseconds
+     *
+     * @see    net.dv8tion.jda.api.JDABuilder#setGatewayQueue(int, net.dv8tion.jda.api.utils.GatewayQueuePolicy)
+     */
+    long getGatewayQueueTime();
+
+    /**
+     * The time that queued gateway commands of the provided priority class waited before they were sent to the gateway, since this instance was created.
+     * <br>Commands are delayed when the gateway rate limit of 120 commands per minute is exhausted.
+     *
+     * <p>Heartbeats and authentication are sent immediately, they are not counted.
+     *
+     * @param  priority
+     *         The priority class
+     *
+     * @throws IllegalArgumentException
+     *         If null is provided
+     *
+     * @return {@link QueueTime} with the number of commands, and the total and maximum time
+     */
+    @Nonnull
+    QueueTime getGatewaySendTime(@Nonnull GatewayPriority priority);
+
+    /**
+     * The state required to resume the current gateway session from another process.
+     * <br>This can be passed to a {@link SessionResumeStore} of the new process.
+     * The current session must not be used anymore once it is resumed elsewhere.
+     *
+     * @return The current {@link SessionResumeStore.ResumeState ResumeState},
+     *         or null if there is no session
+     *
+     * @see    net.dv8tion.jda.api.JDABuilder#setSessionResumeStore(SessionResumeStore)
+     */
+    @Nullable
+    SessionResumeStore.ResumeState getResumeState();
+
+    /**
+     * The number of GET requests, which were not sent because an identical request was already pending.
+     * <br>This is always {@code 0} if {@link RestConfig#setDeduplicateRequests(boolean) request deduplication} is not enabled.
+     *
+     * @return The number of shared requests
+     */
+    long getDeduplicatedRequestCount();
+
+    /**
+     * The time that sent requests of the provided priority class waited in the rate-limiter, since this instance was created.
+     * <br>This includes the time waiting for the bucket and global rate-limits, as well as for more important requests.
+     *
+     * @param  priority
+     *         The priority class
+     *
+     * @throws IllegalArgumentException
+     *         If null is provided
+     *
+     * @return {@link QueueTime} with the number of requests, and the total and maximum time
+     *
+     * @see    RestAction#setPriority(RequestPriority)
+     */
+    @Nonnull
+    QueueTime getRestQueueTime(@Nonnull RequestPriority priority);
+
     /**
      * The time in milliseconds that discord took to respond to a REST request.
      * <br>This will request the current user from the API and calculate the time the response took.
@@ -21,6 +21,7 @@ import net.dv8tion.jda.annotations.ReplaceWith;
 import net.dv8tion.jda.api.audio.factory.IAudioSendFactory;
 import net.dv8tion.jda.api.entities.Activity;
 import net.dv8tion.jda.api.events.Event;
+import net.dv8tion.jda.api.events.GenericEvent;
 import net.dv8tion.jda.api.events.session.ReadyEvent;
 import net.dv8tion.jda.api.exceptions.InvalidTokenException;
 import net.dv8tion.jda.api.hooks.IEventManager;
@@ -44,9 +45,11 @@ import okhttp3.OkHttpClient;
 import javax.annotation.CheckReturnValue;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.stream.Collectors;
+import java.util.zip.DataFormatException;
 
 /**
  * Used to create new {@link net.dv8tion.jda.api.JDA} instances. This is also useful for making sure all of
@@ -93,10 +96,17 @@ public class JDABuilder
     protected int maxReconnectDelay = 900;
     protected int largeThreshold = 250;
     protected int maxBufferSize = 2048;
+    protected int gatewayQueueSize = 0;
+    protected GatewayQueuePolicy gatewayQueuePolicy = GatewayQueuePolicy.BLOCK;
+    protected int dispatchThreads = 0;
+    protected SessionResumeStore sessionResumeStore = null;
+    protected Path cacheSnapshotDirectory = null;
+    protected GatewayRecorder gatewayRecorder = null;
     protected int intents = -1; // don't use intents by default
     protected EnumSet<ConfigFlag> flags = ConfigFlag.getDefault();
     protected ChunkingFilter chunkingFilter = ChunkingFilter.ALL;
     protected MemberCachePolicy memberCachePolicy = MemberCachePolicy.ALL;
+    protected Set<Class<? extends GenericEvent>> wantedEvents = null;
     protected GatewayEncoding encoding = GatewayEncoding.JSON;
     protected RestConfig restConfig = new RestConfig();
 
@@ -547,6 +557,39 @@ public class JDABuilder
         return setFlag(ConfigFlag.EVENT_PASSTHROUGH, enable);
     }
 
+    /**
+     * Declares the events your listeners want to receive, which allows JDA to drop other gateway events before parsing them.
+     * <br>Events are matched by type, so declaring {@link net.dv8tion.jda.api.events.message.react.GenericMessageReactionEvent GenericMessageReactionEvent}
+     * also declares every reaction event. Declaring {@link GenericEvent} wants every event.
+     *
+     * <p>This only affects gateway events which are used to fire events, without updating the cache,
+     * such as {@link net.dv8tion.jda.api.events.user.UserTypingEvent UserTypingEvent} or reaction events.
+     * Events are still fired for anything that is needed to keep the cache up-to-date,
+     * and nothing is dropped while {@link #setRawEventsEnabled(boolean) raw events} are enabled.
+     * Note that dropped events are no longer used to opportunistically update members in the cache.
+     *
+     * <p>By default ({@code null}), JDA inspects the registered listeners instead,
+     * if the default {@link net.dv8tion.jda.api.hooks.InterfacedEventManager InterfacedEventManager} is used.
+     * Events are dropped if no {@link net.dv8tion.jda.api.hooks.ListenerAdapter ListenerAdapter} overrides a method which could receive them,
+     * and no other kind of {@link net.dv8tion.jda.api.hooks.EventListener EventListener} is registered.
+     *
+     * @param  events
+     *         The events to receive, or null to inspect the registered listeners
+     *
+     * @throws IllegalArgumentException
+     *         If the collection contains null
+     *
+     * @return The JDABuilder instance. Useful for chaining.
+     */
+    @Nonnull
+    public JDABuilder setWantedEvents(@Nullable Collection<Class<? extends GenericEvent>> events)
+    {
+        if (events != null)
+            Checks.noneNull(events, "Events");
+        this.wantedEvents = events == null ? null : new HashSet<>(events);
+        return this;
+    }
+
     /**
      * Whether the rate-limit should be relative to the current time plus latency.
      * <br>By default we use the {@code X-RateLimit-Reset-After} header to determine when
@@ -787,6 +830,9 @@ public class JDABuilder
      * Compression can be entirely disabled by setting this to {@link net.dv8tion.jda.api.utils.Compression#NONE}.
      * <br><b>Default: {@link net.dv8tion.jda.api.utils.Compression#ZLIB}</b>
      *
+     * <p>{@link net.dv8tion.jda.api.utils.Compression#ZSTD ZSTD} requires the optional {@code zstd-jni} dependency.
+     * If it is not available at runtime, {@link net.dv8tion.jda.api.utils.Compression#ZLIB ZLIB} is used instead.
+     *
      * <p><b>We recommend to keep this on the default unless you have issues with the decompression.</b>
      * <br>This mode might become obligatory in a future version, do not rely on this switch to stay.
      *
@@ -808,6 +854,79 @@ public class JDABuilder
         return this;
     }
 
+    /**
+     * Whether JDA should parse compressed gateway payloads directly from the decompression stream.
+     * <br>By default, every payload is first inflated into a byte array, which is then parsed into a {@link net.dv8tion.jda.api.utils.data.DataObject DataObject}.
+     * When enabled, the JSON parser reads the inflated data in small chunks instead, so no copy of the full message is ever created.
+     * This reduces the memory allocated for large payloads, such as {@code GUILD_CREATE}.
+     *
+     * <p>This only applies to {@link net.dv8tion.jda.api.GatewayEncoding#JSON JSON} encoding with transport compression enabled.
+     * Payloads that fail to parse can no longer be logged in full when this is enabled.
+     *
+     * <p>Default: {@code false}
+     *
+     * @param  enable
+     *         True, if payloads should be parsed while they are being decompressed
+     *
+     * @return The JDABuilder instance. Useful for chaining.
+     *
+     * @see    #setCompression(Compression)
+     */
+    @Nonnull
+    public JDABuilder setStreamingDecompression(boolean enable)
+    {
+        return setFlag(ConfigFlag.STREAM_DECOMPRESSION, enable);
+    }
+
+    /**
+     * Whether JDA should defer parsing the data of gateway events until it is used.
+     * <br>When enabled, only the envelope of every event (opcode, sequence, and event type) is parsed immediately.
+     * The event data is kept in its raw form and parsed once it is accessed for the first time.
+     * This avoids parsing events that are discarded, for instance presence updates when no presence related
+     * {@link CacheFlag CacheFlags} are enabled.
+     *
+     * <p>This only applies to {@link net.dv8tion.jda.api.GatewayEncoding#JSON JSON} encoding,
+     * and has no effect on compressed payloads when {@link #setStreamingDecompression(boolean) streaming decompression} is enabled.
+     *
+     * <p>Default: {@code false}
+     *
+     * @param  enable
+     *         True, if the event data should be parsed lazily
+     *
+     * @return The JDABuilder instance. Useful for chaining.
+     */
+    @Nonnull
+    public JDABuilder setLazyParsing(boolean enable)
+    {
+        return setFlag(ConfigFlag.LAZY_PARSING, enable);
+    }
+
+    /**
+     * Whether JDA should decode snowflake ids of gateway events while parsing them.
+     * <br>Discord sends all ids as strings, which are usually parsed again every time they are accessed.
+     * When enabled, ids are stored as primitive longs instead, which reduces the allocations and memory needed for large events,
+     * such as the {@code GUILD_CREATE} of guilds with many members.
+     *
+     * <p>This only applies to {@link net.dv8tion.jda.api.GatewayEncoding#JSON JSON} encoding.
+     * Decoded ids are still returned as strings by {@link net.dv8tion.jda.api.utils.data.DataObject#getString(String) getString},
+     * {@link net.dv8tion.jda.api.utils.data.DataObject#get(String) get} and {@link net.dv8tion.jda.api.utils.data.DataObject#toMap() toMap},
+     * and serialized as strings, for instance in {@link net.dv8tion.jda.api.events.RawGatewayEvent RawGatewayEvent}.
+     *
+     * <p>Default: {@code false}
+     *
+     * @param  enable
+     *         True, if snowflake ids should be decoded
+     *
+     * @return The JDABuilder instance. Useful for chaining.
+     *
+     * @see    net.dv8tion.jda.api.utils.data.DataObject#fromJson(byte[], boolean)
+     */
+    @Nonnull
+    public JDABuilder setSnowflakeDecoding(boolean enable)
+    {
+        return setFlag(ConfigFlag.SNOWFLAKE_DECODING, enable);
+    }
+
     /**
      * Whether the Requester should retry when
      * a {@link java.net.SocketTimeoutException SocketTimeoutException} occurs.
@@ -854,6 +973,8 @@ public class JDABuilder
      * Sets the {@link okhttp3.OkHttpClient.Builder Builder} that will be used by JDAs requester.
      * <br>This can be used to set things such as connection timeout and proxy.
      *
+     * <p>The request limits of the {@link okhttp3.Dispatcher Dispatcher} do not apply to REST requests, see {@link #setHttpClient(OkHttpClient)}.
+     *
      * @param  builder
      *         The new {@link okhttp3.OkHttpClient.Builder Builder} to use
      *
@@ -870,6 +991,10 @@ public class JDABuilder
      * Sets the {@link okhttp3.OkHttpClient OkHttpClient} that will be used by JDAs requester.
      * <br>This can be used to set things such as connection timeout and proxy.
      *
+     * <p>REST requests are sent asynchronously, which OkHttp would limit by the {@link okhttp3.Dispatcher Dispatcher} of the client.
+     * The requester uses its own dispatcher without these limits, since the rate-limiter already decides how many requests run in parallel.
+     * The executor of the client's dispatcher is still used.
+     *
      * @param  client
      *         The new {@link okhttp3.OkHttpClient OkHttpClient} to use
      *
@@ -1862,6 +1987,132 @@ public class JDABuilder
         return this;
     }
 
+    /**
+     * Enables the gateway queue, which decouples reading from the websocket and handling the events.
+     * <br>Messages are put into a bounded queue by the websocket read thread, and handled by a dedicated thread.
+     * This prevents slow event handling from blocking the socket, which could otherwise cause missed heartbeat acknowledgements.
+     * Heartbeats, heartbeat acknowledgements, and HELLO are handled immediately and never queued.
+     *
+     * <p>The current queue size and time spent in the queue are available with {@link JDA#getGatewayQueueSize()} and {@link JDA#getGatewayQueueTime()}.
+     *
+     * <p>Default: {@code 0} (disabled)
+     *
+     * @param  capacity
+     *         The maximum number of queued messages, or {@code 0} to handle messages on the read thread
+     * @param  policy
+     *         The {@link GatewayQueuePolicy} to use when the queue is full
+     *
+     * @throws IllegalArgumentException
+     *         If the capacity is negative or the policy is null
+     *
+     * @return The JDABuilder instance. Useful for chaining.
+     */
+    @Nonnull
+    public JDABuilder setGatewayQueue(int capacity, @Nonnull GatewayQueuePolicy policy)
+    {
+        Checks.notNegative(capacity, "Capacity");
+        Checks.notNull(policy, "Policy");
+        this.gatewayQueueSize = capacity;
+        this.gatewayQueuePolicy = policy;
+        return this;
+    }
+
+    /**
+     * The number of threads used to handle gateway events of different guilds in parallel.
+     * <br>Events of the same guild are always handled in order, by the same thread.
+     * This allows shards with many active guilds to update the cache on more than one core.
+     *
+     * <p>Events which are not specific to a guild, or which update users and members, are still handled one at a time.
+     * Before such an event is handled, all threads have to finish their pending events.
+     * Your event listeners will be called from these threads, and must be thread-safe.
+     *
+     * <p>Default: {@code 0} (disabled)
+     *
+     * @param  threads
+     *         The number of threads, or {@code 0} to handle all events on one thread
+     *
+     * @throws IllegalArgumentException
+     *         If the number of threads is negative
+     *
+     * @return The JDABuilder instance. Useful for chaining.
+     */
+    @Nonnull
+    public JDABuilder setDispatchThreads(int threads)
+    {
+        Checks.notNegative(threads, "Threads");
+        this.dispatchThreads = threads;
+        return this;
+    }
+
+    /**
+     * Sets the {@link SessionResumeStore} used to keep gateway sessions across process restarts.
+     * <br>On shutdown, the session is saved to the store instead of being closed.
+     * The next login with the same store resumes the saved session, instead of identifying and loading all guilds again.
+     *
+     * <p><b>A session is only resumed together with the cache snapshot of that session.</b>
+     * Discord only sends the events missed since the shutdown, so the cache has to be restored with {@link #setCacheSnapshotDirectory(Path)}.
+     * Without a matching snapshot, or if the session cannot be resumed anymore, a new session is started as usual.
+     *
+     * <p>Default: {@code null} (disabled)
+     *
+     * @param  store
+     *         The store, for example a {@link net.dv8tion.jda.api.utils.FileSessionResumeStore FileSessionResumeStore}, or null to disable this
+     *
+     * @return The JDABuilder instance. Useful for chaining.
+     */
+    @Nonnull
+    public JDABuilder setSessionResumeStore(@Nullable SessionResumeStore store)
+    {
+        this.sessionResumeStore = store;
+        return this;
+    }
+
+    /**
+     * Sets the directory used to store snapshots of the guild cache across process restarts.
+     * <br>On shutdown, the guilds with their channels, roles, emojis, and cached members are written to a snapshot file.
+     * The next login loads the snapshot before connecting, which makes these guilds available immediately.
+     *
+     * <p>Guilds loaded from a snapshot are {@link net.dv8tion.jda.api.entities.Guild#isStale() stale},
+     * until Discord sends the guild again and it is replaced by an up-to-date guild.
+     * When the session of the snapshot is resumed with {@link #setSessionResumeStore(SessionResumeStore)},
+     * the missed events are applied to the loaded guilds and they are no longer stale after the session is resumed.
+     *
+     * <p>Threads, scheduled events, stickers, voice states, and presences are not part of the snapshot.
+     *
+     * <p>Default: {@code null} (disabled)
+     *
+     * @param  directory
+     *         The directory for the snapshot files, or null to disable this
+     *
+     * @return The JDABuilder instance. Useful for chaining.
+     */
+    @Nonnull
+    public JDABuilder setCacheSnapshotDirectory(@Nullable Path directory)
+    {
+        this.cacheSnapshotDirectory = directory;
+        return this;
+    }
+
+    /**
+     * Sets the {@link GatewayRecorder} which records all frames received from the gateway.
+     * <br>The recording can be replayed with {@link #buildReplay(Path, boolean)}, to reproduce the load of a session without a connection.
+     *
+     * <p>The recorder is not closed by JDA, close it after JDA has been shutdown to write the remaining frames.
+     *
+     * <p>Default: {@code null} (disabled)
+     *
+     * @param  recorder
+     *         The recorder, or null to disable recording
+     *
+     * @return The JDABuilder instance. Useful for chaining.
+     */
+    @Nonnull
+    public JDABuilder setGatewayRecorder(@Nullable GatewayRecorder recorder)
+    {
+        this.gatewayRecorder = recorder;
+        return this;
+    }
+
     /**
      * Builds a new {@link net.dv8tion.jda.api.JDA} instance and uses the provided token to start the login process.
      * <br>The login process runs in a different thread, so while this will return immediately, {@link net.dv8tion.jda.api.JDA} has not
@@ -1886,6 +2137,64 @@ public class JDABuilder
      */
     @Nonnull
     public JDA build()
+    {
+        JDAImpl jda = buildInstance();
+        jda.login(shardInfo, compression, true, intents, encoding);
+        return jda;
+    }
+
+    /**
+     * Builds a new {@link net.dv8tion.jda.api.JDA} instance and replays a recording of the gateway, instead of connecting to Discord.
+     * <br>The frames of the recording are read and decoded on the calling thread, in place of the read thread of a gateway connection.
+     * With a {@link #setGatewayQueue(int, GatewayQueuePolicy) gateway queue} or {@link #setDispatchThreads(int) dispatch threads},
+     * the events are handled by those threads instead, and might still be handled after this method returns.
+     * This can be used to profile the entity creation, event handling, and event listeners with the traffic of a real session.
+     *
+     * <p>The compression and encoding of the recording are used, instead of the ones configured on this builder.
+     * Since there is no connection, nothing is sent to the gateway.
+     * The token is not validated, but any REST request still uses it.
+     *
+     * <p>The instance is not shutdown after the replay, use {@link JDA#shutdownNow()} once it is no longer needed.
+     *
+     * @param  recording
+     *         The recording of a {@link GatewayRecorder}
+     * @param  realTime
+     *         True, to wait between frames as long as during the recording.
+     *         False, to handle the frames as fast as possible.
+     *
+     * @throws IllegalArgumentException
+     *         If the recording is null, or the provided intents/cache configuration is not possible
+     * @throws java.io.UncheckedIOException
+     *         If the recording cannot be read
+     * @throws IllegalStateException
+     *         If the recording contains a frame which cannot be decompressed, or the replay was interrupted
+     *
+     * @return A {@link net.dv8tion.jda.api.JDA} instance which has read the entire recording
+     *
+     * @see    #setGatewayRecorder(GatewayRecorder)
+     */
+    @Nonnull
+    public JDA buildReplay(@Nonnull Path recording, boolean realTime)
+    {
+        Checks.notNull(recording, "Recording");
+        try (GatewayRecorder.Reader reader = GatewayRecorder.read(recording))
+        {
+            JDAImpl jda = buildInstance();
+            jda.replay(shardInfo, reader, realTime, intents);
+            return jda;
+        }
+        catch (DataFormatException e)
+        {
+            throw new IllegalStateException("Failed to decompress recorded frame", e);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while replaying recording", e);
+        }
+    }
+
+    private JDAImpl buildInstance()
     {
         checkIntents();
         OkHttpClient httpClient = this.httpClient;
@@ -1910,10 +2219,16 @@ public class JDABuilder
         threadingConfig.setEventPool(eventPool, shutdownEventPool);
         threadingConfig.setAudioPool(audioPool, shutdownAudioPool);
         SessionConfig sessionConfig = new SessionConfig(controller, httpClient, wsFactory, voiceDispatchInterceptor, flags, maxReconnectDelay, largeThreshold);
+        sessionConfig.setGatewayQueue(gatewayQueueSize, gatewayQueuePolicy);
+        sessionConfig.setDispatchThreads(dispatchThreads);
+        sessionConfig.setSessionResumeStore(sessionResumeStore);
+        sessionConfig.setCacheSnapshotDirectory(cacheSnapshotDirectory);
+        sessionConfig.setGatewayRecorder(gatewayRecorder);
         MetaConfig metaConfig = new MetaConfig(maxBufferSize, contextMap, cacheFlags, flags);
 
         JDAImpl jda = new JDAImpl(authConfig, sessionConfig, threadingConfig, metaConfig, restConfig);
         jda.setMemberCachePolicy(memberCachePolicy);
+        jda.setWantedEvents(wantedEvents);
         // We can only do member chunking with the GUILD_MEMBERS intent
         if ((intents & GatewayIntent.GUILD_MEMBERS.getRawValue()) == 0)
             jda.setChunkingFilter(ChunkingFilter.NONE);
@@ -1934,7 +2249,6 @@ public class JDABuilder
                 .setCacheActivity(activity)
                 .setCacheIdle(idle)
                 .setCacheStatus(status);
-        jda.login(shardInfo, compression, true, intents, encoding);
         return jda;
     }
 
@@ -575,6 +575,17 @@ public interface Guild extends IGuildChannelContainer<GuildChannel>, ISnowflake
      */
     boolean isLoaded();
 
+    /**
+     * Whether this guild was loaded from a cache snapshot and has not been confirmed by the gateway yet.
+     * <br>Stale guilds might not reflect changes which happened while JDA was offline.
+     * They are replaced by an up-to-date guild once Discord sends the guild again.
+     *
+     * @return True, if this guild is stale
+     *
+     * @see    net.dv8tion.jda.api.JDABuilder#setCacheSnapshotDirectory(java.nio.file.Path)
+     */
+    boolean isStale();
+
     /**
      * Re-apply the {@link net.dv8tion.jda.api.utils.MemberCachePolicy MemberCachePolicy} of this session to all {@link Member Members} of this Guild.
      *
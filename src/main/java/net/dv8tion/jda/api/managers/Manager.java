@@ -16,6 +16,7 @@
 
 package net.dv8tion.jda.api.managers;
 
+import net.dv8tion.jda.api.requests.RequestPriority;
 import net.dv8tion.jda.api.requests.restaction.AuditableRestAction;
 import net.dv8tion.jda.internal.managers.ManagerBase;
 
@@ -77,6 +78,10 @@ public interface Manager<M extends Manager<M>> extends AuditableRestAction<Void>
     @Override
     M deadline(long timestamp);
 
+    @Nonnull
+    @Override
+    M setPriority(@Nonnull RequestPriority priority);
+
     @Nonnull
     @CheckReturnValue
     M reset(long fields);
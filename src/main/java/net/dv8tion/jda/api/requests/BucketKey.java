@@ -0,0 +1,84 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.api.requests;
+
+import net.dv8tion.jda.internal.utils.EntityString;
+
+/**
+ * Key of a rate-limit bucket, made of the bucket hash and the major parameters of a {@link Route.CompiledRoute}.
+ *
+ * <p>The hash is the instance stored by the rate-limiter for the route, which makes the comparison an identity check in most cases.
+ * Major parameters are kept as primitives, snowflakes are stored as their value and other parameters as a 64-bit hash.
+ */
+final class BucketKey
+{
+    private final String hash;
+    private final int majorKinds;
+    private final long firstMajor, secondMajor;
+    private final int hashCode;
+
+    BucketKey(String hash, int majorKinds, long firstMajor, long secondMajor)
+    {
+        this.hash = hash;
+        this.majorKinds = majorKinds;
+        this.firstMajor = firstMajor;
+        this.secondMajor = secondMajor;
+
+        int result = hash.hashCode();
+        result = 31 * result + majorKinds;
+        result = 31 * result + Long.hashCode(firstMajor);
+        result = 31 * result + Long.hashCode(secondMajor);
+        this.hashCode = result;
+    }
+
+    boolean hasHash(String hash)
+    {
+        return this.hash == hash || this.hash.equals(hash);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (obj == this)
+            return true;
+        if (!(obj instanceof BucketKey))
+            return false;
+        BucketKey other = (BucketKey) obj;
+        return hashCode == other.hashCode
+            && majorKinds == other.majorKinds
+            && firstMajor == other.firstMajor
+            && secondMajor == other.secondMajor
+            && hasHash(other.hash);
+    }
+
+    @Override
+    public String toString()
+    {
+        return new EntityString(this)
+                .addMetadata("hash", hash)
+                .addMetadata("majorKinds", Integer.toHexString(majorKinds))
+                .addMetadata("firstMajor", Long.toUnsignedString(firstMajor))
+                .addMetadata("secondMajor", Long.toUnsignedString(secondMajor))
+                .toString();
+    }
+}
@@ -0,0 +1,638 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.api.requests;
+
+import net.dv8tion.jda.internal.utils.JDALogger;
+import okhttp3.Headers;
+import okhttp3.Response;
+import org.slf4j.Logger;
+
+import javax.annotation.Nonnull;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Rate-limiter which handles buckets concurrently, without a lock shared by all requests.
+ *
+ * <p>This uses the same buckets as the {@link SequentialRestRateLimiter}, and requests of the same bucket are still executed in order.
+ * The difference is in how the state is shared between threads:
+ * <ul>
+ *     <li>Buckets and route hashes are stored in concurrent maps</li>
+ *     <li>The remaining uses and reset time of a bucket are replaced atomically</li>
+ *     <li>Each bucket claims its worker with a compare-and-set, instead of registering it in a shared map</li>
+ *     <li>The cleanup only locks one bucket entry at a time, enqueuing in other buckets is not affected</li>
+ * </ul>
+ *
+ * <p>This is useful when a {@link net.dv8tion.jda.api.sharding.ShardManager ShardManager} shares one rate-limiter between many shards,
+ * which all send requests at the same time.
+ *
+ * <p><b>Example</b><br>
+ * <pre>{@code
+ * DefaultShardManagerBuilder.createDefault(token)
+ *     .setRestConfig(new RestConfig().setRateLimiterFactory(ConcurrentRestRateLimiter::new))
+ *     .build();
+ * }</pre>
+ */
+public final class ConcurrentRestRateLimiter implements RestRateLimiter
+{
+    private static final Logger log = JDALogger.getLog(RestRateLimiter.class);
+    private static final String UNINIT_BUCKET = RateLimitSync.UNINIT_BUCKET;
+
+    private final CompletableFuture<?> shutdownHandle = new CompletableFuture<>();
+
+    private final Future<?> cleanupWorker;
+    private final RateLimitConfig config;
+    private final RateLimitSync sync;
+
+    private final AtomicBoolean isStopped = new AtomicBoolean(), isShutdown = new AtomicBoolean();
+
+    // Route -> Should we print warning for 429? AKA did we already hit it once before
+    private final Set<Route> hitRatelimit = ConcurrentHashMap.newKeySet(5);
+    // Route -> Hash
+    private final ConcurrentMap<Route, String> hashes = new ConcurrentHashMap<>();
+    // Hash + Major Parameter -> Bucket
+    private final ConcurrentMap<BucketKey, Bucket> buckets = new ConcurrentHashMap<>();
+    // Bucket ID -> State loaded from the store, applied once the bucket is created
+    private final ConcurrentMap<String, RateLimitStore.BucketState> restoredBuckets = new ConcurrentHashMap<>();
+    // Whether new hashes were learned since the last save
+    private final AtomicBoolean isStoreDirty = new AtomicBoolean();
+
+    public ConcurrentRestRateLimiter(@Nonnull RateLimitConfig config)
+    {
+        this.config = config;
+        this.sync = new RateLimitSync(config);
+        sync.load(hashes, restoredBuckets);
+        this.cleanupWorker = config.getScheduler().scheduleAtFixedRate(this::cleanup, 30, 30, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void enqueue(@Nonnull Work task)
+    {
+        Route.CompiledRoute route = task.getRoute();
+        String hash = getRouteHash(route.getBaseRoute());
+        // Adding the request while computing the entry prevents the cleanup from removing the bucket at the same time
+        Bucket bucket = buckets.compute(route.getBucketKey(hash), (key, current) -> {
+            if (current == null)
+                current = createBucket(key, hash, route);
+            current.requests.addLast(task);
+            return current;
+        });
+        bucket.schedule();
+    }
+
+    @Override
+    public void stop(boolean shutdown, @Nonnull Runnable callback)
+    {
+        boolean doShutdown = shutdown;
+        if (isStopped.compareAndSet(false, true))
+        {
+            shutdownHandle.thenRun(callback);
+            if (!doShutdown)
+            {
+                int count = buckets.values().stream()
+                        .mapToInt(bucket -> bucket.requests.size())
+                        .sum();
+
+                if (count > 0)
+                    log.info("Waiting for {} requests to finish.", count);
+                // Running workers shut down in their backoff, after the response updated the bucket
+                doShutdown = count == 0 && buckets.values().stream().noneMatch(bucket -> bucket.scheduled.get());
+            }
+        }
+        if (doShutdown)
+            shutdown();
+    }
+
+    @Override
+    public boolean isStopped()
+    {
+        return isStopped.get();
+    }
+
+    @Override
+    public int cancelRequests()
+    {
+        // Empty buckets will be removed by the cleanup worker, which also checks for rate limit parameters
+        int cancelled = (int) buckets.values()
+                .stream()
+                .map(bucket -> bucket.requests)
+                .flatMap(WorkQueue::stream)
+                .filter(request -> !request.isPriority() && !request.isCancelled())
+                .peek(Work::cancel)
+                .count();
+
+        if (cancelled == 1)
+            log.warn("Cancelled 1 request!");
+        else if (cancelled > 1)
+            log.warn("Cancelled {} requests!", cancelled);
+        return cancelled;
+    }
+
+    private void shutdown()
+    {
+        if (!isShutdown.compareAndSet(false, true))
+            return;
+        cleanupWorker.cancel(false);
+        cleanup();
+        shutdownHandle.complete(null);
+    }
+
+    private void saveStore()
+    {
+        // The bucket states are only saved with new hashes, or on shutdown
+        if (!sync.hasStore() || !isStoreDirty.getAndSet(false) && !isShutdown.get())
+            return;
+
+        Map<String, RateLimitStore.BucketState> states = new HashMap<>();
+        for (Bucket bucket : buckets.values())
+        {
+            BucketState state = bucket.state.get();
+            states.put(bucket.bucketId, new RateLimitStore.BucketState(state.remaining, state.reset));
+        }
+        sync.save(sync.createSnapshot(hashes, states));
+    }
+
+    private void cleanup()
+    {
+        // Save before the buckets are removed, otherwise the state is lost on shutdown
+        saveStore();
+        // This will remove buckets that are no longer needed every 30 seconds to avoid memory leakage
+        // We will keep the hashes in memory since they are very limited (by the amount of possible routes)
+        AtomicInteger removed = new AtomicInteger();
+        long now = getNow();
+        for (Bucket bucket : buckets.values())
+        {
+            if (isShutdown.get())
+                bucket.requests.stream().forEach(Work::cancel); // Cancel all requests
+            bucket.requests.removeIf(Work::isSkipped); // Remove cancelled requests
+
+            buckets.computeIfPresent(bucket.key, (key, current) -> {
+                if (current != bucket || !bucket.isExpired(now))
+                    return current;
+                removed.incrementAndGet();
+                return null;
+            });
+        }
+
+        // Log how many buckets were removed
+        if (removed.get() > 0)
+            log.debug("Removed {} expired buckets", removed.get());
+        else if (isStopped.get())
+            shutdown();
+    }
+
+    private String getRouteHash(Route route)
+    {
+        String hash = hashes.get(route);
+        // The uninit hash is stored as well, this avoids building the string for every request
+        return hash != null ? hash : hashes.computeIfAbsent(route, r -> UNINIT_BUCKET + "+" + r);
+    }
+
+    private BucketKey getBucketKey(Route.CompiledRoute route)
+    {
+        // Retrieve the hash via the route
+        return route.getBucketKey(getRouteHash(route.getBaseRoute()));
+    }
+
+    private Bucket createBucket(BucketKey key, String hash, Route.CompiledRoute route)
+    {
+        String bucketId = hash + ":" + route.getMajorParameters();
+        Bucket bucket;
+        if (route.getBaseRoute().isInteractionBucket())
+            bucket = new InteractionBucket(key, bucketId);
+        else
+            bucket = new ClassicBucket(key, bucketId);
+
+        RateLimitStore.BucketState state = restoredBuckets.isEmpty() ? null : restoredBuckets.remove(bucketId);
+        if (state != null)
+            bucket.state.set(new BucketState(state.getRemaining(), state.getReset()));
+        return bucket;
+    }
+
+    private Bucket getBucket(Route.CompiledRoute route)
+    {
+        // Get or create a bucket for the hash + major parameters
+        String hash = getRouteHash(route.getBaseRoute());
+        BucketKey key = route.getBucketKey(hash);
+        Bucket bucket = buckets.get(key);
+        return bucket != null ? bucket : buckets.computeIfAbsent(key, k -> createBucket(k, hash, route));
+    }
+
+    private void scheduleElastic(Bucket bucket)
+    {
+        if (isShutdown.get())
+            return;
+
+        ExecutorService elastic = config.getElastic();
+        ScheduledExecutorService scheduler = config.getScheduler();
+
+        try
+        {
+            // Avoid context switch if unnecessary
+            if (elastic == scheduler)
+                bucket.run();
+            else
+                elastic.execute(bucket);
+        }
+        catch (RejectedExecutionException ex)
+        {
+            if (!isShutdown.get())
+                log.error("Failed to execute bucket worker", ex);
+        }
+        catch (Throwable t)
+        {
+            log.error("Caught throwable in bucket worker", t);
+            if (t instanceof Error)
+                throw t;
+        }
+    }
+
+    private long parseLong(String input)
+    {
+        return input == null ? 0L : Long.parseLong(input);
+    }
+
+    private long parseDouble(String input)
+    {
+        //The header value is using a double to represent milliseconds and seconds:
+        // 5.250 this is 5 seconds and 250 milliseconds (5250 milliseconds)
+        return input == null ? 0L : (long) (Double.parseDouble(input) * 1000);
+    }
+
+    private long getNow()
+    {
+        return System.currentTimeMillis();
+    }
+
+    private void updateBucket(Route.CompiledRoute route, Response response)
+    {
+        Bucket bucket = getBucket(route);
+        try
+        {
+            Headers headers = response.headers();
+
+            boolean global = headers.get(GLOBAL_HEADER) != null;
+            boolean cloudflare = headers.get("via") == null;
+            String hash = headers.get(HASH_HEADER);
+            String scope = headers.get(SCOPE_HEADER);
+            long now = getNow();
+
+            // Create a new bucket for the hash if needed
+            Route baseRoute = route.getBaseRoute();
+            if (hash != null)
+            {
+                String current = getRouteHash(baseRoute);
+                if (current.startsWith(UNINIT_BUCKET) && hashes.replace(baseRoute, current, hash))
+                {
+                    isStoreDirty.set(true);
+                    log.debug("Caching bucket hash {} -> {}", baseRoute, hash);
+                }
+
+                bucket = getBucket(route);
+            }
+
+            if (response.code() == 429)
+            {
+                String retryAfterHeader = headers.get(RETRY_AFTER_HEADER);
+                long retryAfter = parseLong(retryAfterHeader) * 1000; // seconds precision
+                // Handle global rate limit if necessary
+                if (global)
+                {
+                    config.getGlobalRateLimit().setClassic(now + retryAfter);
+                    log.error("Encountered global rate limit! Retry-After: {} ms Scope: {}", retryAfter, scope);
+                }
+                // Handle cloudflare rate limits, this applies to all routes and uses seconds for retry-after
+                else if (cloudflare)
+                {
+                    config.getGlobalRateLimit().setCloudflare(now + retryAfter);
+                    log.error("Encountered cloudflare rate limit! Retry-After: {} s", retryAfter / 1000);
+                }
+                // Handle hard rate limit, pretty much just log that it happened
+                else
+                {
+                    boolean firstHit = hitRatelimit.add(baseRoute) && retryAfter < 60000;
+                    // Update the bucket to the new information
+                    bucket.state.set(new BucketState(0, now + retryAfter));
+                    sync.update(bucket.bucketId, 0, now + retryAfter);
+                    // don't log warning if we hit the rate limit for the first time, likely due to initialization of the bucket
+                    // unless its a long retry-after delay (more than a minute)
+                    if (firstHit)
+                        log.debug("Encountered 429 on route {} with bucket {} Retry-After: {} ms Scope: {}", baseRoute, bucket.bucketId, retryAfter, scope);
+                    else
+                        log.warn("Encountered 429 on route {} with bucket {} Retry-After: {} ms Scope: {}", baseRoute, bucket.bucketId, retryAfter, scope);
+                }
+
+                log.trace("Updated bucket {} to retry after {}", bucket.bucketId, bucket.state.get().reset - now);
+                return;
+            }
+
+            // If hash is null this means we didn't get enough information to update a bucket
+            if (hash == null)
+                return;
+
+            // Update the bucket parameters with new information
+            String limitHeader = headers.get(LIMIT_HEADER);
+            String remainingHeader = headers.get(REMAINING_HEADER);
+            String resetAfterHeader = headers.get(RESET_AFTER_HEADER);
+            String resetHeader = headers.get(RESET_HEADER);
+
+            int remaining = (int) parseLong(remainingHeader);
+            long reset = config.isRelative() ? now + parseDouble(resetAfterHeader) : parseDouble(resetHeader);
+            bucket.state.set(new BucketState(remaining, reset));
+            sync.update(bucket.bucketId, remaining, reset);
+            log.trace("Updated bucket {} to ({}/{}, {})", bucket.bucketId, remaining, limitHeader, reset - now);
+        }
+        catch (Exception e)
+        {
+            log.error("Encountered Exception while updating a bucket. Route: {} Bucket: {} Code: {} Headers:\n{}",
+                    route.getBaseRoute(), bucket, response.code(), response.headers(), e);
+        }
+    }
+
+    private static final class BucketState
+    {
+        private static final BucketState INITIAL = new BucketState(1, 0);
+
+        private final int remaining;
+        private final long reset;
+
+        private BucketState(int remaining, long reset)
+        {
+            this.remaining = remaining;
+            this.reset = reset;
+        }
+    }
+
+    private abstract class Bucket implements Runnable
+    {
+        protected final BucketKey key;
+        protected final String bucketId;
+        protected final WorkQueue requests = new WorkQueue();
+        protected final AtomicReference<BucketState> state = new AtomicReference<>(BucketState.INITIAL);
+        // Whether a worker is scheduled or running, only one worker can run at a time
+        protected final AtomicBoolean scheduled = new AtomicBoolean();
+
+        public Bucket(BucketKey key, String bucketId)
+        {
+            this.key = key;
+            this.bucketId = bucketId;
+        }
+
+        public boolean isUninit()
+        {
+            return bucketId.startsWith(UNINIT_BUCKET);
+        }
+
+        public boolean isExpired(long now)
+        {
+            if (!requests.isEmpty() || scheduled.get())
+                return false;
+            // If the requests of the bucket are drained and the reset is expired the bucket has no valuable information
+            // Remove empty buckets when the rate limiter is stopped
+            return isUninit() || state.get().reset <= now || isStopped.get();
+        }
+
+        protected boolean reserve()
+        {
+            if (isUninit())
+                return true;
+            long now = getNow();
+            long wait = sync.acquire(bucketId, now);
+            if (wait <= 0)
+                return true;
+            state.set(new BucketState(0, now + wait));
+            return false;
+        }
+
+        public void retry(Work request)
+        {
+            if (!moveRequest(request))
+                requests.addFirst(request);
+        }
+
+        public abstract long getGlobalRateLimit(long now);
+
+        public long getRateLimit()
+        {
+            long now = getNow();
+
+            long global = getGlobalRateLimit(now);
+            // Once the global rate-limit resets, buckets with more important requests continue first
+            if (global > 0)
+                global += requests.getGlobalDelay();
+
+            // If the reset time has expired, we assume there are remaining uses (we don't know better)
+            BucketState current = state.get();
+            long backoff = current.remaining < 1 && current.reset > now ? current.reset - now : 0L;
+
+            // If there are remaining requests we don't need to do anything, otherwise return backoff in milliseconds
+            return Math.max(global, backoff);
+        }
+
+        protected boolean isGlobalRateLimit()
+        {
+            return getGlobalRateLimit(getNow()) > 0;
+        }
+
+        protected void schedule()
+        {
+            if (isShutdown.get() || requests.isEmpty() || !scheduled.compareAndSet(false, true))
+                return;
+
+            try
+            {
+                config.getScheduler().schedule(() -> scheduleElastic(this), getRateLimit(), TimeUnit.MILLISECONDS);
+            }
+            catch (RejectedExecutionException ex)
+            {
+                scheduled.set(false);
+                if (!isShutdown.get())
+                    log.error("Failed to schedule bucket worker", ex);
+            }
+        }
+
+        protected void backoff()
+        {
+            // Release the worker first, so requests enqueued in the meantime are not missed
+            scheduled.set(false);
+            if (!requests.isEmpty())
+            {
+                schedule();
+            }
+            else if (isStopped.get())
+            {
+                // Buckets which were drained before the stop are removed as well, otherwise the shutdown waits for the cleanup
+                long now = getNow();
+                for (Bucket bucket : buckets.values())
+                    buckets.computeIfPresent(bucket.key, (k, current) -> current == bucket && bucket.isExpired(now) ? null : current);
+            }
+            if (isStopped.get() && buckets.isEmpty())
+                shutdown();
+        }
+
+        protected boolean moveRequest(Work request)
+        {
+            // Attempt moving request to correct bucket if it has been created
+            if (getBucketKey(request.getRoute()).equals(key))
+                return false;
+            enqueue(request);
+            return true;
+        }
+
+        protected CompletableFuture<Response> execute(Work request)
+        {
+            try
+            {
+                return request.executeAsync();
+            }
+            catch (Throwable ex)
+            {
+                CompletableFuture<Response> future = new CompletableFuture<>();
+                future.completeExceptionally(ex);
+                return future;
+            }
+        }
+
+        protected boolean handleResult(Work request, CompletableFuture<Response> result)
+        {
+            try
+            {
+                Response response = result.join();
+                if (response != null)
+                    updateBucket(request.getRoute(), response);
+                if (!request.isDone())
+                    retry(request);
+            }
+            catch (Throwable ex)
+            {
+                if (ex instanceof CompletionException && ex.getCause() != null)
+                    ex = ex.getCause();
+                log.error("Encountered exception trying to execute request", ex);
+                if (ex instanceof Error)
+                    throw (Error) ex;
+                return true;
+            }
+            return false;
+        }
+
+        protected void resume(Work request, CompletableFuture<Response> result)
+        {
+            try
+            {
+                if (handleResult(request, result))
+                    backoff();
+                else
+                    run();
+            }
+            catch (Throwable t)
+            {
+                log.error("Caught throwable in bucket worker", t);
+                if (t instanceof Error)
+                    throw t;
+            }
+        }
+
+        public void run()
+        {
+            log.trace("Bucket {} is running {} requests", bucketId, requests.size());
+            while (!requests.isEmpty())
+            {
+                long rateLimit = getRateLimit();
+                if (rateLimit > 0L)
+                {
+                    // We need to backoff since we ran out of remaining uses or hit the global rate limit
+                    Work request = requests.peek(); // this *should* not be null
+                    String baseRoute = request != null ? request.getRoute().getBaseRoute().toString() : "N/A";
+                    if (!isGlobalRateLimit() && rateLimit >= 1000 * 60 * 30) // 30 minutes
+                        log.warn("Encountered long {} minutes Rate-Limit on route {}", TimeUnit.MILLISECONDS.toMinutes(rateLimit), baseRoute);
+                    log.debug("Backing off {} ms for bucket {} on route {}", rateLimit, bucketId, baseRoute);
+                    break;
+                }
+
+                Work request = requests.poll();
+                if (request == null)
+                    break;
+                if (request.isSkipped())
+                    continue;
+
+                if (isUninit() && moveRequest(request))
+                    continue;
+
+                if (!reserve())
+                {
+                    // Another process used up the bucket, the request waits for the reset
+                    requests.addFirst(request);
+                    continue;
+                }
+
+                CompletableFuture<Response> result = execute(request);
+                if (!result.isDone())
+                {
+                    // The worker continues once the response arrives, without blocking a thread in the meantime
+                    result.whenComplete((response, error) -> resume(request, result));
+                    return;
+                }
+
+                if (handleResult(request, result)) break;
+            }
+
+            backoff();
+        }
+
+        @Override
+        public String toString()
+        {
+            return bucketId;
+        }
+    }
+
+    private class ClassicBucket extends Bucket
+    {
+        public ClassicBucket(BucketKey key, String bucketId)
+        {
+            super(key, bucketId);
+        }
+
+        @Override
+        public long getGlobalRateLimit(long now)
+        {
+            GlobalRateLimit holder = config.getGlobalRateLimit();
+            long global = Math.max(holder.getClassic(), holder.getCloudflare());
+            return global - now;
+        }
+    }
+
+    private class InteractionBucket extends Bucket
+    {
+        public InteractionBucket(@Nonnull BucketKey key, @Nonnull String bucketId)
+        {
+            super(key, bucketId);
+        }
+
+        @Override
+        public long getGlobalRateLimit(long now)
+        {
+            // Only cloudflare bans apply to interactions
+            return config.getGlobalRateLimit().getCloudflare() - now;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.api.requests;
+
+import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.internal.utils.Checks;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Default implementation of {@link RateLimitStore}, which stores the rate-limit state in a JSON file.
+ *
+ * <p>The saved snapshots are merged with the previous state, so the shards of a shard manager can share the same store.
+ * The file should not be shared by multiple processes running at the same time, since each process only merges its own state.
+ *
+ * <p><b>Example</b><br>
+ * <pre>{@code
+ * DefaultShardManagerBuilder.createDefault(token)
+ *     .setRestConfig(new RestConfig().setRateLimitStore(new FileRateLimitStore(Paths.get("rate-limits.json"))))
+ *     .build();
+ * }</pre>
+ */
+public class FileRateLimitStore implements RateLimitStore
+{
+    private final Path file;
+    private Snapshot state;
+
+    /**
+     * Creates a new store, which saves the state in the provided file.
+     * <br>The parent directories are created when the state is first saved.
+     *
+     * @param  file
+     *         The file for the rate-limit state
+     *
+     * @throws IllegalArgumentException
+     *         If the file is null
+     */
+    public FileRateLimitStore(@Nonnull Path file)
+    {
+        Checks.notNull(file, "File");
+        this.file = file;
+    }
+
+    @Nonnull
+    public Path getFile()
+    {
+        return file;
+    }
+
+    @Nonnull
+    @Override
+    public synchronized Snapshot load()
+    {
+        if (state == null)
+            state = read();
+        return state;
+    }
+
+    @Override
+    public synchronized void save(@Nonnull Snapshot snapshot)
+    {
+        Checks.notNull(snapshot, "Snapshot");
+        state = load().merge(snapshot);
+        try
+        {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            // Write a temporary file first, so a crash while writing does not leave a corrupted file behind
+            Path tmpPath = Files.createTempFile(directory, file.getFileName().toString(), ".part");
+            try
+            {
+                Files.write(tmpPath, state.toData().toJson());
+                try
+                {
+                    Files.move(tmpPath, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+                catch (AtomicMoveNotSupportedException e)
+                {
+                    Files.move(tmpPath, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            finally
+            {
+                Files.deleteIfExists(tmpPath);
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Nonnull
+    protected Snapshot read()
+    {
+        try
+        {
+            return Snapshot.fromData(DataObject.fromJson(Files.readAllBytes(file)));
+        }
+        catch (NoSuchFileException e)
+        {
+            return Snapshot.empty();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -57,4 +57,11 @@ public interface FluentRestAction<T, R extends FluentRestAction<T, R>> extends R
     {
         return (R) RestAction.super.deadline(timestamp);
     }
+
+    @Nonnull
+    @Override
+    default R setPriority(@Nonnull RequestPriority priority)
+    {
+        return (R) RestAction.super.setPriority(priority);
+    }
 }
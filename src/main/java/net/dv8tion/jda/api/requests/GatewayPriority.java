@@ -0,0 +1,54 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.api.requests;
+
+/**
+ * Priority classes of gateway commands, in descending order.
+ * <br>When the gateway rate limit is exhausted, commands of a more important class are sent first.
+ *
+ * @see net.dv8tion.jda.api.JDA#getGatewaySendTime(GatewayPriority)
+ */
+public enum GatewayPriority
+{
+    /** Heartbeats, which are sent immediately and can use the reserved tokens */
+    HEARTBEAT(true),
+    /** Identify and resume, which are sent immediately and can use the reserved tokens */
+    AUTHENTICATION(true),
+    /** Voice state updates for audio connections */
+    VOICE(false),
+    /** Member chunk requests */
+    CHUNK(false),
+    /** Presence updates and all other commands */
+    PRESENCE(false);
+
+    private final boolean reserved;
+
+    GatewayPriority(boolean reserved)
+    {
+        this.reserved = reserved;
+    }
+
+    /**
+     * Whether this priority can use the tokens which are reserved for the session lifecycle.
+     *
+     * @return True, if this can use the reserved tokens
+     */
+    public boolean isReserved()
+    {
+        return reserved;
+    }
+}
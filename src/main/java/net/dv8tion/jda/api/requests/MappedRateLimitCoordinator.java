@@ -0,0 +1,372 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.api.requests;
+
+import net.dv8tion.jda.internal.utils.Checks;
+import net.dv8tion.jda.internal.utils.IOUtil;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Default implementation of {@link RateLimitCoordinator}, which shares the rate-limits through a memory-mapped file.
+ *
+ * <p>All processes on the same host, which use the same file, share the global rate-limit and the bucket states.
+ * No external service is required. The file has a fixed number of slots, and each bucket is assigned to a slot by the hash of its id.
+ * When two buckets share a slot, the last updated bucket replaces the other, which then falls back to the limits known by each process.
+ *
+ * <p>Each slot is updated while holding a {@link FileLock} on its region of the file, since Java 8 provides no atomic operations on mapped memory.
+ * The lock is only held for a few memory accesses.
+ *
+ * <p>The file is not deleted by {@link #close()}, and can be reused by the next process.
+ *
+ * <p><b>Example</b><br>
+ * <pre>{@code
+ * RateLimitCoordinator coordinator = new MappedRateLimitCoordinator(Paths.get("/tmp/bot-rate-limits"));
+ * DefaultShardManagerBuilder.createDefault(token)
+ *     .setShards(0, 15)
+ *     .setShardsTotal(64)
+ *     .setRestConfig(new RestConfig().setRateLimitCoordinator(coordinator))
+ *     .build();
+ * }</pre>
+ */
+public class MappedRateLimitCoordinator implements RateLimitCoordinator, Closeable
+{
+    /** The default number of bucket slots */
+    public static final int DEFAULT_SLOTS = 4096;
+
+    private static final int MAGIC = 0x4A444152; // JDAR
+    private static final int VERSION = 1;
+    // magic, version, slots, padding, classic, cloudflare
+    private static final int HEADER_SIZE = 32;
+    private static final int CLASSIC_OFFSET = 16, CLOUDFLARE_OFFSET = 24;
+    // key, reset, remaining, padding
+    private static final int SLOT_SIZE = 24;
+    private static final int RESET_OFFSET = 8, REMAINING_OFFSET = 16;
+
+    // File locks are held by the whole process, overlapping locks of different threads have to be avoided first
+    private static final Object HEADER_MONITOR = new Object();
+    private static final Object[] SLOT_MONITORS = new Object[64];
+
+    static
+    {
+        for (int i = 0; i < SLOT_MONITORS.length; i++)
+            SLOT_MONITORS[i] = new Object();
+    }
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int slots;
+    private final RestRateLimiter.GlobalRateLimit globalRateLimit = new SharedGlobalRateLimit();
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private boolean closed;
+
+    /**
+     * Creates a coordinator with {@value #DEFAULT_SLOTS} slots, or opens an existing file.
+     *
+     * @param  file
+     *         The shared file
+     *
+     * @throws IllegalArgumentException
+     *         If the file is null, or the file exists and is not a rate-limit file
+     * @throws UncheckedIOException
+     *         If the file cannot be opened or mapped
+     */
+    public MappedRateLimitCoordinator(@Nonnull Path file)
+    {
+        this(file, DEFAULT_SLOTS);
+    }
+
+    /**
+     * Creates a coordinator with the provided number of slots, or opens an existing file.
+     * <br>An existing file keeps the number of slots it was created with.
+     *
+     * @param  file
+     *         The shared file
+     * @param  slots
+     *         The number of bucket slots, this should be well above the number of buckets used at the same time
+     *
+     * @throws IllegalArgumentException
+     *         If the file is null, the number of slots is not positive, or the file exists and is not a rate-limit file
+     * @throws UncheckedIOException
+     *         If the file cannot be opened or mapped
+     */
+    public MappedRateLimitCoordinator(@Nonnull Path file, int slots)
+    {
+        Checks.notNull(file, "File");
+        Checks.positive(slots, "Slots");
+        this.file = file;
+        FileChannel channel = null;
+        try
+        {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            synchronized (HEADER_MONITOR)
+            {
+                FileLock lock = channel.lock(0, HEADER_SIZE, false);
+                try
+                {
+                    if (channel.size() >= HEADER_SIZE)
+                    {
+                        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+                        try
+                        {
+                            Checks.check(header.getInt(0) == MAGIC && header.getInt(4) == VERSION, "The file %s is not a rate-limit file", file);
+                            slots = header.getInt(8);
+                        }
+                        finally
+                        {
+                            IOUtil.unmap(header);
+                        }
+                    }
+
+                    // Mapping the file also extends it, the new slots are zero which is the state of an unknown bucket
+                    this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) slots * SLOT_SIZE);
+                    if (buffer.getInt(0) != MAGIC)
+                    {
+                        buffer.putInt(8, slots);
+                        buffer.putInt(4, VERSION);
+                        buffer.putInt(0, MAGIC);
+                    }
+                }
+                finally
+                {
+                    lock.release();
+                }
+            }
+            this.slots = slots;
+            this.channel = channel;
+        }
+        catch (IOException e)
+        {
+            closeQuietly(channel);
+            throw new UncheckedIOException(e);
+        }
+        catch (RuntimeException e)
+        {
+            closeQuietly(channel);
+            throw e;
+        }
+    }
+
+    @Nonnull
+    public Path getFile()
+    {
+        return file;
+    }
+
+    /**
+     * The number of bucket slots in the file.
+     *
+     * @return The number of slots
+     */
+    public int getSlots()
+    {
+        return slots;
+    }
+
+    @Nonnull
+    @Override
+    public RestRateLimiter.GlobalRateLimit getGlobalRateLimit()
+    {
+        return globalRateLimit;
+    }
+
+    @Override
+    public long acquire(@Nonnull String bucketId, long now)
+    {
+        long key = hash(bucketId);
+        int slot = getSlot(key);
+        int offset = HEADER_SIZE + slot * SLOT_SIZE;
+        return locked(slot, () ->
+        {
+            long reset = buffer.getLong(offset + RESET_OFFSET);
+            // Another bucket in the slot, or an expired reset, means we don't know better
+            if (buffer.getLong(offset) != key || reset <= now)
+                return 0L;
+            int remaining = buffer.getInt(offset + REMAINING_OFFSET);
+            if (remaining < 1)
+                return reset - now;
+            buffer.putInt(offset + REMAINING_OFFSET, remaining - 1);
+            return 0L;
+        });
+    }
+
+    @Override
+    public void update(@Nonnull String bucketId, int remaining, long reset)
+    {
+        long key = hash(bucketId);
+        int slot = getSlot(key);
+        int offset = HEADER_SIZE + slot * SLOT_SIZE;
+        locked(slot, () ->
+        {
+            long currentReset = buffer.getLong(offset + RESET_OFFSET);
+            // Responses of the same window arrive out of order, the lowest remaining uses are the most recent
+            if (buffer.getLong(offset) == key && Math.abs(currentReset - reset) < 1000)
+            {
+                buffer.putInt(offset + REMAINING_OFFSET, Math.min(remaining, buffer.getInt(offset + REMAINING_OFFSET)));
+                buffer.putLong(offset + RESET_OFFSET, Math.max(reset, currentReset));
+            }
+            else
+            {
+                buffer.putLong(offset, key);
+                buffer.putInt(offset + REMAINING_OFFSET, remaining);
+                buffer.putLong(offset + RESET_OFFSET, reset);
+            }
+            return 0L;
+        });
+    }
+
+    /**
+     * Unmaps and closes the file, the shared state remains in the file for other processes.
+     * <br>After this, the coordinator no longer limits requests and the updates are discarded.
+     */
+    @Override
+    public void close()
+    {
+        closeLock.writeLock().lock();
+        try
+        {
+            if (closed)
+                return;
+            closed = true;
+            IOUtil.unmap(buffer);
+            closeQuietly(channel);
+        }
+        finally
+        {
+            closeLock.writeLock().unlock();
+        }
+    }
+
+    private int getSlot(long key)
+    {
+        return (int) Long.remainderUnsigned(key, slots);
+    }
+
+    private long locked(int slot, LongSupplier action)
+    {
+        return locked(SLOT_MONITORS[slot % SLOT_MONITORS.length], HEADER_SIZE + (long) slot * SLOT_SIZE, SLOT_SIZE, action);
+    }
+
+    private long locked(Object monitor, long position, long size, LongSupplier action)
+    {
+        return read(() ->
+        {
+            synchronized (monitor)
+            {
+                try
+                {
+                    FileLock lock = channel.lock(position, size, false);
+                    try
+                    {
+                        return action.getAsLong();
+                    }
+                    finally
+                    {
+                        lock.release();
+                    }
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+    }
+
+    private long read(LongSupplier action)
+    {
+        // The buffer must not be accessed once it is unmapped, that would crash the JVM
+        closeLock.readLock().lock();
+        try
+        {
+            return closed ? 0L : action.getAsLong();
+        }
+        finally
+        {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    private static long hash(String value)
+    {
+        // FNV-1a, which is the same in every process unlike identity hashes
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++)
+        {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static void closeQuietly(FileChannel channel)
+    {
+        if (channel == null)
+            return;
+        try
+        {
+            channel.close();
+        }
+        catch (IOException ignored) {}
+    }
+
+    private class SharedGlobalRateLimit implements RestRateLimiter.GlobalRateLimit
+    {
+        @Override
+        public long getClassic()
+        {
+            // Aligned reads of a long are not torn, the file lock is only needed for writes
+            return read(() -> buffer.getLong(CLASSIC_OFFSET));
+        }
+
+        @Override
+        public void setClassic(long timestamp)
+        {
+            locked(HEADER_MONITOR, 0, HEADER_SIZE, () -> {
+                buffer.putLong(CLASSIC_OFFSET, timestamp);
+                return 0L;
+            });
+        }
+
+        @Override
+        public long getCloudflare()
+        {
+            return read(() -> buffer.getLong(CLOUDFLARE_OFFSET));
+        }
+
+        @Override
+        public void setCloudflare(long timestamp)
+        {
+            locked(HEADER_MONITOR, 0, HEADER_SIZE, () -> {
+                buffer.putLong(CLOUDFLARE_OFFSET, timestamp);
+                return 0L;
+            });
+        }
+    }
+}
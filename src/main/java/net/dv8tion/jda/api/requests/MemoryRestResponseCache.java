@@ -0,0 +1,219 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.api.requests;
+
+import net.dv8tion.jda.internal.utils.Checks;
+import net.dv8tion.jda.internal.utils.EntityString;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Default implementation of {@link RestResponseCache}, which keeps the responses in memory.
+ *
+ * <p>Each cached route has its own time-to-live, responses of other routes are not cached.
+ * When the cache is full, the least recently used entry is removed.
+ *
+ * <p>The same instance can be used by every shard of a shard manager, since the cached routes do not depend on the shard.
+ *
+ * <p><b>Example</b><br>
+ * <pre>{@code
+ * RestResponseCache cache = new MemoryRestResponseCache(1000)
+ *     .cache(Route.Applications.GET_BOT_APPLICATION, Duration.ofMinutes(10))
+ *     .cache(Route.Interactions.GET_COMMANDS, Duration.ofMinutes(10))
+ *     .cache(Route.Emojis.GET_EMOJIS, Duration.ofMinutes(5));
+ *
+ * DefaultShardManagerBuilder.createDefault(token)
+ *     .setRestConfig(new RestConfig().setResponseCache(cache))
+ *     .build();
+ * }</pre>
+ */
+public class MemoryRestResponseCache implements RestResponseCache
+{
+    private final int maxSize;
+    private final Map<Route, Long> timeToLive = new ConcurrentHashMap<>();
+    private final LinkedHashMap<String, CacheEntry> entries;
+    private long hits, misses;
+
+    /**
+     * Creates a new cache, which keeps up to the provided number of responses.
+     *
+     * @param  maxSize
+     *         The maximum number of cached responses
+     *
+     * @throws IllegalArgumentException
+     *         If the size is not positive
+     */
+    public MemoryRestResponseCache(int maxSize)
+    {
+        Checks.positive(maxSize, "Max size");
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest)
+            {
+                return size() > MemoryRestResponseCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Enables caching for the provided route.
+     *
+     * @param  route
+     *         The GET route
+     * @param  timeToLive
+     *         How long a response stays valid
+     *
+     * @throws IllegalArgumentException
+     *         If the route is not a GET route, or the duration is not positive
+     *
+     * @return The current cache for chaining convenience
+     */
+    @Nonnull
+    public MemoryRestResponseCache cache(@Nonnull Route route, @Nonnull Duration timeToLive)
+    {
+        Checks.notNull(route, "Route");
+        Checks.notNull(timeToLive, "Time to live");
+        Checks.check(route.getMethod() == Method.GET, "Only GET routes can be cached, provided %s", route);
+        Checks.check(!timeToLive.isNegative() && !timeToLive.isZero(), "Time to live must be positive");
+        this.timeToLive.put(route, timeToLive.toNanos());
+        return this;
+    }
+
+    public int getMaxSize()
+    {
+        return maxSize;
+    }
+
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * The number of requests, which used a cached response.
+     *
+     * @return The number of cache hits
+     */
+    public synchronized long getHitCount()
+    {
+        return hits;
+    }
+
+    /**
+     * The number of requests for cacheable routes, which had to be sent.
+     *
+     * @return The number of cache misses
+     */
+    public synchronized long getMissCount()
+    {
+        return misses;
+    }
+
+    @Override
+    public boolean isCacheable(@Nonnull Route.CompiledRoute route)
+    {
+        return timeToLive.containsKey(route.getBaseRoute());
+    }
+
+    @Nullable
+    @Override
+    public synchronized CachedResponse get(@Nonnull Route.CompiledRoute route)
+    {
+        String key = route.getCompiledRoute();
+        CacheEntry entry = entries.get(key);
+        if (entry != null && entry.expiresAt - System.nanoTime() <= 0)
+        {
+            entries.remove(key);
+            entry = null;
+        }
+
+        if (entry == null)
+        {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.response;
+    }
+
+    @Override
+    public synchronized void put(@Nonnull Route.CompiledRoute route, @Nonnull CachedResponse response)
+    {
+        Long ttl = timeToLive.get(route.getBaseRoute());
+        if (ttl != null)
+            entries.put(route.getCompiledRoute(), new CacheEntry(response, System.nanoTime() + ttl));
+    }
+
+    @Override
+    public synchronized void invalidate(@Nonnull String path)
+    {
+        entries.keySet().removeIf(key -> isRelated(key, path));
+    }
+
+    @Override
+    public synchronized void clear()
+    {
+        entries.clear();
+    }
+
+    @Override
+    public String toString()
+    {
+        return new EntityString(this)
+                .addMetadata("size", size())
+                .addMetadata("maxSize", maxSize)
+                .toString();
+    }
+
+    // Checks whether one path is equal to, or a parent of, the other path
+    private static boolean isRelated(String first, String second)
+    {
+        int firstLength = pathLength(first), secondLength = pathLength(second);
+        int length = Math.min(firstLength, secondLength);
+        if (!first.regionMatches(0, second, 0, length))
+            return false;
+        // Only full segments match, guilds/1 is not related to guilds/12
+        if (firstLength == secondLength)
+            return true;
+        return (firstLength > length ? first : second).charAt(length) == '/';
+    }
+
+    private static int pathLength(String path)
+    {
+        int query = path.indexOf('?');
+        return query < 0 ? path.length() : query;
+    }
+
+    private static class CacheEntry
+    {
+        private final CachedResponse response;
+        private final long expiresAt;
+
+        private CacheEntry(CachedResponse response, long expiresAt)
+        {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.api.requests;
+
+import net.dv8tion.jda.internal.utils.EntityString;
+
+/**
+ * The time that sent REST requests or gateway commands of one priority class waited before they were sent.
+ * <br>This includes the time waiting for rate-limits, as well as for more important requests or commands.
+ *
+ * <p>Retries of a request are not counted again.
+ *
+ * @see net.dv8tion.jda.api.JDA#getRestQueueTime(RequestPriority)
+ * @see net.dv8tion.jda.api.JDA#getGatewaySendTime(GatewayPriority)
+ */
+public final class QueueTime
+{
+    private final long count;
+    private final long totalTime;
+    private final long maxTime;
+
+    public QueueTime(long count, long totalTime, long maxTime)
+    {
+        this.count = count;
+        this.totalTime = totalTime;
+        this.maxTime = maxTime;
+    }
+
+    /**
+     * The number of sent requests or commands.
+     *
+     * @return The number of requests or commands
+     */
+    public long getCount()
+    {
+        return count;
+    }
+
+    /**
+     * The combined waiting time of all sent requests or commands.
+     *
+     * @return The time in milliseconds
+     */
+    public long getTotalTime()
+    {
+        return totalTime;
+    }
+
+    /**
+     * The mean waiting time of the sent requests or commands.
+     *
+     * @return The time in milliseconds, or {@code 0} if nothing was sent yet
+     */
+    public double getAverageTime()
+    {
+        return count == 0 ? 0 : (double) totalTime / count;
+    }
+
+    /**
+     * The longest waiting time of a sent request or command.
+     *
+     * @return The time in milliseconds, or {@code 0} if nothing was sent yet
+     */
+    public long getMaxTime()
+    {
+        return maxTime;
+    }
+
+    @Override
+    public String toString()
+    {
+        return new EntityString(this)
+            .addMetadata("count", count)
+            .addMetadata("total", totalTime)
+            .addMetadata("max", maxTime)
+            .toString();
+    }
+}
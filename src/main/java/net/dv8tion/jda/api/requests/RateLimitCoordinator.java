@@ -0,0 +1,70 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.api.requests;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Coordinates rate-limits between multiple processes, which use the same bot token.
+ *
+ * <p>The {@link RestRateLimiter.GlobalRateLimit} of a {@link net.dv8tion.jda.api.utils.SessionController SessionController}
+ * is only shared by the shards of one process. When shards are split across several processes, each process would
+ * run into the global rate-limit on its own. A coordinator shares the global rate-limit and the state of each bucket instead.
+ *
+ * <p>The rate-limiter reserves a use of the bucket with {@link #acquire(String, long)} before sending a request,
+ * and updates the bucket with {@link #update(String, int, long)} when the response arrives.
+ * Buckets are identified by their bucket id, which is made of the bucket hash and the major parameters, and is the same in every process.
+ *
+ * <p>The {@link MappedRateLimitCoordinator} provides a default implementation, for processes running on the same host.
+ *
+ * @see RestConfig#setRateLimitCoordinator(RateLimitCoordinator)
+ */
+public interface RateLimitCoordinator
+{
+    /**
+     * The global rate-limit, shared by all processes.
+     *
+     * @return The shared {@link RestRateLimiter.GlobalRateLimit}
+     */
+    @Nonnull
+    RestRateLimiter.GlobalRateLimit getGlobalRateLimit();
+
+    /**
+     * Reserves one use of the bucket, before a request is sent.
+     * <br>If the state of the bucket is unknown or has reset, the request is allowed.
+     *
+     * @param  bucketId
+     *         The bucket id
+     * @param  now
+     *         The current time (unix timestamp in milliseconds)
+     *
+     * @return 0 if a use was reserved, otherwise the milliseconds until the bucket resets
+     */
+    long acquire(@Nonnull String bucketId, long now);
+
+    /**
+     * Updates the bucket with the rate-limit information of a response.
+     *
+     * @param bucketId
+     *        The bucket id
+     * @param remaining
+     *        The remaining uses of the bucket
+     * @param reset
+     *        The time at which the bucket resets (unix timestamp in milliseconds)
+     */
+    void update(@Nonnull String bucketId, int remaining, long reset);
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.api.requests;
+
+import net.dv8tion.jda.api.utils.data.DataArray;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.api.utils.data.SerializableData;
+import net.dv8tion.jda.internal.utils.Checks;
+import net.dv8tion.jda.internal.utils.EntityString;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stores what a {@link RestRateLimiter} learned about the rate-limits, so a restarted process does not have to learn it again.
+ *
+ * <p>Discord only tells the bucket hash of a route in the response, until then every route is handled as an unknown bucket.
+ * With a store, the rate-limiter loads the hashes on creation and can use the correct buckets from the first request.
+ * The remaining uses of buckets, which have not reset yet, are stored as well.
+ *
+ * <p>The rate-limiter saves its state when new hashes are learned and when it shuts down.
+ * Every shard has its own rate-limiter, so a store shared by multiple shards has to merge the saved snapshots.
+ *
+ * <p>The {@link FileRateLimitStore} provides a default implementation, which stores a JSON file.
+ *
+ * @see RestConfig#setRateLimitStore(RateLimitStore)
+ */
+public interface RateLimitStore
+{
+    /**
+     * Loads the saved state.
+     *
+     * @return The saved state, or an empty snapshot if there is none
+     */
+    @Nonnull
+    Snapshot load();
+
+    /**
+     * Saves the state of a rate-limiter.
+     *
+     * @param snapshot
+     *        The current state of the rate-limiter
+     */
+    void save(@Nonnull Snapshot snapshot);
+
+    /**
+     * The learned bucket hashes and bucket states of a rate-limiter.
+     */
+    class Snapshot implements SerializableData
+    {
+        private final Map<Route, String> hashes;
+        private final Map<String, BucketState> buckets;
+
+        public Snapshot(@Nonnull Map<Route, String> hashes, @Nonnull Map<String, BucketState> buckets)
+        {
+            Checks.notNull(hashes, "Hashes");
+            Checks.notNull(buckets, "Buckets");
+            this.hashes = Collections.unmodifiableMap(new HashMap<>(hashes));
+            this.buckets = Collections.unmodifiableMap(new HashMap<>(buckets));
+        }
+
+        /**
+         * An empty snapshot
+         *
+         * @return The empty snapshot
+         */
+        @Nonnull
+        public static Snapshot empty()
+        {
+            return new Snapshot(Collections.emptyMap(), Collections.emptyMap());
+        }
+
+        /**
+         * Parses a snapshot from the representation of {@link #toData()}.
+         *
+         * @param  data
+         *         The serialized snapshot
+         *
+         * @throws net.dv8tion.jda.api.exceptions.ParsingException
+         *         If the data is missing required fields
+         *
+         * @return The parsed snapshot
+         */
+        @Nonnull
+        public static Snapshot fromData(@Nonnull DataObject data)
+        {
+            Checks.notNull(data, "Data");
+            Map<Route, String> hashes = new HashMap<>();
+            DataArray hashArray = data.getArray("hashes");
+            for (int i = 0; i < hashArray.length(); i++)
+            {
+                DataObject entry = hashArray.getObject(i);
+                Route route = Route.custom(Method.valueOf(entry.getString("method")), entry.getString("route"));
+                hashes.put(route, entry.getString("hash"));
+            }
+
+            Map<String, BucketState> buckets = new HashMap<>();
+            DataArray bucketArray = data.optArray("buckets").orElseGet(DataArray::empty);
+            for (int i = 0; i < bucketArray.length(); i++)
+            {
+                DataObject entry = bucketArray.getObject(i);
+                buckets.put(entry.getString("id"), new BucketState(entry.getInt("remaining"), entry.getLong("reset")));
+            }
+            return new Snapshot(hashes, buckets);
+        }
+
+        /**
+         * The bucket hash of each route, which responded with a hash.
+         *
+         * @return Immutable map of route to hash
+         */
+        @Nonnull
+        public Map<Route, String> getHashes()
+        {
+            return hashes;
+        }
+
+        /**
+         * The state of each bucket, which had not reset when the snapshot was taken.
+         * <br>The key is the bucket id, made of the hash and the major parameters.
+         *
+         * @return Immutable map of bucket id to state
+         */
+        @Nonnull
+        public Map<String, BucketState> getBuckets()
+        {
+            return buckets;
+        }
+
+        /**
+         * Combines this snapshot with a newer snapshot, the newer values replace the values of this snapshot.
+         * <br>Bucket states which have already reset are removed.
+         *
+         * @param  newer
+         *         The newer snapshot
+         *
+         * @return The combined snapshot
+         */
+        @Nonnull
+        public Snapshot merge(@Nonnull Snapshot newer)
+        {
+            Checks.notNull(newer, "Snapshot");
+            Map<Route, String> hashes = new HashMap<>(this.hashes);
+            hashes.putAll(newer.hashes);
+            Map<String, BucketState> buckets = new HashMap<>(this.buckets);
+            buckets.putAll(newer.buckets);
+            long now = System.currentTimeMillis();
+            buckets.values().removeIf(state -> state.getReset() <= now);
+            return new Snapshot(hashes, buckets);
+        }
+
+        @Nonnull
+        @Override
+        public DataObject toData()
+        {
+            DataArray hashArray = DataArray.empty();
+            hashes.forEach((route, hash) -> hashArray.add(DataObject.empty()
+                    .put("method", route.getMethod().name())
+                    .put("route", route.getRoute())
+                    .put("hash", hash)));
+            DataArray bucketArray = DataArray.empty();
+            buckets.forEach((id, state) -> bucketArray.add(DataObject.empty()
+                    .put("id", id)
+                    .put("remaining", state.getRemaining())
+                    .put("reset", state.getReset())));
+            return DataObject.empty()
+                    .put("hashes", hashArray)
+                    .put("buckets", bucketArray);
+        }
+
+        @Override
+        public String toString()
+        {
+            return new EntityString(this)
+                    .addMetadata("hashes", hashes.size())
+                    .addMetadata("buckets", buckets.size())
+                    .toString();
+        }
+    }
+
+    /**
+     * The remaining uses of a bucket, until it resets.
+     */
+    class BucketState
+    {
+        private final int remaining;
+        private final long reset;
+
+        public BucketState(int remaining, long reset)
+        {
+            this.remaining = remaining;
+            this.reset = reset;
+        }
+
+        /**
+         * The remaining uses of the bucket
+         *
+         * @return The remaining uses
+         */
+        public int getRemaining()
+        {
+            return remaining;
+        }
+
+        /**
+         * The time at which the bucket resets.
+         *
+         * @return The epoch millisecond timestamp
+         */
+        public long getReset()
+        {
+            return reset;
+        }
+
+        @Override
+        public String toString()
+        {
+            return new EntityString(this)
+                    .addMetadata("remaining", remaining)
+                    .addMetadata("reset", reset)
+                    .toString();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.api.requests;
+
+import net.dv8tion.jda.internal.utils.JDALogger;
+import org.slf4j.Logger;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Synchronizes the state of a rate-limiter with the {@link RateLimitStore} and {@link RateLimitCoordinator}
+ * of its {@link RestRateLimiter.RateLimitConfig}.
+ * <br>The rate-limiters only decide when this happens, the conversion and error handling is shared here.
+ */
+final class RateLimitSync
+{
+    private static final Logger log = JDALogger.getLog(RestRateLimiter.class);
+
+    static final String UNINIT_BUCKET = "uninit"; // we generate an uninit bucket for every major parameter configuration
+
+    private final RestRateLimiter.RateLimitConfig config;
+
+    RateLimitSync(RestRateLimiter.RateLimitConfig config)
+    {
+        this.config = config;
+    }
+
+    /**
+     * Reserves a request on the shared bucket of the {@link RateLimitCoordinator}.
+     * <br>Returns the milliseconds to wait before another attempt, or {@code 0} if the request can be executed.
+     */
+    long acquire(String bucketId, long now)
+    {
+        RateLimitCoordinator coordinator = config.getCoordinator();
+        if (coordinator == null)
+            return 0L;
+        try
+        {
+            return coordinator.acquire(bucketId, now);
+        }
+        catch (Exception e)
+        {
+            // Without the coordinator, the bucket still respects the limits known by this process
+            log.error("Failed to acquire bucket {} from the rate-limit coordinator", bucketId, e);
+            return 0L;
+        }
+    }
+
+    /**
+     * Publishes the state of a bucket to the {@link RateLimitCoordinator}, the uninit buckets are not shared.
+     */
+    void update(String bucketId, int remaining, long reset)
+    {
+        RateLimitCoordinator coordinator = config.getCoordinator();
+        if (coordinator == null || bucketId.startsWith(UNINIT_BUCKET))
+            return;
+        try
+        {
+            coordinator.update(bucketId, remaining, reset);
+        }
+        catch (Exception e)
+        {
+            // The response was already handled, the other processes will learn the state from their own responses
+            log.error("Failed to update bucket {} in the rate-limit coordinator", bucketId, e);
+        }
+    }
+
+    boolean hasStore()
+    {
+        return config.getStore() != null;
+    }
+
+    /**
+     * Loads the stored hashes, and the states of buckets which have not reset yet.
+     */
+    void load(Map<Route, String> hashes, Map<String, RateLimitStore.BucketState> restored)
+    {
+        RateLimitStore store = config.getStore();
+        if (store == null)
+            return;
+        try
+        {
+            RateLimitStore.Snapshot snapshot = store.load();
+            long now = System.currentTimeMillis();
+            hashes.putAll(snapshot.getHashes());
+            snapshot.getBuckets().forEach((bucketId, state) -> {
+                if (state.getReset() > now)
+                    restored.put(bucketId, state);
+            });
+            log.debug("Loaded {} bucket hashes from the rate-limit store", snapshot.getHashes().size());
+        }
+        catch (Exception e)
+        {
+            log.error("Failed to load the rate-limit store", e);
+        }
+    }
+
+    /**
+     * Creates a snapshot of the learned hashes, the uninit hashes and buckets are not stored.
+     */
+    RateLimitStore.Snapshot createSnapshot(Map<Route, String> hashes, Map<String, RateLimitStore.BucketState> states)
+    {
+        long now = System.currentTimeMillis();
+        Map<Route, String> learned = new HashMap<>();
+        hashes.forEach((route, hash) -> {
+            if (!hash.startsWith(UNINIT_BUCKET))
+                learned.put(route, hash);
+        });
+        Map<String, RateLimitStore.BucketState> buckets = new HashMap<>();
+        states.forEach((bucketId, state) -> {
+            if (!bucketId.startsWith(UNINIT_BUCKET) && state.getReset() > now)
+                buckets.put(bucketId, state);
+        });
+        return new RateLimitStore.Snapshot(learned, buckets);
+    }
+
+    void save(RateLimitStore.Snapshot snapshot)
+    {
+        RateLimitStore store = config.getStore();
+        if (store == null)
+            return;
+        try
+        {
+            store.save(snapshot);
+        }
+        catch (Exception e)
+        {
+            log.error("Failed to save the rate-limit store", e);
+        }
+    }
+}
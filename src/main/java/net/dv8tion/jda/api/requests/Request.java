@@ -56,6 +56,7 @@ public class Request<T>
     private final CaseInsensitiveMap<String, String> headers;
     private final long deadline;
     private final boolean priority;
+    private final RequestPriority requestPriority;
 
     private final String localReason;
 
@@ -69,6 +70,7 @@ public class Request<T>
     {
         this.deadline = deadline;
         this.priority = priority;
+        this.requestPriority = restAction.getPriority(route);
         this.restAction = restAction;
         this.onSuccess = onSuccess;
         if (onFailure instanceof ContextException.ContextConsumer)
@@ -226,6 +228,12 @@ public class Request<T>
         return priority;
     }
 
+    @Nonnull
+    public RequestPriority getPriority()
+    {
+        return requestPriority;
+    }
+
     public boolean isSkipped()
     {
         if (isTimeout())
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.api.requests;
+
+/**
+ * Priority class of a {@link RestAction}, which decides the order of queued requests in the {@link RestRateLimiter}.
+ *
+ * <p>Within a rate-limit bucket, requests of a more important class are sent first.
+ * When the global rate-limit resets, buckets with more important requests continue first.
+ * Less important requests are never delayed indefinitely, they still get their turn after a few more important requests.
+ *
+ * @see RestAction#setPriority(RequestPriority)
+ */
+public enum RequestPriority
+{
+    /**
+     * Requests with a deadline set by Discord, like the response to an interaction which has to be sent within 3 seconds.
+     * <br>This is the default for interaction callbacks and followup messages.
+     */
+    CRITICAL,
+    /**
+     * Requests which a user is waiting for, this is the default for all other requests.
+     */
+    NORMAL,
+    /**
+     * Requests which can be delayed, like bulk updates or synchronization on startup.
+     */
+    BACKGROUND
+}
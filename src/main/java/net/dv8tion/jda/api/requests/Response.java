@@ -29,6 +29,7 @@ import javax.annotation.Nullable;
 import java.io.*;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -104,6 +105,34 @@ public class Response implements Closeable
         return parseBody(true, DataArray.class, JSON_SERIALIZE_ARRAY);
     }
 
+    /**
+     * Parses the body as a JSON array of objects, and performs the action for each object as soon as it is parsed.
+     * <br>Unlike {@link #getArray()}, the array is not kept in memory as a whole.
+     *
+     * <p>If the body was already parsed, this iterates the parsed array instead.
+     *
+     * @param  action
+     *         The action to perform for each object
+     *
+     * @throws ParsingException
+     *         If the body is empty, not an array of objects, or could not be read
+     */
+    public void forEachObject(@Nonnull Consumer<? super DataObject> action)
+    {
+        if (!attemptedParsing)
+        {
+            attemptedParsing = true;
+            if (body == null || rawResponse == null || rawResponse.body().contentLength() == 0)
+                throw new ParsingException("The response body is empty");
+            DataArray.forEachObject(new BufferedReader(new InputStreamReader(body)), action);
+            return;
+        }
+
+        DataArray array = optArray().orElseThrow(() -> new ParsingException("The response body is not an array"));
+        for (int i = 0; i < array.length(); i++)
+            action.accept(array.getObject(i));
+    }
+
     @Nonnull
     public DataObject getObject()
     {
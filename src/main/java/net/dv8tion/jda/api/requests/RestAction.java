@@ -505,6 +505,48 @@ public interface RestAction<T>
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Sets the priority class of this request, which decides the order of queued requests.
+     * <br>Interaction callbacks use {@link RequestPriority#CRITICAL CRITICAL} by default,
+     * all other requests use {@link RequestPriority#NORMAL NORMAL}.
+     *
+     * <p>Use {@link RequestPriority#BACKGROUND BACKGROUND} for bulk operations, so they do not delay requests a user is waiting for.
+     *
+     * <p><b>Example</b><br>
+     * <pre>{@code
+     * for (Member member : members)
+     *     guild.addRoleToMember(member, role).setPriority(RequestPriority.BACKGROUND).queue();
+     * }</pre>
+     *
+     * @param  priority
+     *         The priority class
+     *
+     * @throws IllegalArgumentException
+     *         If null is provided
+     *
+     * @return The same RestAction with the applied priority
+     *
+     * @see    net.dv8tion.jda.api.JDA#getRestQueueTime(RequestPriority)
+     */
+    @Nonnull
+    default RestAction<T> setPriority(@Nonnull RequestPriority priority)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * The priority class of this request.
+     *
+     * @return The priority class
+     *
+     * @see    #setPriority(RequestPriority)
+     */
+    @Nonnull
+    default RequestPriority getPriority()
+    {
+        return RequestPriority.NORMAL;
+    }
+
     /**
      * Submits a Request for execution.
      * <br>Using the default callback functions:
@@ -47,6 +47,10 @@ public class RestConfig
     private String userAgent = USER_AGENT;
     private String baseUrl = DEFAULT_BASE_URL;
     private boolean relativeRateLimit = true;
+    private boolean deduplicateRequests = false;
+    private RestResponseCache responseCache;
+    private RateLimitStore rateLimitStore;
+    private RateLimitCoordinator rateLimitCoordinator;
     private Consumer<? super Request.Builder> customBuilder;
     private Function<? super RestRateLimiter.RateLimitConfig, ? extends RestRateLimiter> rateLimiter = SequentialRestRateLimiter::new;
 
@@ -66,9 +70,89 @@ public class RestConfig
         return this;
     }
 
+    /**
+     * Whether identical GET requests, which are pending at the same time, should share one HTTP request.
+     * <br>This is disabled by default.
+     *
+     * <p>When many events require the same uncached entity, for instance with {@link net.dv8tion.jda.api.JDA#retrieveUserById(long) retrieveUserById},
+     * only the first request is sent and the response is handled for every identical request.
+     * Requests with custom headers, or which are not {@link net.dv8tion.jda.api.requests.RestAction#complete(boolean) queued}, are never shared.
+     *
+     * <p>The number of shared requests is available with {@link net.dv8tion.jda.api.JDA#getDeduplicatedRequestCount()}.
+     *
+     * @param  deduplicateRequests
+     *         True, to share identical GET requests
+     *
+     * @return The current RestConfig for chaining convenience
+     */
+    @Nonnull
+    public RestConfig setDeduplicateRequests(boolean deduplicateRequests)
+    {
+        this.deduplicateRequests = deduplicateRequests;
+        return this;
+    }
+
+    /**
+     * Cache for the responses of rarely changing GET routes, like {@link Route.Emojis#GET_EMOJIS}.
+     * <br>Cached responses skip both the HTTP request and the rate-limit bucket. This is disabled by default.
+     *
+     * <p>The routes and how long their responses are valid are configured by the cache,
+     * see {@link MemoryRestResponseCache} for the default implementation.
+     *
+     * @param  responseCache
+     *         The response cache, or null to disable caching
+     *
+     * @return The current RestConfig for chaining convenience
+     */
+    @Nonnull
+    public RestConfig setResponseCache(@Nullable RestResponseCache responseCache)
+    {
+        this.responseCache = responseCache;
+        return this;
+    }
+
+    /**
+     * Store for the bucket hashes learned by the rate-limiter.
+     * <br>Without a store, every restart has to learn the buckets again, until then requests of the same bucket are not grouped correctly.
+     *
+     * <p>The store is passed to the rate-limiter with {@link RestRateLimiter.RateLimitConfig#getStore()},
+     * see {@link FileRateLimitStore} for the default implementation.
+     *
+     * @param  store
+     *         The rate-limit store, or null to disable persistence
+     *
+     * @return The current RestConfig for chaining convenience
+     */
+    @Nonnull
+    public RestConfig setRateLimitStore(@Nullable RateLimitStore store)
+    {
+        this.rateLimitStore = store;
+        return this;
+    }
+
+    /**
+     * Coordinator for the rate-limits of multiple processes, which use the same bot token.
+     * <br>The coordinator replaces the global rate-limit of the {@link net.dv8tion.jda.api.utils.SessionController SessionController},
+     * and shares the state of each bucket with the other processes.
+     *
+     * <p>See {@link MappedRateLimitCoordinator} for the default implementation, which shares a file between processes on the same host.
+     *
+     * @param  coordinator
+     *         The rate-limit coordinator, or null to only coordinate the shards of this process
+     *
+     * @return The current RestConfig for chaining convenience
+     */
+    @Nonnull
+    public RestConfig setRateLimitCoordinator(@Nullable RateLimitCoordinator coordinator)
+    {
+        this.rateLimitCoordinator = coordinator;
+        return this;
+    }
+
     /**
      * Provide a custom implementation of {@link RestRateLimiter}.
      * <br>By default, this will use the {@link SequentialRestRateLimiter}.
+     * When many shards share the same rate-limiter, the {@link ConcurrentRestRateLimiter} avoids contention between unrelated buckets.
      *
      * @param  rateLimiter
      *         The new implementation
@@ -214,4 +298,55 @@ public class RestConfig
     {
         return relativeRateLimit;
     }
+
+    /**
+     * Whether identical GET requests, which are pending at the same time, share one HTTP request.
+     *
+     * @return True, if identical GET requests are shared
+     *
+     * @see    #setDeduplicateRequests(boolean)
+     */
+    public boolean isDeduplicateRequests()
+    {
+        return deduplicateRequests;
+    }
+
+    /**
+     * The cache for the responses of GET routes.
+     *
+     * @return The response cache, or null if caching is disabled
+     *
+     * @see    #setResponseCache(RestResponseCache)
+     */
+    @Nullable
+    public RestResponseCache getResponseCache()
+    {
+        return responseCache;
+    }
+
+    /**
+     * The store for the learned bucket hashes.
+     *
+     * @return The rate-limit store, or null if persistence is disabled
+     *
+     * @see    #setRateLimitStore(RateLimitStore)
+     */
+    @Nullable
+    public RateLimitStore getRateLimitStore()
+    {
+        return rateLimitStore;
+    }
+
+    /**
+     * The coordinator for the rate-limits of multiple processes.
+     *
+     * @return The rate-limit coordinator, or null if only the shards of this process are coordinated
+     *
+     * @see    #setRateLimitCoordinator(RateLimitCoordinator)
+     */
+    @Nullable
+    public RateLimitCoordinator getRateLimitCoordinator()
+    {
+        return rateLimitCoordinator;
+    }
 }
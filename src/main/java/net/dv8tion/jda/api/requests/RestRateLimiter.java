@@ -23,6 +23,7 @@ import org.jetbrains.annotations.Blocking;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicLong;
@@ -31,6 +32,7 @@ import java.util.concurrent.atomic.AtomicLong;
  * Interface used to handle requests to the Discord API.
  * <p>Requests are handed to the rate-limiter via {@link #enqueue(Work)} and executed using {@link Work#execute()}.
  * The rate-limiter is responsible to ensure that requests do not exceed the rate-limit set by Discord.
+ * Queued requests should be sent in the order of their {@link Work#getPriority() priority class}.
  */
 public interface RestRateLimiter
 {
@@ -89,6 +91,7 @@ public interface RestRateLimiter
      * Type representing a pending request.
      *
      * <p>Use {@link #execute()} to run the request (on the calling thread) and {@link #isDone()} to discard it once completed.
+     * <br>Alternatively, {@link #executeAsync()} can be used to run the request without blocking the calling thread.
      */
     interface Work
     {
@@ -124,6 +127,23 @@ public interface RestRateLimiter
         @Blocking
         Response execute();
 
+        /**
+         * Executes the request without blocking the calling thread.
+         * <br>The future completes with the same response as {@link #execute()}, which might be null when the request has been skipped while executing.
+         * Retries for certain response codes are already handled by this method.
+         *
+         * <p>The default implementation runs {@link #execute()} on the calling thread.
+         *
+         * <p>After completion, it is advised to use {@link #isDone()} to check whether the request should be retried.
+         *
+         * @return {@link CompletableFuture} of the {@link Response} instance, used to update the rate-limit data
+         */
+        @Nonnull
+        default CompletableFuture<Response> executeAsync()
+        {
+            return CompletableFuture.completedFuture(execute());
+        }
+
         /**
          * Whether the request should be skipped.
          * <br>This can be caused by user cancellation.
@@ -149,6 +169,18 @@ public interface RestRateLimiter
          */
         boolean isPriority();
 
+        /**
+         * The priority class of this request, which decides the order of queued requests.
+         * <br>This is unrelated to {@link #isPriority()}, which only protects the request from cancellation.
+         *
+         * @return The priority class
+         */
+        @Nonnull
+        default RequestPriority getPriority()
+        {
+            return RequestPriority.NORMAL;
+        }
+
         /**
          * Whether this request was cancelled.
          * <br>Similar to {@link #isSkipped()}, but only checks cancellation.
@@ -254,6 +286,8 @@ public interface RestRateLimiter
         private final ExecutorService elastic;
         private final GlobalRateLimit globalRateLimit;
         private final boolean isRelative;
+        private final RateLimitStore store;
+        private final RateLimitCoordinator coordinator;
 
         public RateLimitConfig(@Nonnull ScheduledExecutorService scheduler, @Nonnull GlobalRateLimit globalRateLimit, boolean isRelative)
         {
@@ -261,11 +295,23 @@ public interface RestRateLimiter
         }
 
         public RateLimitConfig(@Nonnull ScheduledExecutorService scheduler, @Nonnull ExecutorService elastic, @Nonnull GlobalRateLimit globalRateLimit, boolean isRelative)
+        {
+            this(scheduler, elastic, globalRateLimit, isRelative, null);
+        }
+
+        public RateLimitConfig(@Nonnull ScheduledExecutorService scheduler, @Nonnull ExecutorService elastic, @Nonnull GlobalRateLimit globalRateLimit, boolean isRelative, @Nullable RateLimitStore store)
+        {
+            this(scheduler, elastic, globalRateLimit, isRelative, store, null);
+        }
+
+        public RateLimitConfig(@Nonnull ScheduledExecutorService scheduler, @Nonnull ExecutorService elastic, @Nonnull GlobalRateLimit globalRateLimit, boolean isRelative, @Nullable RateLimitStore store, @Nullable RateLimitCoordinator coordinator)
         {
             this.scheduler = scheduler;
             this.elastic = elastic;
             this.globalRateLimit = globalRateLimit;
             this.isRelative = isRelative;
+            this.store = store;
+            this.coordinator = coordinator;
         }
 
         /**
@@ -327,5 +373,27 @@ public interface RestRateLimiter
         {
             return isRelative;
         }
+
+        /**
+         * The store used to keep the learned bucket hashes across restarts.
+         *
+         * @return The {@link RateLimitStore}, or null if none is configured
+         */
+        @Nullable
+        public RateLimitStore getStore()
+        {
+            return store;
+        }
+
+        /**
+         * The coordinator used to share the bucket states with other processes.
+         *
+         * @return The {@link RateLimitCoordinator}, or null if none is configured
+         */
+        @Nullable
+        public RateLimitCoordinator getCoordinator()
+        {
+            return coordinator;
+        }
     }
 }
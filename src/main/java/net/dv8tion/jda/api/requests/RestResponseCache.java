@@ -0,0 +1,162 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.api.requests;
+
+import net.dv8tion.jda.internal.utils.Checks;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+
+/**
+ * Cache for the responses of GET requests, which is used by JDA before a request is sent.
+ *
+ * <p>A cached response skips both the HTTP request and the rate-limit bucket of the route.
+ * Only successful responses of requests without a body or custom headers are cached,
+ * and only for routes which are {@link #isCacheable(Route.CompiledRoute) cacheable}.
+ *
+ * <p>JDA invalidates entries when the cached data is changed by a request of the same instance,
+ * or by a gateway event like {@code GUILD_EMOJIS_UPDATE} or {@code WEBHOOKS_UPDATE}.
+ * Both use {@link #invalidate(String)} with the path of the changed resource.
+ *
+ * <p>The {@link MemoryRestResponseCache} provides a default implementation, with a time-to-live for each route.
+ *
+ * @see RestConfig#setResponseCache(RestResponseCache)
+ */
+public interface RestResponseCache
+{
+    /**
+     * Whether responses for this route should be cached.
+     *
+     * @param  route
+     *         The compiled GET route
+     *
+     * @return True, if the response should be passed to {@link #put(Route.CompiledRoute, CachedResponse)}
+     */
+    boolean isCacheable(@Nonnull Route.CompiledRoute route);
+
+    /**
+     * The cached response for this route, if it is still valid.
+     *
+     * @param  route
+     *         The compiled GET route, including query parameters
+     *
+     * @return The cached response, or null to send the request
+     */
+    @Nullable
+    CachedResponse get(@Nonnull Route.CompiledRoute route);
+
+    /**
+     * Stores the successful response for this route.
+     *
+     * @param  route
+     *         The compiled GET route, including query parameters
+     * @param  response
+     *         The response
+     */
+    void put(@Nonnull Route.CompiledRoute route, @Nonnull CachedResponse response);
+
+    /**
+     * Removes the entries of the provided path, as well as the entries of its parent and child paths.
+     * <br>For example, {@code guilds/123/emojis/456} removes {@code guilds/123/emojis}, but not {@code guilds/123/stickers}.
+     *
+     * @param  path
+     *         The compiled path, without query parameters
+     */
+    void invalidate(@Nonnull String path);
+
+    /**
+     * Removes all entries.
+     */
+    void clear();
+
+    /**
+     * A successful response, with the body kept in memory.
+     * <br>Every use of the cached response creates a new {@link okhttp3.Response}, which is parsed again.
+     */
+    class CachedResponse
+    {
+        private final okhttp3.Response response;
+        private final byte[] body;
+        private final MediaType contentType;
+
+        /**
+         * Creates a cached response, which keeps the status and headers of the provided response.
+         *
+         * @param  response
+         *         The response, the body is not read
+         * @param  body
+         *         The raw body of the response
+         *
+         * @throws IllegalArgumentException
+         *         If null is provided
+         */
+        public CachedResponse(@Nonnull okhttp3.Response response, @Nonnull byte[] body)
+        {
+            Checks.notNull(response, "Response");
+            Checks.notNull(body, "Body");
+            this.contentType = response.body() == null ? null : response.body().contentType();
+            this.response = response.newBuilder().body(null).build();
+            this.body = body;
+        }
+
+        /**
+         * Reads the body of the provided response, the response is not closed.
+         *
+         * @param  response
+         *         The response
+         *
+         * @throws IOException
+         *         If the body cannot be read
+         *
+         * @return The cached response
+         */
+        @Nonnull
+        public static CachedResponse of(@Nonnull okhttp3.Response response) throws IOException
+        {
+            Checks.notNull(response, "Response");
+            ResponseBody body = response.body();
+            return new CachedResponse(response, body == null ? new byte[0] : body.bytes());
+        }
+
+        /**
+         * The raw body, which is still encoded according to the {@code content-encoding} header.
+         *
+         * @return The body
+         */
+        @Nonnull
+        public byte[] getBody()
+        {
+            return body;
+        }
+
+        /**
+         * Creates a new response with the cached status, headers, and body.
+         *
+         * @return The response
+         */
+        @Nonnull
+        public okhttp3.Response toResponse()
+        {
+            return response.newBuilder()
+                    .body(ResponseBody.create(body, contentType))
+                    .build();
+        }
+    }
+}
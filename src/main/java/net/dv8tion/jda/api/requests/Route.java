@@ -519,21 +519,31 @@ public class Route
         "guild_id", "channel_id", "webhook_id", "interaction_token"
     );
 
+    // Kinds of template elements, major parameters use 1 + the index in MAJOR_PARAMETER_NAMES
+    private static final int STATIC_ELEMENT = -1;
+    private static final int MINOR_PARAMETER = 0;
+    // Each major parameter uses 4 bits in the major kinds of a compiled route, the highest bit marks hashed values
+    private static final int HASHED_MAJOR = 0b1000;
+
     private final Method method;
     private final int paramCount;
     private final String[] template;
+    private final int[] elementKinds;
     private final boolean isInteraction;
+    private final int hashCode;
 
     private Route(Method method, String route, boolean isInteraction)
     {
         this.method = method;
         this.template = Helpers.split(route, "/");
+        this.elementKinds = new int[template.length];
         this.isInteraction = isInteraction;
 
         // Validate route syntax
         int paramCount = 0;
-        for (String element : this.template)
+        for (int i = 0; i < template.length; i++)
         {
+            String element = template[i];
             int opening = Helpers.countMatches(element, '{');
             int closing = Helpers.countMatches(element, '}');
             if (element.startsWith("{") && element.endsWith("}"))
@@ -544,6 +554,7 @@ public class Route
                 // Invalid: {{guild_id}}
                 Checks.check(closing == 1 && opening == 1, "Route element has invalid syntax: '%s'", element);
                 paramCount += 1;
+                elementKinds[i] = 1 + MAJOR_PARAMETER_NAMES.indexOf(element.substring(1, element.length() - 1));
             }
             else if (opening > 0 || closing > 0)
             {
@@ -551,9 +562,13 @@ public class Route
                 // Invalid: guilds{/guild_id} -> ["guilds{", "guild_id}"]
                 throw new IllegalArgumentException("Route element has invalid syntax: '" + element + "'");
             }
+            else
+            {
+                elementKinds[i] = STATIC_ELEMENT;
+            }
         }
         this.paramCount = paramCount;
-
+        this.hashCode = Objects.hash(method, Arrays.hashCode(template));
     }
 
     private Route(Method method, String route)
@@ -630,38 +645,101 @@ public class Route
             this, paramCount, params.length
         );
 
-        StringJoiner major = new StringJoiner(":").setEmptyValue("n/a");
-        StringJoiner compiledRoute = new StringJoiner("/");
+        StringBuilder compiledRoute = new StringBuilder(64);
+        int majorKinds = 0, majorCount = 0;
+        long firstMajor = 0, secondMajor = 0;
 
         int paramIndex = 0;
-        for (String element : template)
+        for (int i = 0; i < template.length; i++)
         {
-            if (element.charAt(0) == '{')
+            if (i > 0)
+                compiledRoute.append('/');
+
+            int kind = elementKinds[i];
+            if (kind == STATIC_ELEMENT)
             {
-                String name = element.substring(1, element.length() - 1);
-                String value = params[paramIndex++];
-                if (MAJOR_PARAMETER_NAMES.contains(name))
-                {
-                    if (value.length() > 30) // probably a long interaction_token, hash it to keep logs clean (not useful anyway)
-                        major.add(name + "=" + Integer.toUnsignedString(value.hashCode()));
-                    else
-                        major.add(name + "=" + value);
-                }
-                compiledRoute.add(EncodingUtil.encodeUTF8(value));
+                compiledRoute.append(template[i]);
+                continue;
             }
+
+            String value = params[paramIndex++];
+            boolean snowflake = isSnowflake(value);
+            // Snowflakes never need encoding
+            compiledRoute.append(snowflake ? value : EncodingUtil.encodeUTF8(value));
+            if (kind == MINOR_PARAMETER)
+                continue;
+
+            // Keep the major parameters as primitives, which are used as part of the rate-limit bucket key
+            long major = snowflake ? Long.parseUnsignedLong(value) : hash(value);
+            if (!snowflake)
+                kind |= HASHED_MAJOR;
+            if (majorCount < 8)
+                majorKinds |= kind << (4 * majorCount);
+            if (majorCount == 0)
+                firstMajor = major;
             else
-            {
-                compiledRoute.add(element);
-            }
+                secondMajor = majorCount == 1 ? major : secondMajor * 0x9E3779B97F4A7C15L + major;
+            majorCount++;
+        }
+
+        return new CompiledRoute(this, compiledRoute.toString(), params, majorKinds, firstMajor, secondMajor);
+    }
+
+    private String formatMajorParameters(String[] params)
+    {
+        StringJoiner major = new StringJoiner(":").setEmptyValue("n/a");
+
+        int paramIndex = 0;
+        for (int i = 0; i < template.length; i++)
+        {
+            int kind = elementKinds[i];
+            if (kind == STATIC_ELEMENT)
+                continue;
+
+            String value = params[paramIndex++];
+            if (kind == MINOR_PARAMETER)
+                continue;
+
+            String name = MAJOR_PARAMETER_NAMES.get(kind - 1);
+            if (value.length() > 30) // probably a long interaction_token, hash it to keep logs clean (not useful anyway)
+                major.add(name + "=" + Integer.toUnsignedString(value.hashCode()));
+            else
+                major.add(name + "=" + value);
         }
 
-        return new CompiledRoute(this, compiledRoute.toString(), major.toString());
+        return major.toString();
+    }
+
+    private static boolean isSnowflake(String value)
+    {
+        int length = value.length();
+        if (length == 0 || length > 19)
+            return false;
+        for (int i = 0; i < length; i++)
+        {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9')
+                return false;
+        }
+        return true;
+    }
+
+    private static long hash(String value)
+    {
+        // 64-bit FNV-1a, to make collisions of tokens unlikely
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++)
+        {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
     }
 
     @Override
     public int hashCode()
     {
-        return Objects.hash(method, Arrays.hashCode(template));
+        return hashCode;
     }
 
     @Override
@@ -688,15 +766,22 @@ public class Route
     public class CompiledRoute
     {
         private final Route baseRoute;
-        private final String major;
         private final String compiledRoute;
+        private final String[] params;
+        private final int majorKinds;
+        private final long firstMajor, secondMajor;
         private final List<String> query;
+        private String major;
+        private BucketKey bucketKey;
 
-        private CompiledRoute(Route baseRoute, String compiledRoute, String major)
+        private CompiledRoute(Route baseRoute, String compiledRoute, String[] params, int majorKinds, long firstMajor, long secondMajor)
         {
             this.baseRoute = baseRoute;
             this.compiledRoute = compiledRoute;
-            this.major = major;
+            this.params = params;
+            this.majorKinds = majorKinds;
+            this.firstMajor = firstMajor;
+            this.secondMajor = secondMajor;
             this.query = null;
         }
 
@@ -704,6 +789,10 @@ public class Route
         {
             this.baseRoute = original.baseRoute;
             this.compiledRoute = original.compiledRoute;
+            this.params = original.params;
+            this.majorKinds = original.majorKinds;
+            this.firstMajor = original.firstMajor;
+            this.secondMajor = original.secondMajor;
             this.major = original.major;
             this.query = query;
         }
@@ -780,9 +869,30 @@ public class Route
         @Nonnull
         public String getMajorParameters()
         {
+            // Only used for logging and bucket names, this is not needed for every request
+            if (major == null)
+                major = baseRoute.formatMajorParameters(params);
             return major;
         }
 
+        /**
+         * The key of the rate-limit bucket for this route, which combines the bucket hash with the major parameters.
+         *
+         * @param  hash
+         *         The bucket hash of the base route
+         *
+         * @return The bucket key
+         */
+        @Nonnull
+        BucketKey getBucketKey(@Nonnull String hash)
+        {
+            BucketKey key = bucketKey;
+            // The hash changes at most once, when the first response of the route provides it
+            if (key == null || !key.hasHash(hash))
+                bucketKey = key = new BucketKey(hash, majorKinds, firstMajor, secondMajor);
+            return key;
+        }
+
         /**
          * The compiled route string of the endpoint,
          * including all arguments and query parameters.
@@ -823,7 +933,7 @@ public class Route
         @Override
         public int hashCode()
         {
-            return (compiledRoute + method.toString()).hashCode();
+            return 31 * baseRoute.hashCode + compiledRoute.hashCode();
         }
 
         @Override
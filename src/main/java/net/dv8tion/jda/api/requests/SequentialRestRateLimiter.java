@@ -64,12 +64,13 @@ import java.util.concurrent.locks.ReentrantLock;
 public final class SequentialRestRateLimiter implements RestRateLimiter
 {
     private static final Logger log = JDALogger.getLog(RestRateLimiter.class);
-    private static final String UNINIT_BUCKET = "uninit"; // we generate an uninit bucket for every major parameter configuration
+    private static final String UNINIT_BUCKET = RateLimitSync.UNINIT_BUCKET;
 
     private final CompletableFuture<?> shutdownHandle = new CompletableFuture<>();
 
     private final Future<?> cleanupWorker;
     private final RateLimitConfig config;
+    private final RateLimitSync sync;
 
     private boolean isStopped, isShutdown;
 
@@ -79,13 +80,19 @@ public final class SequentialRestRateLimiter implements RestRateLimiter
     // Route -> Hash
     private final Map<Route, String> hashes = new HashMap<>();
     // Hash + Major Parameter -> Bucket
-    private final Map<String, Bucket> buckets = new HashMap<>();
+    private final Map<BucketKey, Bucket> buckets = new HashMap<>();
     // Bucket -> Rate-Limit Worker
     private final Map<Bucket, Future<?>> rateLimitQueue = new HashMap<>();
+    // Bucket ID -> State loaded from the store, applied once the bucket is created
+    private final Map<String, RateLimitStore.BucketState> restoredBuckets = new HashMap<>();
+    // Whether new hashes were learned since the last save
+    private boolean isStoreDirty;
 
     public SequentialRestRateLimiter(@Nonnull RateLimitConfig config)
     {
         this.config = config;
+        this.sync = new RateLimitSync(config);
+        sync.load(hashes, restoredBuckets);
         this.cleanupWorker = config.getScheduler().scheduleAtFixedRate(this::cleanup, 30, 30, TimeUnit.SECONDS);
     }
 
@@ -116,7 +123,8 @@ public final class SequentialRestRateLimiter implements RestRateLimiter
 
                     if (count > 0)
                         log.info("Waiting for {} requests to finish.", count);
-                    doShutdown = count == 0;
+                    // Running workers shut down in their backoff, after the response updated the bucket
+                    doShutdown = count == 0 && rateLimitQueue.isEmpty();
                 }
             }
             if (doShutdown && !isShutdown)
@@ -138,7 +146,7 @@ public final class SequentialRestRateLimiter implements RestRateLimiter
             int cancelled = (int) buckets.values()
                     .stream()
                     .map(Bucket::getRequests)
-                    .flatMap(Collection::stream)
+                    .flatMap(WorkQueue::stream)
                     .filter(request -> !request.isPriority() && !request.isCancelled())
                     .peek(Work::cancel)
                     .count();
@@ -159,20 +167,41 @@ public final class SequentialRestRateLimiter implements RestRateLimiter
         shutdownHandle.complete(null);
     }
 
+    private void saveStore()
+    {
+        if (!sync.hasStore())
+            return;
+        RateLimitStore.Snapshot snapshot = MiscUtil.locked(lock, () -> {
+            // The bucket states are only saved with new hashes, or on shutdown
+            if (!isStoreDirty && !isShutdown)
+                return null;
+            isStoreDirty = false;
+            Map<String, RateLimitStore.BucketState> states = new HashMap<>();
+            for (Bucket bucket : buckets.values())
+                states.put(bucket.bucketId, new RateLimitStore.BucketState(bucket.remaining, bucket.reset));
+            return sync.createSnapshot(hashes, states);
+        });
+
+        if (snapshot != null)
+            sync.save(snapshot);
+    }
+
     private void cleanup()
     {
+        // Save before the buckets are removed, otherwise the state is lost on shutdown
+        saveStore();
         // This will remove buckets that are no longer needed every 30 seconds to avoid memory leakage
         // We will keep the hashes in memory since they are very limited (by the amount of possible routes)
         MiscUtil.locked(lock, () -> {
             int size = buckets.size();
-            Iterator<Map.Entry<String, Bucket>> entries = buckets.entrySet().iterator();
+            Iterator<Map.Entry<BucketKey, Bucket>> entries = buckets.entrySet().iterator();
 
             while (entries.hasNext())
             {
-                Map.Entry<String, Bucket> entry = entries.next();
+                Map.Entry<BucketKey, Bucket> entry = entries.next();
                 Bucket bucket = entry.getValue();
                 if (isShutdown)
-                    bucket.requests.forEach(Work::cancel); // Cancel all requests
+                    bucket.requests.stream().forEach(Work::cancel); // Cancel all requests
                 bucket.requests.removeIf(Work::isSkipped); // Remove cancelled requests
 
                 // Check if the bucket is empty
@@ -201,7 +230,8 @@ public final class SequentialRestRateLimiter implements RestRateLimiter
 
     private String getRouteHash(Route route)
     {
-        return hashes.getOrDefault(route, UNINIT_BUCKET + "+" + route);
+        // The uninit hash is stored as well, this avoids building the string for every request
+        return hashes.computeIfAbsent(route, r -> UNINIT_BUCKET + "+" + r);
     }
 
     private Bucket getBucket(Route.CompiledRoute route)
@@ -211,13 +241,22 @@ public final class SequentialRestRateLimiter implements RestRateLimiter
             // Retrieve the hash via the route
             String hash = getRouteHash(route.getBaseRoute());
             // Get or create a bucket for the hash + major parameters
-            String bucketId = hash + ":" + route.getMajorParameters();
-            return this.buckets.computeIfAbsent(bucketId, (id) ->
+            return this.buckets.computeIfAbsent(route.getBucketKey(hash), (key) ->
             {
+                String bucketId = hash + ":" + route.getMajorParameters();
+                Bucket bucket;
                 if (route.getBaseRoute().isInteractionBucket())
-                    return new InteractionBucket(id);
+                    bucket = new InteractionBucket(key, bucketId);
                 else
-                    return new ClassicBucket(id);
+                    bucket = new ClassicBucket(key, bucketId);
+
+                RateLimitStore.BucketState state = restoredBuckets.isEmpty() ? null : restoredBuckets.remove(bucketId);
+                if (state != null)
+                {
+                    bucket.remaining = state.getRemaining();
+                    bucket.reset = state.getReset();
+                }
+                return bucket;
             });
         });
     }
@@ -300,9 +339,10 @@ public final class SequentialRestRateLimiter implements RestRateLimiter
                 Route baseRoute = route.getBaseRoute();
                 if (hash != null)
                 {
-                    if (!this.hashes.containsKey(baseRoute))
+                    if (getRouteHash(baseRoute).startsWith(UNINIT_BUCKET))
                     {
                         this.hashes.put(baseRoute, hash);
+                        isStoreDirty = true;
                         log.debug("Caching bucket hash {} -> {}", baseRoute, hash);
                     }
 
@@ -332,6 +372,7 @@ public final class SequentialRestRateLimiter implements RestRateLimiter
                         // Update the bucket to the new information
                         bucket.remaining = 0;
                         bucket.reset = now + retryAfter;
+                        sync.update(bucket.bucketId, 0, bucket.reset);
                         // don't log warning if we hit the rate limit for the first time, likely due to initialization of the bucket
                         // unless its a long retry-after delay (more than a minute)
                         if (firstHit)
@@ -360,6 +401,7 @@ public final class SequentialRestRateLimiter implements RestRateLimiter
                     bucket.reset = now + parseDouble(resetAfterHeader);
                 else
                     bucket.reset = parseDouble(resetHeader);
+                sync.update(bucket.bucketId, bucket.remaining, bucket.reset);
                 log.trace("Updated bucket {} to ({}/{}, {})", bucket.bucketId, bucket.remaining, limitHeader, bucket.reset - now);
                 return bucket;
             }
@@ -375,14 +417,16 @@ public final class SequentialRestRateLimiter implements RestRateLimiter
 
     private abstract class Bucket implements Runnable
     {
+        protected final BucketKey key;
         protected final String bucketId;
-        protected final Deque<Work> requests = new ConcurrentLinkedDeque<>();
+        protected final WorkQueue requests = new WorkQueue();
 
         protected long reset = 0;
         protected int remaining = 1;
 
-        public Bucket(String bucketId)
+        public Bucket(BucketKey key, String bucketId)
         {
+            this.key = key;
             this.bucketId = bucketId;
         }
 
@@ -419,6 +463,9 @@ public final class SequentialRestRateLimiter implements RestRateLimiter
             long now = getNow();
 
             long global = getGlobalRateLimit(now);
+            // Once the global rate-limit resets, buckets with more important requests continue first
+            if (global > 0)
+                global += requests.getGlobalDelay();
 
             // Check if the bucket reset time has expired
             if (reset <= now)
@@ -431,6 +478,19 @@ public final class SequentialRestRateLimiter implements RestRateLimiter
             return Math.max(global, remaining < 1 ? reset - now : 0L);
         }
 
+        protected boolean reserve()
+        {
+            if (isUninit())
+                return true;
+            long now = getNow();
+            long wait = sync.acquire(bucketId, now);
+            if (wait <= 0)
+                return true;
+            remaining = 0;
+            reset = now + wait;
+            return false;
+        }
+
         protected boolean isGlobalRateLimit()
         {
             return getGlobalRateLimit(getNow()) > 0;
@@ -444,13 +504,13 @@ public final class SequentialRestRateLimiter implements RestRateLimiter
                 if (!requests.isEmpty())
                     runBucket(this);
                 else if (isStopped)
-                    buckets.remove(bucketId);
+                    buckets.remove(key);
                 if (isStopped && buckets.isEmpty())
                     shutdown();
             });
         }
 
-        public Queue<Work> getRequests()
+        public WorkQueue getRequests()
         {
             return requests;
         }
@@ -470,11 +530,25 @@ public final class SequentialRestRateLimiter implements RestRateLimiter
             });
         }
 
-        protected boolean execute(Work request)
+        protected CompletableFuture<Response> execute(Work request)
         {
             try
             {
-                Response response = request.execute();
+                return request.executeAsync();
+            }
+            catch (Throwable ex)
+            {
+                CompletableFuture<Response> future = new CompletableFuture<>();
+                future.completeExceptionally(ex);
+                return future;
+            }
+        }
+
+        protected boolean handleResult(Work request, CompletableFuture<Response> result)
+        {
+            try
+            {
+                Response response = result.join();
                 if (response != null)
                     updateBucket(request.getRoute(), response);
                 if (!request.isDone())
@@ -482,6 +556,8 @@ public final class SequentialRestRateLimiter implements RestRateLimiter
             }
             catch (Throwable ex)
             {
+                if (ex instanceof CompletionException && ex.getCause() != null)
+                    ex = ex.getCause();
                 log.error("Encountered exception trying to execute request", ex);
                 if (ex instanceof Error)
                     throw (Error) ex;
@@ -490,6 +566,23 @@ public final class SequentialRestRateLimiter implements RestRateLimiter
             return false;
         }
 
+        protected void resume(Work request, CompletableFuture<Response> result)
+        {
+            try
+            {
+                if (handleResult(request, result))
+                    backoff();
+                else
+                    run();
+            }
+            catch (Throwable t)
+            {
+                log.error("Caught throwable in bucket worker", t);
+                if (t instanceof Error)
+                    throw t;
+            }
+        }
+
         public void run()
         {
             log.trace("Bucket {} is running {} requests", bucketId, requests.size());
@@ -499,7 +592,7 @@ public final class SequentialRestRateLimiter implements RestRateLimiter
                 if (rateLimit > 0L)
                 {
                     // We need to backoff since we ran out of remaining uses or hit the global rate limit
-                    Work request = requests.peekFirst(); // this *should* not be null
+                    Work request = requests.peek(); // this *should* not be null
                     String baseRoute = request != null ? request.getRoute().getBaseRoute().toString() : "N/A";
                     if (!isGlobalRateLimit() && rateLimit >= 1000 * 60 * 30) // 30 minutes
                         log.warn("Encountered long {} minutes Rate-Limit on route {}", TimeUnit.MILLISECONDS.toMinutes(rateLimit), baseRoute);
@@ -507,14 +600,31 @@ public final class SequentialRestRateLimiter implements RestRateLimiter
                     break;
                 }
 
-                Work request = requests.removeFirst();
+                Work request = requests.poll();
+                if (request == null)
+                    break;
                 if (request.isSkipped())
                     continue;
 
                 if (isUninit() && moveRequest(request))
                     continue;
 
-                if (execute(request)) break;
+                if (!reserve())
+                {
+                    // Another process used up the bucket, the request waits for the reset
+                    requests.addFirst(request);
+                    continue;
+                }
+
+                CompletableFuture<Response> result = execute(request);
+                if (!result.isDone())
+                {
+                    // The worker continues once the response arrives, without blocking a thread in the meantime
+                    result.whenComplete((response, error) -> resume(request, result));
+                    return;
+                }
+
+                if (handleResult(request, result)) break;
             }
 
             backoff();
@@ -529,7 +639,7 @@ public final class SequentialRestRateLimiter implements RestRateLimiter
         @Override
         public int hashCode()
         {
-            return bucketId.hashCode();
+            return key.hashCode();
         }
 
         @Override
@@ -539,15 +649,15 @@ public final class SequentialRestRateLimiter implements RestRateLimiter
                 return true;
             if (!(obj instanceof Bucket))
                 return false;
-            return this.bucketId.equals(((Bucket) obj).bucketId);
+            return this.key.equals(((Bucket) obj).key);
         }
     }
 
     private class ClassicBucket extends Bucket
     {
-        public ClassicBucket(String bucketId)
+        public ClassicBucket(BucketKey key, String bucketId)
         {
-            super(bucketId);
+            super(key, bucketId);
         }
 
         @Override
@@ -561,9 +671,9 @@ public final class SequentialRestRateLimiter implements RestRateLimiter
 
     private class InteractionBucket extends Bucket
     {
-        public InteractionBucket(@Nonnull String bucketId)
+        public InteractionBucket(@Nonnull BucketKey key, @Nonnull String bucketId)
         {
-            super(bucketId);
+            super(key, bucketId);
         }
 
         @Override
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.api.requests;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Queue of a rate-limit bucket, with one lane for each {@link RequestPriority}.
+ *
+ * <p>Requests are taken from the most important lane first. To avoid starvation,
+ * a waiting lane gets its turn once {@value #STARVATION_LIMIT} requests of more important lanes were taken before it.
+ *
+ * <p>Requests can be added and removed concurrently, but only one worker may {@link #poll() poll} at a time.
+ */
+final class WorkQueue
+{
+    static final int STARVATION_LIMIT = 8;
+    // Delay after a global rate-limit for each priority class, so buckets with important requests continue first
+    static final long GLOBAL_PRIORITY_DELAY = 50;
+
+    private static final RequestPriority[] PRIORITIES = RequestPriority.values();
+
+    private final List<Deque<RestRateLimiter.Work>> lanes = new ArrayList<>(PRIORITIES.length);
+    // Number of requests taken while a lane was waiting, only accessed by the worker
+    private final int[] passed = new int[PRIORITIES.length];
+
+    WorkQueue()
+    {
+        for (int i = 0; i < PRIORITIES.length; i++)
+            lanes.add(new ConcurrentLinkedDeque<>());
+    }
+
+    void addLast(RestRateLimiter.Work request)
+    {
+        lanes.get(request.getPriority().ordinal()).addLast(request);
+    }
+
+    void addFirst(RestRateLimiter.Work request)
+    {
+        lanes.get(request.getPriority().ordinal()).addFirst(request);
+    }
+
+    boolean isEmpty()
+    {
+        for (Deque<RestRateLimiter.Work> lane : lanes)
+        {
+            if (!lane.isEmpty())
+                return false;
+        }
+        return true;
+    }
+
+    int size()
+    {
+        int size = 0;
+        for (Deque<RestRateLimiter.Work> lane : lanes)
+            size += lane.size();
+        return size;
+    }
+
+    /**
+     * The priority of the most important waiting request.
+     *
+     * @return The priority, or null if the queue is empty
+     */
+    @Nullable
+    RequestPriority getPriority()
+    {
+        for (int i = 0; i < lanes.size(); i++)
+        {
+            if (!lanes.get(i).isEmpty())
+                return PRIORITIES[i];
+        }
+        return null;
+    }
+
+    /**
+     * The additional delay of this bucket after a global rate-limit.
+     *
+     * @return The delay in milliseconds
+     */
+    long getGlobalDelay()
+    {
+        RequestPriority priority = getPriority();
+        return priority == null ? 0 : priority.ordinal() * GLOBAL_PRIORITY_DELAY;
+    }
+
+    @Nullable
+    RestRateLimiter.Work peek()
+    {
+        int lane = select();
+        return lane < 0 ? null : lanes.get(lane).peekFirst();
+    }
+
+    @Nullable
+    RestRateLimiter.Work poll()
+    {
+        int lane;
+        while ((lane = select()) >= 0)
+        {
+            RestRateLimiter.Work request = lanes.get(lane).pollFirst();
+            // The lane might have been cleared concurrently
+            if (request == null)
+                continue;
+
+            passed[lane] = 0;
+            for (int i = lane + 1; i < lanes.size(); i++)
+            {
+                if (!lanes.get(i).isEmpty())
+                    passed[i]++;
+            }
+            return request;
+        }
+        return null;
+    }
+
+    boolean removeIf(Predicate<? super RestRateLimiter.Work> filter)
+    {
+        boolean removed = false;
+        for (Deque<RestRateLimiter.Work> lane : lanes)
+            removed |= lane.removeIf(filter);
+        return removed;
+    }
+
+    Stream<RestRateLimiter.Work> stream()
+    {
+        return lanes.stream().flatMap(Deque::stream);
+    }
+
+    private int select()
+    {
+        int first = -1;
+        for (int i = 0; i < lanes.size(); i++)
+        {
+            if (lanes.get(i).isEmpty())
+                continue;
+            // A starved lane takes the turn of the more important lanes
+            if (first < 0)
+                first = i;
+            else if (passed[i] >= STARVATION_LIMIT)
+                return i;
+        }
+        return first;
+    }
+}
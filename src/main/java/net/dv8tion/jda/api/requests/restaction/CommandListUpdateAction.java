@@ -19,6 +19,7 @@ package net.dv8tion.jda.api.requests.restaction;
 import net.dv8tion.jda.api.interactions.commands.Command;
 import net.dv8tion.jda.api.interactions.commands.build.CommandData;
 import net.dv8tion.jda.api.interactions.commands.build.Commands;
+import net.dv8tion.jda.api.requests.RequestPriority;
 import net.dv8tion.jda.api.requests.RestAction;
 import net.dv8tion.jda.internal.utils.Checks;
 
@@ -47,6 +48,10 @@ public interface CommandListUpdateAction extends RestAction<List<Command>>
     @Override
     CommandListUpdateAction deadline(long timestamp);
 
+    @Nonnull
+    @Override
+    CommandListUpdateAction setPriority(@Nonnull RequestPriority priority);
+
     @Nonnull
     @Override
     CommandListUpdateAction setCheck(@Nullable BooleanSupplier checks);
@@ -16,6 +16,8 @@
 
 package net.dv8tion.jda.api.requests.restaction;
 
+import net.dv8tion.jda.api.requests.RequestPriority;
+
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.concurrent.TimeUnit;
@@ -61,4 +63,11 @@ public interface FluentAuditableRestAction<T, R extends FluentAuditableRestActio
     {
         return (R) AuditableRestAction.super.deadline(timestamp);
     }
+
+    @Nonnull
+    @Override
+    default R setPriority(@Nonnull RequestPriority priority)
+    {
+        return (R) AuditableRestAction.super.setPriority(priority);
+    }
 }
@@ -19,6 +19,7 @@ package net.dv8tion.jda.api.requests.restaction;
 import net.dv8tion.jda.api.entities.Invite;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.requests.RequestPriority;
 import net.dv8tion.jda.api.utils.MiscUtil;
 import net.dv8tion.jda.internal.utils.Checks;
 
@@ -48,6 +49,10 @@ public interface InviteAction extends AuditableRestAction<Invite>
     @Override
     InviteAction deadline(long timestamp);
 
+    @Nonnull
+    @Override
+    InviteAction setPriority(@Nonnull RequestPriority priority);
+
     /**
      * Sets the max age in seconds for the invite. Set this to {@code 0} if the invite should never expire. Default is {@code 86400} (24 hours).
      * {@code null} will reset this to the default value.
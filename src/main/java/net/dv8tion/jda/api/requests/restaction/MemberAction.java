@@ -20,6 +20,7 @@ import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Role;
 import net.dv8tion.jda.api.entities.User;
 import net.dv8tion.jda.api.entities.UserSnowflake;
+import net.dv8tion.jda.api.requests.RequestPriority;
 import net.dv8tion.jda.api.requests.RestAction;
 
 import javax.annotation.CheckReturnValue;
@@ -53,6 +54,10 @@ public interface MemberAction extends RestAction<Void>
     @Override
     MemberAction deadline(long timestamp);
 
+    @Nonnull
+    @Override
+    MemberAction setPriority(@Nonnull RequestPriority priority);
+
     /**
      * The access token
      *
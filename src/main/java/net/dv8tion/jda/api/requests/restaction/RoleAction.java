@@ -21,6 +21,7 @@ import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Icon;
 import net.dv8tion.jda.api.entities.Role;
 import net.dv8tion.jda.api.entities.emoji.UnicodeEmoji;
+import net.dv8tion.jda.api.requests.RequestPriority;
 import net.dv8tion.jda.internal.utils.Checks;
 
 import javax.annotation.CheckReturnValue;
@@ -57,6 +58,10 @@ public interface RoleAction extends AuditableRestAction<Role>
     @Override
     RoleAction deadline(long timestamp);
 
+    @Nonnull
+    @Override
+    RoleAction setPriority(@Nonnull RequestPriority priority);
+
     /**
      * The guild to create the role in
      *
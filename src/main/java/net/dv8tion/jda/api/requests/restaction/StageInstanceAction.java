@@ -17,6 +17,7 @@
 package net.dv8tion.jda.api.requests.restaction;
 
 import net.dv8tion.jda.api.entities.StageInstance;
+import net.dv8tion.jda.api.requests.RequestPriority;
 import net.dv8tion.jda.api.requests.RestAction;
 
 import javax.annotation.CheckReturnValue;
@@ -44,6 +45,10 @@ public interface StageInstanceAction extends RestAction<StageInstance>
     @Override
     StageInstanceAction deadline(long timestamp);
 
+    @Nonnull
+    @Override
+    StageInstanceAction setPriority(@Nonnull RequestPriority priority);
+
     /**
      * Sets the topic for the stage instance.
      * <br>This shows up in stage discovery and in the stage view.
@@ -21,6 +21,7 @@ import net.dv8tion.jda.api.entities.Icon;
 import net.dv8tion.jda.api.entities.Webhook;
 import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
 import net.dv8tion.jda.api.entities.channel.unions.IWebhookContainerUnion;
+import net.dv8tion.jda.api.requests.RequestPriority;
 
 import javax.annotation.CheckReturnValue;
 import javax.annotation.Nonnull;
@@ -48,6 +49,10 @@ public interface WebhookAction extends AuditableRestAction<Webhook>
     @Override
     WebhookAction deadline(long timestamp);
 
+    @Nonnull
+    @Override
+    WebhookAction setPriority(@Nonnull RequestPriority priority);
+
     /**
      * The {@link net.dv8tion.jda.api.entities.channel.attribute.IWebhookContainer channel} to create this webhook in.
      *
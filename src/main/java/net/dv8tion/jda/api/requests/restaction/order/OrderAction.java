@@ -16,6 +16,7 @@
 
 package net.dv8tion.jda.api.requests.restaction.order;
 
+import net.dv8tion.jda.api.requests.RequestPriority;
 import net.dv8tion.jda.api.requests.RestAction;
 
 import javax.annotation.Nonnull;
@@ -57,6 +58,10 @@ public interface OrderAction<T, M extends OrderAction<T, M>> extends RestAction<
     @Override
     M deadline(long timestamp);
 
+    @Nonnull
+    @Override
+    M setPriority(@Nonnull RequestPriority priority);
+
     /**
      * Whether this instance uses ascending order, from the lowest
      * position to the highest.
@@ -16,6 +16,7 @@
 
 package net.dv8tion.jda.api.requests.restaction.pagination;
 
+import net.dv8tion.jda.api.requests.RequestPriority;
 import net.dv8tion.jda.api.requests.RestAction;
 import net.dv8tion.jda.api.utils.Procedure;
 import net.dv8tion.jda.internal.requests.RestActionImpl;
@@ -146,6 +147,10 @@ public interface PaginationAction<T, M extends PaginationAction<T, M>> extends R
     @Override
     M deadline(long timestamp);
 
+    @Nonnull
+    @Override
+    M setPriority(@Nonnull RequestPriority priority);
+
     /**
      * The supported {@link PaginationOrder PaginationOrders} for this pagination action.
      * <br>All enum values that are not returned will cause a throw for {@link #order(PaginationOrder)}.
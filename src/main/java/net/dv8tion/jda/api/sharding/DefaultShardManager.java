@@ -539,6 +539,7 @@ public class DefaultShardManager implements ShardManager
 
         JDAImpl jda = new JDAImpl(authConfig, sessionConfig, threadingConfig, metaConfig, restConfig);
         jda.setMemberCachePolicy(shardingConfig.getMemberCachePolicy());
+        jda.setWantedEvents(eventConfig.getWantedEvents());
         threadingConfig.init(jda::getIdentifierString);
         jda.initRequester();
 
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.api.utils;
+
+import net.dv8tion.jda.internal.utils.Checks;
+import net.dv8tion.jda.internal.utils.EntityString;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of buffers, which is shared by the gateway decompression of all JDA instances in the process.
+ * <br>Instead of every shard keeping its own buffers, a buffer is borrowed for each message and returned afterwards.
+ *
+ * <p>Buffers are pooled in size classes of powers of two, from {@value #MIN_BUFFER_SIZE} bytes up to {@value #MAX_BUFFER_SIZE} bytes.
+ * Buffers which are larger than the {@link net.dv8tion.jda.api.JDABuilder#setMaxBufferSize(int) max buffer size} of the session,
+ * or which would exceed the {@link #getMaxPooledBytes() pool limit}, are not returned to the pool and left to the garbage collector.
+ *
+ * <p>The pool can use {@link ByteBuffer#allocateDirect(int) direct buffers}, which keeps the pooled memory outside the heap.
+ * Only the final copy of every message is allocated on the heap in that case.
+ *
+ * <p><b>Example</b><br>
+ * <pre>{@code
+ * // Keep up to 64 MiB of direct buffers for all shards
+ * BufferPool.setDefault(new BufferPool(64 << 20, true));
+ * DefaultShardManagerBuilder.createDefault(token).build();
+ * }</pre>
+ */
+public class BufferPool
+{
+    /** The smallest size class */
+    public static final int MIN_BUFFER_SIZE = 1 << 10;
+    /** The largest size class, larger buffers are never pooled */
+    public static final int MAX_BUFFER_SIZE = 1 << 26;
+
+    private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_BUFFER_SIZE);
+    private static volatile BufferPool defaultPool = new BufferPool(16 << 20, false);
+
+    private final long maxPooledBytes;
+    private final boolean direct;
+    private final List<ConcurrentLinkedDeque<ByteBuffer>> classes;
+    private final AtomicLong pooledBytes = new AtomicLong();
+    private final AtomicLong borrowedBytes = new AtomicLong();
+    private final AtomicLong peakBytes = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a new buffer pool.
+     *
+     * @param  maxPooledBytes
+     *         The maximum number of bytes kept in the pool, while the buffers are not borrowed
+     * @param  direct
+     *         True, to allocate {@link ByteBuffer#allocateDirect(int) direct buffers} outside the heap
+     *
+     * @throws IllegalArgumentException
+     *         If the provided limit is negative
+     */
+    public BufferPool(long maxPooledBytes, boolean direct)
+    {
+        Checks.notNegative(maxPooledBytes, "Max pooled bytes");
+        this.maxPooledBytes = maxPooledBytes;
+        this.direct = direct;
+        int count = Integer.numberOfTrailingZeros(MAX_BUFFER_SIZE) - MIN_SHIFT + 1;
+        List<ConcurrentLinkedDeque<ByteBuffer>> classes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            classes.add(new ConcurrentLinkedDeque<>());
+        this.classes = Collections.unmodifiableList(classes);
+    }
+
+    /**
+     * The pool used by all decompressors, which are created after this was set.
+     * <br>By default, this pool keeps up to 16 MiB of heap buffers.
+     *
+     * @return The default {@link BufferPool}
+     */
+    @Nonnull
+    public static BufferPool getDefault()
+    {
+        return defaultPool;
+    }
+
+    /**
+     * Replaces the pool used by all decompressors.
+     * <br>This only applies to decompressors created afterwards, which means it should be set before building JDA.
+     *
+     * @param  pool
+     *         The new default pool
+     *
+     * @throws IllegalArgumentException
+     *         If null is provided
+     */
+    public static void setDefault(@Nonnull BufferPool pool)
+    {
+        Checks.notNull(pool, "BufferPool");
+        defaultPool = pool;
+    }
+
+    /**
+     * Borrows a cleared buffer with at least the requested capacity.
+     * <br>The buffer should be returned with {@link #release(ByteBuffer)}, once it is no longer used.
+     *
+     * @param  capacity
+     *         The minimum capacity
+     *
+     * @return The buffer
+     */
+    @Nonnull
+    public ByteBuffer acquire(int capacity)
+    {
+        ByteBuffer buffer = null;
+        int index = getClassIndex(capacity);
+        if (index < classes.size())
+            buffer = classes.get(index).pollFirst();
+
+        if (buffer != null)
+        {
+            hits.increment();
+            pooledBytes.addAndGet(-buffer.capacity());
+            buffer.clear();
+        }
+        else
+        {
+            misses.increment();
+            int size = index < classes.size() ? MIN_BUFFER_SIZE << index : capacity;
+            buffer = direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+        }
+
+        long footprint = borrowedBytes.addAndGet(buffer.capacity()) + pooledBytes.get();
+        peakBytes.accumulateAndGet(footprint, Math::max);
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer borrowed by {@link #acquire(int)}.
+     * <br>The buffer must not be used anymore, after it was returned.
+     *
+     * @param buffer
+     *        The buffer
+     */
+    public void release(@Nonnull ByteBuffer buffer)
+    {
+        borrowedBytes.addAndGet(-buffer.capacity());
+        int capacity = buffer.capacity();
+        int index = getClassIndex(capacity);
+        if (index >= classes.size() || MIN_BUFFER_SIZE << index != capacity || buffer.isDirect() != direct)
+            return;
+        if (pooledBytes.addAndGet(capacity) > maxPooledBytes)
+        {
+            // The pool is full, this buffer is left to the garbage collector
+            pooledBytes.addAndGet(-capacity);
+            return;
+        }
+        classes.get(index).offerFirst(buffer);
+    }
+
+    /**
+     * Returns a buffer borrowed by {@link #acquire(int)}, without keeping it in the pool.
+     *
+     * @param buffer
+     *        The buffer
+     */
+    public void discard(@Nonnull ByteBuffer buffer)
+    {
+        borrowedBytes.addAndGet(-buffer.capacity());
+    }
+
+    /**
+     * Removes all buffers from the pool.
+     */
+    public void clear()
+    {
+        for (ConcurrentLinkedDeque<ByteBuffer> buffers : classes)
+        {
+            ByteBuffer buffer;
+            while ((buffer = buffers.pollFirst()) != null)
+                pooledBytes.addAndGet(-buffer.capacity());
+        }
+    }
+
+    /**
+     * Whether this pool allocates {@link ByteBuffer#allocateDirect(int) direct buffers}.
+     *
+     * @return True, if the buffers are outside the heap
+     */
+    public boolean isDirect()
+    {
+        return direct;
+    }
+
+    /**
+     * The maximum number of bytes kept in the pool.
+     *
+     * @return The limit in bytes
+     */
+    public long getMaxPooledBytes()
+    {
+        return maxPooledBytes;
+    }
+
+    /**
+     * The number of bytes currently kept in the pool, which are not borrowed.
+     *
+     * @return The pooled bytes
+     */
+    public long getPooledBytes()
+    {
+        return pooledBytes.get();
+    }
+
+    /**
+     * The number of bytes currently borrowed from the pool.
+     *
+     * @return The borrowed bytes
+     */
+    public long getBorrowedBytes()
+    {
+        return borrowedBytes.get();
+    }
+
+    /**
+     * The highest number of pooled and borrowed bytes at the same time.
+     *
+     * @return The peak footprint in bytes
+     */
+    public long getPeakBytes()
+    {
+        return peakBytes.get();
+    }
+
+    /**
+     * The number of buffers which were taken from the pool, instead of being allocated.
+     *
+     * @return The number of hits
+     */
+    public long getHitCount()
+    {
+        return hits.sum();
+    }
+
+    /**
+     * The number of buffers which had to be allocated, because the pool had no suitable buffer.
+     *
+     * @return The number of misses
+     */
+    public long getMissCount()
+    {
+        return misses.sum();
+    }
+
+    /**
+     * The ratio of borrowed buffers which were taken from the pool.
+     *
+     * @return The hit rate between 0 and 1
+     */
+    public double getHitRate()
+    {
+        long hits = getHitCount();
+        long total = hits + getMissCount();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString()
+    {
+        return new EntityString(this)
+                .addMetadata("direct", direct)
+                .addMetadata("pooled", getPooledBytes())
+                .addMetadata("borrowed", getBorrowedBytes())
+                .addMetadata("peak", getPeakBytes())
+                .addMetadata("hitRate", getHitRate())
+                .toString();
+    }
+
+    private static int getClassIndex(int capacity)
+    {
+        if (capacity <= MIN_BUFFER_SIZE)
+            return 0;
+        // Round up to the next power of two
+        return 32 - Integer.numberOfLeadingZeros(capacity - 1) - MIN_SHIFT;
+    }
+}
@@ -27,7 +27,15 @@ public enum Compression
     /** Don't use any compression */
     NONE(""),
     /** Use ZLIB transport compression */
-    ZLIB("zlib-stream");
+    ZLIB("zlib-stream"),
+    /**
+     * Use ZSTD transport compression.
+     * <br>This is faster to decompress than {@link #ZLIB} at a similar compression ratio.
+     *
+     * <p>This requires the optional <a href="https://github.com/luben/zstd-jni" target="_blank">zstd-jni</a> dependency.
+     * If the library or its native binaries are not available, JDA will use {@link #ZLIB} instead.
+     */
+    ZSTD("zstd-stream");
 
     private final String key;
 
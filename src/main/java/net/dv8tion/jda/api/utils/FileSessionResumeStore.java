@@ -0,0 +1,118 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.dv8tion.jda.api.utils;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.internal.utils.Checks;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Default implementation of {@link SessionResumeStore}, which stores the session of each shard in a JSON file.
+ *
+ * <p>The files are named {@code session-<shard id>-<shard total>.json}, so multiple shard managers can use the same directory,
+ * as long as every shard is only running once.
+ *
+ * <p><b>Example</b><br>
+ * <pre>{@code
+ * DefaultShardManagerBuilder.createDefault(token)
+ *     .setSessionResumeStore(new FileSessionResumeStore(Paths.get("sessions")))
+ *     .build();
+ * }</pre>
+ */
+public class FileSessionResumeStore implements SessionResumeStore
+{
+    private final Path directory;
+
+    /**
+     * Creates a new store, which saves the sessions in the provided directory.
+     * <br>The directory is created when the first session is saved.
+     *
+     * @param  directory
+     *         The directory for the session files
+     *
+     * @throws IllegalArgumentException
+     *         If the directory is null
+     */
+    public FileSessionResumeStore(@Nonnull Path directory)
+    {
+        Checks.notNull(directory, "Directory");
+        this.directory = directory;
+    }
+
+    @Nonnull
+    public Path getDirectory()
+    {
+        return directory;
+    }
+
+    @Nullable
+    @Override
+    public ResumeState load(@Nonnull JDA.ShardInfo shardInfo)
+    {
+        Path file = getFile(shardInfo);
+        try
+        {
+            return ResumeState.fromData(DataObject.fromJson(Files.readAllBytes(file)));
+        }
+        catch (NoSuchFileException e)
+        {
+            return null;
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void save(@Nonnull JDA.ShardInfo shardInfo, @Nullable ResumeState state)
+    {
+        Path file = getFile(shardInfo);
+        try
+        {
+            if (state == null)
+            {
+                Files.deleteIfExists(file);
+                return;
+            }
+
+            Files.createDirectories(directory);
+            // Write a temporary file first, so a crash while writing does not leave a corrupted session behind
+            Path tmpPath = Files.createTempFile(directory, file.getFileName().toString(), ".part");
+            Files.write(tmpPath, state.toData().toJson());
+            Files.move(tmpPath, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Nonnull
+    protected Path getFile(@Nonnull JDA.ShardInfo shardInfo)
+    {
+        return directory.resolve("session-" + shardInfo.getShardId() + "-" + shardInfo.getShardTotal() + ".json");
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.api.utils;
+
+/**
+ * What happens when the gateway queue is full and the websocket read thread receives another message.
+ *
+ * <p>Gateway events cannot simply be dropped, since every event updates the cache.
+ * Both policies ensure that no events are lost.
+ *
+ * @see net.dv8tion.jda.api.JDABuilder#setGatewayQueue(int, GatewayQueuePolicy)
+ * @see net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder#setGatewayQueue(int, GatewayQueuePolicy)
+ */
+public enum GatewayQueuePolicy
+{
+    /**
+     * The read thread waits until the queue has space again.
+     * <br>While waiting, no messages are read from the socket, including heartbeat acknowledgements.
+     */
+    BLOCK,
+    /**
+     * The queued messages are discarded and the session is resumed on a new connection.
+     * <br>Discord replays all events after the last handled event when resuming.
+     */
+    RECONNECT
+}
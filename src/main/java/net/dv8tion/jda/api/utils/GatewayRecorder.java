@@ -0,0 +1,407 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.api.utils;
+
+import net.dv8tion.jda.api.GatewayEncoding;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.internal.utils.Checks;
+import net.dv8tion.jda.internal.utils.JDALogger;
+import org.slf4j.Logger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Records the frames received by the gateway connection into a file.
+ * <br>The recording can be replayed without a network connection using {@link net.dv8tion.jda.api.JDABuilder#buildReplay(Path, boolean)}.
+ *
+ * <p>The file starts with the header {@code "JDAG"}, the format version, and the {@link Mode}.
+ * Every frame is stored with its type, the time since the recording started in nanoseconds, and its length, followed by the frame itself.
+ * A new connection starts with a {@link #CONNECT} frame, which contains the compression and encoding of the connection.
+ *
+ * <p>Recording writes every received frame to disk, which slows down the gateway connection.
+ * The recording contains the full payloads, including the personal information of users, and should be handled accordingly.
+ *
+ * @see net.dv8tion.jda.api.JDABuilder#setGatewayRecorder(GatewayRecorder)
+ */
+public class GatewayRecorder implements Closeable
+{
+    public static final Logger LOG = JDALogger.getLog(GatewayRecorder.class);
+
+    /** Frame type of a text frame, which contains JSON */
+    public static final int TEXT = 0;
+    /** Frame type of a binary frame, which contains compressed data or ETF */
+    public static final int BINARY = 1;
+    /** Frame type of a new connection */
+    public static final int CONNECT = 2;
+
+    private static final int MAGIC = 0x4A444147; // JDAG
+    private static final int VERSION = 1;
+
+    private final Mode mode;
+    private final DataOutputStream output;
+    private final long start = System.nanoTime();
+    private boolean failed = false;
+
+    /**
+     * Creates a new recorder, which replaces the provided file.
+     *
+     * @param  file
+     *         The file to write to
+     * @param  mode
+     *         Whether frames are recorded before or after decompression
+     *
+     * @throws IllegalArgumentException
+     *         If null is provided
+     * @throws UncheckedIOException
+     *         If the file cannot be created
+     */
+    public GatewayRecorder(@Nonnull Path file, @Nonnull Mode mode)
+    {
+        Checks.notNull(file, "File");
+        Checks.notNull(mode, "Mode");
+        this.mode = mode;
+        try
+        {
+            this.output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 65536));
+            output.writeInt(MAGIC);
+            output.writeByte(VERSION);
+            output.writeByte(mode.ordinal());
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Whether frames are recorded before or after decompression.
+     *
+     * @return The {@link Mode}
+     */
+    @Nonnull
+    public Mode getMode()
+    {
+        return mode;
+    }
+
+    /**
+     * Records the start of a new connection.
+     * <br>This is called by JDA.
+     *
+     * @param compression
+     *        The compression of the connection
+     * @param encoding
+     *        The encoding of the connection
+     */
+    public synchronized void recordConnect(@Nonnull Compression compression, @Nonnull GatewayEncoding encoding)
+    {
+        byte[] data = DataObject.empty()
+                .put("compression", compression.name())
+                .put("encoding", encoding.name())
+                .toJson();
+        write(CONNECT, data, data.length);
+        // Flushing here keeps everything up to the previous connection, if the process is killed
+        flush();
+    }
+
+    /**
+     * Records a received frame.
+     * <br>This is called by JDA.
+     *
+     * @param type
+     *        The frame type, either {@link #TEXT} or {@link #BINARY}
+     * @param data
+     *        The frame data
+     * @param length
+     *        The length of the frame
+     */
+    public synchronized void recordFrame(int type, @Nonnull byte[] data, int length)
+    {
+        write(type, data, length);
+    }
+
+    @Override
+    public synchronized void close()
+    {
+        try
+        {
+            output.close();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Opens a recording for reading.
+     *
+     * @param  file
+     *         The recording
+     *
+     * @throws UncheckedIOException
+     *         If the file cannot be read or is not a recording
+     *
+     * @return The {@link Reader}
+     */
+    @Nonnull
+    public static Reader read(@Nonnull Path file)
+    {
+        Checks.notNull(file, "File");
+        try
+        {
+            return new Reader(new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 65536)));
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void write(int type, byte[] data, int length)
+    {
+        if (failed)
+            return;
+        try
+        {
+            output.writeByte(type);
+            output.writeLong(System.nanoTime() - start);
+            output.writeInt(length);
+            output.write(data, 0, length);
+        }
+        catch (IOException e)
+        {
+            // Recording must never break the connection
+            failed = true;
+            LOG.error("Failed to record gateway frame, recording is stopped", e);
+        }
+    }
+
+    private void flush()
+    {
+        try
+        {
+            output.flush();
+        }
+        catch (IOException e)
+        {
+            failed = true;
+            LOG.error("Failed to flush gateway recording, recording is stopped", e);
+        }
+    }
+
+    /**
+     * Whether frames are recorded before or after decompression.
+     */
+    public enum Mode
+    {
+        /**
+         * Records the frames as they are received.
+         * <br>Replaying these frames includes the decompression.
+         */
+        COMPRESSED,
+        /**
+         * Records the frames after decompression.
+         * <br>Stream decompression is disabled while recording, since it never materializes the decompressed payload.
+         */
+        DECOMPRESSED
+    }
+
+    /**
+     * A recorded frame.
+     */
+    public static class Frame
+    {
+        private final int type;
+        private final long time;
+        private final byte[] data;
+
+        public Frame(int type, long time, @Nonnull byte[] data)
+        {
+            this.type = type;
+            this.time = time;
+            this.data = data;
+        }
+
+        /**
+         * The frame type, one of {@link #TEXT}, {@link #BINARY}, or {@link #CONNECT}.
+         *
+         * @return The frame type
+         */
+        public int getType()
+        {
+            return type;
+        }
+
+        /**
+         * The time since the recording started.
+         *
+         * @return The time in nanoseconds
+         */
+        public long getTime()
+        {
+            return time;
+        }
+
+        /**
+         * The frame data.
+         *
+         * @return The data
+         */
+        @Nonnull
+        public byte[] getData()
+        {
+            return data;
+        }
+    }
+
+    /**
+     * Reads the frames of a recording in order.
+     */
+    public static class Reader implements Closeable
+    {
+        private final DataInputStream input;
+        private final Mode mode;
+        private Compression compression = Compression.NONE;
+        private GatewayEncoding encoding = GatewayEncoding.JSON;
+        private Frame next;
+
+        protected Reader(DataInputStream input) throws IOException
+        {
+            this.input = input;
+            try
+            {
+                if (input.readInt() != MAGIC)
+                    throw new IOException("File is not a gateway recording");
+                int version = input.readUnsignedByte();
+                if (version != VERSION)
+                    throw new IOException("Unsupported recording version " + version);
+                this.mode = Mode.values()[input.readUnsignedByte()];
+                // The first connection defines the compression and encoding of the recording
+                this.next = readFrame();
+                if (next != null && next.getType() == CONNECT)
+                {
+                    DataObject connect = DataObject.fromJson(next.getData());
+                    this.compression = Compression.valueOf(connect.getString("compression"));
+                    this.encoding = GatewayEncoding.valueOf(connect.getString("encoding"));
+                }
+            }
+            catch (IOException | RuntimeException e)
+            {
+                input.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Whether frames were recorded before or after decompression.
+         *
+         * @return The {@link Mode}
+         */
+        @Nonnull
+        public Mode getMode()
+        {
+            return mode;
+        }
+
+        /**
+         * The compression of the recorded frames.
+         * <br>This is {@link Compression#NONE} for {@link Mode#DECOMPRESSED} recordings.
+         *
+         * @return The {@link Compression}
+         */
+        @Nonnull
+        public Compression getCompression()
+        {
+            return mode == Mode.DECOMPRESSED ? Compression.NONE : compression;
+        }
+
+        /**
+         * The encoding of the recorded payloads.
+         *
+         * @return The {@link GatewayEncoding}
+         */
+        @Nonnull
+        public GatewayEncoding getEncoding()
+        {
+            return encoding;
+        }
+
+        /**
+         * Reads the next frame.
+         *
+         * @throws UncheckedIOException
+         *         If the file cannot be read
+         *
+         * @return The next frame, or null if the end of the recording is reached
+         */
+        @Nullable
+        public Frame next()
+        {
+            Frame frame = next;
+            if (frame == null)
+                return null;
+            try
+            {
+                next = readFrame();
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+            return frame;
+        }
+
+        @Override
+        public void close()
+        {
+            try
+            {
+                input.close();
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private Frame readFrame() throws IOException
+        {
+            int type = input.read();
+            if (type < 0)
+                return null;
+            try
+            {
+                long time = input.readLong();
+                byte[] data = new byte[input.readInt()];
+                input.readFully(data);
+                return new Frame(type, time, data);
+            }
+            catch (EOFException e)
+            {
+                // The process was killed while writing this frame
+                LOG.debug("Gateway recording ends with an incomplete frame");
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.dv8tion.jda.api.utils;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.api.utils.data.SerializableData;
+import net.dv8tion.jda.internal.utils.Checks;
+import net.dv8tion.jda.internal.utils.EntityString;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Stores the gateway session of each shard, so a restarted process can resume the session instead of identifying again.
+ *
+ * <p>When a {@link JDA} instance is shut down, the session is not closed but saved to this store.
+ * The next login of the same shard loads the state and sends a RESUME instead of an IDENTIFY.
+ * This skips the identify queue of the {@link SessionController} and the initial guild setup.
+ * If the session cannot be resumed anymore, JDA falls back to a new session.
+ *
+ * <p><b>The cache is not restored by resuming.</b>
+ * Discord only replays the events which were missed since the last sequence,
+ * so guilds and members are not available until they are received again.
+ *
+ * <p>The {@link FileSessionResumeStore} provides a default implementation, which stores one file per shard.
+ *
+ * @see net.dv8tion.jda.api.JDABuilder#setSessionResumeStore(SessionResumeStore)
+ * @see net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder#setSessionResumeStore(SessionResumeStore)
+ */
+public interface SessionResumeStore
+{
+    /**
+     * Loads the saved session of the provided shard.
+     * <br>Sessions are only resumed once, after loading a session it is removed with {@link #save(JDA.ShardInfo, ResumeState) save(shardInfo, null)}.
+     *
+     * @param  shardInfo
+     *         The shard to load, this is {@link JDA.ShardInfo#SINGLE} if sharding is not used
+     *
+     * @return The saved session, or null if there is none
+     */
+    @Nullable
+    ResumeState load(@Nonnull JDA.ShardInfo shardInfo);
+
+    /**
+     * Saves or removes the session of the provided shard.
+     *
+     * @param  shardInfo
+     *         The shard to save, this is {@link JDA.ShardInfo#SINGLE} if sharding is not used
+     * @param  state
+     *         The session to save, or null to remove the saved session
+     */
+    void save(@Nonnull JDA.ShardInfo shardInfo, @Nullable ResumeState state);
+
+    /**
+     * The state required to resume a gateway session.
+     */
+    class ResumeState implements SerializableData
+    {
+        private final String sessionId;
+        private final String resumeUrl;
+        private final int sequence;
+
+        public ResumeState(@Nonnull String sessionId, @Nullable String resumeUrl, int sequence)
+        {
+            Checks.notEmpty(sessionId, "Session ID");
+            this.sessionId = sessionId;
+            this.resumeUrl = resumeUrl;
+            this.sequence = sequence;
+        }
+
+        /**
+         * Parses a state from the representation of {@link #toData()}.
+         *
+         * @param  data
+         *         The serialized state
+         *
+         * @throws net.dv8tion.jda.api.exceptions.ParsingException
+         *         If the data is missing required fields
+         *
+         * @return The parsed state
+         */
+        @Nonnull
+        public static ResumeState fromData(@Nonnull DataObject data)
+        {
+            Checks.notNull(data, "Data");
+            return new ResumeState(data.getString("session_id"), data.getString("resume_url", null), data.getInt("seq"));
+        }
+
+        /**
+         * The id of the session
+         *
+         * @return The session id
+         */
+        @Nonnull
+        public String getSessionId()
+        {
+            return sessionId;
+        }
+
+        /**
+         * The gateway url which should be used to resume the session.
+         *
+         * @return The resume url, or null to use the default gateway url
+         */
+        @Nullable
+        public String getResumeUrl()
+        {
+            return resumeUrl;
+        }
+
+        /**
+         * The sequence number of the last handled event.
+         *
+         * @return The last sequence number
+         */
+        public int getSequence()
+        {
+            return sequence;
+        }
+
+        @Nonnull
+        @Override
+        public DataObject toData()
+        {
+            return DataObject.empty()
+                .put("session_id", sessionId)
+                .put("resume_url", resumeUrl)
+                .put("seq", sequence);
+        }
+
+        @Override
+        public String toString()
+        {
+            return new EntityString(this)
+                .addMetadata("sessionId", sessionId)
+                .addMetadata("sequence", sequence)
+                .toString();
+        }
+    }
+}
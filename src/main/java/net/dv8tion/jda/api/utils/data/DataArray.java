@@ -16,17 +16,22 @@
 
 package net.dv8tion.jda.api.utils.data;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import com.fasterxml.jackson.databind.type.CollectionType;
+import com.fasterxml.jackson.databind.type.MapType;
 import net.dv8tion.jda.api.exceptions.ParsingException;
 import net.dv8tion.jda.api.utils.data.etf.ExTermDecoder;
 import net.dv8tion.jda.api.utils.data.etf.ExTermEncoder;
 import net.dv8tion.jda.internal.utils.Checks;
 import net.dv8tion.jda.internal.utils.Helpers;
+import net.dv8tion.jda.internal.utils.SnowflakeValue;
 import org.jetbrains.annotations.Contract;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,6 +44,7 @@ import java.time.OffsetDateTime;
 import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.UnaryOperator;
 import java.util.stream.IntStream;
@@ -58,6 +64,7 @@ public class DataArray implements Iterable<Object>, SerializableArray
     private static final ObjectMapper mapper;
     private static final SimpleModule module;
     private static final CollectionType listType;
+    private static final MapType mapType;
 
     static
     {
@@ -65,8 +72,10 @@ public class DataArray implements Iterable<Object>, SerializableArray
         module = new SimpleModule();
         module.addAbstractTypeMapping(Map.class, HashMap.class);
         module.addAbstractTypeMapping(List.class, ArrayList.class);
+        module.addSerializer(SnowflakeValue.class, ToStringSerializer.instance);
         mapper.registerModule(module);
         listType = mapper.getTypeFactory().constructRawCollectionType(ArrayList.class);
+        mapType = mapper.getTypeFactory().constructRawMapType(HashMap.class);
     }
 
     protected final List<Object> data;
@@ -152,6 +161,34 @@ public class DataArray implements Iterable<Object>, SerializableArray
         }
     }
 
+    /**
+     * Parses a JSON Array into a DataArray instance, optionally decoding snowflake ids.
+     *
+     * @param  json
+     *         The correctly formatted JSON Array
+     * @param  snowflakes
+     *         Whether to decode snowflake ids, see {@link DataObject#fromJson(byte[], boolean)}
+     *
+     * @throws net.dv8tion.jda.api.exceptions.ParsingException
+     *         If the provided JSON is incorrectly formatted or an I/O error occurred
+     *
+     * @return A new DataArray instance for the provided array
+     */
+    @Nonnull
+    public static DataArray fromJson(@Nonnull InputStream json, boolean snowflakes)
+    {
+        if (!snowflakes)
+            return fromJson(json);
+        try (JsonParser parser = mapper.getFactory().createParser(json))
+        {
+            return new DataArray(SnowflakeJsonReader.readArray(parser));
+        }
+        catch (IOException e)
+        {
+            throw new ParsingException(e);
+        }
+    }
+
     /**
      * Parses a JSON Array into a DataArray instance.
      *
@@ -176,6 +213,44 @@ public class DataArray implements Iterable<Object>, SerializableArray
         }
     }
 
+    /**
+     * Parses a JSON Array of objects one element at a time, without building the entire array first.
+     * <br>Each object is passed to the action as soon as it is parsed, and can be discarded afterwards.
+     *
+     * @param  json
+     *         The correctly formatted JSON Array
+     * @param  action
+     *         The action to perform for each object
+     *
+     * @throws net.dv8tion.jda.api.exceptions.ParsingException
+     *         If the provided JSON is incorrectly formatted, contains elements which are not objects, or an I/O error occurred
+     *
+     * @return The number of parsed objects
+     */
+    public static int forEachObject(@Nonnull Reader json, @Nonnull Consumer<? super DataObject> action)
+    {
+        try (JsonParser parser = mapper.getFactory().createParser(json))
+        {
+            if (parser.nextToken() != JsonToken.START_ARRAY)
+                throw new ParsingException("Expected JSON array but got " + parser.currentToken());
+            int count = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT)
+            {
+                Map<String, Object> map = mapper.readValue(parser, mapType);
+                action.accept(new DataObject(map));
+                count++;
+            }
+            if (token != JsonToken.END_ARRAY)
+                throw new ParsingException("Expected JSON object but got " + token);
+            return count;
+        }
+        catch (IOException e)
+        {
+            throw new ParsingException(e);
+        }
+    }
+
     /**
      * Parses using {@link ExTermDecoder}.
      * The provided data must start with the correct version header (131).
@@ -480,6 +555,9 @@ public class DataArray implements Iterable<Object>, SerializableArray
      */
     public long getLong(int index)
     {
+        SnowflakeValue snowflake = getSnowflake(index);
+        if (snowflake != null)
+            return snowflake.longValue();
         Long value = get(Long.class, index, Long::parseLong, Number::longValue);
         if (value == null)
             throw valueError(index, "long");
@@ -501,6 +579,9 @@ public class DataArray implements Iterable<Object>, SerializableArray
      */
     public long getLong(int index, long defaultValue)
     {
+        SnowflakeValue snowflake = getSnowflake(index);
+        if (snowflake != null)
+            return snowflake.longValue();
         Long value = get(Long.class, index, Long::parseLong, Number::longValue);
         return value == null ? defaultValue : value;
     }
@@ -518,6 +599,9 @@ public class DataArray implements Iterable<Object>, SerializableArray
      */
     public long getUnsignedLong(int index)
     {
+        SnowflakeValue snowflake = getSnowflake(index);
+        if (snowflake != null)
+            return snowflake.longValue();
         Long value = get(Long.class, index, Long::parseUnsignedLong, Number::longValue);
         if (value == null)
             throw valueError(index, "unsigned long");
@@ -589,6 +673,9 @@ public class DataArray implements Iterable<Object>, SerializableArray
      */
     public long getUnsignedLong(int index, long defaultValue)
     {
+        SnowflakeValue snowflake = getSnowflake(index);
+        if (snowflake != null)
+            return snowflake.longValue();
         Long value = get(Long.class, index, Long::parseUnsignedLong, Number::longValue);
         return value == null ? defaultValue : value;
     }
@@ -797,12 +884,14 @@ public class DataArray implements Iterable<Object>, SerializableArray
 
     /**
      * Converts this DataArray to a {@link java.util.List}.
+     * <br>Snowflake ids decoded by {@link DataObject#fromJson(byte[], boolean)} are converted back to strings.
      *
      * @return The resulting list
      */
     @Nonnull
     public List<Object> toList()
     {
+        SnowflakeValue.restoreStrings(data);
         return data;
     }
 
@@ -811,6 +900,14 @@ public class DataArray implements Iterable<Object>, SerializableArray
         return new ParsingException("Unable to resolve value at " + index + " to type " + expectedType + ": " + data.get(index));
     }
 
+    @Nullable
+    private SnowflakeValue getSnowflake(int index)
+    {
+        // Decoded snowflakes don't need to be boxed
+        Object value = index >= 0 && index < data.size() ? data.get(index) : null;
+        return value instanceof SnowflakeValue ? (SnowflakeValue) value : null;
+    }
+
     @Nullable
     private <T> T get(@Nonnull Class<T> type, int index)
     {
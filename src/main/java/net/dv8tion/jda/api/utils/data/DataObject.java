@@ -17,6 +17,8 @@
 package net.dv8tion.jda.api.utils.data;
 
 import com.fasterxml.jackson.core.FormatFeature;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.json.JsonWriteFeature;
 import com.fasterxml.jackson.core.util.DefaultIndenter;
@@ -25,6 +27,7 @@ import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import com.fasterxml.jackson.databind.type.MapType;
 import net.dv8tion.jda.api.exceptions.ParsingException;
 import net.dv8tion.jda.api.utils.MiscUtil;
@@ -32,6 +35,7 @@ import net.dv8tion.jda.api.utils.data.etf.ExTermDecoder;
 import net.dv8tion.jda.api.utils.data.etf.ExTermEncoder;
 import net.dv8tion.jda.internal.utils.Checks;
 import net.dv8tion.jda.internal.utils.Helpers;
+import net.dv8tion.jda.internal.utils.SnowflakeValue;
 import org.jetbrains.annotations.Contract;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -67,6 +71,7 @@ public class DataObject implements SerializableData
         module = new SimpleModule();
         module.addAbstractTypeMapping(Map.class, HashMap.class);
         module.addAbstractTypeMapping(List.class, ArrayList.class);
+        module.addSerializer(SnowflakeValue.class, ToStringSerializer.instance);
         mapper.registerModule(module);
         mapType = mapper.getTypeFactory().constructRawMapType(HashMap.class);
     }
@@ -116,6 +121,39 @@ public class DataObject implements SerializableData
         }
     }
 
+    /**
+     * Parses a JSON payload into a DataObject instance, optionally decoding snowflake ids.
+     *
+     * <p>When {@code snowflakes} is enabled, string values of id keys ({@code id}, keys ending with {@code _id}, and the {@code roles} array)
+     * are stored as primitive longs, if they are plain snowflakes.
+     * Accessing these with {@link #getUnsignedLong(String)} or {@link #getLong(String)} does not parse or allocate anything.
+     * They are still treated as {@link DataType#STRING strings}, and {@link #getString(String)} returns the same string as before.
+     *
+     * @param  data
+     *         The correctly formatted JSON payload to parse
+     * @param  snowflakes
+     *         Whether to decode snowflake ids
+     *
+     * @throws net.dv8tion.jda.api.exceptions.ParsingException
+     *         If the provided json is incorrectly formatted
+     *
+     * @return A DataObject instance for the provided payload
+     */
+    @Nonnull
+    public static DataObject fromJson(@Nonnull byte[] data, boolean snowflakes)
+    {
+        if (!snowflakes)
+            return fromJson(data);
+        try (JsonParser parser = mapper.getFactory().createParser(data))
+        {
+            return new DataObject(SnowflakeJsonReader.readObject(parser));
+        }
+        catch (IOException ex)
+        {
+            throw new ParsingException(ex);
+        }
+    }
+
     /**
      * Parses a JSON payload into a DataObject instance.
      *
@@ -166,6 +204,36 @@ public class DataObject implements SerializableData
         }
     }
 
+    /**
+     * Parses a JSON payload into a DataObject instance, optionally decoding snowflake ids.
+     *
+     * @param  stream
+     *         The correctly formatted JSON payload to parse
+     * @param  snowflakes
+     *         Whether to decode snowflake ids
+     *
+     * @throws net.dv8tion.jda.api.exceptions.ParsingException
+     *         If the provided json is incorrectly formatted or an I/O error occurred
+     *
+     * @return A DataObject instance for the provided payload
+     *
+     * @see    #fromJson(byte[], boolean)
+     */
+    @Nonnull
+    public static DataObject fromJson(@Nonnull InputStream stream, boolean snowflakes)
+    {
+        if (!snowflakes)
+            return fromJson(stream);
+        try (JsonParser parser = mapper.getFactory().createParser(stream))
+        {
+            return new DataObject(SnowflakeJsonReader.readObject(parser));
+        }
+        catch (IOException ex)
+        {
+            throw new ParsingException(ex);
+        }
+    }
+
     /**
      * Parses a JSON payload into a DataObject instance.
      *
@@ -223,6 +291,109 @@ public class DataObject implements SerializableData
         }
     }
 
+    /**
+     * Parses using {@link ExTermDecoder}.
+     * The provided buffer must start with the correct version header (131).
+     *
+     * <p>This allows decoding memory-mapped files without copying them into an array first.
+     *
+     * @param  buffer
+     *         The buffer to decode
+     *
+     * @throws IllegalArgumentException
+     *         If the provided buffer is null
+     * @throws net.dv8tion.jda.api.exceptions.ParsingException
+     *         If the provided ETF payload is incorrectly formatted
+     *
+     * @return A DataObject instance for the provided payload
+     */
+    @Nonnull
+    public static DataObject fromETF(@Nonnull ByteBuffer buffer)
+    {
+        Checks.notNull(buffer, "Buffer");
+        try
+        {
+            Map<String, Object> map = ExTermDecoder.unpackMap(buffer);
+            return new DataObject(map);
+        }
+        catch (Exception ex)
+        {
+            throw new ParsingException(ex);
+        }
+    }
+
+    /**
+     * Parses a JSON payload into a DataObject instance, deferring the parsing of nested objects.
+     * <br>Top-level values which are not objects are parsed immediately.
+     * Nested objects are kept as raw JSON and only parsed once they are accessed for the first time.
+     *
+     * <p>This is useful for payloads where only a few top-level fields are always needed,
+     * such as gateway events, where the event data may be discarded without ever being read.
+     * Note that the provided array is retained until all nested objects have been parsed, and must not be modified.
+     *
+     * @param  data
+     *         The correctly formatted JSON payload to parse
+     *
+     * @throws net.dv8tion.jda.api.exceptions.ParsingException
+     *         If the provided json is incorrectly formatted,
+     *         malformed nested objects are only detected once they are accessed
+     *
+     * @return A DataObject instance for the provided payload
+     */
+    @Nonnull
+    public static DataObject fromJsonLazy(@Nonnull byte[] data)
+    {
+        return fromJsonLazy(data, false);
+    }
+
+    /**
+     * Parses a JSON payload into a DataObject instance, deferring the parsing of nested objects and optionally decoding snowflake ids.
+     *
+     * @param  data
+     *         The correctly formatted JSON payload to parse
+     * @param  snowflakes
+     *         Whether to decode snowflake ids, see {@link #fromJson(byte[], boolean)}
+     *
+     * @throws net.dv8tion.jda.api.exceptions.ParsingException
+     *         If the provided json is incorrectly formatted,
+     *         malformed nested objects are only detected once they are accessed
+     *
+     * @return A DataObject instance for the provided payload
+     *
+     * @see    #fromJsonLazy(byte[])
+     */
+    @Nonnull
+    public static DataObject fromJsonLazy(@Nonnull byte[] data, boolean snowflakes)
+    {
+        try (JsonParser parser = mapper.getFactory().createParser(data))
+        {
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+                throw new ParsingException("Cannot parse lazy json payload that is not an object");
+            Map<String, Object> map = new HashMap<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME)
+            {
+                String key = parser.currentName();
+                if (parser.nextToken() == JsonToken.START_OBJECT)
+                {
+                    // Only remember where the object is located, we parse it once it is used
+                    int start = (int) parser.currentTokenLocation().getByteOffset();
+                    parser.skipChildren();
+                    int end = (int) parser.currentLocation().getByteOffset();
+                    map.put(key, new LazyMap(data, start, end - start, snowflakes));
+                }
+                else
+                {
+                    map.put(key, mapper.readValue(parser, Object.class));
+                }
+            }
+            return new DataObject(map);
+        }
+        catch (IOException ex)
+        {
+            throw new ParsingException(ex);
+        }
+    }
+
     /**
      * Whether the specified key is present.
      *
@@ -365,7 +536,7 @@ public class DataObject implements SerializableData
     @Nonnull
     public Optional<Object> opt(@Nonnull String key)
     {
-        return Optional.ofNullable(data.get(key));
+        return Optional.ofNullable(SnowflakeValue.restoreStrings(data.get(key)));
     }
 
     /**
@@ -387,7 +558,7 @@ public class DataObject implements SerializableData
         Object value = data.get(key);
         if (value == null)
             throw valueError(key, "any");
-        return value;
+        return SnowflakeValue.restoreStrings(value);
     }
 
     /**
@@ -475,7 +646,10 @@ public class DataObject implements SerializableData
      */
     public long getLong(@Nonnull String key)
     {
-        Long value = get(Long.class, key, MiscUtil::parseLong, Number::longValue);
+        Object raw = data.get(key);
+        if (raw instanceof SnowflakeValue) // decoded snowflakes don't need to be boxed
+            return ((SnowflakeValue) raw).longValue();
+        Long value = coerce(Long.class, key, raw, MiscUtil::parseLong, Number::longValue);
         if (value == null)
             throw valueError(key, "long");
         return value;
@@ -496,7 +670,10 @@ public class DataObject implements SerializableData
      */
     public long getLong(@Nonnull String key, long defaultValue)
     {
-        Long value = get(Long.class, key, Long::parseLong, Number::longValue);
+        Object raw = data.get(key);
+        if (raw instanceof SnowflakeValue) // decoded snowflakes don't need to be boxed
+            return ((SnowflakeValue) raw).longValue();
+        Long value = coerce(Long.class, key, raw, Long::parseLong, Number::longValue);
         return value == null ? defaultValue : value;
     }
 
@@ -513,7 +690,10 @@ public class DataObject implements SerializableData
      */
     public long getUnsignedLong(@Nonnull String key)
     {
-        Long value = get(Long.class, key, Long::parseUnsignedLong, Number::longValue);
+        Object raw = data.get(key);
+        if (raw instanceof SnowflakeValue) // decoded snowflakes don't need to be boxed
+            return ((SnowflakeValue) raw).longValue();
+        Long value = coerce(Long.class, key, raw, Long::parseUnsignedLong, Number::longValue);
         if (value == null)
             throw valueError(key, "unsigned long");
         return value;
@@ -534,7 +714,10 @@ public class DataObject implements SerializableData
      */
     public long getUnsignedLong(@Nonnull String key, long defaultValue)
     {
-        Long value = get(Long.class, key, Long::parseUnsignedLong, Number::longValue);
+        Object raw = data.get(key);
+        if (raw instanceof SnowflakeValue) // decoded snowflakes don't need to be boxed
+            return ((SnowflakeValue) raw).longValue();
+        Long value = coerce(Long.class, key, raw, Long::parseUnsignedLong, Number::longValue);
         return value == null ? defaultValue : value;
     }
 
@@ -869,12 +1052,14 @@ public class DataObject implements SerializableData
 
     /**
      * Converts this DataObject to a {@link java.util.Map}
+     * <br>Snowflake ids decoded by {@link #fromJson(byte[], boolean)} are converted back to strings.
      *
      * @return The resulting map
      */
     @Nonnull
     public Map<String, Object> toMap()
     {
+        SnowflakeValue.restoreStrings(data);
         return data;
     }
 
@@ -899,7 +1084,12 @@ public class DataObject implements SerializableData
     @Nullable
     private <T> T get(@Nonnull Class<T> type, @Nonnull String key, @Nullable Function<String, T> stringParse, @Nullable Function<Number, T> numberParse)
     {
-        Object value = data.get(key);
+        return coerce(type, key, data.get(key), stringParse, numberParse);
+    }
+
+    @Nullable
+    private <T> T coerce(@Nonnull Class<T> type, @Nonnull String key, @Nullable Object value, @Nullable Function<String, T> stringParse, @Nullable Function<Number, T> numberParse)
+    {
         if (value == null)
             return null;
         if (type.isInstance(value))
@@ -916,6 +1106,113 @@ public class DataObject implements SerializableData
                                                       key, type.getSimpleName(), value, value.getClass().getSimpleName()));
     }
 
+    // Map which parses its content from the source on first access
+    private static class LazyMap extends AbstractMap<String, Object>
+    {
+        private byte[] source;
+        private final int offset, length;
+        private final boolean snowflakes;
+        private Map<String, Object> map;
+
+        private LazyMap(byte[] source, int offset, int length, boolean snowflakes)
+        {
+            this.source = source;
+            this.offset = offset;
+            this.length = length;
+            this.snowflakes = snowflakes;
+        }
+
+        private Map<String, Object> getMap()
+        {
+            if (map == null)
+            {
+                try
+                {
+                    if (snowflakes)
+                    {
+                        try (JsonParser parser = mapper.getFactory().createParser(source, offset, length))
+                        {
+                            map = SnowflakeJsonReader.readObject(parser);
+                        }
+                    }
+                    else
+                    {
+                        map = mapper.readValue(source, offset, length, mapType);
+                    }
+                    source = null;
+                }
+                catch (IOException ex)
+                {
+                    throw new ParsingException(ex);
+                }
+            }
+            return map;
+        }
+
+        @Override
+        public int size()
+        {
+            return getMap().size();
+        }
+
+        @Override
+        public boolean isEmpty()
+        {
+            return getMap().isEmpty();
+        }
+
+        @Override
+        public boolean containsKey(Object key)
+        {
+            return getMap().containsKey(key);
+        }
+
+        @Override
+        public Object get(Object key)
+        {
+            return getMap().get(key);
+        }
+
+        @Override
+        public Object put(String key, Object value)
+        {
+            return getMap().put(key, value);
+        }
+
+        @Override
+        public Object remove(Object key)
+        {
+            return getMap().remove(key);
+        }
+
+        @Override
+        public void clear()
+        {
+            getMap().clear();
+        }
+
+        @Nonnull
+        @Override
+        public Set<String> keySet()
+        {
+            return getMap().keySet();
+        }
+
+        @Nonnull
+        @Override
+        public Collection<Object> values()
+        {
+            return getMap().values();
+        }
+
+        @Nonnull
+        @Override
+        public Set<Entry<String, Object>> entrySet()
+        {
+            return getMap().entrySet();
+        }
+    }
+
     @Override
     public boolean equals(Object obj)
     {
@@ -16,6 +16,8 @@
 
 package net.dv8tion.jda.api.utils.data;
 
+import net.dv8tion.jda.internal.utils.SnowflakeValue;
+
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.List;
@@ -65,7 +67,8 @@ public enum DataType
             case FLOAT:
                 return value instanceof Double || value instanceof Float;
             case STRING:
-                return value instanceof String;
+                // Snowflakes are sent as strings, even if they are decoded
+                return value instanceof String || value instanceof SnowflakeValue;
             case BOOLEAN:
                 return value instanceof Boolean;
             case ARRAY:
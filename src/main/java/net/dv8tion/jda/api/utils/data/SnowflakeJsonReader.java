@@ -0,0 +1,120 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.api.utils.data;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import net.dv8tion.jda.internal.utils.SnowflakeValue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads JSON into the same structure as the default object mapper,
+ * but decodes snowflake strings of id keys into {@link SnowflakeValue}.
+ *
+ * <p>Keys are considered ids if they are {@code id}, end with {@code _id}, or are the {@code roles} array of a member.
+ */
+class SnowflakeJsonReader
+{
+    static Map<String, Object> readObject(JsonParser parser) throws IOException
+    {
+        if (parser.currentToken() != JsonToken.START_OBJECT && parser.nextToken() != JsonToken.START_OBJECT)
+            throw new IOException("Expected JSON object but got " + parser.currentToken());
+        return readObject0(parser);
+    }
+
+    static List<Object> readArray(JsonParser parser) throws IOException
+    {
+        if (parser.currentToken() != JsonToken.START_ARRAY && parser.nextToken() != JsonToken.START_ARRAY)
+            throw new IOException("Expected JSON array but got " + parser.currentToken());
+        return readArray0(parser, false);
+    }
+
+    private static Map<String, Object> readObject0(JsonParser parser) throws IOException
+    {
+        Map<String, Object> map = new HashMap<>();
+        String key;
+        while ((key = parser.nextFieldName()) != null)
+        {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.VALUE_STRING && isIdKey(key))
+                map.put(key, readSnowflake(parser));
+            else if (token == JsonToken.START_ARRAY)
+                map.put(key, readArray0(parser, key.equals("roles")));
+            else
+                map.put(key, readValue(parser, token));
+        }
+        return map;
+    }
+
+    private static List<Object> readArray0(JsonParser parser, boolean ids) throws IOException
+    {
+        List<Object> list = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY)
+        {
+            if (token == null)
+                throw new IOException("Unexpected end of JSON array");
+            if (token == JsonToken.VALUE_STRING && ids)
+                list.add(readSnowflake(parser));
+            else
+                list.add(readValue(parser, token));
+        }
+        return list;
+    }
+
+    private static Object readValue(JsonParser parser, JsonToken token) throws IOException
+    {
+        switch (token)
+        {
+        case START_OBJECT:
+            return readObject0(parser);
+        case START_ARRAY:
+            return readArray0(parser, false);
+        case VALUE_STRING:
+            return parser.getText();
+        case VALUE_NUMBER_INT:
+            return parser.getNumberValue();
+        case VALUE_NUMBER_FLOAT:
+            return parser.getDoubleValue();
+        case VALUE_TRUE:
+            return Boolean.TRUE;
+        case VALUE_FALSE:
+            return Boolean.FALSE;
+        case VALUE_NULL:
+            return null;
+        default:
+            throw new IOException("Unexpected JSON token " + token);
+        }
+    }
+
+    private static Object readSnowflake(JsonParser parser) throws IOException
+    {
+        // Reading the characters directly avoids creating a string for the id
+        SnowflakeValue value = SnowflakeValue.parse(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+        return value != null ? value : parser.getText();
+    }
+
+    private static boolean isIdKey(String key)
+    {
+        return key.equals("id") || key.endsWith("_id");
+    }
+}
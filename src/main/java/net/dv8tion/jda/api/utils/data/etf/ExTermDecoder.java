@@ -38,6 +38,9 @@ import static net.dv8tion.jda.api.utils.data.etf.ExTermTag.*;
  */
 public class ExTermDecoder
 {
+    // Map keys and atoms repeat for every object in a payload, the table lets us reuse the same string instances
+    private static final ThreadLocal<KeyTable> KEYS = ThreadLocal.withInitial(KeyTable::new);
+
     /**
      * Unpacks the provided term into a java object.
      *
@@ -65,7 +68,7 @@ public class ExTermDecoder
         if (buffer.get() != -125)
             throw new IllegalArgumentException("Failed header check");
 
-        return unpack0(buffer);
+        return unpack0(buffer, KEYS.get());
     }
 
     /**
@@ -131,11 +134,11 @@ public class ExTermDecoder
         return (List<Object>) unpack(buffer);
     }
 
-    private static Object unpack0(ByteBuffer buffer)
+    private static Object unpack0(ByteBuffer buffer, KeyTable keys)
     {
         int tag = buffer.get();
         switch (tag) {
-        case COMPRESSED: return unpackCompressed(buffer);
+        case COMPRESSED: return unpackCompressed(buffer, keys);
         case SMALL_INT: return unpackSmallInt(buffer);
         case SMALL_BIGINT: return unpackSmallBigint(buffer);
         case INT: return unpackInt(buffer);
@@ -143,13 +146,13 @@ public class ExTermDecoder
         case FLOAT: return unpackOldFloat(buffer);
         case NEW_FLOAT: return unpackFloat(buffer);
 
-        case SMALL_ATOM_UTF8: return unpackSmallAtom(buffer, StandardCharsets.UTF_8);
-        case SMALL_ATOM: return unpackSmallAtom(buffer, StandardCharsets.ISO_8859_1);
-        case ATOM_UTF8: return unpackAtom(buffer, StandardCharsets.UTF_8);
-        case ATOM: return unpackAtom(buffer, StandardCharsets.ISO_8859_1);
+        case SMALL_ATOM_UTF8: return unpackSmallAtom(buffer, StandardCharsets.UTF_8, keys);
+        case SMALL_ATOM: return unpackSmallAtom(buffer, StandardCharsets.ISO_8859_1, keys);
+        case ATOM_UTF8: return unpackAtom(buffer, StandardCharsets.UTF_8, keys);
+        case ATOM: return unpackAtom(buffer, StandardCharsets.ISO_8859_1, keys);
 
-        case MAP: return unpackMap0(buffer);
-        case LIST: return unpackList0(buffer);
+        case MAP: return unpackMap0(buffer, keys);
+        case LIST: return unpackList0(buffer, keys);
         case NIL: return Collections.emptyList();
 
         case STRING: return unpackString(buffer);
@@ -159,7 +162,7 @@ public class ExTermDecoder
         }
     }
 
-    private static Object unpackCompressed(ByteBuffer buffer)
+    private static Object unpackCompressed(ByteBuffer buffer, KeyTable keys)
     {
         int size = buffer.getInt();
         ByteArrayOutputStream decompressed = new ByteArrayOutputStream(size);
@@ -173,7 +176,7 @@ public class ExTermDecoder
         }
 
         buffer = ByteBuffer.wrap(decompressed.toByteArray());
-        return unpack0(buffer);
+        return unpack0(buffer, keys);
     }
 
     private static double unpackOldFloat(ByteBuffer buffer)
@@ -227,62 +230,150 @@ public class ExTermDecoder
         return getString(buffer, StandardCharsets.UTF_8, length);
     }
 
-    private static Object unpackSmallAtom(ByteBuffer buffer, Charset charset)
+    private static Object unpackSmallAtom(ByteBuffer buffer, Charset charset, KeyTable keys)
     {
         int length = Byte.toUnsignedInt(buffer.get());
-        return unpackAtom(buffer, charset, length);
+        return unpackAtom(buffer, charset, length, keys);
     }
 
-    private static Object unpackAtom(ByteBuffer buffer, Charset charset)
+    private static Object unpackAtom(ByteBuffer buffer, Charset charset, KeyTable keys)
     {
         int length = Short.toUnsignedInt(buffer.getShort());
-        return unpackAtom(buffer, charset, length);
+        return unpackAtom(buffer, charset, length, keys);
     }
 
-    private static Object unpackAtom(ByteBuffer buffer, Charset charset, int length)
+    private static Object unpackAtom(ByteBuffer buffer, Charset charset, int length, KeyTable keys)
     {
-        String value = getString(buffer, charset, length);
+        String value = keys.get(buffer, length);
+        if (value == null)
+            value = getString(buffer, charset, length).intern();
         switch (value)
         {
         case "true": return true;
         case "false": return false;
         case "nil": return null;
-        default: return value.intern();
+        default: return value;
         }
     }
 
     private static String getString(ByteBuffer buffer, Charset charset, int length)
     {
+        if (buffer.hasArray())
+        {
+            // Decode directly from the backing array instead of copying the bytes first
+            int position = buffer.position();
+            String value = new String(buffer.array(), buffer.arrayOffset() + position, length, charset);
+            buffer.position(position + length);
+            return value;
+        }
         byte[] array = new byte[length];
         buffer.get(array);
         return new String(array, charset);
     }
 
-    private static List<Object> unpackList0(ByteBuffer buffer)
+    private static List<Object> unpackList0(ByteBuffer buffer, KeyTable keys)
     {
         int length = buffer.getInt();
         List<Object> list = new ArrayList<>(length);
         while (length-- > 0)
         {
-            list.add(unpack0(buffer));
+            list.add(unpack0(buffer, keys));
         }
-        Object tail = unpack0(buffer);
+        Object tail = unpack0(buffer, keys);
         if (tail != Collections.emptyList())
             throw new IllegalArgumentException("Unexpected tail " + tail);
         return list;
     }
 
-    private static Map<String, Object> unpackMap0(ByteBuffer buffer)
+    private static Map<String, Object> unpackMap0(ByteBuffer buffer, KeyTable keys)
     {
-        Map<String, Object> map = new HashMap<>();
         int arity = buffer.getInt();
+        // Sized to hold all entries without rehashing
+        Map<String, Object> map = new HashMap<>(arity < 3 ? arity + 1 : (int) (arity / 0.75f + 1));
         while (arity-- > 0)
         {
-            Object rawKey = unpack0(buffer);
-            String key = String.valueOf(rawKey);
-            Object value = unpack0(buffer);
+            String key = unpackKey(buffer, keys);
+            Object value = unpack0(buffer, keys);
             map.put(key, value);
         }
         return map;
     }
+
+    private static String unpackKey(ByteBuffer buffer, KeyTable keys)
+    {
+        if (buffer.get(buffer.position()) != BINARY)
+            return String.valueOf(unpack0(buffer, keys));
+
+        buffer.get();
+        int length = buffer.getInt();
+        String key = keys.get(buffer, length);
+        return key != null ? key : getString(buffer, StandardCharsets.UTF_8, length);
+    }
+
+    /**
+     * Bounded table of decoded keys, which is looked up with the raw bytes of the term.
+     * <br>Only short ASCII strings are stored, since they decode to the same string for every charset.
+     */
+    static final class KeyTable
+    {
+        static final int SIZE = 1024;
+        static final int MAX_LENGTH = 64;
+
+        private final byte[][] bytes = new byte[SIZE][];
+        private final String[] strings = new String[SIZE];
+
+        /**
+         * Reads the string of the provided length from the buffer, if it is eligible for the table.
+         *
+         * @param  buffer
+         *         The buffer positioned at the first byte of the string
+         * @param  length
+         *         The length of the string in bytes
+         *
+         * @return The string, or null if the bytes are not eligible. In that case, the buffer is not advanced.
+         */
+        String get(ByteBuffer buffer, int length)
+        {
+            if (length > MAX_LENGTH)
+                return null;
+
+            int start = buffer.position();
+            int hash = length;
+            for (int i = 0; i < length; i++)
+            {
+                byte b = buffer.get(start + i);
+                if (b < 0) // not ASCII
+                    return null;
+                hash = 31 * hash + b;
+            }
+
+            int slot = (hash ^ (hash >>> 16)) & (SIZE - 1);
+            byte[] cached = bytes[slot];
+            if (cached != null && matches(cached, buffer, start, length))
+            {
+                buffer.position(start + length);
+                return strings[slot];
+            }
+
+            // Collisions simply replace the previous entry, which keeps the table bounded
+            byte[] array = new byte[length];
+            buffer.get(array);
+            String value = new String(array, StandardCharsets.ISO_8859_1).intern();
+            bytes[slot] = array;
+            strings[slot] = value;
+            return value;
+        }
+
+        private static boolean matches(byte[] cached, ByteBuffer buffer, int start, int length)
+        {
+            if (cached.length != length)
+                return false;
+            for (int i = 0; i < length; i++)
+            {
+                if (cached[i] != buffer.get(start + i))
+                    return false;
+            }
+            return true;
+        }
+    }
 }
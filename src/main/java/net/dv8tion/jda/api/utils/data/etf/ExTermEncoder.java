@@ -18,6 +18,7 @@ package net.dv8tion.jda.api.utils.data.etf;
 
 import net.dv8tion.jda.api.utils.data.DataArray;
 import net.dv8tion.jda.api.utils.data.SerializableData;
+import net.dv8tion.jda.internal.utils.SnowflakeValue;
 
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
@@ -75,8 +76,8 @@ public class ExTermEncoder
     @SuppressWarnings("unchecked")
     private static ByteBuffer pack(ByteBuffer buffer, Object value)
     {
-        if (value instanceof String)
-            return packBinary(buffer, (String) value);
+        if (value instanceof String || value instanceof SnowflakeValue)
+            return packBinary(buffer, value.toString());
         if (value instanceof Map)
             return packMap(buffer, (Map<String, Object>) value);
         if (value instanceof SerializableData)
@@ -188,7 +189,7 @@ public class ExTermEncoder
         byte bytes = countBytes(value);
         if (bytes <= 1) // Use optimized small int encoding
             return packSmallInt(buffer, (byte) value);
-        if (bytes <= 4 && value >= 0)
+        if (bytes <= 4 && value >= 0 && value <= Integer.MAX_VALUE)
         {
             // Use int to encode it
             buffer = realloc(buffer, 5);
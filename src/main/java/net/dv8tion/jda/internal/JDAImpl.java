@@ -92,6 +92,8 @@ import org.slf4j.Logger;
 import org.slf4j.MDC;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.file.Path;
 import java.time.OffsetDateTime;
 import java.util.*;
 import java.util.concurrent.*;
@@ -100,6 +102,7 @@ import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
+import java.util.zip.DataFormatException;
 
 public class JDAImpl implements JDA
 {
@@ -141,6 +144,7 @@ public class JDAImpl implements JDA
     protected String clientId = null,  requiredScopes = "bot";
     protected ShardManager shardManager = null;
     protected MemberCachePolicy memberCachePolicy = MemberCachePolicy.ALL;
+    protected Set<Class<? extends GenericEvent>> wantedEvents = null;
 
     protected final AtomicReference<Status> status = new AtomicReference<>(Status.INITIALIZING);
     protected final ReentrantLock statusLock = new ReentrantLock();
@@ -185,6 +189,21 @@ public class JDAImpl implements JDA
         return sessionConfig.isEventPassthrough();
     }
 
+    public boolean isStreamDecompression()
+    {
+        return sessionConfig.isStreamDecompression();
+    }
+
+    public boolean isLazyParsing()
+    {
+        return sessionConfig.isLazyParsing();
+    }
+
+    public boolean isSnowflakeDecoding()
+    {
+        return sessionConfig.isSnowflakeDecoding();
+    }
+
     public boolean isCacheFlagSet(CacheFlag flag)
     {
         return metaConfig.getCacheFlags().contains(flag);
@@ -201,6 +220,36 @@ public class JDAImpl implements JDA
         return sessionConfig.getLargeThreshold();
     }
 
+    public int getGatewayQueueCapacity()
+    {
+        return sessionConfig.getGatewayQueueSize();
+    }
+
+    public GatewayQueuePolicy getGatewayQueuePolicy()
+    {
+        return sessionConfig.getGatewayQueuePolicy();
+    }
+
+    public int getDispatchThreads()
+    {
+        return sessionConfig.getDispatchThreads();
+    }
+
+    public SessionResumeStore getSessionResumeStore()
+    {
+        return sessionConfig.getSessionResumeStore();
+    }
+
+    public Path getCacheSnapshotDirectory()
+    {
+        return sessionConfig.getCacheSnapshotDirectory();
+    }
+
+    public GatewayRecorder getGatewayRecorder()
+    {
+        return sessionConfig.getGatewayRecorder();
+    }
+
     public int getMaxBufferSize()
     {
         return metaConfig.getMaxBufferSize();
@@ -243,6 +292,22 @@ public class JDAImpl implements JDA
         this.memberCachePolicy = policy;
     }
 
+    public MemberCachePolicy getMemberCachePolicy()
+    {
+        return memberCachePolicy;
+    }
+
+    @Nullable
+    public Set<Class<? extends GenericEvent>> getWantedEvents()
+    {
+        return wantedEvents;
+    }
+
+    public void setWantedEvents(@Nullable Set<Class<? extends GenericEvent>> wantedEvents)
+    {
+        this.wantedEvents = wantedEvents;
+    }
+
     public SessionController getSessionController()
     {
         return sessionConfig.getSessionController();
@@ -276,12 +341,15 @@ public class JDAImpl implements JDA
     {
         if (this.requester != null)
             return;
+        RateLimitCoordinator coordinator = this.restConfig.getRateLimitCoordinator();
         RestRateLimiter rateLimiter = this.restConfig.getRateLimiterFactory().apply(
                 new RestRateLimiter.RateLimitConfig(
                         this.threadConfig.getRateLimitScheduler(),
                         this.threadConfig.getRateLimitElastic(),
-                        getSessionController().getRateLimitHandle(),
-                        this.sessionConfig.isRelativeRateLimit() && this.restConfig.isRelativeRateLimit()
+                        coordinator != null ? coordinator.getGlobalRateLimit() : getSessionController().getRateLimitHandle(),
+                        this.sessionConfig.isRelativeRateLimit() && this.restConfig.isRelativeRateLimit(),
+                        this.restConfig.getRateLimitStore(),
+                        coordinator
                 ));
         this.requester = new Requester(this, this.authConfig, this.restConfig, rateLimiter);
         this.requester.setRetryOnTimeout(this.sessionConfig.isRetryOnTimeout());
@@ -343,6 +411,19 @@ public class JDAImpl implements JDA
         return shardInfo == null ? -1 : shardInfo.getShardTotal();
     }
 
+    public int replay(ShardInfo shardInfo, GatewayRecorder.Reader reader, boolean realTime, int intents) throws DataFormatException, InterruptedException
+    {
+        this.shardInfo = shardInfo;
+
+        this.threadConfig.init(this::getIdentifierString);
+        initRequester();
+
+        setStatus(Status.LOGGING_IN);
+        ReplayWebSocketClient replayClient = new ReplayWebSocketClient(this, reader, intents);
+        client = replayClient;
+        return replayClient.replay(reader, realTime);
+    }
+
     public String getGateway()
     {
         return getSessionController().getGateway();
@@ -502,6 +583,49 @@ public class JDAImpl implements JDA
         return gatewayPing;
     }
 
+    @Override
+    public int getGatewayQueueSize()
+    {
+        GatewayQueue queue = client == null ? null : client.getGatewayQueue();
+        return queue == null ? 0 : queue.size();
+    }
+
+    @Override
+    public long getGatewayQueueTime()
+    {
+        GatewayQueue queue = client == null ? null : client.getGatewayQueue();
+        return queue == null ? 0 : queue.getLastQueueTime();
+    }
+
+    @Nonnull
+    @Override
+    public QueueTime getGatewaySendTime(@Nonnull GatewayPriority priority)
+    {
+        Checks.notNull(priority, "Priority");
+        return client == null ? new QueueTime(0, 0, 0) : client.getSendTime(priority);
+    }
+
+    @Override
+    public long getDeduplicatedRequestCount()
+    {
+        return requester.getDeduplicatedRequestCount();
+    }
+
+    @Nonnull
+    @Override
+    public QueueTime getRestQueueTime(@Nonnull RequestPriority priority)
+    {
+        Checks.notNull(priority, "Priority");
+        return requester.getQueueTime(priority);
+    }
+
+    @Nullable
+    @Override
+    public SessionResumeStore.ResumeState getResumeState()
+    {
+        return client == null ? null : client.getResumeState();
+    }
+
     @Nonnull
     @Override
     public JDA awaitStatus(@Nonnull Status status, @Nonnull Status... failOn) throws InterruptedException
@@ -667,6 +791,11 @@ public class JDAImpl implements JDA
         return guildSetupController.isUnavailable(guildId);
     }
 
+    public boolean hasUnavailableGuilds()
+    {
+        return guildSetupController.hasUnavailableGuilds();
+    }
+
     @Nonnull
     @Override
     public SnowflakeCacheView<Role> getRoleCache()
@@ -988,6 +1117,7 @@ public class JDAImpl implements JDA
     public void setEventManager(IEventManager eventManager)
     {
         this.eventManager.setSubject(eventManager);
+        invalidateListeners();
     }
 
     @Override
@@ -997,6 +1127,7 @@ public class JDAImpl implements JDA
 
         for (Object listener: listeners)
             eventManager.register(listener);
+        invalidateListeners();
     }
 
     @Override
@@ -1006,6 +1137,14 @@ public class JDAImpl implements JDA
 
         for (Object listener: listeners)
             eventManager.unregister(listener);
+        invalidateListeners();
+    }
+
+    private void invalidateListeners()
+    {
+        WebSocketClient client = getClient();
+        if (client != null)
+            client.getDispatchFilter().invalidateListeners();
     }
 
     @Nonnull
@@ -18,6 +18,7 @@ package net.dv8tion.jda.internal.entities;
 
 import gnu.trove.map.TLongObjectMap;
 import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.set.TLongSet;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.OnlineStatus;
 import net.dv8tion.jda.api.audit.ActionType;
@@ -254,8 +255,81 @@ public class EntityBuilder
     }
 
     public GuildImpl createGuild(long guildId, DataObject guildJson, TLongObjectMap<DataObject> members, int memberCount)
+    {
+        final GuildImpl guildObj = createSetupGuild(guildId, guildJson);
+        final TLongObjectMap<MemberImpl> memberMap = new TLongObjectHashMap<>(members.size());
+        for (DataObject memberJson : members.valueCollection())
+        {
+            MemberImpl member = createMember(guildObj, memberJson);
+            memberMap.put(member.getIdLong(), member);
+        }
+        return createGuild(guildObj, guildJson, memberMap, memberCount);
+    }
+
+    /**
+     * Creates a guild with only its roles, which is not added to the cache.
+     * <br>This allows creating the members of a guild while it is still being set up,
+     * the guild is completed by {@link #createGuild(GuildImpl, DataObject, TLongObjectMap, int)}.
+     */
+    public GuildImpl createSetupGuild(long guildId, DataObject guildJson)
     {
         final GuildImpl guildObj = new GuildImpl(getJDA(), guildId);
+        final DataArray roleArray = guildJson.getArray("roles");
+        SnowflakeCacheViewImpl<Role> roleView = guildObj.getRolesView();
+        try (UnlockHook hook = roleView.writeLock())
+        {
+            TLongObjectMap<Role> map = roleView.getMap();
+            for (int i = 0; i < roleArray.length(); i++)
+            {
+                DataObject obj = roleArray.getObject(i);
+                // Cached role events are replayed once the guild is added to the cache
+                Role role = createRole0(guildObj, obj, guildId, false);
+                map.put(role.getIdLong(), role);
+                if (role.getIdLong() == guildObj.getIdLong())
+                    guildObj.setPublicRole(role);
+            }
+        }
+        return guildObj;
+    }
+
+    /**
+     * Removes the users of a replaced stale guild, which are no longer a member of any cached guild.
+     */
+    private void removeStaleUsers(GuildImpl previous)
+    {
+        JDAImpl api = getJDA();
+        long selfId = api.getSelfUser().getIdLong();
+        TLongSet userIds = previous.getMembersView().keySet();
+        SnowflakeCacheViewImpl<User> usersView = api.getUsersView();
+        try (UnlockHook hook = usersView.writeLock())
+        {
+            TLongObjectMap<User> users = usersView.getMap();
+            userIds.forEach(userId -> {
+                User user = users.get(userId);
+                if (userId != selfId && user != null && user.getMutualGuilds().isEmpty())
+                {
+                    users.remove(userId);
+                    api.getEventCache().clear(EventCache.Type.USER, userId);
+                }
+                return true;
+            });
+        }
+    }
+
+    /**
+     * Creates a member of a guild, which is still being set up by {@link #createSetupGuild(long, DataObject)}.
+     * <br>The user of the member is not taken from the cache, otherwise user update events would fire before the guild exists.
+     * The member is bound to the cached user once the guild is completed.
+     */
+    public MemberImpl createSetupMember(GuildImpl guild, DataObject memberJson)
+    {
+        DataObject userJson = memberJson.getObject("user");
+        return createMember(guild, memberJson, newUser(userJson.getLong("id"), userJson), null, null);
+    }
+
+    public GuildImpl createGuild(GuildImpl guildObj, DataObject guildJson, TLongObjectMap<MemberImpl> members, int memberCount)
+    {
+        final long guildId = guildObj.getIdLong();
         final String name = guildJson.getString("name", "");
         final String iconId = guildJson.getString("icon", null);
         final String splashId = guildJson.getString("splash", null);
@@ -263,7 +337,6 @@ public class EntityBuilder
         final String vanityCode = guildJson.getString("vanity_url_code", null);
         final String bannerId = guildJson.getString("banner", null);
         final String locale = guildJson.getString("preferred_locale", "en-US");
-        final DataArray roleArray = guildJson.getArray("roles");
         final DataArray channelArray = guildJson.getArray("channels");
         final DataArray threadArray = guildJson.getArray("threads");
         final DataArray scheduledEventsArray = guildJson.getArray("guild_scheduled_events");
@@ -311,9 +384,17 @@ public class EntityBuilder
                 .setBoostProgressBarEnabled(boostProgressBarEnabled);
 
         SnowflakeCacheViewImpl<Guild> guildView = getJDA().getGuildsView();
+        Guild previous;
         try (UnlockHook hook = guildView.writeLock())
         {
-            guildView.getMap().put(guildId, guildObj);
+            previous = guildView.getMap().put(guildId, guildObj);
+        }
+
+        if (previous != null)
+        {
+            // This replaces a stale guild from a cache snapshot, its channels must not be reused by the new guild
+            ChannelCacheViewImpl<Channel> channelsView = getJDA().getChannelsView();
+            previous.getChannels().forEach(channelsView::remove);
         }
 
         guildObj.setFeatures(featuresArray.map(array ->
@@ -322,19 +403,9 @@ public class EntityBuilder
                  .collect(Collectors.toSet())
         ).orElse(Collections.emptySet()));
 
-        SnowflakeCacheViewImpl<Role> roleView = guildObj.getRolesView();
-        try (UnlockHook hook = roleView.writeLock())
-        {
-            TLongObjectMap<Role> map = roleView.getMap();
-            for (int i = 0; i < roleArray.length(); i++)
-            {
-                DataObject obj = roleArray.getObject(i);
-                Role role = createRole(guildObj, obj, guildId);
-                map.put(role.getIdLong(), role);
-                if (role.getIdLong() == guildObj.getIdLong())
-                    guildObj.setPublicRole(role);
-            }
-        }
+        guildObj.getRolesView().forEachUnordered(role ->
+            getJDA().getEventCache().playbackCache(EventCache.Type.ROLE, role.getIdLong())
+        );
 
         for (int i = 0; i < channelArray.length(); i++)
         {
@@ -344,20 +415,28 @@ public class EntityBuilder
 
         TLongObjectMap<DataObject> voiceStates = Helpers.convertToMap((o) -> o.getUnsignedLong("user_id", 0L), voiceStateArray);
         TLongObjectMap<DataObject> presences = presencesArray.map(o1 -> Helpers.convertToMap(o2 -> o2.getObject("user").getUnsignedLong("id"), o1)).orElseGet(TLongObjectHashMap::new);
-        try (UnlockHook h1 = guildObj.getMembersView().writeLock();
-             UnlockHook h2 = getJDA().getUsersView().writeLock())
+        // The user cache is always locked before the member cache, see updateMemberCache
+        try (UnlockHook h1 = getJDA().getUsersView().writeLock();
+             UnlockHook h2 = guildObj.getMembersView().writeLock())
         {
             //Add members to cache when subscriptions are disabled when they appear here
             // this is done because we can still keep track of members in voice channels
-            for (DataObject memberJson : members.valueCollection())
+            for (MemberImpl member : members.valueCollection())
             {
-                long userId = memberJson.getObject("user").getUnsignedLong("id");
-                DataObject voiceState = voiceStates.get(userId);
-                DataObject presence = presences.get(userId);
-                updateMemberCache(createMember(guildObj, memberJson, voiceState, presence));
+                bindUser(member, false);
+                DataObject voiceState = voiceStates.get(member.getIdLong());
+                DataObject presence = presences.get(member.getIdLong());
+                if (voiceState != null && member.getVoiceState() != null)
+                    createVoiceState(guildObj, voiceState, member.getUser(), member);
+                if (presence != null)
+                    createPresence(member, presence);
+                updateMemberCache(member);
             }
         }
 
+        if (previous != null)
+            removeStaleUsers((GuildImpl) previous);
+
         if (guildObj.getOwner() == null)
             LOG.debug("Finished setup for guild with a null owner. GuildId: {} OwnerId: {}", guildId, guildJson.opt("owner_id").orElse(null));
         if (guildObj.getMember(api.getSelfUser()) == null)
@@ -441,48 +520,89 @@ public class EntityBuilder
             userObj = (UserImpl) userView.getElementById(id);
             if (userObj == null)
             {
-                userObj = new UserImpl(id, getJDA());
+                userObj = newUser(id, user);
                 newUser = true;
             }
         }
 
+        if (!newUser)
+        {
+            // Fire update events, users are shared by all guilds which may be handled in parallel
+            synchronized (userObj)
+            {
+                updateUser(userObj, user);
+            }
+        }
+
+        return userObj;
+    }
+
+    private UserImpl newUser(long id, DataObject user)
+    {
         User.Profile profile = user.hasKey("banner")
             ? new User.Profile(id, user.getString("banner", null), user.getInt("accent_color", User.DEFAULT_ACCENT_COLOR_RAW))
             : null;
 
-        if (newUser)
+        // Initial creation
+        UserImpl userObj = new UserImpl(id, getJDA());
+        userObj.setName(user.getString("username"))
+               .setGlobalName(user.getString("global_name", null))
+               .setDiscriminator(Short.parseShort(user.getString("discriminator", "0")))
+               .setAvatarId(user.getString("avatar", null))
+               .setBot(user.getBoolean("bot"))
+               .setSystem(user.getBoolean("system"))
+               .setFlags(user.getInt("public_flags", 0))
+               .setProfile(profile);
+        return userObj;
+    }
+
+    /**
+     * Binds the member to the cached user with the same id, which is updated from the user of the member.
+     * <br>If no user is cached, the user of the member is added to the cache when {@code cache} is true.
+     *
+     * <p>The lookup and insert are done under the write lock of the user cache,
+     * since guilds sharing a user may be handled in parallel. Every id must resolve to one user object.
+     */
+    private void bindUser(MemberImpl member, boolean cache)
+    {
+        UserImpl user = (UserImpl) member.getUnresolvedUser();
+        SnowflakeCacheViewImpl<User> usersView = getJDA().getUsersView();
+        UserImpl cached;
+        try (UnlockHook hook = usersView.writeLock())
         {
-            // Initial creation
-            userObj.setName(user.getString("username"))
-                   .setGlobalName(user.getString("global_name", null))
-                   .setDiscriminator(Short.parseShort(user.getString("discriminator", "0")))
-                   .setAvatarId(user.getString("avatar", null))
-                   .setBot(user.getBoolean("bot"))
-                   .setSystem(user.getBoolean("system"))
-                   .setFlags(user.getInt("public_flags", 0))
-                   .setProfile(profile);
+            TLongObjectMap<User> users = usersView.getMap();
+            cached = (UserImpl) users.get(user.getIdLong());
+            if (cached == null && cache)
+                users.put(user.getIdLong(), user);
         }
-        else
+
+        if (cached == null || cached == user)
+            return;
+        // Fire update events, users are shared by all guilds which may be handled in parallel
+        synchronized (cached)
         {
-            // Fire update events
-            updateUser(userObj, user);
+            updateUser(cached, user.getName(), user.getGlobalName(), user.getDiscriminatorInt(), user.getAvatarId(), user.getFlagsRaw());
         }
-
-        return userObj;
+        member.setUser(cached);
     }
 
     public void updateUser(UserImpl userObj, DataObject user)
+    {
+        updateUser(userObj,
+            user.getString("username"),
+            user.getString("global_name", null),
+            Short.parseShort(user.getString("discriminator", "0")),
+            user.getString("avatar", null),
+            user.getInt("public_flags", 0));
+    }
+
+    private void updateUser(UserImpl userObj, String newName, String newGlobalName, short newDiscriminator, String newAvatar, int newFlags)
     {
         String oldName = userObj.getName();
-        String newName = user.getString("username");
         String oldGlobalName = userObj.getGlobalName();
-        String newGlobalName = user.getString("global_name", null);
         short oldDiscriminator = userObj.getDiscriminatorInt();
-        short newDiscriminator = Short.parseShort(user.getString("discriminator", "0"));
         String oldAvatar = userObj.getAvatarId();
-        String newAvatar = user.getString("avatar", null);
         int oldFlags = userObj.getFlagsRaw();
-        int newFlags = user.getInt("public_flags", 0);
 
         JDAImpl jda = getJDA();
         long responseNumber = jda.getResponseTotal();
@@ -548,10 +668,15 @@ public class EntityBuilder
             if (membersView.remove(member.getIdLong()) == null)
                 return false;
             LOG.trace("Unloading member {}", member);
-            if (user.getMutualGuilds().isEmpty())
+            // Members of other guilds may be cached in parallel, which also requires the write lock
+            SnowflakeCacheViewImpl<User> usersView = getJDA().getUsersView();
+            try (UnlockHook usersHook = usersView.writeLock())
             {
-                // we no longer share any guilds/channels with this user so remove it from cache
-                getJDA().getUsersView().remove(user.getIdLong());
+                if (user.getMutualGuilds().isEmpty())
+                {
+                    // we no longer share any guilds/channels with this user so remove it from cache
+                    usersView.getMap().remove(user.getIdLong());
+                }
             }
 
             GuildVoiceStateImpl voiceState = (GuildVoiceStateImpl) member.getVoiceState();
@@ -573,22 +698,21 @@ public class EntityBuilder
 
         LOG.trace("Loading member {}", member);
 
-        if (getJDA().getUserById(user.getIdLong()) == null)
+        // The user must stay cached until the member is added, otherwise another guild could remove it in between
+        SnowflakeCacheViewImpl<User> usersView = getJDA().getUsersView();
+        try (UnlockHook usersHook = usersView.writeLock())
         {
-            SnowflakeCacheViewImpl<User> usersView = getJDA().getUsersView();
-            try (UnlockHook hook1 = usersView.writeLock())
+            bindUser(member, true);
+            user = (UserImpl) member.getUser();
+
+            try (UnlockHook hook = membersView.writeLock())
             {
-                usersView.getMap().put(user.getIdLong(), user);
+                membersView.getMap().put(member.getIdLong(), member);
+                if (member.isOwner())
+                    guild.setOwner(member);
             }
         }
 
-        try (UnlockHook hook = membersView.writeLock())
-        {
-            membersView.getMap().put(member.getIdLong(), member);
-            if (member.isOwner())
-                guild.setOwner(member);
-        }
-
         long hashId = guild.getIdLong() ^ user.getIdLong();
         getJDA().getEventCache().playbackCache(EventCache.Type.USER, member.getIdLong());
         getJDA().getEventCache().playbackCache(EventCache.Type.MEMBER, hashId);
@@ -601,9 +725,13 @@ public class EntityBuilder
     }
 
     public MemberImpl createMember(GuildImpl guild, DataObject memberJson, DataObject voiceStateJson, DataObject presence)
+    {
+        return createMember(guild, memberJson, createUser(memberJson.getObject("user")), voiceStateJson, presence);
+    }
+
+    private MemberImpl createMember(GuildImpl guild, DataObject memberJson, User user, DataObject voiceStateJson, DataObject presence)
     {
         boolean playbackCache = false;
-        User user = createUser(memberJson.getObject("user"));
         DataArray roleArray = memberJson.getArray("roles");
         MemberImpl member = (MemberImpl) guild.getMember(user);
         if (member == null)
@@ -1606,6 +1734,11 @@ public class EntityBuilder
     }
 
     public Role createRole(GuildImpl guild, DataObject roleJson, long guildId)
+    {
+        return createRole0(guild, roleJson, guildId, true);
+    }
+
+    private Role createRole0(GuildImpl guild, DataObject roleJson, long guildId, boolean playback)
     {
         boolean playbackCache = false;
         final long id = roleJson.getLong("id");
@@ -1638,7 +1771,7 @@ public class EntityBuilder
         else
             role.setIcon(new RoleIcon(iconId, emoji, id));
 
-        if (playbackCache)
+        if (playbackCache && playback)
             getJDA().getEventCache().playbackCache(EventCache.Type.ROLE, id);
         return role;
     }
@@ -136,6 +136,7 @@ public class GuildImpl implements Guild
     private DiscordLocale preferredLocale = DiscordLocale.ENGLISH_US;
     private int memberCount;
     private boolean boostProgressBarEnabled;
+    private volatile boolean stale;
 
     public GuildImpl(JDAImpl api, long id)
     {
@@ -422,6 +423,12 @@ public class GuildImpl implements Guild
                 && (long) getMemberCount() <= getMemberCache().size();
     }
 
+    @Override
+    public boolean isStale()
+    {
+        return stale;
+    }
+
     @Override
     public void pruneMemberCache()
     {
@@ -2269,6 +2276,12 @@ public class GuildImpl implements Guild
         return this;
     }
 
+    public GuildImpl setStale(boolean stale)
+    {
+        this.stale = stale;
+        return this;
+    }
+
     // -- Map getters --
 
     public SortedSnowflakeCacheViewImpl<ScheduledEvent> getScheduledEventsView()
@@ -84,6 +84,12 @@ public class MemberImpl implements Member
         return user;
     }
 
+    // The user this member was created with, or the cached user it was bound to
+    User getUnresolvedUser()
+    {
+        return user;
+    }
+
     @Nonnull
     @Override
     public GuildImpl getGuild()
@@ -401,6 +407,12 @@ public class MemberImpl implements Member
         return user.getDefaultAvatarId();
     }
 
+    public MemberImpl setUser(User user)
+    {
+        this.user = user;
+        return this;
+    }
+
     public MemberImpl setNickname(String nickname)
     {
         this.nickname = nickname;
@@ -32,7 +32,7 @@ public class GuildCreateHandler extends SocketHandler
     {
         final long id = content.getLong("id");
         GuildImpl guild = (GuildImpl) getJDA().getGuildById(id);
-        if (guild == null)
+        if (guild == null || guild.isStale())
         {
             // This can happen in 3 scenarios:
             //
@@ -40,6 +40,7 @@ public class GuildCreateHandler extends SocketHandler
             //   2) The guild has just been joined by the bot (added through moderator)
             //   3) The guild was marked unavailable and has come back
             //
+            // A stale guild from the cache snapshot is replaced by the new guild in any of these cases.
             // The controller will fire an appropriate event for each case.
             getJDA().getGuildSetupController().onCreate(id, content);
         }
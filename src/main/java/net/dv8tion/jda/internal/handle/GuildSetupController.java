@@ -27,6 +27,7 @@ import net.dv8tion.jda.api.utils.MiscUtil;
 import net.dv8tion.jda.api.utils.data.DataArray;
 import net.dv8tion.jda.api.utils.data.DataObject;
 import net.dv8tion.jda.internal.JDAImpl;
+import net.dv8tion.jda.internal.entities.GuildImpl;
 import net.dv8tion.jda.internal.requests.MemberChunkManager;
 import net.dv8tion.jda.internal.requests.WebSocketClient;
 import net.dv8tion.jda.internal.utils.JDALogger;
@@ -156,8 +157,10 @@ public class GuildSetupController
         GuildSetupNode node = setupNodes.get(id);
         if (node == null)
         {
-            // this is a join event
-            node = new GuildSetupNode(id, this, GuildSetupNode.Type.JOIN);
+            GuildImpl cached = (GuildImpl) api.getGuildsView().get(id);
+            // A stale guild from the cache snapshot was joined before, it is only replaced like an available guild
+            GuildSetupNode.Type type = cached != null && cached.isStale() ? GuildSetupNode.Type.AVAILABLE : GuildSetupNode.Type.JOIN;
+            node = new GuildSetupNode(id, this, type);
             setupNodes.put(id, node);
             // do not increment incomplete counter, it is only relevant to init guilds
         }
@@ -263,6 +266,11 @@ public class GuildSetupController
         return unavailableGuilds.contains(id);
     }
 
+    public boolean hasUnavailableGuilds()
+    {
+        return !unavailableGuilds.isEmpty();
+    }
+
     public boolean isKnown(long id)
     {
         // Whether we know this guild at all
@@ -33,7 +33,9 @@ import net.dv8tion.jda.api.managers.AudioManager;
 import net.dv8tion.jda.api.utils.data.DataArray;
 import net.dv8tion.jda.api.utils.data.DataObject;
 import net.dv8tion.jda.internal.JDAImpl;
+import net.dv8tion.jda.internal.entities.EntityBuilder;
 import net.dv8tion.jda.internal.entities.GuildImpl;
+import net.dv8tion.jda.internal.entities.MemberImpl;
 import net.dv8tion.jda.internal.managers.AudioManagerImpl;
 import net.dv8tion.jda.internal.utils.EntityString;
 import net.dv8tion.jda.internal.utils.UnlockHook;
@@ -49,8 +51,10 @@ public class GuildSetupNode
     private final long id;
     private final GuildSetupController controller;
     private final List<DataObject> cachedEvents = new LinkedList<>();
-    private TLongObjectMap<DataObject> members;
+    // Members are created as they arrive, the guild only contains the roles until the setup is completed
+    private TLongObjectMap<MemberImpl> members;
     private TLongSet removedMembers;
+    private GuildImpl guild;
     private DataObject partialGuild;
     private int expectedMemberCount = 1;
     boolean requestedChunk;
@@ -95,9 +99,16 @@ public class GuildSetupNode
 
     public int getCurrentMemberCount()
     {
-        TLongHashSet knownMembers = new TLongHashSet(members.keySet());
-        knownMembers.removeAll(removedMembers);
-        return knownMembers.size();
+        if (members == null)
+            return 0;
+        // A chunk can contain members which were removed after the chunk was sent
+        int count = members.size();
+        for (TLongIterator it = removedMembers.iterator(); it.hasNext(); )
+        {
+            if (members.containsKey(it.next()))
+                count--;
+        }
+        return count;
     }
 
     public Type getType()
@@ -180,6 +191,7 @@ public class GuildSetupNode
         updateStatus(GuildSetupController.Status.UNAVAILABLE);
         expectedMemberCount = 1;
         partialGuild = null;
+        guild = null;
         requestedChunk = false;
         if (members != null)
             members.clear();
@@ -248,11 +260,11 @@ public class GuildSetupNode
             GuildSetupController.log.debug("Dropping member chunk due to unavailable guild");
             return true;
         }
+        EntityBuilder builder = getController().getJDA().getEntityBuilder();
         for (int index = 0; index < arr.length(); index++)
         {
-            DataObject obj = arr.getObject(index);
-            long id = obj.getObject("user").getLong("id");
-            members.put(id, obj);
+            MemberImpl member = builder.createSetupMember(guild, arr.getObject(index));
+            members.put(member.getIdLong(), member);
         }
 
         if (last || members.size() >= expectedMemberCount || !getController().getJDA().chunkGuild(id))
@@ -265,12 +277,12 @@ public class GuildSetupNode
 
     void handleAddMember(DataObject member)
     {
-        if (members == null || removedMembers == null)
+        if (members == null || removedMembers == null || guild == null)
             return;
         expectedMemberCount++;
-        long userId = member.getObject("user").getLong("id");
-        members.put(userId, member);
-        removedMembers.remove(userId);
+        MemberImpl memberObj = getController().getJDA().getEntityBuilder().createSetupMember(guild, member);
+        members.put(memberObj.getIdLong(), memberObj);
+        removedMembers.remove(memberObj.getIdLong());
     }
 
     void handleRemoveMember(DataObject member)
@@ -340,7 +352,7 @@ public class GuildSetupNode
 
         if (members != null)
         {
-            for (TLongObjectIterator<DataObject> it = members.iterator(); it.hasNext();)
+            for (TLongObjectIterator<MemberImpl> it = members.iterator(); it.hasNext();)
             {
                 it.advance();
                 long userId = it.key();
@@ -357,7 +369,7 @@ public class GuildSetupNode
         for (TLongIterator it = removedMembers.iterator(); it.hasNext(); )
             members.remove(it.next());
         removedMembers.clear();
-        GuildImpl guild = api.getEntityBuilder().createGuild(id, partialGuild, members, expectedMemberCount);
+        api.getEntityBuilder().createGuild(guild, partialGuild, members, expectedMemberCount);
         updateAudioManagerReference(guild);
         switch (type)
         {
@@ -388,7 +400,10 @@ public class GuildSetupNode
         expectedMemberCount = partialGuild.getInt("member_count");
         members = new TLongObjectHashMap<>(expectedMemberCount);
         removedMembers = new TLongHashSet();
-        DataArray memberArray = partialGuild.getArray("members");
+        guild = getController().getJDA().getEntityBuilder().createSetupGuild(id, partialGuild);
+        // The member objects are dropped once they are converted, only the entities are kept until the setup is completed
+        DataArray memberArray = partialGuild.optArray("members").orElseGet(DataArray::empty);
+        partialGuild.remove("members");
         if (!getController().getJDA().chunkGuild(id))
         {
             handleMemberChunk(true, memberArray);
@@ -54,14 +54,15 @@ public class PresenceUpdateHandler extends SocketHandler
     @Override
     protected Long handleInternally(DataObject content)
     {
+        // Check this first, so the content is never parsed when lazy parsing is enabled
+        if (api.getCacheFlags().stream().noneMatch(CacheFlag::isPresence))
+            return null;
         // Ignore events for relationships, presences are guild only to us
         if (content.isNull("guild_id"))
         {
             log.debug("Received PRESENCE_UPDATE without guild_id. Ignoring event.");
             return null;
         }
-        if (api.getCacheFlags().stream().noneMatch(CacheFlag::isPresence))
-            return null;
 
         //Do a pre-check to see if this is for a Guild, and if it is, if the guild is currently locked or not cached.
         final long guildId = content.getUnsignedLong("guild_id");
@@ -23,8 +23,11 @@ import net.dv8tion.jda.api.utils.data.DataArray;
 import net.dv8tion.jda.api.utils.data.DataObject;
 import net.dv8tion.jda.internal.JDAImpl;
 import net.dv8tion.jda.internal.entities.EntityBuilder;
+import net.dv8tion.jda.internal.entities.GuildImpl;
 import net.dv8tion.jda.internal.requests.WebSocketClient;
 
+import java.util.stream.Collectors;
+
 public class ReadyHandler extends SocketHandler
 {
 
@@ -50,6 +53,13 @@ public class ReadyHandler extends SocketHandler
                 WebSocketClient.LOG.warn("Found duplicate guild for id {} in ready payload", id);
         }
 
+        // Guilds from the cache snapshot which we are no longer a member of
+        getJDA().getGuildsView().stream()
+                .map(GuildImpl.class::cast)
+                .filter(guild -> guild.isStale() && !distinctGuilds.containsKey(guild.getIdLong()))
+                .collect(Collectors.toList())
+                .forEach(GuildImpl::invalidate);
+
         DataObject selfJson = content.getObject("user");
         // Inject the application id which isn't added to the self user by default
         selfJson.put("application_id", // Used to update SelfUser#getApplicationId
@@ -0,0 +1,478 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.internal.requests;
+
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.automod.AutoModExecutionEvent;
+import net.dv8tion.jda.api.events.guild.GuildAuditLogEntryCreateEvent;
+import net.dv8tion.jda.api.events.guild.scheduledevent.ScheduledEventUserAddEvent;
+import net.dv8tion.jda.api.events.guild.scheduledevent.ScheduledEventUserRemoveEvent;
+import net.dv8tion.jda.api.events.message.poll.MessagePollVoteAddEvent;
+import net.dv8tion.jda.api.events.message.poll.MessagePollVoteRemoveEvent;
+import net.dv8tion.jda.api.events.message.react.MessageReactionAddEvent;
+import net.dv8tion.jda.api.events.message.react.MessageReactionRemoveAllEvent;
+import net.dv8tion.jda.api.events.message.react.MessageReactionRemoveEmojiEvent;
+import net.dv8tion.jda.api.events.message.react.MessageReactionRemoveEvent;
+import net.dv8tion.jda.api.events.user.UserTypingEvent;
+import net.dv8tion.jda.api.hooks.IEventManager;
+import net.dv8tion.jda.api.hooks.InterfacedEventManager;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.utils.MemberCachePolicy;
+import net.dv8tion.jda.api.utils.cache.CacheFlag;
+import net.dv8tion.jda.internal.JDAImpl;
+import net.dv8tion.jda.internal.utils.ClassWalker;
+import net.dv8tion.jda.internal.utils.JDALogger;
+import org.slf4j.Logger;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static net.dv8tion.jda.api.utils.data.etf.ExTermTag.*;
+
+/**
+ * Decides whether a gateway dispatch can be dropped before it is parsed.
+ *
+ * <p>Only the envelope of the payload is read to find the event type and sequence number.
+ * A dispatch is dropped if its type is only used to fire events, none of the events it can produce are wanted,
+ * no enabled {@link CacheFlag} requires it, and raw events are disabled.
+ * Typing and reaction dispatches also update the member cache, and are only dropped with {@link MemberCachePolicy#NONE}.
+ *
+ * <p>The wanted events are either declared by the user, or derived from the registered {@link ListenerAdapter ListenerAdapters}.
+ * Listeners are only inspected for the default {@link InterfacedEventManager}, anything else is assumed to want every event.
+ * The types wanted by the listeners are cached until {@link #invalidateListeners()} is called, when listeners are added or removed.
+ */
+public class DispatchFilter
+{
+    public static final Logger LOG = JDALogger.getLog(DispatchFilter.class);
+
+    /** Returned by the check methods when the payload has to be parsed and handled */
+    public static final int PROCESS = -1;
+
+    // Event types which are only used to fire events, and the events they can produce.
+    // Types which update the cache must not be added here, unless they are covered by CACHE_FLAGS or MEMBER_UPDATES.
+    private static final Map<String, List<Class<? extends GenericEvent>>> EVENTS = new HashMap<>();
+    // Cache flags which require the event type to be handled, regardless of listeners
+    private static final Map<String, EnumSet<CacheFlag>> CACHE_FLAGS = new HashMap<>();
+    // Event types which update the member cache, these are only dropped if no members are cached
+    private static final Set<String> MEMBER_UPDATES = new HashSet<>(Arrays.asList("TYPING_START", "MESSAGE_REACTION_ADD", "MESSAGE_REACTION_REMOVE"));
+    // Event types received by a listener class, resolved once per class
+    private static final ConcurrentMap<Class<?>, Set<String>> LISTENED_TYPES = new ConcurrentHashMap<>();
+
+    static
+    {
+        register("TYPING_START",                      UserTypingEvent.class);
+        register("MESSAGE_REACTION_ADD",              MessageReactionAddEvent.class);
+        register("MESSAGE_REACTION_REMOVE",           MessageReactionRemoveEvent.class);
+        register("MESSAGE_REACTION_REMOVE_ALL",       MessageReactionRemoveAllEvent.class);
+        register("MESSAGE_REACTION_REMOVE_EMOJI",     MessageReactionRemoveEmojiEvent.class);
+        register("MESSAGE_POLL_VOTE_ADD",             MessagePollVoteAddEvent.class);
+        register("MESSAGE_POLL_VOTE_REMOVE",          MessagePollVoteRemoveEvent.class);
+        register("GUILD_SCHEDULED_EVENT_USER_ADD",    ScheduledEventUserAddEvent.class);
+        register("GUILD_SCHEDULED_EVENT_USER_REMOVE", ScheduledEventUserRemoveEvent.class);
+        register("GUILD_AUDIT_LOG_ENTRY_CREATE",      GuildAuditLogEntryCreateEvent.class);
+        register("AUTO_MODERATION_ACTION_EXECUTION",  AutoModExecutionEvent.class);
+
+        // Presence events are only fired when the presence cache is enabled, so listeners are irrelevant here
+        register("PRESENCE_UPDATE");
+        CACHE_FLAGS.put("PRESENCE_UPDATE", EnumSet.of(CacheFlag.ACTIVITY, CacheFlag.CLIENT_STATUS, CacheFlag.ONLINE_STATUS));
+    }
+
+    private final JDAImpl api;
+    // Event types wanted by the registered listeners, or null if they have to be resolved again
+    private volatile Set<String> listenedTypes;
+
+    public DispatchFilter(JDAImpl api)
+    {
+        this.api = api;
+    }
+
+    @SafeVarargs
+    private static void register(String type, Class<? extends GenericEvent>... events)
+    {
+        List<Class<? extends GenericEvent>> list = new ArrayList<>(events.length);
+        for (Class<? extends GenericEvent> event : events)
+            list.add(event);
+        EVENTS.put(type, list);
+    }
+
+    /**
+     * Resolves the event types wanted by the registered listeners again, on the next dispatch.
+     * <br>This has to be called after listeners are registered or removed, or the event manager is replaced.
+     */
+    public synchronized void invalidateListeners()
+    {
+        listenedTypes = null;
+    }
+
+    /**
+     * Checks whether the provided JSON payload is a dispatch which can be dropped.
+     * <br>The payload may be truncated, in which case it is only dropped if the envelope is complete.
+     *
+     * @param  data
+     *         The JSON payload
+     * @param  length
+     *         The number of valid bytes in the array
+     *
+     * @return The sequence number of the dropped dispatch, or {@link #PROCESS} if the payload has to be handled
+     */
+    public int checkJson(byte[] data, int length)
+    {
+        JsonEnvelope envelope = new JsonEnvelope(data, length);
+        if (!envelope.read() || envelope.op != WebSocketCode.DISPATCH || !canSkip(envelope.type))
+            return PROCESS;
+        return envelope.sequence;
+    }
+
+    /**
+     * Checks whether the provided ETF payload is a dispatch which can be dropped.
+     *
+     * @param  data
+     *         The ETF payload
+     * @param  length
+     *         The number of valid bytes in the array
+     *
+     * @return The sequence number of the dropped dispatch, or {@link #PROCESS} if the payload has to be handled
+     */
+    public int checkETF(byte[] data, int length)
+    {
+        String type = null;
+        int sequence = -1, op = -1;
+        try
+        {
+            ByteBuffer buffer = ByteBuffer.wrap(data, 0, length);
+            if (buffer.get() != -125 || buffer.get() != MAP)
+                return PROCESS;
+            int arity = buffer.getInt();
+            while (arity-- > 0 && (type == null || sequence < 0 || op < 0))
+            {
+                byte tag = buffer.get();
+                int keyLength;
+                if (tag == SMALL_ATOM_UTF8 || tag == SMALL_ATOM)
+                    keyLength = Byte.toUnsignedInt(buffer.get());
+                else if (tag == ATOM_UTF8 || tag == ATOM)
+                    keyLength = Short.toUnsignedInt(buffer.getShort());
+                else if (tag == BINARY)
+                    keyLength = buffer.getInt();
+                else
+                    return PROCESS;
+
+                int keyStart = buffer.position();
+                buffer.position(keyStart + keyLength);
+                if (keyLength == 1 && data[keyStart] == 't')
+                    type = readString(buffer);
+                else if (keyLength == 1 && data[keyStart] == 's')
+                    sequence = readInt(buffer);
+                else if (keyLength == 2 && data[keyStart] == 'o' && data[keyStart + 1] == 'p')
+                    op = readInt(buffer);
+                else
+                    skip(buffer);
+            }
+        }
+        catch (BufferUnderflowException | IllegalArgumentException e)
+        {
+            // Let the decoder deal with it
+            return PROCESS;
+        }
+
+        if (type == null || sequence < 0 || op != WebSocketCode.DISPATCH || !canSkip(type))
+            return PROCESS;
+        return sequence;
+    }
+
+    private boolean canSkip(String type)
+    {
+        List<Class<? extends GenericEvent>> events = EVENTS.get(type);
+        if (events == null || api.isRawEvents())
+            return false;
+
+        if (MEMBER_UPDATES.contains(type) && api.getMemberCachePolicy() != MemberCachePolicy.NONE)
+            return false;
+
+        EnumSet<CacheFlag> flags = CACHE_FLAGS.get(type);
+        if (flags != null)
+        {
+            for (CacheFlag flag : flags)
+            {
+                if (api.isCacheFlagSet(flag))
+                    return false;
+            }
+        }
+
+        boolean wanted = isWanted(type, events);
+        if (!wanted)
+            LOG.trace("Dropping {} dispatch before parsing, no listener wants it", type);
+        return !wanted;
+    }
+
+    private boolean isWanted(String type, List<Class<? extends GenericEvent>> events)
+    {
+        if (events.isEmpty())
+            return false;
+
+        Set<Class<? extends GenericEvent>> wantedEvents = api.getWantedEvents();
+        if (wantedEvents != null)
+        {
+            for (Class<? extends GenericEvent> event : events)
+            {
+                for (Class<? extends GenericEvent> wanted : wantedEvents)
+                {
+                    if (wanted.isAssignableFrom(event))
+                        return true;
+                }
+            }
+            return false;
+        }
+
+        // Other event managers might dispatch to anything, we cannot reason about them
+        IEventManager eventManager = api.getEventManager();
+        if (eventManager.getClass() != InterfacedEventManager.class)
+            return true;
+
+        return getListenedTypes(eventManager).contains(type);
+    }
+
+    private Set<String> getListenedTypes(IEventManager eventManager)
+    {
+        Set<String> types = listenedTypes;
+        if (types != null)
+            return types;
+
+        // Invalidation waits for this, so listeners registered while resolving are not lost
+        synchronized (this)
+        {
+            if (listenedTypes != null)
+                return listenedTypes;
+            types = new HashSet<>();
+            for (Object listener : eventManager.getRegisteredListeners())
+            {
+                if (!(listener instanceof ListenerAdapter))
+                {
+                    types = EVENTS.keySet();
+                    break;
+                }
+                types.addAll(LISTENED_TYPES.computeIfAbsent(listener.getClass(), DispatchFilter::findListenedTypes));
+            }
+            listenedTypes = types;
+            return types;
+        }
+    }
+
+    private static Set<String> findListenedTypes(Class<?> listener)
+    {
+        if (isOverridden(listener, "onGenericEvent", GenericEvent.class))
+            return EVENTS.keySet();
+
+        Set<String> types = new HashSet<>();
+        EVENTS.forEach((type, events) ->
+        {
+            for (Class<? extends GenericEvent> event : events)
+            {
+                for (Class<?> clazz : ClassWalker.range(event, GenericEvent.class))
+                {
+                    String name = clazz.getSimpleName();
+                    if (name.endsWith("Event") && isOverridden(listener, "on" + name.substring(0, name.length() - "Event".length()), clazz))
+                        types.add(type);
+                }
+            }
+        });
+        return types;
+    }
+
+    private static boolean isOverridden(Class<?> listener, String name, Class<?> parameter)
+    {
+        try
+        {
+            return listener.getMethod(name, parameter).getDeclaringClass() != ListenerAdapter.class;
+        }
+        catch (NoSuchMethodException e)
+        {
+            return false;
+        }
+    }
+
+    private static String readString(ByteBuffer buffer)
+    {
+        byte tag = buffer.get();
+        int length;
+        if (tag == SMALL_ATOM_UTF8 || tag == SMALL_ATOM)
+            length = Byte.toUnsignedInt(buffer.get());
+        else if (tag == ATOM_UTF8 || tag == ATOM)
+            length = Short.toUnsignedInt(buffer.getShort());
+        else if (tag == BINARY)
+            length = buffer.getInt();
+        else
+        {
+            buffer.position(buffer.position() - 1);
+            skip(buffer);
+            return null;
+        }
+
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return tag == BINARY || !value.equals("nil") ? value : null;
+    }
+
+    private static int readInt(ByteBuffer buffer)
+    {
+        byte tag = buffer.get();
+        if (tag == SMALL_INT)
+            return Byte.toUnsignedInt(buffer.get());
+        if (tag == INT)
+            return buffer.getInt();
+        buffer.position(buffer.position() - 1);
+        skip(buffer);
+        return -1;
+    }
+
+    private static void skip(ByteBuffer buffer)
+    {
+        byte tag = buffer.get();
+        int length;
+        switch (tag)
+        {
+        case NIL: return;
+        case SMALL_INT: length = 1; break;
+        case INT: length = 4; break;
+        case NEW_FLOAT: length = 8; break;
+        case FLOAT: length = 31; break;
+        case SMALL_BIGINT: length = Byte.toUnsignedInt(buffer.get()) + 1; break;
+        case SMALL_ATOM_UTF8:
+        case SMALL_ATOM: length = Byte.toUnsignedInt(buffer.get()); break;
+        case ATOM_UTF8:
+        case ATOM:
+        case STRING: length = Short.toUnsignedInt(buffer.getShort()); break;
+        case BINARY: length = buffer.getInt(); break;
+        case LIST:
+            // Elements followed by the tail
+            for (int i = buffer.getInt(); i >= 0; i--)
+                skip(buffer);
+            return;
+        case MAP:
+            for (int i = buffer.getInt() * 2; i > 0; i--)
+                skip(buffer);
+            return;
+        default:
+            throw new IllegalArgumentException("Cannot skip tag " + tag);
+        }
+        buffer.position(buffer.position() + length);
+    }
+
+    // Reads the "t", "s", and "op" fields, which discord sends before the event data
+    private static class JsonEnvelope
+    {
+        private final byte[] data;
+        private final int end;
+        private int position;
+
+        private String type;
+        private int sequence = -1;
+        private int op = -1;
+
+        private JsonEnvelope(byte[] data, int length)
+        {
+            this.data = data;
+            this.end = length;
+        }
+
+        private boolean read()
+        {
+            if (!expect('{'))
+                return false;
+            for (int fields = 0; fields < 3; fields++)
+            {
+                if (fields > 0 && !expect(','))
+                    return false;
+                if (!expect('"'))
+                    return false;
+                int keyStart = position;
+                int keyEnd = indexOfQuote();
+                if (keyEnd < 0)
+                    return false;
+                position = keyEnd + 1;
+                if (!expect(':'))
+                    return false;
+
+                int keyLength = keyEnd - keyStart;
+                if (keyLength == 1 && data[keyStart] == 't')
+                    type = readString();
+                else if (keyLength == 1 && data[keyStart] == 's')
+                    sequence = readInt();
+                else if (keyLength == 2 && data[keyStart] == 'o' && data[keyStart + 1] == 'p')
+                    op = readInt();
+                else // anything else has to be handled by the parser
+                    return false;
+            }
+            return type != null && sequence >= 0 && op >= 0;
+        }
+
+        private String readString()
+        {
+            if (!expect('"'))
+                return null;
+            int start = position;
+            int stop = indexOfQuote();
+            if (stop < 0)
+                return null;
+            position = stop + 1;
+            return new String(data, start, stop - start, StandardCharsets.ISO_8859_1);
+        }
+
+        private int readInt()
+        {
+            skipWhitespace();
+            int value = 0, digits = 0;
+            while (position < end && data[position] >= '0' && data[position] <= '9' && digits < 10)
+            {
+                value = value * 10 + (data[position++] - '0');
+                digits++;
+            }
+            return digits == 0 || digits == 10 ? -1 : value;
+        }
+
+        private int indexOfQuote()
+        {
+            for (int i = position; i < end; i++)
+            {
+                if (data[i] == '"')
+                    return i;
+                // Escapes never appear in the envelope, leave them to the parser
+                if (data[i] == '\\')
+                    return -1;
+            }
+            return -1;
+        }
+
+        private boolean expect(char c)
+        {
+            skipWhitespace();
+            if (position >= end || data[position] != c)
+                return false;
+            position++;
+            return true;
+        }
+
+        private void skipWhitespace()
+        {
+            while (position < end && (data[position] == ' ' || data[position] == '\n' || data[position] == '\r' || data[position] == '\t'))
+                position++;
+        }
+    }
+}
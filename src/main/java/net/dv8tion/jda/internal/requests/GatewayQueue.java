@@ -0,0 +1,188 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.internal.requests;
+
+import net.dv8tion.jda.api.utils.GatewayQueuePolicy;
+import net.dv8tion.jda.internal.utils.Checks;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Bounded ring buffer between the websocket read thread and a dedicated consumer thread.
+ *
+ * <p>There is exactly one producer (the read thread) and one consumer, which allows this to work without locks.
+ * The producer only writes the tail and the consumer only writes the head.
+ */
+public class GatewayQueue
+{
+    private final Object[] items;
+    private final long[] timestamps;
+    private final int mask;
+    private final int capacity;
+    private final GatewayQueuePolicy policy;
+    private final Consumer<Object> handler;
+    private final Runnable overflowHandler;
+    private final Thread thread;
+
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    private volatile boolean waiting = false;
+    private volatile boolean running = true;
+    private volatile boolean overflowed = false;
+    private volatile long discardIndex = 0;
+    private volatile long lastQueueTime = 0;
+
+    public GatewayQueue(int capacity, GatewayQueuePolicy policy, ThreadFactory threadFactory, Consumer<Object> handler, Runnable overflowHandler)
+    {
+        Checks.positive(capacity, "Capacity");
+        Checks.notNull(policy, "Policy");
+        // Power of two allows us to use a mask instead of modulo for the index
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.items = new Object[size];
+        this.timestamps = new long[size];
+        this.mask = size - 1;
+        this.capacity = capacity;
+        this.policy = policy;
+        this.handler = handler;
+        this.overflowHandler = overflowHandler;
+        this.thread = threadFactory.newThread(this::run);
+    }
+
+    public void start()
+    {
+        thread.start();
+    }
+
+    public void shutdown()
+    {
+        running = false;
+        discard();
+        LockSupport.unpark(thread);
+    }
+
+    public GatewayQueuePolicy getPolicy()
+    {
+        return policy;
+    }
+
+    public int size()
+    {
+        return (int) Math.max(0, tail.get() - Math.max(head.get(), discardIndex));
+    }
+
+    /**
+     * The time the last item spent in the queue before it was handled.
+     *
+     * @return The time in milliseconds
+     */
+    public long getLastQueueTime()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(lastQueueTime);
+    }
+
+    /**
+     * Drops all items which are currently queued, without handling them.
+     * <br>This also resets the overflow state of {@link GatewayQueuePolicy#RECONNECT}.
+     */
+    public void discard()
+    {
+        discardIndex = tail.get();
+        overflowed = false;
+    }
+
+    /**
+     * Appends the item to the queue, this must only be called by the producer thread.
+     *
+     * @param  item
+     *         The item to append
+     *
+     * @return True, if the item was queued.
+     *         False, if the item was dropped because the queue overflowed or was discarded while waiting.
+     */
+    public boolean offer(Object item)
+    {
+        if (overflowed || !running)
+            return false;
+
+        long index = tail.get();
+        long discarded = discardIndex;
+        while (index - head.get() >= capacity)
+        {
+            // Discarded items still use their slots until the consumer skipped them, which does not count as an overflow
+            if (policy == GatewayQueuePolicy.RECONNECT && index - Math.max(head.get(), discardIndex) >= capacity)
+            {
+                // Everything is dropped until the queue is discarded
+                overflowed = true;
+                overflowHandler.run();
+                return false;
+            }
+            // Wait for the consumer, but give up if the queue was dropped in the meantime
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(1));
+            if (!running || discarded != discardIndex)
+                return false;
+        }
+
+        int slot = (int) index & mask;
+        items[slot] = item;
+        timestamps[slot] = System.nanoTime();
+        // volatile write publishes the slot and orders it before reading the waiting flag
+        tail.set(index + 1);
+        if (waiting)
+            LockSupport.unpark(thread);
+        return true;
+    }
+
+    private void run()
+    {
+        while (running)
+        {
+            long index = head.get();
+            if (index == tail.get())
+            {
+                waiting = true;
+                if (index == tail.get() && running)
+                    LockSupport.park(this);
+                waiting = false;
+                continue;
+            }
+
+            int slot = (int) index & mask;
+            Object item = items[slot];
+            long timestamp = timestamps[slot];
+            items[slot] = null;
+            head.set(index + 1);
+
+            if (index < discardIndex)
+                continue;
+            lastQueueTime = System.nanoTime() - timestamp;
+            try
+            {
+                handler.accept(item);
+            }
+            catch (Throwable e)
+            {
+                // The consumer thread must not die, otherwise the read thread would block forever
+                WebSocketClient.LOG.error("Failed to handle gateway message from queue", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.internal.requests;
+
+import net.dv8tion.jda.api.requests.GatewayPriority;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket for gateway commands.
+ *
+ * <p>Discord allows 120 commands in any 60 second window.
+ * The default bucket holds 60 tokens and refills one token every second,
+ * which allows a burst of 60 commands without ever exceeding 120 commands within 60 seconds.
+ *
+ * <p>A few tokens are reserved for {@link GatewayPriority#isReserved() reserved priorities},
+ * so a backlog of queued commands can never delay a heartbeat or identify.
+ */
+public class GatewayRateLimiter
+{
+    public static final int DEFAULT_CAPACITY = 60;
+    public static final long DEFAULT_REFILL_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+    public static final int RESERVED_TOKENS = 3;
+
+    private final int capacity;
+    private final long refillInterval;
+    private final LongSupplier clock;
+
+    private int tokens;
+    private long lastRefill;
+
+    public GatewayRateLimiter()
+    {
+        this(DEFAULT_CAPACITY, DEFAULT_REFILL_INTERVAL, System::nanoTime);
+    }
+
+    public GatewayRateLimiter(int capacity, long refillInterval, LongSupplier clock)
+    {
+        this.capacity = capacity;
+        this.refillInterval = refillInterval;
+        this.clock = clock;
+        this.tokens = capacity;
+        this.lastRefill = clock.getAsLong();
+    }
+
+    /**
+     * Fills the bucket again, the limit applies per connection.
+     */
+    public synchronized void reset()
+    {
+        tokens = capacity;
+        lastRefill = clock.getAsLong();
+    }
+
+    /**
+     * Takes a token, if one is available for the provided priority.
+     *
+     * @param  priority
+     *         The priority of the command
+     *
+     * @return True, if the command can be sent
+     */
+    public synchronized boolean tryAcquire(GatewayPriority priority)
+    {
+        refill();
+        if (tokens <= minimum(priority))
+            return false;
+        tokens--;
+        return true;
+    }
+
+    /**
+     * The time until a token is available for the provided priority.
+     *
+     * @param  priority
+     *         The priority of the command
+     *
+     * @return The delay in nanoseconds, or {@code 0} if a token is available now
+     */
+    public synchronized long getDelay(GatewayPriority priority)
+    {
+        refill();
+        int missing = minimum(priority) + 1 - tokens;
+        if (missing <= 0)
+            return 0;
+        long elapsed = clock.getAsLong() - lastRefill;
+        return missing * refillInterval - elapsed;
+    }
+
+    public synchronized int getTokens()
+    {
+        refill();
+        return tokens;
+    }
+
+    private int minimum(GatewayPriority priority)
+    {
+        return priority.isReserved() ? 0 : RESERVED_TOKENS;
+    }
+
+    private void refill()
+    {
+        long now = clock.getAsLong();
+        long refilled = (now - lastRefill) / refillInterval;
+        if (refilled <= 0)
+            return;
+        if (tokens + refilled >= capacity)
+        {
+            tokens = capacity;
+            lastRefill = now;
+        }
+        else
+        {
+            tokens += (int) refilled;
+            lastRefill += refilled * refillInterval;
+        }
+    }
+}
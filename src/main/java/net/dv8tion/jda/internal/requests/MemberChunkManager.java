@@ -16,8 +16,12 @@
 
 package net.dv8tion.jda.internal.requests;
 
+import gnu.trove.list.TLongList;
+import gnu.trove.list.array.TLongArrayList;
 import gnu.trove.map.TLongObjectMap;
 import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.utils.MiscUtil;
 import net.dv8tion.jda.api.utils.data.DataArray;
@@ -36,9 +40,12 @@ import java.util.function.BiConsumer;
 public class MemberChunkManager
 {
     private static final long MAX_CHUNK_AGE = 10 * 1000; // 10 seconds
+    private static final int MAX_USER_IDS = 100;
     private final WebSocketClient client;
     private final ReentrantLock lock = new ReentrantLock();
     private final TLongObjectMap<ChunkRequest> requests = new TLongObjectHashMap<>();
+    // The latest user_ids request of each guild, which can still be extended while it is queued
+    private final TLongObjectMap<ChunkBatch> batches = new TLongObjectHashMap<>();
     private Future<?> timeoutHandle;
 
     public MemberChunkManager(WebSocketClient client)
@@ -53,7 +60,10 @@ public class MemberChunkManager
 
     public void clear()
     {
-        MiscUtil.locked(lock, requests::clear);
+        MiscUtil.locked(lock, () -> {
+            requests.clear();
+            batches.clear();
+        });
     }
 
     private void init()
@@ -106,7 +116,20 @@ public class MemberChunkManager
                 .put("user_ids", userIds);
 
         ChunkRequest chunkRequest = new ChunkRequest(handler, guild, request);
-        makeRequest(chunkRequest);
+        chunkRequest.userIds = new TLongHashSet(userIds);
+        MiscUtil.locked(lock, () -> {
+            // Requests for the same guild are merged into one request, as long as it has not been sent yet
+            requests.put(chunkRequest.nonce, chunkRequest);
+            chunkRequest.startTime = System.currentTimeMillis();
+            ChunkBatch batch = batches.get(guild.getIdLong());
+            if (batch == null || !batch.add(chunkRequest, presence, userIds))
+            {
+                batch = new ChunkBatch(guild, presence);
+                batch.add(chunkRequest, presence, userIds);
+                batches.put(guild.getIdLong(), batch);
+                makeRequest(batch);
+            }
+        });
         return chunkRequest;
     }
 
@@ -127,6 +150,8 @@ public class MemberChunkManager
             {
                 requests.remove(key);
                 request.complete(null);
+                if (batches.get(guildId) == request)
+                    batches.remove(guildId);
             }
             return true;
         });
@@ -155,9 +180,10 @@ public class MemberChunkManager
     public class ChunkRequest extends CompletableFuture<Void>
     {
         private final BiConsumer<Boolean, List<Member>> handler;
-        private final GuildImpl guild;
+        protected final GuildImpl guild;
         private final DataObject request;
         private final long nonce;
+        private TLongSet userIds;
         private long startTime;
         private long timeout = MAX_CHUNK_AGE;
 
@@ -226,7 +252,7 @@ public class MemberChunkManager
             try
             {
                 if (!isDone())
-                    handler.accept(last, toMembers(chunk));
+                    handleMembers(last, toMembers(chunk));
             }
             catch (Throwable ex)
             {
@@ -236,6 +262,11 @@ public class MemberChunkManager
             }
         }
 
+        protected void handleMembers(boolean last, List<Member> members)
+        {
+            handler.accept(last, members);
+        }
+
         @Override
         public boolean cancel(boolean mayInterruptIfRunning)
         {
@@ -245,6 +276,118 @@ public class MemberChunkManager
         }
     }
 
+    // A user_ids request which collects the ids of multiple requests and splits the response back to them
+    private class ChunkBatch extends ChunkRequest
+    {
+        private final List<ChunkRequest> children = new ArrayList<>();
+        private final TLongSet batchIds = new TLongHashSet();
+        private final boolean presence;
+
+        private ChunkBatch(GuildImpl guild, boolean presence)
+        {
+            super(null, guild, DataObject.empty()
+                .put("guild_id", guild.getId())
+                .put("presences", presence)
+                .put("user_ids", DataArray.empty()));
+            this.presence = presence;
+        }
+
+        // Must be called while holding the lock
+        private boolean add(ChunkRequest request, boolean presence, long[] userIds)
+        {
+            if (this.presence != presence || isDone())
+                return false;
+            TLongList added = new TLongArrayList(userIds.length);
+            for (long id : userIds)
+            {
+                if (!batchIds.contains(id) && !added.contains(id))
+                    added.add(id);
+            }
+            if (batchIds.size() + added.size() > MAX_USER_IDS)
+                return false;
+
+            if (!children.isEmpty())
+            {
+                // The first request is added before the batch is queued, every other request has to update the queued payload
+                boolean updated = client.updateChunkRequest(getNonce(), payload -> {
+                    DataArray ids = payload.getArray("user_ids");
+                    added.forEach(id -> {
+                        ids.add(id);
+                        return true;
+                    });
+                });
+                if (!updated)
+                    return false;
+            }
+            else
+            {
+                DataArray ids = getRequest().getArray("user_ids");
+                added.forEach(id -> {
+                    ids.add(id);
+                    return true;
+                });
+            }
+            batchIds.addAll(added);
+            children.add(request);
+            return true;
+        }
+
+        @Override
+        protected void handleMembers(boolean last, List<Member> members)
+        {
+            for (ChunkRequest child : children)
+            {
+                if (child.isDone())
+                    continue;
+                List<Member> matching = new ArrayList<>();
+                for (Member member : members)
+                {
+                    if (child.userIds.contains(member.getIdLong()))
+                        matching.add(member);
+                }
+                try
+                {
+                    child.handleMembers(last, matching);
+                }
+                catch (Throwable ex)
+                {
+                    child.completeExceptionally(ex);
+                    if (ex instanceof Error)
+                        throw (Error) ex;
+                }
+                if (last)
+                {
+                    requests.remove(child.nonce);
+                    child.complete(null);
+                }
+            }
+        }
+
+        @Override
+        public boolean completeExceptionally(Throwable ex)
+        {
+            MiscUtil.locked(lock, () -> {
+                if (batches.get(guild.getIdLong()) == this)
+                    batches.remove(guild.getIdLong());
+            });
+            for (ChunkRequest child : children)
+                child.completeExceptionally(ex);
+            return super.completeExceptionally(ex);
+        }
+
+        @Override
+        public boolean isExpired()
+        {
+            // The batch waits for the timeout of its children instead
+            for (ChunkRequest child : children)
+            {
+                if (!child.isDone())
+                    return false;
+            }
+            return true;
+        }
+    }
+
     private class TimeoutHandler implements Runnable
     {
         @Override
@@ -258,6 +401,7 @@ public class MemberChunkManager
                     return true;
                 });
                 requests.valueCollection().removeIf(ChunkRequest::isDone);
+                batches.valueCollection().removeIf(ChunkRequest::isDone);
             });
         }
     }
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.internal.requests;
+
+import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.internal.JDAImpl;
+import net.dv8tion.jda.internal.handle.SocketHandler;
+import net.dv8tion.jda.internal.utils.Checks;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Handles gateway dispatches of different guilds in parallel.
+ *
+ * <p>Every guild is assigned to one worker, which keeps the order of events within the same guild.
+ * Each worker has its own set of {@link SocketHandler SocketHandlers}, since handlers keep state while handling an event.
+ *
+ * <p>Events which are not specific to one guild, or which modify the global user cache, are handled serially.
+ * Before such an event is handled, all workers have to finish their pending events.
+ * Other events may still cache members, the users of those members are looked up and cached atomically
+ * under the write lock of the user cache.
+ */
+public class ParallelDispatcher
+{
+    // These events update users, members, or the guild setup, which is shared by all guilds
+    private static final Set<String> SERIAL_EVENTS = new HashSet<>(Arrays.asList(
+        "READY", "RESUMED",
+        "GUILD_CREATE", "GUILD_DELETE", "GUILD_SYNC",
+        "GUILD_MEMBERS_CHUNK", "GUILD_MEMBER_ADD", "GUILD_MEMBER_REMOVE", "GUILD_MEMBER_UPDATE",
+        "PRESENCE_UPDATE", "USER_UPDATE"
+    ));
+
+    private final JDAImpl api;
+    private final ExecutorService[] workers;
+    private final List<Map<String, SocketHandler>> handlers;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Object idleLock = new Object();
+
+    public ParallelDispatcher(JDAImpl api, int threads, Supplier<Map<String, SocketHandler>> handlerFactory)
+    {
+        Checks.positive(threads, "Threads");
+        this.api = api;
+        this.workers = new ExecutorService[threads];
+        List<Map<String, SocketHandler>> handlers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++)
+        {
+            String name = api.getIdentifierString() + " MainWS-DispatchWorker " + i;
+            workers[i] = Executors.newSingleThreadExecutor((task) -> {
+                Thread thread = new Thread(() -> {
+                    api.setContext();
+                    WebSocketClient.WS_THREAD.set(true);
+                    task.run();
+                }, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+            handlers.add(handlerFactory.get());
+        }
+        this.handlers = Collections.unmodifiableList(handlers);
+    }
+
+    /**
+     * Handles the dispatch on the worker of its guild, if the event can be handled in parallel.
+     * <br>Otherwise, this waits for all workers to become idle and returns false.
+     *
+     * @param  type
+     *         The event type
+     * @param  guildId
+     *         The guild id of the event, or {@code 0} if the event has no guild
+     * @param  handler
+     *         The handler to run on the worker, which receives the handlers of that worker
+     *
+     * @return True, if the event is handled by a worker.
+     *         False, if the caller has to handle the event serially.
+     */
+    public boolean dispatch(String type, long guildId, WorkerTask handler)
+    {
+        if (guildId == 0 || SERIAL_EVENTS.contains(type) || api.getGuildSetupController().isLocked(guildId))
+        {
+            awaitIdle();
+            return false;
+        }
+
+        int index = (Long.hashCode(guildId) & Integer.MAX_VALUE) % workers.length;
+        Map<String, SocketHandler> workerHandlers = handlers.get(index);
+        pending.incrementAndGet();
+        try
+        {
+            workers[index].execute(() -> {
+                try
+                {
+                    handler.run(workerHandlers);
+                }
+                finally
+                {
+                    onDone();
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            onDone();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Waits until all workers have finished their pending events.
+     */
+    public void awaitIdle()
+    {
+        if (pending.get() == 0)
+            return;
+        synchronized (idleLock)
+        {
+            while (pending.get() > 0)
+            {
+                try
+                {
+                    idleLock.wait();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    public int getPending()
+    {
+        return pending.get();
+    }
+
+    public void shutdown()
+    {
+        for (ExecutorService worker : workers)
+            worker.shutdown();
+    }
+
+    private void onDone()
+    {
+        if (pending.decrementAndGet() == 0)
+        {
+            synchronized (idleLock)
+            {
+                idleLock.notifyAll();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface WorkerTask
+    {
+        void run(Map<String, SocketHandler> handlers);
+    }
+}
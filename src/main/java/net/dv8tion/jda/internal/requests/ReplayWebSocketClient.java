@@ -0,0 +1,118 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.internal.requests;
+
+import net.dv8tion.jda.api.GatewayEncoding;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.utils.GatewayRecorder;
+import net.dv8tion.jda.internal.JDAImpl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+
+/**
+ * Feeds the frames of a {@link GatewayRecorder recording} into JDA, without connecting to the gateway.
+ *
+ * <p>Nothing is sent, since the client is never connected. Requests that wait for a response from the gateway,
+ * such as member chunking, only complete if the response is part of the recording.
+ */
+public class ReplayWebSocketClient extends WebSocketClient
+{
+    public ReplayWebSocketClient(JDAImpl api, GatewayRecorder.Reader reader, int gatewayIntents)
+    {
+        super(api, reader.getCompression(), gatewayIntents, reader.getEncoding(), false);
+    }
+
+    /**
+     * Reads all frames of the recording on the calling thread.
+     * <br>The frames are handled like frames of the read thread, which hands them to the gateway queue or dispatch threads if configured.
+     *
+     * @param  reader
+     *         The recording
+     * @param  realTime
+     *         True, to wait between frames as long as during the recording.
+     *         False, to handle the frames as fast as possible.
+     *
+     * @throws DataFormatException
+     *         If a frame cannot be decompressed
+     * @throws InterruptedException
+     *         If interrupted while waiting for the next frame
+     *
+     * @return The number of handled frames
+     */
+    public int replay(GatewayRecorder.Reader reader, boolean realTime) throws DataFormatException, InterruptedException
+    {
+        int frames = 0;
+        long start = System.nanoTime();
+        long offset = -1;
+        GatewayRecorder.Frame frame;
+        while (!shutdown && (frame = reader.next()) != null)
+        {
+            if (offset < 0)
+                offset = frame.getTime();
+            if (realTime)
+            {
+                long delay = frame.getTime() - offset - (System.nanoTime() - start);
+                if (delay > 0)
+                    TimeUnit.NANOSECONDS.sleep(delay);
+            }
+
+            switch (frame.getType())
+            {
+            case GatewayRecorder.CONNECT:
+                onReplayConnect();
+                break;
+            case GatewayRecorder.TEXT:
+                onTextMessage(null, frame.getData());
+                break;
+            case GatewayRecorder.BINARY:
+                onBinaryMessage(null, frame.getData());
+                break;
+            default:
+                LOG.debug("Skipping recorded frame with unknown type {}", frame.getType());
+                continue;
+            }
+            frames++;
+        }
+        return frames;
+    }
+
+    protected void onReplayConnect()
+    {
+        // Every connection starts with a new compression context
+        synchronized (readLock)
+        {
+            if (decompressor != null)
+                decompressor.reset();
+            setupDecompressor();
+        }
+        initiating = true;
+        api.setStatus(JDA.Status.IDENTIFYING_SESSION);
+    }
+
+    @Override
+    protected void setupKeepAlive(int timeout)
+    {
+        // There is no connection to keep alive
+    }
+
+    @Override
+    protected void sendKeepAlive()
+    {
+        // There is no connection to keep alive
+    }
+}
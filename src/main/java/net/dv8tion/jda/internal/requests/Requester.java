@@ -24,6 +24,8 @@ import net.dv8tion.jda.internal.utils.IOUtil;
 import net.dv8tion.jda.internal.utils.JDALogger;
 import net.dv8tion.jda.internal.utils.config.AuthorizationConfig;
 import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.RequestBody;
@@ -39,13 +41,13 @@ import java.io.InputStream;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
-import java.util.LinkedHashSet;
-import java.util.Locale;
+import java.util.*;
 import java.util.Map.Entry;
-import java.util.Set;
-import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class Requester
 {
@@ -63,8 +65,20 @@ public class Requester
     private final String baseUrl;
     private final String userAgent;
     private final Consumer<? super okhttp3.Request.Builder> customBuilder;
+    private final boolean deduplicateRequests;
+    private final RestResponseCache responseCache;
+
+    // Compiled route -> Pending GET request, which is shared by identical requests
+    private final ConcurrentMap<String, WorkTask> pendingRequests = new ConcurrentHashMap<>();
+    private final AtomicLong deduplicatedRequests = new AtomicLong();
+    // Queue time of sent requests for each priority class
+    private final AtomicLongArray queueCounts = new AtomicLongArray(RequestPriority.values().length);
+    private final AtomicLongArray queueTotals = new AtomicLongArray(RequestPriority.values().length);
+    private final AtomicLongArray queueMax = new AtomicLongArray(RequestPriority.values().length);
 
     private final OkHttpClient httpClient;
+    // Used for enqueued calls, which are not limited by the dispatcher of the configured client
+    private final OkHttpClient asyncClient;
 
     //when we actually set the shard info we can also set the mdc context map, before it makes no sense
     private boolean isContextReady = false;
@@ -83,7 +97,20 @@ public class Requester
         this.baseUrl = config.getBaseUrl();
         this.userAgent = config.getUserAgent();
         this.customBuilder = config.getCustomBuilder();
+        this.deduplicateRequests = config.isDeduplicateRequests();
+        this.responseCache = config.getResponseCache();
         this.httpClient = this.api.getHttpClient();
+        this.asyncClient = createAsyncClient(httpClient);
+    }
+
+    private static OkHttpClient createAsyncClient(OkHttpClient client)
+    {
+        // OkHttp only runs a few enqueued calls per host at once (5 by default), the rate-limiter already decides
+        //  which requests can be sent in parallel. Blocking calls were never limited by the dispatcher either.
+        Dispatcher dispatcher = new Dispatcher(client.dispatcher().executorService());
+        dispatcher.setMaxRequests(Integer.MAX_VALUE);
+        dispatcher.setMaxRequestsPerHost(Integer.MAX_VALUE);
+        return client.newBuilder().dispatcher(dispatcher).build();
     }
 
     public void setContextReady(boolean ready)
@@ -110,10 +137,136 @@ public class Requester
         if (rateLimiter.isStopped())
             throw new RejectedExecutionException("The Requester has been stopped! No new requests can be requested!");
 
-        if (apiRequest.shouldQueue())
-            rateLimiter.enqueue(new WorkTask(apiRequest));
+        if (isCacheable(apiRequest) && handleCached(apiRequest))
+            return;
+
+        if (!apiRequest.shouldQueue())
+            executeAsync(new WorkTask(apiRequest, null), true);
+        else if (isDeduplicated(apiRequest))
+            enqueueDeduplicated(apiRequest);
         else
-            execute(new WorkTask(apiRequest), true);
+            rateLimiter.enqueue(new WorkTask(apiRequest, null));
+    }
+
+    public long getDeduplicatedRequestCount()
+    {
+        return deduplicatedRequests.get();
+    }
+
+    public QueueTime getQueueTime(RequestPriority priority)
+    {
+        int index = priority.ordinal();
+        return new QueueTime(queueCounts.get(index), queueTotals.get(index), queueMax.get(index));
+    }
+
+    /**
+     * Removes cached responses, which are changed by a gateway event.
+     *
+     * @param type
+     *        The event type
+     * @param content
+     *        The event data
+     */
+    public void invalidateCache(String type, DataObject content)
+    {
+        if (responseCache == null)
+            return;
+
+        switch (type)
+        {
+        case "GUILD_EMOJIS_UPDATE":
+            responseCache.invalidate(Route.Emojis.GET_EMOJIS.compile(content.getString("guild_id")).getCompiledRoute());
+            break;
+        case "GUILD_STICKERS_UPDATE":
+            responseCache.invalidate(Route.Stickers.GET_GUILD_STICKERS.compile(content.getString("guild_id")).getCompiledRoute());
+            break;
+        case "WEBHOOKS_UPDATE":
+            responseCache.invalidate(Route.Channels.GET_WEBHOOKS.compile(content.getString("channel_id")).getCompiledRoute());
+            responseCache.invalidate(Route.Guilds.GET_WEBHOOKS.compile(content.getString("guild_id")).getCompiledRoute());
+            break;
+        case "INVITE_CREATE":
+        case "INVITE_DELETE":
+            responseCache.invalidate(Route.Invites.GET_CHANNEL_INVITES.compile(content.getString("channel_id")).getCompiledRoute());
+            if (!content.isNull("guild_id"))
+                responseCache.invalidate(Route.Invites.GET_GUILD_INVITES.compile(content.getString("guild_id")).getCompiledRoute());
+            break;
+        }
+    }
+
+    // Only requests without side effects can share a response
+    private static boolean isIdempotent(Request<?> apiRequest)
+    {
+        return apiRequest.getRoute().getMethod() == Method.GET
+            && apiRequest.getBody() == null
+            && (apiRequest.getHeaders() == null || apiRequest.getHeaders().isEmpty());
+    }
+
+    private boolean isDeduplicated(Request<?> apiRequest)
+    {
+        return deduplicateRequests && isIdempotent(apiRequest);
+    }
+
+    private boolean isCacheable(Request<?> apiRequest)
+    {
+        return responseCache != null && isIdempotent(apiRequest) && responseCache.isCacheable(apiRequest.getRoute());
+    }
+
+    private boolean handleCached(Request<?> apiRequest)
+    {
+        RestResponseCache.CachedResponse cached = responseCache.get(apiRequest.getRoute());
+        if (cached == null)
+            return false;
+
+        LOG.trace("Using cached response for {}", apiRequest.getRoute());
+        if (!apiRequest.isSkipped())
+            apiRequest.handleResponse(new Response(cached.toResponse(), -1, Collections.emptySet()));
+        return true;
+    }
+
+    private okhttp3.Response updateCache(WorkTask task, okhttp3.Response response) throws IOException
+    {
+        Route.CompiledRoute route = task.getRoute();
+        if (route.getMethod() != Method.GET)
+        {
+            // The request might have changed cached resources
+            responseCache.invalidate(route.getCompiledRoute());
+            return response;
+        }
+
+        if (response.code() != 200 || !isCacheable(task.request))
+            return response;
+
+        RestResponseCache.CachedResponse cached = RestResponseCache.CachedResponse.of(response);
+        responseCache.put(route, cached);
+        return cached.toResponse();
+    }
+
+    private void enqueueDeduplicated(Request<?> apiRequest)
+    {
+        String key = apiRequest.getRoute().getCompiledRoute();
+        while (true)
+        {
+            WorkTask pending = pendingRequests.get(key);
+            if (pending == null)
+            {
+                WorkTask task = new WorkTask(apiRequest, key);
+                if (pendingRequests.putIfAbsent(key, task) == null)
+                {
+                    rateLimiter.enqueue(task);
+                    return;
+                }
+            }
+            else if (pending.join(apiRequest))
+            {
+                deduplicatedRequests.incrementAndGet();
+                return;
+            }
+            else
+            {
+                // The response of this request is already being handled
+                pendingRequests.remove(key, pending);
+            }
+        }
     }
 
     private static boolean isRetry(Throwable e)
@@ -147,31 +300,9 @@ public class Requester
 
     public okhttp3.Response execute(WorkTask task, boolean retried, boolean handleOnRatelimit)
     {
-        Route.CompiledRoute route = task.getRoute();
-
-        okhttp3.Request.Builder builder = new okhttp3.Request.Builder();
-
-        String url = baseUrl + route.getCompiledRoute();
-        builder.url(url);
-
+        okhttp3.Request request = createRequest(task);
         Request<?> apiRequest = task.request;
 
-        applyBody(apiRequest, builder);
-        applyHeaders(apiRequest, builder);
-        if (customBuilder != null)
-        {
-            try
-            {
-                customBuilder.accept(builder);
-            }
-            catch (Exception e)
-            {
-                LOG.error("Custom request builder caused exception", e);
-            }
-        }
-
-        okhttp3.Request request = builder.build();
-
         Set<String> rays = new LinkedHashSet<>();
         okhttp3.Response[] responses = new okhttp3.Response[4];
         // we have an array of all responses to later close them all at once
@@ -179,11 +310,11 @@ public class Requester
         okhttp3.Response lastResponse = null;
         try
         {
-            LOG.trace("Executing request {} {}", task.getRoute().getMethod(), url);
+            LOG.trace("Executing request {} {}", task.getRoute().getMethod(), request.url());
             int code = 0;
             for (int attempt = 0; attempt < responses.length; attempt++)
             {
-                if (apiRequest.isSkipped())
+                if (task.isSkipped())
                     return null;
 
                 Call call = httpClient.newCall(request);
@@ -200,7 +331,7 @@ public class Requester
 
                 LOG.debug("Requesting {} -> {} returned status {}... retrying (attempt {})",
                         apiRequest.getRoute().getMethod(),
-                        url, code, attempt + 1);
+                        request.url(), code, attempt + 1);
                 try
                 {
                     Thread.sleep(500 << attempt);
@@ -211,46 +342,7 @@ public class Requester
                 }
             }
 
-            LOG.trace("Finished Request {} {} with code {}", route.getMethod(), lastResponse.request().url(), code);
-
-            if (shouldRetry(code))
-            {
-                //Epic failure from other end. Attempted 4 times.
-                task.handleResponse(lastResponse, -1, rays);
-                return null;
-            }
-
-            if (!rays.isEmpty())
-                LOG.debug("Received response with following cf-rays: {}", rays);
-
-            if (handleOnRatelimit && code == 429)
-            {
-                long retryAfter = parseRetry(lastResponse);
-                task.handleResponse(lastResponse, retryAfter, rays);
-            }
-            else if (code != 429)
-            {
-                task.handleResponse(lastResponse, rays);
-            }
-            else if (getContentType(lastResponse).startsWith("application/json")) // potentially not json when cloudflare does 429
-            {
-                // On 429, replace the retry-after header if its wrong (discord moment)
-                // We just pick whichever is bigger between body and header
-                try (InputStream body = IOUtil.getBody(lastResponse))
-                {
-                    long retryAfterBody = (long) Math.ceil(DataObject.fromJson(body).getDouble("retry_after", 0));
-                    long retryAfterHeader = Long.parseLong(lastResponse.header(RestRateLimiter.RETRY_AFTER_HEADER));
-                    lastResponse = lastResponse.newBuilder()
-                            .header(RestRateLimiter.RETRY_AFTER_HEADER, Long.toString(Math.max(retryAfterHeader, retryAfterBody)))
-                            .build();
-                }
-                catch (Exception e)
-                {
-                    LOG.warn("Failed to parse retry-after response body", e);
-                }
-            }
-
-            return lastResponse;
+            return handleResult(task, lastResponse, rays, handleOnRatelimit);
         }
         catch (UnknownHostException e)
         {
@@ -274,13 +366,113 @@ public class Requester
         }
         finally
         {
-            for (okhttp3.Response r : responses)
+            closeAll(responses);
+        }
+    }
+
+    /**
+     * Used to execute a Request without blocking the calling thread.
+     * <br>Retries for server errors are delayed by the rate-limit scheduler, instead of sleeping on the calling thread.
+     *
+     * @param  task
+     *         The API request that needs to be sent
+     * @param  handleOnRatelimit
+     *         Whether to forward rate-limits, false if rate limit handling should take over
+     *
+     * @return Future, which completes with the same response as {@link #execute(WorkTask, boolean)}
+     */
+    public CompletableFuture<okhttp3.Response> executeAsync(WorkTask task, boolean handleOnRatelimit)
+    {
+        CompletableFuture<okhttp3.Response> future = new CompletableFuture<>();
+        new AsyncExecution(task, handleOnRatelimit, false, future).start();
+        return future;
+    }
+
+    private okhttp3.Request createRequest(WorkTask task)
+    {
+        Route.CompiledRoute route = task.getRoute();
+        task.onStart();
+
+        okhttp3.Request.Builder builder = new okhttp3.Request.Builder();
+
+        String url = baseUrl + route.getCompiledRoute();
+        builder.url(url);
+
+        Request<?> apiRequest = task.request;
+
+        applyBody(apiRequest, builder);
+        applyHeaders(apiRequest, builder);
+        if (customBuilder != null)
+        {
+            try
             {
-                if (r == null)
-                    break;
-                r.close();
+                customBuilder.accept(builder);
+            }
+            catch (Exception e)
+            {
+                LOG.error("Custom request builder caused exception", e);
+            }
+        }
+
+        return builder.build();
+    }
+
+    private okhttp3.Response handleResult(WorkTask task, okhttp3.Response lastResponse, Set<String> rays, boolean handleOnRatelimit) throws IOException
+    {
+        Route.CompiledRoute route = task.getRoute();
+        int code = lastResponse.code();
+        LOG.trace("Finished Request {} {} with code {}", route.getMethod(), lastResponse.request().url(), code);
+
+        if (shouldRetry(code))
+        {
+            //Epic failure from other end. Attempted 4 times.
+            task.handleResponse(lastResponse, -1, rays);
+            return null;
+        }
+
+        if (!rays.isEmpty())
+            LOG.debug("Received response with following cf-rays: {}", rays);
+
+        if (handleOnRatelimit && code == 429)
+        {
+            long retryAfter = parseRetry(lastResponse);
+            task.handleResponse(lastResponse, retryAfter, rays);
+        }
+        else if (code != 429)
+        {
+            if (responseCache != null)
+                lastResponse = updateCache(task, lastResponse);
+            task.handleResponse(lastResponse, rays);
+        }
+        else if (getContentType(lastResponse).startsWith("application/json")) // potentially not json when cloudflare does 429
+        {
+            // On 429, replace the retry-after header if its wrong (discord moment)
+            // We just pick whichever is bigger between body and header
+            try (InputStream body = IOUtil.getBody(lastResponse))
+            {
+                long retryAfterBody = (long) Math.ceil(DataObject.fromJson(body).getDouble("retry_after", 0));
+                long retryAfterHeader = Long.parseLong(lastResponse.header(RestRateLimiter.RETRY_AFTER_HEADER));
+                lastResponse = lastResponse.newBuilder()
+                        .header(RestRateLimiter.RETRY_AFTER_HEADER, Long.toString(Math.max(retryAfterHeader, retryAfterBody)))
+                        .build();
+            }
+            catch (Exception e)
+            {
+                LOG.warn("Failed to parse retry-after response body", e);
             }
         }
+
+        return lastResponse;
+    }
+
+    private static void closeAll(okhttp3.Response[] responses)
+    {
+        for (okhttp3.Response r : responses)
+        {
+            if (r == null)
+                break;
+            r.close();
+        }
     }
 
     private void applyBody(Request<?> apiRequest, okhttp3.Request.Builder builder)
@@ -356,14 +548,178 @@ public class Requester
         return type == null ? "" : type.toLowerCase(Locale.ROOT);
     }
 
+    private class AsyncExecution implements Callback
+    {
+        private final WorkTask task;
+        private final boolean handleOnRatelimit, retried;
+        private final CompletableFuture<okhttp3.Response> future;
+        private final Set<String> rays = new LinkedHashSet<>();
+        // we have an array of all responses to later close them all at once
+        private final okhttp3.Response[] responses = new okhttp3.Response[4];
+        private okhttp3.Request request;
+        private int attempt;
+
+        private AsyncExecution(WorkTask task, boolean handleOnRatelimit, boolean retried, CompletableFuture<okhttp3.Response> future)
+        {
+            this.task = task;
+            this.handleOnRatelimit = handleOnRatelimit;
+            this.retried = retried;
+            this.future = future;
+        }
+
+        private void start()
+        {
+            try
+            {
+                request = createRequest(task);
+                LOG.trace("Executing request {} {}", task.getRoute().getMethod(), request.url());
+                send();
+            }
+            catch (Exception e)
+            {
+                fail(e);
+            }
+        }
+
+        private void send()
+        {
+            if (task.isSkipped())
+                finish(null);
+            else
+                asyncClient.newCall(request).enqueue(this);
+        }
+
+        @Override
+        public void onResponse(@Nonnull Call call, @Nonnull okhttp3.Response response)
+        {
+            setContext();
+            responses[attempt] = response;
+            int code = response.code();
+            String cfRay = response.header("CF-RAY");
+            if (cfRay != null)
+                rays.add(cfRay);
+
+            // Retry a few specific server errors that are related to server issues
+            if (shouldRetry(code) && attempt + 1 < responses.length)
+            {
+                LOG.debug("Requesting {} -> {} returned status {}... retrying (attempt {})",
+                        task.getRoute().getMethod(),
+                        request.url(), code, attempt + 1);
+                try
+                {
+                    long delay = 500L << attempt++;
+                    api.getRateLimitPool().schedule(this::retry, delay, TimeUnit.MILLISECONDS);
+                    return;
+                }
+                catch (RejectedExecutionException ignored)
+                {
+                    // The scheduler was shutdown, handle the failed response instead
+                }
+            }
+
+            try
+            {
+                finish(handleResult(task, response, rays, handleOnRatelimit));
+            }
+            catch (Exception e)
+            {
+                fail(e);
+            }
+        }
+
+        @Override
+        public void onFailure(@Nonnull Call call, @Nonnull IOException e)
+        {
+            setContext();
+            if (retryOnTimeout && !retried && isRetry(e))
+            {
+                closeAll(responses);
+                new AsyncExecution(task, handleOnRatelimit, true, future).start();
+                return;
+            }
+
+            if (e instanceof UnknownHostException)
+                LOG.error("DNS resolution failed: {}", e.getMessage());
+            else
+                LOG.error("There was an I/O error while executing a REST request: {}", e.getMessage());
+            task.handleResponse(e, rays);
+            finish(null);
+        }
+
+        private void retry()
+        {
+            try
+            {
+                send();
+            }
+            catch (Exception e)
+            {
+                fail(e);
+            }
+        }
+
+        private void fail(Exception e)
+        {
+            LOG.error("There was an unexpected error while executing a REST request", e);
+            try
+            {
+                task.handleResponse(e, rays);
+            }
+            finally
+            {
+                finish(null);
+            }
+        }
+
+        private void finish(okhttp3.Response response)
+        {
+            closeAll(responses);
+            future.complete(response);
+        }
+    }
+
     private class WorkTask implements RestRateLimiter.Work
     {
         private final Request<?> request;
-        private boolean done;
-
-        private WorkTask(Request<?> request)
+        private final String pendingKey;
+        // Identical requests, which receive the same response
+        private List<Request<?>> joined;
+        private List<Request<?>> targets;
+        private boolean requestSkipped;
+        private volatile boolean done;
+        private final long enqueueTime = System.nanoTime();
+        private boolean started;
+
+        private WorkTask(Request<?> request, String pendingKey)
         {
             this.request = request;
+            this.pendingKey = pendingKey;
+        }
+
+        private synchronized boolean join(Request<?> other)
+        {
+            if (targets != null)
+                return false;
+            if (joined == null)
+                joined = new ArrayList<>();
+            joined.add(other);
+            return true;
+        }
+
+        // Stops accepting identical requests, and returns every request which should receive the response
+        private synchronized List<Request<?>> seal()
+        {
+            if (targets != null)
+                return targets;
+            if (pendingKey != null)
+                pendingRequests.remove(pendingKey, this);
+
+            targets = new ArrayList<>(joined == null ? 1 : joined.size() + 1);
+            if (!requestSkipped)
+                targets.add(request);
+            if (joined != null)
+                targets.addAll(joined);
+            return targets;
         }
 
         @Nonnull
@@ -387,10 +743,32 @@ public class Requester
             return Requester.this.execute(this);
         }
 
+        @Nonnull
+        @Override
+        public CompletableFuture<okhttp3.Response> executeAsync()
+        {
+            return Requester.this.executeAsync(this, false);
+        }
+
         @Override
         public boolean isSkipped()
         {
-            return request.isSkipped();
+            if (pendingKey == null)
+                return request.isSkipped();
+
+            synchronized (this)
+            {
+                if (targets != null)
+                    return targets.isEmpty();
+                // Shared requests are only skipped, once every identical request is skipped
+                requestSkipped = requestSkipped || request.isSkipped();
+                if (joined != null)
+                    joined.removeIf(Request::isSkipped);
+                if (!requestSkipped || (joined != null && !joined.isEmpty()))
+                    return false;
+                seal();
+                return true;
+            }
         }
 
         @Override
@@ -399,40 +777,113 @@ public class Requester
             return isSkipped() || done;
         }
 
+        @Nonnull
         @Override
-        public boolean isPriority()
+        public synchronized RequestPriority getPriority()
         {
-            return request.isPriority();
+            RequestPriority priority = request.getPriority();
+            if (joined != null)
+            {
+                for (Request<?> other : joined)
+                {
+                    if (other.getPriority().compareTo(priority) < 0)
+                        priority = other.getPriority();
+                }
+            }
+            return priority;
+        }
+
+        // Retries use the same task, only the first attempt counts as waiting time
+        private void onStart()
+        {
+            if (started)
+                return;
+            started = true;
+            int index = getPriority().ordinal();
+            long time = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - enqueueTime);
+            queueTotals.addAndGet(index, time);
+            queueMax.accumulateAndGet(index, time, Math::max);
+            queueCounts.incrementAndGet(index);
         }
 
         @Override
-        public boolean isCancelled()
+        public synchronized boolean isPriority()
         {
-            return request.isCancelled();
+            return request.isPriority() || (joined != null && joined.stream().anyMatch(Request::isPriority));
         }
 
         @Override
-        public void cancel()
+        public synchronized boolean isCancelled()
+        {
+            return request.isCancelled() && (joined == null || joined.stream().allMatch(Request::isCancelled));
+        }
+
+        @Override
+        public synchronized void cancel()
         {
             request.cancel();
+            if (joined != null)
+                joined.forEach(Request::cancel);
         }
 
         private void handleResponse(okhttp3.Response response, Set<String> rays)
         {
-            done = true;
-            request.handleResponse(new Response(response, -1, rays));
+            handleResponse(response, -1, rays);
         }
 
         private void handleResponse(Exception error, Set<String> rays)
         {
-            done = true;
-            request.handleResponse(new Response(error, rays));
+            handleResponse(new Response(error, rays));
         }
 
         private void handleResponse(okhttp3.Response response, long retryAfter, Set<String> cfRays)
+        {
+            if (pendingKey == null || seal().size() < 2)
+            {
+                handleResponse(new Response(response, retryAfter, cfRays));
+                return;
+            }
+
+            // Every request parses its own copy of the body, so changes to the data of one request do not affect the others
+            RestResponseCache.CachedResponse shared;
+            try
+            {
+                shared = RestResponseCache.CachedResponse.of(response);
+            }
+            catch (IOException e)
+            {
+                handleResponse(new Response(e, cfRays));
+                return;
+            }
+            handleResponse(() -> new Response(shared.toResponse(), retryAfter, cfRays));
+        }
+
+        private void handleResponse(Response response)
+        {
+            handleResponse(() -> response);
+        }
+
+        private void handleResponse(Supplier<Response> response)
         {
             done = true;
-            request.handleResponse(new Response(response, retryAfter, cfRays));
+            if (pendingKey == null)
+            {
+                request.handleResponse(response.get());
+                return;
+            }
+
+            for (Request<?> target : seal())
+            {
+                try
+                {
+                    target.handleResponse(response.get());
+                }
+                catch (Exception e)
+                {
+                    LOG.error("There was an unexpected error while handling a shared REST response", e);
+                    target.onFailure(e);
+                }
+            }
         }
     }
 }
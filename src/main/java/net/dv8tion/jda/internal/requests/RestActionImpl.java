@@ -66,6 +66,7 @@ public class RestActionImpl<T> implements RestAction<T>
     private ErrorMapper errorMapper = null;
 
     private boolean priority = false;
+    private RequestPriority requestPriority;
     private long deadline = 0;
     private Object rawData;
     private BooleanSupplier checks;
@@ -188,6 +189,31 @@ public class RestActionImpl<T> implements RestAction<T>
         return this;
     }
 
+    @Nonnull
+    @Override
+    public RestAction<T> setPriority(@Nonnull RequestPriority priority)
+    {
+        Checks.notNull(priority, "Priority");
+        this.requestPriority = priority;
+        return this;
+    }
+
+    @Nonnull
+    @Override
+    public RequestPriority getPriority()
+    {
+        return getPriority(route);
+    }
+
+    @Nonnull
+    public RequestPriority getPriority(@Nullable Route.CompiledRoute route)
+    {
+        if (requestPriority != null)
+            return requestPriority;
+        // Interactions have to be answered within 3 seconds
+        return route != null && route.getBaseRoute().isInteractionBucket() ? RequestPriority.CRITICAL : RequestPriority.NORMAL;
+    }
+
     @Override
     public void queue(Consumer<? super T> success, Consumer<? super Throwable> failure)
     {
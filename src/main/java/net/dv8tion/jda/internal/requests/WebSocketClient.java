@@ -19,6 +19,7 @@ package net.dv8tion.jda.internal.requests;
 import com.neovisionaries.ws.client.*;
 import gnu.trove.iterator.TLongObjectIterator;
 import gnu.trove.map.TLongObjectMap;
+import gnu.trove.set.TLongSet;
 import net.dv8tion.jda.api.GatewayEncoding;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.JDAInfo;
@@ -33,9 +34,13 @@ import net.dv8tion.jda.api.events.session.*;
 import net.dv8tion.jda.api.exceptions.ParsingException;
 import net.dv8tion.jda.api.managers.AudioManager;
 import net.dv8tion.jda.api.requests.CloseCode;
+import net.dv8tion.jda.api.requests.GatewayPriority;
+import net.dv8tion.jda.api.requests.QueueTime;
 import net.dv8tion.jda.api.utils.Compression;
+import net.dv8tion.jda.api.utils.GatewayRecorder;
 import net.dv8tion.jda.api.utils.MiscUtil;
 import net.dv8tion.jda.api.utils.SessionController;
+import net.dv8tion.jda.api.utils.SessionResumeStore;
 import net.dv8tion.jda.api.utils.data.DataArray;
 import net.dv8tion.jda.api.utils.data.DataObject;
 import net.dv8tion.jda.api.utils.data.DataType;
@@ -51,29 +56,38 @@ import net.dv8tion.jda.internal.utils.JDALogger;
 import net.dv8tion.jda.internal.utils.ShutdownReason;
 import net.dv8tion.jda.internal.utils.UnlockHook;
 import net.dv8tion.jda.internal.utils.cache.AbstractCacheView;
+import net.dv8tion.jda.internal.utils.cache.CacheSnapshot;
 import net.dv8tion.jda.internal.utils.compress.Decompressor;
 import net.dv8tion.jda.internal.utils.compress.ZlibDecompressor;
+import net.dv8tion.jda.internal.utils.compress.ZstdDecompressor;
 import org.slf4j.Logger;
 import org.slf4j.MDC;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.lang.ref.SoftReference;
 import java.net.Socket;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.OffsetDateTime;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.zip.DataFormatException;
+import java.util.zip.ZipException;
 
 public class WebSocketClient extends WebSocketAdapter implements WebSocketListener
 {
@@ -90,17 +104,26 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
     protected final int gatewayIntents;
     protected final MemberChunkManager chunkManager;
     protected final GatewayEncoding encoding;
+    protected final DispatchFilter dispatchFilter;
+    protected final GatewayQueue gatewayQueue;
+    protected final ParallelDispatcher parallelDispatcher;
+    protected final GatewayRecorder recorder;
 
     public WebSocket socket;
     protected String traceMetadata = null;
     protected volatile String sessionId = null;
     protected final Object readLock = new Object();
     protected Decompressor decompressor;
+    protected byte[] streamHeader;
     protected String resumeUrl = null;
 
     protected final ReentrantLock queueLock = new ReentrantLock();
     protected final ScheduledExecutorService executor;
     protected WebSocketSendingThread ratelimitThread;
+    // Send time of queued commands for each priority class, kept across reconnects
+    protected final AtomicLongArray sendCounts = new AtomicLongArray(GatewayPriority.values().length);
+    protected final AtomicLongArray sendTotals = new AtomicLongArray(GatewayPriority.values().length);
+    protected final AtomicLongArray sendMax = new AtomicLongArray(GatewayPriority.values().length);
     protected volatile Future<?> keepAliveThread;
 
     protected final ReentrantLock reconnectLock = new ReentrantLock();
@@ -114,36 +137,68 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
     protected long identifyTime = 0;
 
     protected final TLongObjectMap<ConnectionRequest> queuedAudioConnections = MiscUtil.newLongMap();
-    protected final Queue<DataObject> chunkSyncQueue = new ConcurrentLinkedQueue<>();
-    protected final Queue<DataObject> ratelimitQueue = new ConcurrentLinkedQueue<>();
+    protected final Queue<QueuedCommand> chunkSyncQueue = new ConcurrentLinkedQueue<>();
+    protected final Queue<QueuedCommand> ratelimitQueue = new ConcurrentLinkedQueue<>();
 
-    protected volatile long ratelimitResetTime;
-    protected final AtomicInteger messagesSent = new AtomicInteger(0);
+    protected final GatewayRateLimiter rateLimiter = new GatewayRateLimiter();
+    protected volatile long lastRateLimitMessage = 0;
 
     protected volatile boolean shutdown = false;
     protected boolean shouldReconnect;
     protected boolean handleIdentifyRateLimit = false;
     protected boolean connected = false;
 
-    protected volatile boolean printedRateLimitMessage = false;
     protected volatile boolean sentAuthInfo = false;
     protected boolean firstInit = true;
     protected boolean processingReady = true;
+    // The session was loaded from the SessionResumeStore, so this process never received a READY
+    protected volatile boolean restoredSession = false;
+    // Guilds from the cache snapshot which are up-to-date once the restored session is resumed
+    protected TLongSet resumedSnapshotGuilds = null;
 
     protected volatile ConnectNode connectNode;
 
     public WebSocketClient(JDAImpl api, Compression compression, int gatewayIntents, GatewayEncoding encoding)
+    {
+        this(api, compression, gatewayIntents, encoding, true);
+    }
+
+    // Without connecting, frames can only be provided through the listener methods, which is used to replay recordings
+    protected WebSocketClient(JDAImpl api, Compression compression, int gatewayIntents, GatewayEncoding encoding, boolean connect)
     {
         this.api = api;
         this.executor = api.getGatewayPool();
         this.shardInfo = api.getShardInfo();
-        this.compression = compression;
+        this.compression = resolveCompression(compression);
         this.gatewayIntents = gatewayIntents;
         this.chunkManager = new MemberChunkManager(this);
         this.encoding = encoding;
+        this.dispatchFilter = new DispatchFilter(api);
+        this.gatewayQueue = createGatewayQueue();
+        this.parallelDispatcher = api.getDispatchThreads() > 0 ? new ParallelDispatcher(api, api.getDispatchThreads(), this::createHandlers) : null;
         this.shouldReconnect = api.isAutoReconnect();
         this.connectNode = new StartingNode();
+        this.recorder = connect ? api.getGatewayRecorder() : null;
         setupHandlers();
+        if (!connect)
+            return;
+        boolean restored = restoreSession();
+        restoreCacheSnapshot();
+        if (restored && resumedSnapshotGuilds == null)
+        {
+            // Resuming only replays the missed events, the guilds of the session would never be sent again
+            LOG.warn("Stored session has no matching cache snapshot, starting a new session instead");
+            sessionId = null;
+            resumeUrl = null;
+            restoredSession = false;
+            restored = false;
+        }
+        if (restored)
+        {
+            // Resuming does not count towards the identify limit, so this does not have to wait for the session controller
+            executor.execute(this::connectRestored);
+            return;
+        }
         try
         {
             api.getSessionController().appendSession(connectNode);
@@ -161,6 +216,173 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
         }
     }
 
+    protected boolean restoreSession()
+    {
+        SessionResumeStore store = api.getSessionResumeStore();
+        // The self user is usually provided by the token validation, since there is no READY to create it
+        if (store == null || !api.hasSelfUser())
+            return false;
+        try
+        {
+            JDA.ShardInfo shard = getResumeShardInfo();
+            SessionResumeStore.ResumeState state = store.load(shard);
+            if (state == null)
+                return false;
+            // A session can only be resumed by one process
+            store.save(shard, null);
+            sessionId = state.getSessionId();
+            resumeUrl = state.getResumeUrl();
+            api.setResponseTotal(state.getSequence());
+            restoredSession = true;
+            LOG.debug("Loaded session from store {}", state);
+            return true;
+        }
+        catch (RuntimeException e)
+        {
+            LOG.error("Failed to load session from store, starting a new session instead", e);
+            return false;
+        }
+    }
+
+    protected void restoreCacheSnapshot()
+    {
+        Path directory = api.getCacheSnapshotDirectory();
+        // Guilds need the self user to create the self member
+        if (directory == null || !api.hasSelfUser())
+            return;
+        try
+        {
+            DataObject snapshot = CacheSnapshot.read(CacheSnapshot.getFile(directory, getResumeShardInfo()));
+            if (snapshot == null)
+                return;
+            TLongSet upToDate = CacheSnapshot.restore(api, snapshot);
+            // Resuming the session of the snapshot replays every event since the snapshot was taken
+            if (restoredSession && CacheSnapshot.isSessionSnapshot(snapshot, sessionId, api.getResponseTotal()))
+                resumedSnapshotGuilds = upToDate;
+            LOG.debug("Loaded {} guilds from cache snapshot", api.getGuildsView().size());
+        }
+        catch (RuntimeException e)
+        {
+            LOG.error("Failed to load cache snapshot", e);
+        }
+    }
+
+    protected void saveCacheSnapshot()
+    {
+        Path directory = api.getCacheSnapshotDirectory();
+        if (directory == null)
+            return;
+        // Workers must not update the cache while it is written
+        if (parallelDispatcher != null)
+            parallelDispatcher.awaitIdle();
+        try
+        {
+            DataObject snapshot = CacheSnapshot.create(api, sessionId, api.getResponseTotal());
+            CacheSnapshot.write(CacheSnapshot.getFile(directory, getResumeShardInfo()), snapshot);
+            LOG.debug("Saved {} guilds to cache snapshot", api.getGuildsView().size());
+        }
+        catch (RuntimeException e)
+        {
+            LOG.error("Failed to save cache snapshot", e);
+        }
+    }
+
+    protected void confirmSnapshotGuilds()
+    {
+        TLongSet guilds = resumedSnapshotGuilds;
+        resumedSnapshotGuilds = null;
+        if (guilds == null)
+            return;
+        guilds.forEach(id -> {
+            GuildImpl guild = (GuildImpl) api.getGuildsView().get(id);
+            if (guild != null)
+                guild.setStale(false);
+            return true;
+        });
+    }
+
+    protected void connectRestored()
+    {
+        try
+        {
+            api.setContext();
+            connectNode.run(true);
+        }
+        catch (RuntimeException | InterruptedException e)
+        {
+            LOG.warn("Failed to resume the stored session, starting a new session instead", e);
+            sessionId = null;
+            resumeUrl = null;
+            restoredSession = false;
+            resumedSnapshotGuilds = null;
+            if (!shutdown)
+                api.getSessionController().appendSession(connectNode);
+        }
+    }
+
+    protected boolean saveSession()
+    {
+        SessionResumeStore store = api.getSessionResumeStore();
+        SessionResumeStore.ResumeState state = getResumeState();
+        if (store == null || state == null || !connected)
+            return false;
+        try
+        {
+            store.save(getResumeShardInfo(), state);
+            LOG.debug("Saved session to store {}", state);
+            return true;
+        }
+        catch (RuntimeException e)
+        {
+            LOG.error("Failed to save session to store", e);
+            return false;
+        }
+    }
+
+    @Nullable
+    public SessionResumeStore.ResumeState getResumeState()
+    {
+        String sessionId = this.sessionId;
+        return sessionId == null ? null : new SessionResumeStore.ResumeState(sessionId, resumeUrl, (int) api.getResponseTotal());
+    }
+
+    private JDA.ShardInfo getResumeShardInfo()
+    {
+        return shardInfo == null ? JDA.ShardInfo.SINGLE : shardInfo;
+    }
+
+    protected GatewayQueue createGatewayQueue()
+    {
+        if (api.getGatewayQueueCapacity() <= 0)
+            return null;
+        GatewayQueue queue = new GatewayQueue(api.getGatewayQueueCapacity(), api.getGatewayQueuePolicy(),
+            (task) -> {
+                Thread thread = new Thread(() -> {
+                    api.setContext();
+                    task.run();
+                });
+                thread.setName(api.getIdentifierString() + " MainWS-DispatchThread");
+                return thread;
+            },
+            this::handleQueued,
+            () -> {
+                LOG.warn("Gateway queue is full with {} messages. Reconnecting to resume the session...", api.getGatewayQueueCapacity());
+                close(4900, "GATEWAY_QUEUE_FULL");
+            });
+        queue.start();
+        return queue;
+    }
+
+    protected static Compression resolveCompression(Compression compression)
+    {
+        if (compression == Compression.ZSTD && !ZstdDecompressor.isAvailable())
+        {
+            LOG.warn("Zstd compression is not available, make sure zstd-jni is on the classpath. Falling back to zlib compression.");
+            return Compression.ZLIB;
+        }
+        return compression;
+    }
+
     public JDA getJDA()
     {
         return api;
@@ -186,6 +408,11 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
         return chunkManager;
     }
 
+    public DispatchFilter getDispatchFilter()
+    {
+        return dispatchFilter;
+    }
+
     public void ready()
     {
         if (initiating)
@@ -225,6 +452,11 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
         api.setStatus(JDA.Status.CONNECTED);
     }
 
+    public GatewayQueue getGatewayQueue()
+    {
+        return gatewayQueue;
+    }
+
     public boolean isReady()
     {
         return !initiating;
@@ -242,55 +474,113 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
 
     public void send(DataObject message)
     {
-        locked("Interrupted while trying to add request to queue", () -> ratelimitQueue.add(message));
+        locked("Interrupted while trying to add request to queue", () -> {
+            // Presence updates always contain the full presence, so only the latest one has to be sent
+            if (message.getInt("op", -1) == WebSocketCode.PRESENCE)
+            {
+                for (QueuedCommand command : ratelimitQueue)
+                {
+                    if (command.payload.getInt("op", -1) == WebSocketCode.PRESENCE)
+                    {
+                        command.payload = message;
+                        return;
+                    }
+                }
+            }
+            ratelimitQueue.add(new QueuedCommand(message));
+        });
+        wakeupSender();
     }
 
     public void cancelChunkRequest(String nonce)
     {
         locked("Interrupted while trying to cancel chunk request",
-            () -> chunkSyncQueue.removeIf(it -> it.getString("nonce", "").equals(nonce)));
+            () -> chunkSyncQueue.removeIf(it -> it.payload.getString("nonce", "").equals(nonce)));
     }
 
     public void sendChunkRequest(DataObject request)
     {
-        locked("Interrupted while trying to add chunk request", () -> chunkSyncQueue.add(request));
+        locked("Interrupted while trying to add chunk request", () -> chunkSyncQueue.add(new QueuedCommand(request)));
+        wakeupSender();
     }
 
-    protected boolean send(DataObject message, boolean skipQueue)
+    /**
+     * Modifies a chunk request which has not been sent yet.
+     *
+     * @param  nonce
+     *         The nonce of the queued request
+     * @param  update
+     *         The modification of the request payload
+     *
+     * @return True, if the request was still queued and has been modified
+     */
+    public boolean updateChunkRequest(String nonce, Consumer<DataObject> update)
     {
-        if (!connected)
+        Boolean updated = locked("Interrupted while trying to update chunk request", () -> {
+            for (QueuedCommand command : chunkSyncQueue)
+            {
+                if (command.payload.getString("nonce", "").equals(nonce))
+                {
+                    update.accept(command.payload);
+                    return true;
+                }
+            }
             return false;
+        });
+        return updated != null && updated;
+    }
 
-        long now = System.currentTimeMillis();
+    /**
+     * The time queued commands of the priority class waited before they were sent, across all connections of this shard.
+     *
+     * @param  priority
+     *         The priority class
+     *
+     * @return The aggregated send time
+     */
+    public QueueTime getSendTime(GatewayPriority priority)
+    {
+        int index = priority.ordinal();
+        return new QueueTime(sendCounts.get(index), sendTotals.get(index), sendMax.get(index));
+    }
 
-        if (this.ratelimitResetTime <= now)
-        {
-            this.messagesSent.set(0);
-            this.ratelimitResetTime = now + 60000;//60 seconds
-            this.printedRateLimitMessage = false;
-        }
+    protected void recordSendTime(GatewayPriority priority, long nanos)
+    {
+        int index = priority.ordinal();
+        long time = TimeUnit.NANOSECONDS.toMillis(nanos);
+        sendTotals.addAndGet(index, time);
+        sendMax.accumulateAndGet(index, time, Math::max);
+        sendCounts.incrementAndGet(index);
+    }
 
-        //Allows 115 messages to be sent before limiting.
-        if (this.messagesSent.get() <= 115 || (skipQueue && this.messagesSent.get() <= 119))   //technically we could go to 120, but we aren't going to chance it
-        {
-            LOG.trace("<- {}", message);
-            if (encoding == GatewayEncoding.ETF)
-                socket.sendBinary(message.toETF());
-            else
-                socket.sendText(message.toString());
-            this.messagesSent.getAndIncrement();
-            return true;
-        }
-        else
+    protected boolean send(DataObject message, GatewayPriority priority)
+    {
+        if (!connected)
+            return false;
+
+        if (!rateLimiter.tryAcquire(priority))
         {
-            if (!printedRateLimitMessage)
-            {
-                LOG.warn("Hit the WebSocket RateLimit! This can be caused by too many presence or voice status updates (connect/disconnect/mute/deaf). " +
-                         "Regular: {} Voice: {} Chunking: {}", ratelimitQueue.size(), queuedAudioConnections.size(), chunkSyncQueue.size());
-                printedRateLimitMessage = true;
-            }
+            onRateLimit();
             return false;
         }
+
+        LOG.trace("<- {}", message);
+        if (encoding == GatewayEncoding.ETF)
+            socket.sendBinary(message.toETF());
+        else
+            socket.sendText(message.toString());
+        return true;
+    }
+
+    protected void onRateLimit()
+    {
+        // Only print this once per minute, the queues are still sent as soon as tokens are available
+        long now = System.currentTimeMillis();
+        if (lastRateLimitMessage + 60000 > now)
+            return;
+        lastRateLimitMessage = now;
+        LOG.warn("Hit the WebSocket RateLimit! This can be caused by too many presence or voice status updates (connect/disconnect/mute/deaf). " +
+                 "Regular: {} Voice: {} Chunking: {}", ratelimitQueue.size(), queuedAudioConnections.size(), chunkSyncQueue.size());
     }
 
     protected void setupSendingThread()
@@ -299,6 +589,13 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
         ratelimitThread.start();
     }
 
+    protected void wakeupSender()
+    {
+        WebSocketSendingThread thread = ratelimitThread;
+        if (thread != null)
+            thread.wakeup();
+    }
+
     private void prepareClose()
     {
         try
@@ -344,7 +641,12 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
             if (connectNode != null)
                 api.getSessionController().removeSession(connectNode);
             boolean wasConnected = connected;
-            close(1000, "Shutting down");
+            saveCacheSnapshot();
+            // Closing with 1000 invalidates the session, any other code allows resuming it later
+            if (saveSession())
+                close(4900, "Shutting down");
+            else
+                close(1000, "Shutting down");
             reconnectCondvar.signalAll(); // signal reconnect attempts to stop
             return !wasConnected;
         });
@@ -360,6 +662,10 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
 
     protected void onShutdown(int rawCloseCode)
     {
+        if (gatewayQueue != null)
+            gatewayQueue.shutdown();
+        if (parallelDispatcher != null)
+            parallelDispatcher.shutdown();
         api.shutdownInternals(new ShutdownEvent(api, OffsetDateTime.now(), rawCloseCode));
     }
 
@@ -381,15 +687,7 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
             if (compression != Compression.NONE)
             {
                 gatewayUrl = IOUtil.addQuery(gatewayUrl, "compress", compression.getKey());
-                switch (compression)
-                {
-                    case ZLIB:
-                        if (decompressor == null || decompressor.getType() != Compression.ZLIB)
-                            decompressor = new ZlibDecompressor(api.getMaxBufferSize());
-                        break;
-                    default:
-                        throw new IllegalStateException("Unknown compression");
-                }
+                setupDecompressor();
             }
 
             WebSocketFactory socketFactory = new WebSocketFactory(api.getWebSocketFactory());
@@ -414,6 +712,25 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
         }
     }
 
+    protected void setupDecompressor()
+    {
+        switch (compression)
+        {
+            case NONE:
+                break;
+            case ZLIB:
+                if (decompressor == null || decompressor.getType() != Compression.ZLIB)
+                    decompressor = new ZlibDecompressor(api.getMaxBufferSize());
+                break;
+            case ZSTD:
+                if (decompressor == null || decompressor.getType() != Compression.ZSTD)
+                    decompressor = new ZstdDecompressor(api.getMaxBufferSize());
+                break;
+            default:
+                throw new IllegalStateException("Unknown compression");
+        }
+    }
+
     @Override
     public void onThreadStarted(WebSocket websocket, ThreadType threadType, Thread thread) throws Exception
     {
@@ -423,6 +740,8 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
     @Override
     public void onConnected(WebSocket websocket, Map<String, List<String>> headers)
     {
+        if (recorder != null)
+            recorder.recordConnect(compression, encoding);
         prepareClose(); // set 10s timeout in-case discord never sends us a HELLO payload
         api.setStatus(JDA.Status.IDENTIFYING_SESSION);
         if (sessionId == null)
@@ -438,8 +757,7 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
         }
         connected = true;
         //reconnectTimeoutS = 2; We will reset this when the session was started successfully (ready/resume)
-        messagesSent.set(0);
-        ratelimitResetTime = System.currentTimeMillis() + 60000;
+        rateLimiter.reset();
         if (sessionId == null)
             sendIdentify();
         else
@@ -467,6 +785,9 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
 
     private void handleDisconnect(WebSocket websocket, WebSocketFrame serverCloseFrame, WebSocketFrame clientCloseFrame, boolean closedByServer)
     {
+        // The remaining messages are replayed when resuming, otherwise the session is started from scratch anyway
+        if (gatewayQueue != null)
+            gatewayQueue.discard();
         api.setStatus(JDA.Status.DISCONNECTED);
         CloseCode closeCode = null;
         int rawCloseCode = 1005;
@@ -741,7 +1062,7 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
         else
         {
             missedHeartbeats += 1;
-            send(keepAlivePacket, true);
+            send(keepAlivePacket, GatewayPriority.HEARTBEAT);
             heartbeatStartTime = System.currentTimeMillis();
         }
     }
@@ -771,10 +1092,11 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
                     .add(shardInfo.getShardId())
                     .add(shardInfo.getShardTotal()));
         }
-        send(identify, true);
+        send(identify, GatewayPriority.AUTHENTICATION);
         handleIdentifyRateLimit = true;
         identifyTime = System.currentTimeMillis();
         sentAuthInfo = true;
+        wakeupSender();
         api.setStatus(JDA.Status.AWAITING_LOGIN_CONFIRMATION);
     }
 
@@ -787,23 +1109,37 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
                 .put("session_id", sessionId)
                 .put("token", getToken())
                 .put("seq", api.getResponseTotal()));
-        send(resume, true);
+        send(resume, GatewayPriority.AUTHENTICATION);
         //sentAuthInfo = true; set on RESUMED response as this could fail
         api.setStatus(JDA.Status.AWAITING_LOGIN_CONFIRMATION);
     }
 
     protected void invalidate()
     {
+        // Workers must not update the cache while it is cleared
+        if (parallelDispatcher != null)
+            parallelDispatcher.awaitIdle();
+        // Without a READY, the cache is still the snapshot, which is reconciled by the next session instead
+        boolean keepSnapshot = restoredSession;
         resumeUrl = null;
         sessionId = null;
+        restoredSession = false;
+        resumedSnapshotGuilds = null;
         sentAuthInfo = false;
 
         locked("Interrupted while trying to invalidate chunk/sync queue", chunkSyncQueue::clear);
 
-        api.getChannelsView().clear();
+        if (keepSnapshot)
+        {
+            api.getGuildsView().forEach(guild -> ((GuildImpl) guild).setStale(true));
+        }
+        else
+        {
+            api.getChannelsView().clear();
 
-        api.getGuildsView().clear();
-        api.getUsersView().clear();
+            api.getGuildsView().clear();
+            api.getUsersView().clear();
+        }
 
         api.getEventCache().clear();
         api.getGuildSetupController().clearCache();
@@ -876,6 +1212,36 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
         }
     }
 
+    protected void dispatchEvent(DataObject content)
+    {
+        if (gatewayQueue == null)
+        {
+            handleEvent(content);
+            return;
+        }
+
+        switch (content.getInt("op", -1))
+        {
+            // These are handled immediately, to keep the heartbeat and gateway ping accurate
+            case WebSocketCode.HELLO:
+            case WebSocketCode.HEARTBEAT:
+            case WebSocketCode.HEARTBEAT_ACK:
+                handleEvent(content);
+                break;
+            default:
+                gatewayQueue.offer(content);
+        }
+    }
+
+    protected void handleQueued(Object item)
+    {
+        // Skipped dispatches are queued as well, to update the sequence in order
+        if (item instanceof Integer)
+            updateSkippedSequence((Integer) item);
+        else
+            handleEvent((DataObject) item);
+    }
+
     protected void onEvent(DataObject content)
     {
         WS_THREAD.set(true);
@@ -937,6 +1303,8 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
 
         if (!raw.isType("d", DataType.OBJECT))
         {
+            if (parallelDispatcher != null)
+                parallelDispatcher.awaitIdle();
             // Needs special handling due to content of "d" being an array
             if (type.equals("PRESENCES_REPLACE"))
             {
@@ -962,6 +1330,17 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
         DataObject content = raw.getObject("d");
         LOG.trace("{} -> {}", type, content);
 
+        boolean parallel = parallelDispatcher != null && parallelDispatcher.dispatch(type, content.getUnsignedLong("guild_id", 0L),
+            (workerHandlers) -> handleDispatch(type, raw, content, responseTotal, workerHandlers));
+        if (!parallel)
+            handleDispatch(type, raw, content, responseTotal, handlers);
+
+        if (responseTotal % EventCache.TIMEOUT_AMOUNT == 0)
+            api.getEventCache().timeout(responseTotal);
+    }
+
+    protected void handleDispatch(String type, DataObject raw, DataObject content, long responseTotal, Map<String, SocketHandler> handlers)
+    {
         JDAImpl jda = (JDAImpl) getJDA();
         try
         {
@@ -978,6 +1357,8 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
                     // otherwise the audio connection requests that are currently pending might be removed in the process
                     handlers.get("READY").handle(responseTotal, raw);
                     sessionId = content.getString("session_id");
+                    // queued audio connections are only sent once we have a session
+                    wakeupSender();
                     resumeUrl = content.getString("resume_gateway_url", null);
                     traceMetadata = content.opt("_trace").map(String::valueOf).orElse(null);
                     LOG.debug("Received READY with _trace {}", traceMetadata);
@@ -985,8 +1366,16 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
                 case "RESUMED":
                     reconnectTimeoutS = 2;
                     sentAuthInfo = true;
+                    wakeupSender();
                     traceMetadata = content.opt("_trace").map(String::valueOf).orElse(traceMetadata);
-                    if (!processingReady)
+                    if (restoredSession)
+                    {
+                        // There is no READY for a session restored from the store, so this is the first ready
+                        restoredSession = false;
+                        confirmSnapshotGuilds();
+                        ready();
+                    }
+                    else if (!processingReady)
                     {
                         initiating = false;
                         ready();
@@ -998,12 +1387,17 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
                     }
                     break;
                 default:
-                    long guildId = content.getLong("guild_id", 0L);
-                    if (api.isUnavailable(guildId) && !type.equals("GUILD_CREATE") && !type.equals("GUILD_DELETE"))
+                    // Only check the guild id if necessary, to avoid parsing lazy payloads
+                    if (api.hasUnavailableGuilds() && !type.equals("GUILD_CREATE") && !type.equals("GUILD_DELETE"))
                     {
-                        LOG.debug("Ignoring {} for unavailable guild with id {}. JSON: {}", type, guildId, content);
-                        break;
+                        long guildId = content.getLong("guild_id", 0L);
+                        if (api.isUnavailable(guildId))
+                        {
+                            LOG.debug("Ignoring {} for unavailable guild with id {}. JSON: {}", type, guildId, content);
+                            break;
+                        }
                     }
+                    api.getRequester().invalidateCache(type, content);
                     SocketHandler handler = handlers.get(type);
                     if (handler != null)
                         handler.handle(responseTotal, raw);
@@ -1024,28 +1418,31 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
             LOG.error("Got an unexpected error. Please redirect the following message to the devs:\n\tJDA {}\n\t{} -> {}",
                 JDAInfo.VERSION, type, content, ex);
         }
-
-        if (responseTotal % EventCache.TIMEOUT_AMOUNT == 0)
-            jda.getEventCache().timeout(responseTotal);
     }
 
     @Override
     public void onTextMessage(WebSocket websocket, byte[] data)
     {
-        handleEvent(DataObject.fromJson(data));
+        if (recorder != null)
+            recorder.recordFrame(GatewayRecorder.TEXT, data, data.length);
+        if (skipDispatch(dispatchFilter.checkJson(data, data.length)))
+            return;
+        dispatchEvent(parseJson(data));
     }
 
     @Override
     public void onBinaryMessage(WebSocket websocket, byte[] binary) throws DataFormatException
     {
         DataObject message;
+        if (recorder != null && (recorder.getMode() == GatewayRecorder.Mode.COMPRESSED || decompressor == null))
+            recorder.recordFrame(GatewayRecorder.BINARY, binary, binary.length);
         // Only acquire lock for decompression and unlock for event handling
         synchronized (readLock)
         {
             message = handleBinary(binary);
         }
         if (message != null)
-            handleEvent(message);
+            dispatchEvent(message);
     }
 
     protected DataObject handleBinary(byte[] binary) throws DataFormatException
@@ -1053,9 +1450,13 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
         if (decompressor == null)
         {
             if (encoding == GatewayEncoding.ETF)
-                return DataObject.fromETF(binary);
+                return skipDispatch(dispatchFilter.checkETF(binary, binary.length)) ? null : DataObject.fromETF(binary);
             throw new IllegalStateException("Cannot decompress binary message due to unknown compression algorithm: " + compression);
         }
+        // Recording needs the decompressed payload, which is never materialized by stream decompression
+        boolean recordDecompressed = recorder != null && recorder.getMode() == GatewayRecorder.Mode.DECOMPRESSED;
+        if (encoding == GatewayEncoding.JSON && api.isStreamDecompression() && !recordDecompressed)
+            return handleBinaryStream(binary);
         // Scoping allows us to print the json that possibly failed parsing
         byte[] data;
         try
@@ -1063,6 +1464,8 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
             data = decompressor.decompress(binary);
             if (data == null)
                 return null;
+            if (recordDecompressed)
+                recorder.recordFrame(encoding == GatewayEncoding.ETF ? GatewayRecorder.BINARY : GatewayRecorder.TEXT, data, data.length);
         }
         catch (DataFormatException e)
         {
@@ -1070,12 +1473,18 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
             throw e;
         }
 
+        int skippedSequence = encoding == GatewayEncoding.ETF
+            ? dispatchFilter.checkETF(data, data.length)
+            : dispatchFilter.checkJson(data, data.length);
+        if (skipDispatch(skippedSequence))
+            return null;
+
         try
         {
             if (encoding == GatewayEncoding.ETF)
                 return DataObject.fromETF(data);
             else
-                return DataObject.fromJson(data);
+                return parseJson(data);
         }
         catch (ParsingException e)
         {
@@ -1091,6 +1500,87 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
         }
     }
 
+    protected boolean skipDispatch(int sequence)
+    {
+        if (sequence == DispatchFilter.PROCESS)
+            return false;
+        if (gatewayQueue != null)
+            gatewayQueue.offer(sequence);
+        else
+            updateSkippedSequence(sequence);
+        return true;
+    }
+
+    protected void updateSkippedSequence(int sequence)
+    {
+        // The sequence is still required to resume the session
+        api.setResponseTotal(sequence);
+        if (sequence % EventCache.TIMEOUT_AMOUNT == 0)
+            api.getEventCache().timeout(sequence);
+    }
+
+    protected DataObject parseJson(byte[] data)
+    {
+        boolean snowflakes = api.isSnowflakeDecoding();
+        return api.isLazyParsing() ? DataObject.fromJsonLazy(data, snowflakes) : DataObject.fromJson(data, snowflakes);
+    }
+
+    protected DataObject handleBinaryStream(byte[] binary) throws DataFormatException
+    {
+        InputStream stream;
+        try
+        {
+            stream = decompressor.decompressStream(binary);
+            if (stream == null)
+                return null;
+        }
+        catch (DataFormatException e)
+        {
+            close(4900, "MALFORMED_PACKAGE");
+            throw e;
+        }
+
+        // Closing the stream consumes the remaining input, the decompressor can continue with the next message afterwards
+        try (InputStream input = peekDispatch(stream))
+        {
+            return input == null ? null : DataObject.fromJson(input, api.isSnowflakeDecoding());
+        }
+        catch (ParsingException e)
+        {
+            // The inflater failed while the parser was reading, this is not a json issue
+            if (e.getCause() instanceof ZipException)
+            {
+                close(4900, "MALFORMED_PACKAGE");
+                throw (DataFormatException) new DataFormatException("Malformed").initCause(e.getCause());
+            }
+            // The payload is never fully materialized, so we cannot print it here
+            LOG.error("Failed to parse json from decompressed stream");
+            throw e;
+        }
+        catch (IOException e)
+        {
+            close(4900, "MALFORMED_PACKAGE");
+            throw (DataFormatException) new DataFormatException("Malformed").initCause(e);
+        }
+    }
+
+    // Reads the envelope of the message, returns null if the dispatch was dropped
+    protected InputStream peekDispatch(InputStream stream) throws IOException
+    {
+        if (streamHeader == null)
+            streamHeader = new byte[128];
+        int length = 0, read;
+        while (length < streamHeader.length && (read = stream.read(streamHeader, length, streamHeader.length - length)) > 0)
+            length += read;
+
+        if (skipDispatch(dispatchFilter.checkJson(streamHeader, length)))
+        {
+            stream.close();
+            return null;
+        }
+        return new SequenceInputStream(new ByteArrayInputStream(streamHeader, 0, length), stream);
+    }
+
     @Override
     public void handleCallbackError(WebSocket websocket, Throwable cause) throws Exception
     {
@@ -1189,6 +1679,7 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
             // in all cases, update to this channel
             request.setChannel(channel);
         });
+        wakeupSender();
     }
 
     public void queueAudioConnect(AudioChannel channel)
@@ -1213,6 +1704,7 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
             // in all cases, update to this channel
             request.setChannel(channel);
         });
+        wakeupSender();
     }
 
     public void queueAudioDisconnect(Guild guild)
@@ -1233,6 +1725,7 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
                 request.setStage(ConnectionStage.DISCONNECT);
             }
         });
+        wakeupSender();
     }
 
     public ConnectionRequest removeAudioConnection(long guildId)
@@ -1270,6 +1763,7 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
                 case RECONNECT:
                     request.setStage(ConnectionStage.CONNECT);
                     request.setNextAttemptEpoch(System.currentTimeMillis());
+                    wakeupSender();
                 default:
                     return null;
             }
@@ -1365,6 +1859,12 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
 
     protected void setupHandlers()
     {
+        handlers.putAll(createHandlers());
+    }
+
+    protected Map<String, SocketHandler> createHandlers()
+    {
+        final Map<String, SocketHandler> handlers = new HashMap<>();
         final SocketHandler.NOPHandler nopHandler =            new SocketHandler.NOPHandler(api);
         handlers.put("APPLICATION_COMMAND_PERMISSIONS_UPDATE", new ApplicationCommandPermissionsUpdateHandler(api));
         handlers.put("AUTO_MODERATION_RULE_CREATE",            new AutoModRuleHandler(api, "CREATE"));
@@ -1434,6 +1934,18 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
         handlers.put("GUILD_INTEGRATIONS_UPDATE", nopHandler);
         handlers.put("PRESENCES_REPLACE",         nopHandler);
         handlers.put("WEBHOOKS_UPDATE",           nopHandler);
+        return handlers;
+    }
+
+    protected static class QueuedCommand
+    {
+        protected DataObject payload;
+        protected final long queuedAt = System.nanoTime();
+
+        protected QueuedCommand(DataObject payload)
+        {
+            this.payload = payload;
+        }
     }
 
     protected abstract class ConnectNode implements SessionController.SessionConnectNode
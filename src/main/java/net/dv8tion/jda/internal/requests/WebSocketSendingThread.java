@@ -21,6 +21,8 @@ import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.GuildVoiceState;
 import net.dv8tion.jda.api.managers.AudioManager;
+import net.dv8tion.jda.api.requests.GatewayPriority;
+import net.dv8tion.jda.api.utils.MiscUtil;
 import net.dv8tion.jda.api.utils.data.DataObject;
 import net.dv8tion.jda.internal.JDAImpl;
 import net.dv8tion.jda.internal.audio.ConnectionRequest;
@@ -35,21 +37,24 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
 //Helper class delegated to WebSocketClient
+// This only runs when woken up by new commands, or when it has to wait for the rate limit or an audio connection retry
 class WebSocketSendingThread implements Runnable
 {
     private static final Logger LOG = WebSocketClient.LOG;
+    private static final long AUDIO_RETRY_DELAY = TimeUnit.MILLISECONDS.toNanos(500);
 
     private final WebSocketClient client;
     private final JDAImpl api;
     private final ReentrantLock queueLock;
-    private final Queue<DataObject> chunkQueue;
-    private final Queue<DataObject> ratelimitQueue;
+    private final Queue<WebSocketClient.QueuedCommand> chunkQueue;
+    private final Queue<WebSocketClient.QueuedCommand> ratelimitQueue;
     private final TLongObjectMap<ConnectionRequest> queuedAudioConnections;
     private final ScheduledExecutorService executor;
     private Future<?> handle;
 
-    private boolean needRateLimit = false;
-    private boolean attemptedToSend = false;
+    private boolean running = false;
+    private boolean wokenUp = false;
+    private boolean waitingForTokens = false;
     private boolean shutdown = false;
 
     WebSocketSendingThread(WebSocketClient client)
@@ -63,144 +68,220 @@ class WebSocketSendingThread implements Runnable
         this.executor = client.executor;
     }
 
-    public void shutdown()
+    public synchronized void shutdown()
     {
         shutdown = true;
         if (handle != null)
             handle.cancel(false);
+        handle = null;
     }
 
-    public void start()
+    public synchronized void start()
     {
         shutdown = false;
-        handle = executor.submit(this);
+        wakeup();
     }
 
-    private void scheduleIdle()
+    /**
+     * Signals that new commands have been queued.
+     */
+    public synchronized void wakeup()
     {
         if (shutdown)
             return;
-        handle = executor.schedule(this, 500, TimeUnit.MILLISECONDS);
-    }
-
-    private void scheduleSentMessage()
-    {
-        if (shutdown)
+        if (running)
+        {
+            // Check the queues again once the current run is done
+            wokenUp = true;
             return;
-        handle = executor.schedule(this, 10, TimeUnit.MILLISECONDS);
+        }
+        if (handle != null && !handle.isDone())
+        {
+            // New commands cannot be sent earlier than the commands that are already waiting for the rate limit
+            if (waitingForTokens)
+                return;
+            handle.cancel(false);
+        }
+        schedule(0);
     }
 
-    private void scheduleRateLimit()
+    private void schedule(long delayNanos)
     {
-        if (shutdown)
-            return;
-        handle = executor.schedule(this, 1, TimeUnit.MINUTES);
+        try
+        {
+            if (delayNanos <= 0)
+                handle = executor.submit(this);
+            else
+                handle = executor.schedule(this, delayNanos, TimeUnit.NANOSECONDS);
+        }
+        catch (RejectedExecutionException ex)
+        {
+            if (api.getStatus() == JDA.Status.SHUTTING_DOWN || api.getStatus() == JDA.Status.SHUTDOWN)
+                LOG.debug("Rejected task after shutdown", ex);
+            else
+                LOG.error("Was unable to schedule next packet due to rejected execution by threadpool", ex);
+        }
     }
 
     @Override
     public void run()
     {
-        //Make sure that we don't send any packets before sending auth info.
-        if (!client.sentAuthInfo)
+        synchronized (this)
         {
-            scheduleIdle();
-            return;
+            if (shutdown)
+                return;
+            running = true;
+            wokenUp = false;
+            waitingForTokens = false;
+            handle = null;
         }
 
-        ConnectionRequest audioRequest = null;
-        DataObject chunkRequest = null;
-
-        boolean hasLock = false;
-
+        long delay = -1;
         try
         {
             api.setContext();
-            attemptedToSend = false;
-            needRateLimit = false;
-            // We do this outside of the lock because otherwise we could potentially deadlock here
-            audioRequest = client.getNextAudioConnectRequest();
-
-            hasLock = queueLock.tryLock() || queueLock.tryLock(10, TimeUnit.SECONDS);
-            if (!hasLock)
-            {
-                scheduleNext();
-                return;
-            }
-
-            chunkRequest = chunkQueue.peek();
-            if (chunkRequest != null)
-                handleChunkSync(chunkRequest);
-            else if (audioRequest != null)
-                handleAudioRequest(audioRequest);
-            else
-                handleNormalRequest();
+            delay = sendQueued();
         }
         catch (InterruptedException ignored)
         {
             LOG.debug("Main WS send thread interrupted. Most likely JDA is disconnecting the websocket.");
-            return;
         }
-        catch (Throwable ex)
+        finally
         {
-            // Log error
-            LOG.error("Encountered error in gateway worker", ex);
-
-            if (!attemptedToSend)
+            synchronized (this)
             {
-                // Try to remove the failed request
-                if (chunkRequest != null)
-                    client.chunkSyncQueue.remove(chunkRequest);
-                else if (audioRequest != null)
-                    client.removeAudioConnection(audioRequest.getGuildIdLong());
+                running = false;
+                if (!shutdown)
+                {
+                    if (waitingForTokens)
+                        schedule(delay);
+                    else if (wokenUp)
+                        schedule(0);
+                    else if (delay >= 0)
+                        schedule(delay);
+                }
             }
-
-            // Rethrow if error to kill thread
-            if (ex instanceof Error)
-                throw (Error) ex;
         }
-        finally
+    }
+
+    // Sends commands in order of priority, returns the delay until the next attempt or -1 to wait for the next wakeup
+    private long sendQueued() throws InterruptedException
+    {
+        while (true)
         {
-            if (hasLock)
+            //Make sure that we don't send any packets before sending auth info.
+            if (!client.sentAuthInfo)
+                return -1;
+
+            // We do this outside of the lock because otherwise we could potentially deadlock here
+            ConnectionRequest audioRequest = client.getNextAudioConnectRequest();
+            GatewayPriority priority;
+            if (audioRequest != null)
+                priority = GatewayPriority.VOICE;
+            else if (!chunkQueue.isEmpty())
+                priority = GatewayPriority.CHUNK;
+            else if (!ratelimitQueue.isEmpty())
+                priority = GatewayPriority.PRESENCE;
+            else
+                return getAudioRetryDelay();
+
+            long delay = client.rateLimiter.getDelay(priority);
+            if (delay > 0)
+            {
+                client.onRateLimit();
+                synchronized (this)
+                {
+                    waitingForTokens = true;
+                }
+                return delay;
+            }
+
+            queueLock.lockInterruptibly();
+            try
+            {
+                // Either we are disconnected, and wait for the next wakeup, or a heartbeat took the last token
+                if (!send(priority, audioRequest) && !client.connected)
+                    return -1;
+            }
+            catch (RuntimeException ex)
+            {
+                LOG.error("Encountered error in gateway worker", ex);
+                discard(priority, audioRequest);
+            }
+            finally
+            {
                 queueLock.unlock();
+            }
         }
-
-        scheduleNext();
     }
 
-    private void scheduleNext()
+    // returns false if the command could not be sent, due to a disconnect
+    private boolean send(GatewayPriority priority, ConnectionRequest audioRequest)
     {
-        try
+        switch (priority)
         {
-            if (needRateLimit)
-                scheduleRateLimit();
-            else if (!attemptedToSend)
-                scheduleIdle();
-            else
-                scheduleSentMessage();
+        case VOICE:
+            return handleAudioRequest(audioRequest);
+        case CHUNK:
+            return handleChunkSync(chunkQueue.peek());
+        default:
+            return handleNormalRequest(ratelimitQueue.peek());
         }
-        catch (RejectedExecutionException ex)
+    }
+
+    private void discard(GatewayPriority priority, ConnectionRequest audioRequest)
+    {
+        switch (priority)
         {
-            if (api.getStatus() == JDA.Status.SHUTTING_DOWN || api.getStatus() == JDA.Status.SHUTDOWN)
-                LOG.debug("Rejected task after shutdown", ex);
-            else
-                LOG.error("Was unable to schedule next packet due to rejected execution by threadpool", ex);
+        case VOICE:
+            client.removeAudioConnection(audioRequest.getGuildIdLong());
+            break;
+        case CHUNK:
+            chunkQueue.poll();
+            break;
+        default:
+            ratelimitQueue.poll();
         }
     }
 
-    private void handleChunkSync(DataObject chunkOrSyncRequest)
+    private long getAudioRetryDelay()
     {
-        LOG.debug("Sending chunk/sync request {}", chunkOrSyncRequest);
+        if (queuedAudioConnections.isEmpty())
+            return -1;
+        // Requests are retried after 10 seconds, if discord did not respond with a voice state update
+        long nextAttempt = MiscUtil.locked(queueLock, () -> {
+            long min = Long.MAX_VALUE;
+            for (ConnectionRequest request : queuedAudioConnections.valueCollection())
+                min = Math.min(min, request.getNextAttemptEpoch());
+            return min;
+        });
+        if (nextAttempt == Long.MAX_VALUE)
+            return -1;
+        long delay = TimeUnit.MILLISECONDS.toNanos(nextAttempt - System.currentTimeMillis());
+        return Math.max(AUDIO_RETRY_DELAY, delay);
+    }
+
+    private boolean handleChunkSync(WebSocketClient.QueuedCommand chunkOrSyncRequest)
+    {
+        if (chunkOrSyncRequest == null)
+            return true;
+        LOG.debug("Sending chunk/sync request {}", chunkOrSyncRequest.payload);
         boolean success = send(
             DataObject.empty()
                 .put("op", WebSocketCode.MEMBER_CHUNK_REQUEST)
-                .put("d", chunkOrSyncRequest)
+                .put("d", chunkOrSyncRequest.payload),
+            GatewayPriority.CHUNK
         );
 
         if (success)
+        {
             chunkQueue.remove();
+            recordSendTime(GatewayPriority.CHUNK, System.nanoTime() - chunkOrSyncRequest.queuedAt);
+        }
+        return success;
     }
 
-    private void handleAudioRequest(ConnectionRequest audioRequest)
+    private boolean handleAudioRequest(ConnectionRequest audioRequest)
     {
         long channelId = audioRequest.getChannelId();
         long guildId = audioRequest.getGuildIdLong();
@@ -210,7 +291,7 @@ class WebSocketSendingThread implements Runnable
             LOG.debug("Discarding voice request due to null guild {}", guildId);
             // race condition on guild delete, avoid NPE on DISCONNECT requests
             queuedAudioConnections.remove(guildId);
-            return;
+            return true;
         }
         ConnectionStage stage = audioRequest.getStage();
         AudioManager audioManager = guild.getAudioManager();
@@ -226,8 +307,11 @@ class WebSocketSendingThread implements Runnable
                 packet = newVoiceOpen(audioManager, channelId, guild.getIdLong());
         }
         LOG.debug("Sending voice request {}", packet);
-        if (send(packet))
+        long dueSince = audioRequest.getNextAttemptEpoch();
+        if (send(packet, GatewayPriority.VOICE))
         {
+            if (dueSince > 0)
+                recordSendTime(GatewayPriority.VOICE, TimeUnit.MILLISECONDS.toNanos(Math.max(0, System.currentTimeMillis() - dueSince)));
             //If we didn't get RateLimited, Next request attempt will be 10 seconds from now
             // we remove it in VoiceStateUpdateHandler once we hear that it has updated our status
             // in 10 seconds we will attempt again in case we did not receive an update
@@ -237,26 +321,35 @@ class WebSocketSendingThread implements Runnable
             // thus we update it here
             final GuildVoiceState voiceState = guild.getSelfMember().getVoiceState();
             client.updateAudioConnection0(guild.getIdLong(), voiceState.getChannel());
+            return true;
         }
+        return false;
     }
 
-    private void handleNormalRequest()
+    private boolean handleNormalRequest(WebSocketClient.QueuedCommand message)
     {
-        DataObject message = ratelimitQueue.peek();
-        if (message != null)
+        if (message == null)
+            return true;
+        LOG.debug("Sending normal message {}", message.payload);
+        if (send(message.payload, GatewayPriority.PRESENCE))
         {
-            LOG.debug("Sending normal message {}", message);
-            if (send(message))
-                ratelimitQueue.remove();
+            ratelimitQueue.remove();
+            recordSendTime(GatewayPriority.PRESENCE, System.nanoTime() - message.queuedAt);
+            return true;
         }
+        return false;
+    }
+
+    private void recordSendTime(GatewayPriority priority, long nanos)
+    {
+        LOG.trace("Sent {} command after {} ms", priority, TimeUnit.NANOSECONDS.toMillis(nanos));
+        client.recordSendTime(priority, nanos);
     }
 
     //returns true if send was successful
-    private boolean send(DataObject request)
+    private boolean send(DataObject request, GatewayPriority priority)
     {
-        needRateLimit = !client.send(request, false);
-        attemptedToSend = true;
-        return !needRateLimit;
+        return client.send(request, priority);
     }
 
     protected DataObject newVoiceClose(long guildId)
@@ -19,6 +19,7 @@ package net.dv8tion.jda.internal.requests.restaction;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.audit.ThreadLocalReason;
 import net.dv8tion.jda.api.requests.Request;
+import net.dv8tion.jda.api.requests.RequestPriority;
 import net.dv8tion.jda.api.requests.Response;
 import net.dv8tion.jda.api.requests.Route;
 import net.dv8tion.jda.api.requests.restaction.AuditableRestAction;
@@ -90,6 +91,13 @@ public class AuditableRestActionImpl<T> extends RestActionImpl<T> implements Aud
         return (AuditableRestAction<T>) super.deadline(timestamp);
     }
 
+    @Nonnull
+    @Override
+    public AuditableRestAction<T> setPriority(@Nonnull RequestPriority priority)
+    {
+        return (AuditableRestAction<T>) super.setPriority(priority);
+    }
+
     @Nonnull
     @CheckReturnValue
     public AuditableRestActionImpl<T> reason(@Nullable String reason)
@@ -25,6 +25,7 @@ import net.dv8tion.jda.api.interactions.commands.build.OptionData;
 import net.dv8tion.jda.api.interactions.commands.build.SubcommandData;
 import net.dv8tion.jda.api.interactions.commands.build.SubcommandGroupData;
 import net.dv8tion.jda.api.requests.Request;
+import net.dv8tion.jda.api.requests.RequestPriority;
 import net.dv8tion.jda.api.requests.Response;
 import net.dv8tion.jda.api.requests.Route;
 import net.dv8tion.jda.api.requests.restaction.CommandEditAction;
@@ -79,6 +80,13 @@ public class CommandEditActionImpl extends RestActionImpl<Command> implements Co
         return (CommandEditAction) super.deadline(timestamp);
     }
 
+    @Nonnull
+    @Override
+    public CommandEditAction setPriority(@Nonnull RequestPriority priority)
+    {
+        return (CommandEditAction) super.setPriority(priority);
+    }
+
     @Nonnull
     @Override
     public CommandEditAction apply(@Nonnull CommandData commandData)
@@ -28,6 +28,7 @@ import net.dv8tion.jda.api.entities.channel.concrete.ThreadChannel;
 import net.dv8tion.jda.api.entities.channel.forums.ForumPost;
 import net.dv8tion.jda.api.entities.channel.forums.ForumTagSnowflake;
 import net.dv8tion.jda.api.requests.Request;
+import net.dv8tion.jda.api.requests.RequestPriority;
 import net.dv8tion.jda.api.requests.Response;
 import net.dv8tion.jda.api.requests.Route;
 import net.dv8tion.jda.api.requests.restaction.ForumPostAction;
@@ -81,6 +82,13 @@ public class ForumPostActionImpl extends RestActionImpl<ForumPost> implements Fo
         return (ForumPostAction) super.deadline(timestamp);
     }
 
+    @Nonnull
+    @Override
+    public ForumPostAction setPriority(@Nonnull RequestPriority priority)
+    {
+        return (ForumPostAction) super.setPriority(priority);
+    }
+
     @Nonnull
     @Override
     public Guild getGuild()
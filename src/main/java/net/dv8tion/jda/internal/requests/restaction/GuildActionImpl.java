@@ -20,6 +20,7 @@ import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Icon;
 import net.dv8tion.jda.api.entities.channel.ChannelType;
+import net.dv8tion.jda.api.requests.RequestPriority;
 import net.dv8tion.jda.api.requests.Route;
 import net.dv8tion.jda.api.requests.restaction.GuildAction;
 import net.dv8tion.jda.api.utils.data.DataArray;
@@ -78,6 +79,13 @@ public class GuildActionImpl extends RestActionImpl<Void> implements GuildAction
         return (GuildActionImpl) super.deadline(timestamp);
     }
 
+    @Nonnull
+    @Override
+    public GuildActionImpl setPriority(@Nonnull RequestPriority priority)
+    {
+        return (GuildActionImpl) super.setPriority(priority);
+    }
+
     @Nonnull
     @Override
     @CheckReturnValue
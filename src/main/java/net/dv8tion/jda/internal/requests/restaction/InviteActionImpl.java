@@ -19,6 +19,7 @@ package net.dv8tion.jda.internal.requests.restaction;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.Invite;
 import net.dv8tion.jda.api.requests.Request;
+import net.dv8tion.jda.api.requests.RequestPriority;
 import net.dv8tion.jda.api.requests.Response;
 import net.dv8tion.jda.api.requests.Route;
 import net.dv8tion.jda.api.requests.restaction.InviteAction;
@@ -67,6 +68,13 @@ public class InviteActionImpl extends AuditableRestActionImpl<Invite> implements
         return (InviteActionImpl) super.deadline(timestamp);
     }
 
+    @Nonnull
+    @Override
+    public InviteActionImpl setPriority(@Nonnull RequestPriority priority)
+    {
+        return (InviteActionImpl) super.setPriority(priority);
+    }
+
     @Nonnull
     @Override
     @CheckReturnValue
@@ -22,6 +22,7 @@ import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
 import net.dv8tion.jda.api.entities.sticker.GuildSticker;
 import net.dv8tion.jda.api.entities.sticker.StickerSnowflake;
 import net.dv8tion.jda.api.requests.Request;
+import net.dv8tion.jda.api.requests.RequestPriority;
 import net.dv8tion.jda.api.requests.Response;
 import net.dv8tion.jda.api.requests.Route;
 import net.dv8tion.jda.api.requests.restaction.MessageCreateAction;
@@ -184,4 +185,11 @@ public class MessageCreateActionImpl extends RestActionImpl<Message> implements
     {
         return (MessageCreateAction) super.deadline(timestamp);
     }
+
+    @Nonnull
+    @Override
+    public MessageCreateAction setPriority(@Nonnull RequestPriority priority)
+    {
+        return (MessageCreateAction) super.setPriority(priority);
+    }
 }
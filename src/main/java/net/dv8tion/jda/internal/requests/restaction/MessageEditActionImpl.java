@@ -24,6 +24,7 @@ import net.dv8tion.jda.api.entities.channel.middleman.GuildChannel;
 import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
 import net.dv8tion.jda.api.interactions.InteractionHook;
 import net.dv8tion.jda.api.requests.Request;
+import net.dv8tion.jda.api.requests.RequestPriority;
 import net.dv8tion.jda.api.requests.Response;
 import net.dv8tion.jda.api.requests.Route;
 import net.dv8tion.jda.api.requests.restaction.MessageEditAction;
@@ -116,4 +117,11 @@ public class MessageEditActionImpl extends RestActionImpl<Message> implements Me
     {
         return (MessageEditAction) super.deadline(timestamp);
     }
+
+    @Nonnull
+    @Override
+    public MessageEditAction setPriority(@Nonnull RequestPriority priority)
+    {
+        return (MessageEditAction) super.setPriority(priority);
+    }
 }
@@ -22,6 +22,7 @@ import net.dv8tion.jda.api.entities.channel.ChannelType;
 import net.dv8tion.jda.api.entities.channel.concrete.ThreadChannel;
 import net.dv8tion.jda.api.entities.channel.middleman.GuildChannel;
 import net.dv8tion.jda.api.requests.Request;
+import net.dv8tion.jda.api.requests.RequestPriority;
 import net.dv8tion.jda.api.requests.Response;
 import net.dv8tion.jda.api.requests.Route;
 import net.dv8tion.jda.api.requests.restaction.ThreadChannelAction;
@@ -92,6 +93,13 @@ public class ThreadChannelActionImpl extends AuditableRestActionImpl<ThreadChann
         return (ThreadChannelActionImpl) super.deadline(timestamp);
     }
 
+    @Nonnull
+    @Override
+    public ThreadChannelActionImpl setPriority(@Nonnull RequestPriority priority)
+    {
+        return (ThreadChannelActionImpl) super.setPriority(priority);
+    }
+
     @Nonnull
     @Override
     public Guild getGuild()
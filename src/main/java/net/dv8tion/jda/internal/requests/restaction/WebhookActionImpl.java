@@ -22,6 +22,7 @@ import net.dv8tion.jda.api.entities.Webhook;
 import net.dv8tion.jda.api.entities.channel.attribute.IWebhookContainer;
 import net.dv8tion.jda.api.entities.channel.unions.IWebhookContainerUnion;
 import net.dv8tion.jda.api.requests.Request;
+import net.dv8tion.jda.api.requests.RequestPriority;
 import net.dv8tion.jda.api.requests.Response;
 import net.dv8tion.jda.api.requests.Route;
 import net.dv8tion.jda.api.requests.restaction.WebhookAction;
@@ -72,6 +73,13 @@ public class WebhookActionImpl extends AuditableRestActionImpl<Webhook> implemen
         return (WebhookActionImpl) super.deadline(timestamp);
     }
 
+    @Nonnull
+    @Override
+    public WebhookActionImpl setPriority(@Nonnull RequestPriority priority)
+    {
+        return (WebhookActionImpl) super.setPriority(priority);
+    }
+
     @Nonnull
     @Override
     public IWebhookContainerUnion getChannel()
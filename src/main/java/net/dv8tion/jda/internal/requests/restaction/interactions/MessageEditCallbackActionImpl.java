@@ -16,6 +16,7 @@
 
 package net.dv8tion.jda.internal.requests.restaction.interactions;
 
+import net.dv8tion.jda.api.requests.RequestPriority;
 import net.dv8tion.jda.api.requests.restaction.interactions.MessageEditCallbackAction;
 import net.dv8tion.jda.api.utils.data.DataObject;
 import net.dv8tion.jda.api.utils.messages.MessageEditBuilder;
@@ -64,6 +65,13 @@ public class MessageEditCallbackActionImpl extends DeferrableCallbackActionImpl
         return (MessageEditCallbackActionImpl) super.deadline(timestamp);
     }
 
+    @Nonnull
+    @Override
+    public MessageEditCallbackActionImpl setPriority(@Nonnull RequestPriority priority)
+    {
+        return (MessageEditCallbackActionImpl) super.setPriority(priority);
+    }
+
     @Nonnull
     @Override
     public MessageEditCallbackActionImpl closeResources()
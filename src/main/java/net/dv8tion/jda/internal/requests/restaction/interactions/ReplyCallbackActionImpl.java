@@ -16,6 +16,7 @@
 
 package net.dv8tion.jda.internal.requests.restaction.interactions;
 
+import net.dv8tion.jda.api.requests.RequestPriority;
 import net.dv8tion.jda.api.requests.restaction.interactions.ReplyCallbackAction;
 import net.dv8tion.jda.api.utils.data.DataObject;
 import net.dv8tion.jda.api.utils.messages.MessageCreateBuilder;
@@ -108,4 +109,11 @@ public class ReplyCallbackActionImpl extends DeferrableCallbackActionImpl implem
     {
         return (ReplyCallbackAction) super.deadline(timestamp);
     }
+
+    @Nonnull
+    @Override
+    public ReplyCallbackAction setPriority(@Nonnull RequestPriority priority)
+    {
+        return (ReplyCallbackAction) super.setPriority(priority);
+    }
 }
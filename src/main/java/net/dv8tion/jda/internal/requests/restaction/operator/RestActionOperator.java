@@ -18,6 +18,7 @@ package net.dv8tion.jda.internal.requests.restaction.operator;
 
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.exceptions.ContextException;
+import net.dv8tion.jda.api.requests.RequestPriority;
 import net.dv8tion.jda.api.requests.RestAction;
 
 import javax.annotation.Nonnull;
@@ -29,6 +30,7 @@ public abstract class RestActionOperator<I, O> implements RestAction<O>
 {
     protected BooleanSupplier check;
     protected long deadline = -1;
+    protected RequestPriority priority;
     protected final RestAction<I> action;
 
     public RestActionOperator(RestAction<I> action)
@@ -102,6 +104,22 @@ public abstract class RestActionOperator<I, O> implements RestAction<O>
         return this;
     }
 
+    @Nonnull
+    @Override
+    public RestAction<O> setPriority(@Nonnull RequestPriority priority)
+    {
+        this.priority = priority;
+        action.setPriority(priority);
+        return this;
+    }
+
+    @Nonnull
+    @Override
+    public RequestPriority getPriority()
+    {
+        return action.getPriority();
+    }
+
     @Nullable
     protected <T> RestAction<T> applyContext(RestAction<T> action)
     {
@@ -111,6 +129,8 @@ public abstract class RestActionOperator<I, O> implements RestAction<O>
             action.setCheck(check);
         if (deadline >= 0)
             action.deadline(deadline);
+        if (priority != null)
+            action.setPriority(priority);
         return action;
     }
 
@@ -24,8 +24,6 @@ import net.dv8tion.jda.api.requests.Request;
 import net.dv8tion.jda.api.requests.Response;
 import net.dv8tion.jda.api.requests.Route;
 import net.dv8tion.jda.api.requests.restaction.pagination.EntitlementPaginationAction;
-import net.dv8tion.jda.api.utils.data.DataArray;
-import net.dv8tion.jda.api.utils.data.DataObject;
 import net.dv8tion.jda.internal.entities.EntityBuilder;
 import net.dv8tion.jda.internal.utils.Checks;
 
@@ -147,14 +145,12 @@ public class EntitlementPaginationActionImpl
     @Override
     protected void handleSuccess(Response response, Request<List<Entitlement>> request)
     {
-        DataArray array = response.getArray();
-        List<Entitlement> entitlements = new ArrayList<>(array.length());
+        List<Entitlement> entitlements = new ArrayList<>(getLimit());
         EntityBuilder builder = api.getEntityBuilder();
-        for (int i = 0; i < array.length(); i++)
+        response.forEachObject(object ->
         {
             try
             {
-                DataObject object = array.getObject(i);
                 Entitlement entitlement = builder.createEntitlement(object);
                 entitlements.add(entitlement);
             }
@@ -162,7 +158,7 @@ public class EntitlementPaginationActionImpl
             {
                 LOG.warn("Encountered an exception in EntitlementPaginationAction", e);
             }
-        }
+        });
 
         if (!entitlements.isEmpty())
         {
@@ -17,6 +17,7 @@
 package net.dv8tion.jda.internal.requests.restaction.pagination;
 
 import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.requests.RequestPriority;
 import net.dv8tion.jda.api.requests.Route;
 import net.dv8tion.jda.api.requests.restaction.pagination.PaginationAction;
 import net.dv8tion.jda.api.utils.Procedure;
@@ -159,6 +160,14 @@ public abstract class PaginationActionImpl<T, M extends PaginationAction<T, M>>
         return (M) super.deadline(timestamp);
     }
 
+    @Nonnull
+    @Override
+    @SuppressWarnings("unchecked")
+    public M setPriority(@Nonnull RequestPriority priority)
+    {
+        return (M) super.setPriority(priority);
+    }
+
     @Override
     public int cacheSize()
     {
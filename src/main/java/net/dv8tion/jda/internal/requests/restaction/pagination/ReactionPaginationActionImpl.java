@@ -25,7 +25,6 @@ import net.dv8tion.jda.api.requests.Request;
 import net.dv8tion.jda.api.requests.Response;
 import net.dv8tion.jda.api.requests.Route;
 import net.dv8tion.jda.api.requests.restaction.pagination.ReactionPaginationAction;
-import net.dv8tion.jda.api.utils.data.DataArray;
 import net.dv8tion.jda.internal.entities.EntityBuilder;
 
 import javax.annotation.Nonnull;
@@ -91,13 +90,12 @@ public class ReactionPaginationActionImpl
     protected void handleSuccess(Response response, Request<List<User>> request)
     {
         final EntityBuilder builder = api.getEntityBuilder();
-        final DataArray array = response.getArray();
         final List<User> users = new LinkedList<>();
-        for (int i = 0; i < array.length(); i++)
+        response.forEachObject(object ->
         {
             try
             {
-                final User user = builder.createUser(array.getObject(i));
+                final User user = builder.createUser(object);
                 users.add(user);
                 if (useCache)
                     cached.add(user);
@@ -108,7 +106,7 @@ public class ReactionPaginationActionImpl
             {
                 LOG.warn("Encountered exception in ReactionPagination", e);
             }
-        }
+        });
 
         request.onSuccess(users);
     }
@@ -26,6 +26,8 @@ import okio.Okio;
 import org.slf4j.Logger;
 
 import java.io.*;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URLEncoder;
@@ -255,6 +257,47 @@ public class IOUtil
         return buffer;
     }
 
+    /**
+     * Releases the memory of a direct or mapped buffer, instead of waiting for the garbage collector.
+     * <br>Mapped files stay open until this happens, which keeps them from being deleted or replaced on some platforms.
+     *
+     * <p>The buffer must not be used after this call, any access would crash the JVM.
+     * If the buffer cannot be released, it is left to the garbage collector.
+     *
+     * @param buffer
+     *        The buffer to release
+     */
+    public static void unmap(ByteBuffer buffer)
+    {
+        if (buffer == null || !buffer.isDirect())
+            return;
+        try
+        {
+            try
+            {
+                // Java 9+
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            }
+            catch (NoSuchMethodException e)
+            {
+                // Java 8
+                Method cleaner = buffer.getClass().getMethod("cleaner");
+                cleaner.setAccessible(true);
+                Object instance = cleaner.invoke(buffer);
+                if (instance != null)
+                    instance.getClass().getMethod("clean").invoke(instance);
+            }
+        }
+        catch (ReflectiveOperationException | RuntimeException e)
+        {
+            log.debug("Could not release the buffer, it is left to the garbage collector", e);
+        }
+    }
+
     /**
      * Retrieves an {@link InputStream InputStream} for the provided {@link okhttp3.Response Response}.
      * <br>When the header for {@code content-encoding} is set with {@code gzip} this will wrap the body
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.internal.utils;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+
+/**
+ * A snowflake id which was sent as a string, but is stored as a primitive long.
+ * <br>This is serialized as a string again, and its {@link #toString()} is identical to the original string.
+ */
+public final class SnowflakeValue extends Number
+{
+    private static final long serialVersionUID = 1L;
+
+    private final long value;
+
+    public SnowflakeValue(long value)
+    {
+        this.value = value;
+    }
+
+    /**
+     * Parses a snowflake from the provided characters.
+     * <br>Only plain decimal digits without leading zeros are accepted, to keep the string representation identical.
+     *
+     * @param  chars
+     *         The characters
+     * @param  offset
+     *         The offset of the first character
+     * @param  length
+     *         The number of characters
+     *
+     * @return The snowflake, or null if the characters are not a snowflake
+     */
+    @Nullable
+    public static SnowflakeValue parse(char[] chars, int offset, int length)
+    {
+        // Long.MAX_VALUE has 19 digits
+        if (length < 1 || length > 19 || (chars[offset] == '0' && length > 1))
+            return null;
+        long value = 0;
+        for (int i = offset; i < offset + length; i++)
+        {
+            char c = chars[i];
+            if (c < '0' || c > '9')
+                return null;
+            value = value * 10 + (c - '0');
+            if (value < 0) // overflow
+                return null;
+        }
+        return new SnowflakeValue(value);
+    }
+
+    /**
+     * Replaces decoded snowflakes with their original strings, including those of nested maps and lists.
+     * <br>Maps and lists are updated in place, so they keep the same types as without snowflake decoding.
+     *
+     * @param  value
+     *         The value to convert
+     *
+     * @return The string of a snowflake, or the provided value
+     */
+    @SuppressWarnings("unchecked")
+    public static Object restoreStrings(Object value)
+    {
+        if (value instanceof SnowflakeValue)
+            return value.toString();
+        if (value instanceof Map)
+        {
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet())
+            {
+                Object element = entry.getValue();
+                Object restored = restoreStrings(element);
+                if (restored != element)
+                    entry.setValue(restored);
+            }
+        }
+        else if (value instanceof List)
+        {
+            ListIterator<Object> iterator = ((List<Object>) value).listIterator();
+            while (iterator.hasNext())
+            {
+                Object element = iterator.next();
+                Object restored = restoreStrings(element);
+                if (restored != element)
+                    iterator.set(restored);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public int intValue()
+    {
+        return (int) value;
+    }
+
+    @Override
+    public long longValue()
+    {
+        return value;
+    }
+
+    @Override
+    public float floatValue()
+    {
+        return (float) value;
+    }
+
+    @Override
+    public double doubleValue()
+    {
+        return (double) value;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Long.hashCode(value);
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        return obj instanceof SnowflakeValue && ((SnowflakeValue) obj).value == value;
+    }
+
+    @Override
+    public String toString()
+    {
+        return Long.toUnsignedString(value);
+    }
+}
@@ -0,0 +1,496 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.internal.utils.cache;
+
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.*;
+import net.dv8tion.jda.api.entities.channel.attribute.*;
+import net.dv8tion.jda.api.entities.channel.concrete.ForumChannel;
+import net.dv8tion.jda.api.entities.channel.forums.ForumTag;
+import net.dv8tion.jda.api.entities.channel.middleman.AudioChannel;
+import net.dv8tion.jda.api.entities.channel.middleman.GuildChannel;
+import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
+import net.dv8tion.jda.api.entities.channel.middleman.StandardGuildMessageChannel;
+import net.dv8tion.jda.api.entities.emoji.CustomEmoji;
+import net.dv8tion.jda.api.entities.emoji.EmojiUnion;
+import net.dv8tion.jda.api.entities.emoji.RichCustomEmoji;
+import net.dv8tion.jda.api.entities.emoji.UnicodeEmoji;
+import net.dv8tion.jda.api.utils.data.DataArray;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.internal.JDAImpl;
+import net.dv8tion.jda.internal.entities.GuildImpl;
+import net.dv8tion.jda.internal.entities.MemberImpl;
+import net.dv8tion.jda.internal.entities.UserImpl;
+import net.dv8tion.jda.internal.entities.channel.mixin.attribute.IPermissionContainerMixin;
+import net.dv8tion.jda.internal.entities.channel.mixin.attribute.IPostContainerMixin;
+import net.dv8tion.jda.internal.utils.IOUtil;
+import net.dv8tion.jda.internal.utils.JDALogger;
+import org.slf4j.Logger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Binary snapshot of the guild, channel, role, emoji, and member caches.
+ *
+ * <p>Each guild is stored in the shape of a GUILD_CREATE payload and encoded as ETF,
+ * which allows the snapshot to be loaded with the same {@link net.dv8tion.jda.internal.entities.EntityBuilder EntityBuilder} methods used by the gateway.
+ * Threads, scheduled events, stickers, voice states, and presences are not part of the snapshot.
+ *
+ * <p>Guilds loaded from a snapshot are {@link GuildImpl#isStale() stale},
+ * until they are replaced by a GUILD_CREATE or the session of the snapshot has been resumed.
+ */
+public class CacheSnapshot
+{
+    public static final Logger LOG = JDALogger.getLog(CacheSnapshot.class);
+    public static final int VERSION = 1;
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+
+    private CacheSnapshot() {}
+
+    /**
+     * The snapshot file of the shard in the provided directory.
+     *
+     * @param  directory
+     *         The snapshot directory
+     * @param  shardInfo
+     *         The shard
+     *
+     * @return The path of the snapshot file
+     */
+    @Nonnull
+    public static Path getFile(@Nonnull Path directory, @Nonnull JDA.ShardInfo shardInfo)
+    {
+        return directory.resolve("cache-" + shardInfo.getShardId() + "-" + shardInfo.getShardTotal() + ".etf");
+    }
+
+    /**
+     * Creates a snapshot of the current cache.
+     *
+     * @param  api
+     *         The JDA instance
+     * @param  sessionId
+     *         The current session id, or null
+     * @param  sequence
+     *         The last sequence number handled by this cache
+     *
+     * @return The snapshot
+     */
+    @Nonnull
+    public static DataObject create(@Nonnull JDAImpl api, @Nullable String sessionId, long sequence)
+    {
+        DataArray guilds = DataArray.empty();
+        api.getGuildsView().forEach(guild -> guilds.add(serializeGuild((GuildImpl) guild)));
+        return DataObject.empty()
+                .put("version", VERSION)
+                .put("session_id", sessionId)
+                .put("seq", sequence)
+                .put("guilds", guilds);
+    }
+
+    /**
+     * Writes the snapshot to the file.
+     * <br>The snapshot is written to a temporary file first, which replaces the previous snapshot once it is complete.
+     *
+     * @param  file
+     *         The target file
+     * @param  snapshot
+     *         The snapshot
+     *
+     * @throws UncheckedIOException
+     *         If an I/O error occurs
+     */
+    public static void write(@Nonnull Path file, @Nonnull DataObject snapshot)
+    {
+        try
+        {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            try
+            {
+                Files.write(temp, snapshot.toETF());
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            finally
+            {
+                Files.deleteIfExists(temp);
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the snapshot from the file, which is memory-mapped while it is decoded.
+     *
+     * @param  file
+     *         The snapshot file
+     *
+     * @throws UncheckedIOException
+     *         If an I/O error occurs
+     * @throws net.dv8tion.jda.api.exceptions.ParsingException
+     *         If the file is not a valid snapshot
+     *
+     * @return The snapshot, or null if the file does not exist or uses a different version
+     */
+    @Nullable
+    public static DataObject read(@Nonnull Path file)
+    {
+        if (!Files.exists(file))
+            return null;
+        DataObject snapshot;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            try
+            {
+                snapshot = DataObject.fromETF(buffer);
+            }
+            finally
+            {
+                // The decoded values are copies, the mapping would otherwise keep the file open until garbage collection
+                IOUtil.unmap(buffer);
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+
+        if (snapshot.getInt("version", 0) != VERSION)
+        {
+            LOG.debug("Ignoring cache snapshot with unsupported version {}", snapshot.opt("version").orElse(null));
+            return null;
+        }
+        return snapshot;
+    }
+
+    /**
+     * Populates the cache with the guilds of the snapshot, which are marked as stale.
+     *
+     * @param  api
+     *         The JDA instance, which must already have a self user
+     * @param  snapshot
+     *         The snapshot
+     *
+     * @return The ids of the restored guilds which were up-to-date when the snapshot was taken
+     */
+    @Nonnull
+    public static TLongSet restore(@Nonnull JDAImpl api, @Nonnull DataObject snapshot)
+    {
+        DataArray guilds = snapshot.getArray("guilds");
+        TLongSet upToDate = new TLongHashSet();
+        for (int i = 0; i < guilds.length(); i++)
+        {
+            DataObject guildJson = guilds.getObject(i);
+            long guildId = guildJson.getUnsignedLong("id");
+            try
+            {
+                DataArray memberArray = guildJson.getArray("members");
+                TLongObjectMap<DataObject> members = new TLongObjectHashMap<>(memberArray.length());
+                for (int j = 0; j < memberArray.length(); j++)
+                {
+                    DataObject member = memberArray.getObject(j);
+                    members.put(member.getObject("user").getUnsignedLong("id"), member);
+                }
+
+                GuildImpl guild = api.getEntityBuilder().createGuild(guildId, guildJson, members, guildJson.getInt("member_count", members.size()));
+                guild.setStale(true);
+                if (!guildJson.getBoolean("stale"))
+                    upToDate.add(guildId);
+            }
+            catch (RuntimeException e)
+            {
+                LOG.warn("Failed to restore guild with id {} from cache snapshot", guildId, e);
+                GuildImpl guild = (GuildImpl) api.getGuildsView().get(guildId);
+                if (guild != null)
+                    guild.invalidate();
+            }
+        }
+        return upToDate;
+    }
+
+    /**
+     * Whether the snapshot was taken at the end of the provided session.
+     * <br>Resuming that session replays all events missed since the snapshot, which makes the restored cache up-to-date.
+     *
+     * @param  snapshot
+     *         The snapshot
+     * @param  sessionId
+     *         The session id
+     * @param  sequence
+     *         The sequence number the session is resumed from
+     *
+     * @return True, if the snapshot matches the session
+     */
+    public static boolean isSessionSnapshot(@Nonnull DataObject snapshot, @Nonnull String sessionId, long sequence)
+    {
+        return sessionId.equals(snapshot.getString("session_id", null)) && snapshot.getLong("seq", -1) == sequence;
+    }
+
+    private static DataObject serializeGuild(GuildImpl guild)
+    {
+        DataArray roles = DataArray.empty();
+        guild.getRolesView().forEach(role -> roles.add(serializeRole(role)));
+        DataArray emojis = DataArray.empty();
+        guild.getEmojisView().forEach(emoji -> emojis.add(serializeEmoji(emoji)));
+        DataArray channels = DataArray.empty();
+        guild.getChannelView().forEach(channel -> {
+            DataObject json = serializeChannel(channel);
+            if (json != null)
+                channels.add(json);
+        });
+        DataArray members = DataArray.empty();
+        guild.getMembersView().forEach(member -> members.add(serializeMember((MemberImpl) member)));
+
+        return DataObject.empty()
+                .put("id", guild.getIdLong())
+                .put("name", guild.getName())
+                .put("icon", guild.getIconId())
+                .put("splash", guild.getSplashId())
+                .put("description", guild.getDescription())
+                .put("vanity_url_code", guild.getVanityCode())
+                .put("banner", guild.getBannerId())
+                .put("preferred_locale", guild.getLocale().getLocale())
+                .put("owner_id", guild.getOwnerIdLong())
+                .put("afk_channel_id", getId(guild.getAfkChannel()))
+                .put("system_channel_id", getId(guild.getSystemChannel()))
+                .put("rules_channel_id", getId(guild.getRulesChannel()))
+                .put("public_updates_channel_id", getId(guild.getCommunityUpdatesChannel()))
+                .put("premium_subscription_count", guild.getBoostCount())
+                .put("premium_tier", guild.getBoostTier().getKey())
+                .put("max_members", guild.getMaxMembers())
+                .put("max_presences", guild.getMaxPresences())
+                .put("mfa_level", guild.getRequiredMFALevel().getKey())
+                .put("afk_timeout", guild.getAfkTimeout().getSeconds())
+                .put("verification_level", guild.getVerificationLevel().getKey())
+                .put("default_message_notifications", guild.getDefaultNotificationLevel().getKey())
+                .put("explicit_content_filter", guild.getExplicitContentLevel().getKey())
+                .put("nsfw_level", guild.getNSFWLevel().getKey())
+                .put("premium_progress_bar_enabled", guild.isBoostProgressBarEnabled())
+                .put("features", DataArray.fromCollection(guild.getFeatures()))
+                .put("member_count", guild.getMemberCount())
+                .put("stale", guild.isStale())
+                .put("roles", roles)
+                .put("emojis", emojis)
+                .put("channels", channels)
+                .put("members", members)
+                .put("threads", DataArray.empty())
+                .put("guild_scheduled_events", DataArray.empty())
+                .put("stickers", DataArray.empty())
+                .put("voice_states", DataArray.empty());
+    }
+
+    private static DataObject serializeRole(Role role)
+    {
+        Role.RoleTags tags = role.getTags();
+        DataObject tagsJson = DataObject.empty();
+        if (tags.isBot())
+            tagsJson.put("bot_id", tags.getBotIdLong());
+        if (tags.isIntegration())
+            tagsJson.put("integration_id", tags.getIntegrationIdLong());
+        if (tags.hasSubscriptionListing())
+            tagsJson.put("subscription_listing_id", tags.getSubscriptionIdLong());
+        // These tags are true if the key is present
+        if (tags.isBoost())
+            tagsJson.putNull("premium_subscriber");
+        if (tags.isAvailableForPurchase())
+            tagsJson.putNull("available_for_purchase");
+        if (tags.isLinkedRole())
+            tagsJson.putNull("guild_connections");
+
+        RoleIcon icon = role.getIcon();
+        return DataObject.empty()
+                .put("id", role.getIdLong())
+                .put("name", role.getName())
+                .put("position", role.getPositionRaw())
+                .put("permissions", role.getPermissionsRaw())
+                .put("managed", role.isManaged())
+                .put("hoist", role.isHoisted())
+                .put("color", role.getColorRaw())
+                .put("mentionable", role.isMentionable())
+                .put("tags", tagsJson)
+                .put("icon", icon == null ? null : icon.getIconId())
+                .put("unicode_emoji", icon == null ? null : icon.getEmoji());
+    }
+
+    private static DataObject serializeEmoji(RichCustomEmoji emoji)
+    {
+        DataArray roles = DataArray.empty();
+        emoji.getRoles().forEach(role -> roles.add(role.getIdLong()));
+        return DataObject.empty()
+                .put("id", emoji.getIdLong())
+                .put("name", emoji.getName())
+                .put("animated", emoji.isAnimated())
+                .put("managed", emoji.isManaged())
+                .put("available", emoji.isAvailable())
+                .put("roles", roles);
+    }
+
+    private static DataObject serializeChannel(GuildChannel channel)
+    {
+        switch (channel.getType())
+        {
+        case TEXT:
+        case NEWS:
+        case VOICE:
+        case STAGE:
+        case CATEGORY:
+        case FORUM:
+        case MEDIA:
+            break;
+        default:
+            // Threads are not part of the snapshot
+            return null;
+        }
+
+        DataObject json = DataObject.empty()
+                .put("type", channel.getType().getId())
+                .put("id", channel.getIdLong())
+                .put("name", channel.getName());
+
+        if (channel instanceof IPositionableChannel)
+            json.put("position", ((IPositionableChannel) channel).getPositionRaw());
+        if (channel instanceof ICategorizableChannel)
+            json.put("parent_id", ((ICategorizableChannel) channel).getParentCategoryIdLong());
+        if (channel instanceof IAgeRestrictedChannel)
+            json.put("nsfw", ((IAgeRestrictedChannel) channel).isNSFW());
+        if (channel instanceof ISlowmodeChannel)
+            json.put("rate_limit_per_user", ((ISlowmodeChannel) channel).getSlowmode());
+        if (channel instanceof IThreadContainer)
+            json.put("default_thread_rate_limit_per_user", ((IThreadContainer) channel).getDefaultThreadSlowmode());
+        if (channel instanceof MessageChannel)
+            json.put("last_message_id", ((MessageChannel) channel).getLatestMessageIdLong());
+        if (channel instanceof StandardGuildMessageChannel)
+            json.put("topic", ((StandardGuildMessageChannel) channel).getTopic());
+
+        if (channel instanceof AudioChannel)
+        {
+            AudioChannel audio = (AudioChannel) channel;
+            json.put("bitrate", audio.getBitrate())
+                .put("user_limit", audio.getUserLimit())
+                .put("rtc_region", audio.getRegionRaw());
+        }
+        if (channel instanceof IVoiceStatusChannel)
+            json.put("status", ((IVoiceStatusChannel) channel).getStatus());
+
+        if (channel instanceof IPostContainerMixin)
+        {
+            IPostContainerMixin<?> container = (IPostContainerMixin<?>) channel;
+            DataArray tags = DataArray.empty();
+            container.getAvailableTagCache().forEach(tag -> tags.add(serializeTag(tag)));
+            json.put("topic", container.getTopic())
+                .put("flags", container.getRawFlags())
+                .put("default_sort_order", container.getRawSortOrder())
+                .put("default_reaction_emoji", serializeReaction(container.getDefaultReaction()))
+                .put("available_tags", tags);
+        }
+        if (channel instanceof ForumChannel)
+            json.put("default_forum_layout", ((ForumChannel) channel).getDefaultLayout().getKey());
+
+        DataArray overrides = DataArray.empty();
+        if (channel instanceof IPermissionContainerMixin)
+        {
+            ((IPermissionContainerMixin<?>) channel).getPermissionOverrideMap().forEachValue(override -> {
+                overrides.add(DataObject.empty()
+                    .put("id", override.getIdLong())
+                    .put("type", override.isRoleOverride() ? 0 : 1)
+                    .put("allow", override.getAllowedRaw())
+                    .put("deny", override.getDeniedRaw()));
+                return true;
+            });
+        }
+        return json.put("permission_overwrites", overrides);
+    }
+
+    private static DataObject serializeTag(ForumTag tag)
+    {
+        DataObject json = DataObject.empty()
+                .put("id", tag.getIdLong())
+                .put("name", tag.getName())
+                .put("moderated", tag.isModerated());
+        EmojiUnion emoji = tag.getEmoji();
+        if (emoji != null)
+            putEmoji(json, emoji);
+        return json;
+    }
+
+    private static DataObject serializeReaction(EmojiUnion emoji)
+    {
+        return emoji == null ? null : putEmoji(DataObject.empty(), emoji);
+    }
+
+    private static DataObject putEmoji(DataObject json, EmojiUnion emoji)
+    {
+        if (emoji instanceof CustomEmoji)
+            return json.put("emoji_id", ((CustomEmoji) emoji).getIdLong()).put("emoji_name", emoji.getName());
+        if (emoji instanceof UnicodeEmoji)
+            return json.put("emoji_name", emoji.getName());
+        return json;
+    }
+
+    private static DataObject serializeMember(MemberImpl member)
+    {
+        UserImpl user = (UserImpl) member.getUser();
+        DataArray roles = DataArray.empty();
+        member.getRoleSet().forEach(role -> roles.add(role.getIdLong()));
+
+        return DataObject.empty()
+                .put("user", DataObject.empty()
+                    .put("id", user.getIdLong())
+                    .put("username", user.getName())
+                    .put("global_name", user.getGlobalName())
+                    .put("discriminator", String.valueOf(user.getDiscriminatorInt()))
+                    .put("avatar", user.getAvatarId())
+                    .put("bot", user.isBot())
+                    .put("system", user.isSystem())
+                    .put("public_flags", user.getFlagsRaw()))
+                .put("nick", member.getNickname())
+                .put("avatar", member.getAvatarId())
+                .put("flags", member.getFlagsRaw())
+                .put("pending", member.isPending())
+                .put("roles", roles)
+                .put("joined_at", member.hasTimeJoined() ? formatTime(member.getTimeJoined()) : null)
+                .put("premium_since", formatTime(member.getTimeBoosted()))
+                .put("communication_disabled_until", formatTime(member.getTimeOutEnd()));
+    }
+
+    private static String formatTime(OffsetDateTime time)
+    {
+        return time == null ? null : TIMESTAMP_FORMAT.format(time);
+    }
+
+    private static long getId(ISnowflake entity)
+    {
+        return entity == null ? 0L : entity.getIdLong();
+    }
+}
@@ -21,6 +21,7 @@ import net.dv8tion.jda.internal.utils.JDALogger;
 import org.slf4j.Logger;
 
 import javax.annotation.Nullable;
+import java.io.InputStream;
 import java.util.zip.DataFormatException;
 
 public interface Decompressor
@@ -35,4 +36,9 @@ public interface Decompressor
 
     @Nullable // returns null when the decompression isn't done, for example when no Z_SYNC_FLUSH was present
     byte[] decompress(byte[] data) throws DataFormatException;
+
+    // Same contract as decompress, but the returned stream inflates lazily while it is being read
+    // The stream is only valid until the next call and must be closed once the message has been consumed
+    @Nullable
+    InputStream decompressStream(byte[] data) throws DataFormatException;
 }
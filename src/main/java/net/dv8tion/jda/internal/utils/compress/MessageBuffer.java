@@ -0,0 +1,155 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.internal.utils.compress;
+
+import net.dv8tion.jda.api.utils.BufferPool;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Growing buffer for a single message, which borrows its memory from a {@link BufferPool}.
+ * <br>The memory is returned to the pool by {@link #release()}, which also allows reusing this instance for the next message.
+ */
+public class MessageBuffer
+{
+    // Some VMs reserve header words in arrays
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private final BufferPool pool;
+    private final int maxBufferSize;
+    private ByteBuffer buffer;
+    private byte[] copyBuffer;
+
+    public MessageBuffer(BufferPool pool, int maxBufferSize)
+    {
+        this.pool = pool;
+        this.maxBufferSize = maxBufferSize;
+    }
+
+    public boolean isEmpty()
+    {
+        return buffer == null || buffer.position() == 0;
+    }
+
+    public int size()
+    {
+        return buffer == null ? 0 : buffer.position();
+    }
+
+    /**
+     * Provides a buffer with at least the requested remaining capacity.
+     * <br>The caller writes at the current position, and moves the position past the written bytes.
+     *
+     * @param  remaining
+     *         The required capacity after the current position
+     *
+     * @return The buffer
+     */
+    public ByteBuffer ensureRemaining(int remaining)
+    {
+        if (buffer == null)
+        {
+            buffer = pool.acquire(remaining);
+        }
+        else if (buffer.remaining() < remaining)
+        {
+            // The pool rounds up to powers of two, but allocates larger buffers with the exact size
+            int required = buffer.position() + remaining;
+            int capacity = (int) Math.max(required, Math.min(buffer.capacity() * 2L, MAX_ARRAY_SIZE));
+            ByteBuffer grown = pool.acquire(capacity);
+            buffer.flip();
+            grown.put(buffer);
+            giveBack(buffer);
+            buffer = grown;
+        }
+        return buffer;
+    }
+
+    public void write(byte[] data, int offset, int length)
+    {
+        ensureRemaining(length).put(data, offset, length);
+    }
+
+    /**
+     * Appends everything from the input stream, until the stream ends.
+     *
+     * @param  input
+     *         The input stream
+     * @param  readSize
+     *         The minimum capacity available for each read
+     *
+     * @throws IOException
+     *         If the stream throws
+     */
+    public void readFrom(InputStream input, int readSize) throws IOException
+    {
+        int read;
+        do
+        {
+            ByteBuffer target = ensureRemaining(readSize);
+            if (target.hasArray())
+            {
+                read = input.read(target.array(), target.arrayOffset() + target.position(), target.remaining());
+                if (read > 0)
+                    target.position(target.position() + read);
+            }
+            else
+            {
+                // Direct buffers cannot be passed to the decompression, the data is copied in small steps
+                if (copyBuffer == null)
+                    copyBuffer = new byte[8192];
+                read = input.read(copyBuffer, 0, Math.min(copyBuffer.length, target.remaining()));
+                if (read > 0)
+                    target.put(copyBuffer, 0, read);
+            }
+        }
+        while (read >= 0);
+    }
+
+    public byte[] toByteArray()
+    {
+        byte[] data = new byte[size()];
+        if (buffer != null)
+        {
+            ByteBuffer view = buffer.duplicate();
+            view.flip();
+            view.get(data);
+        }
+        return data;
+    }
+
+    /**
+     * Returns the memory to the pool, buffers above the maximum buffer size are not kept.
+     */
+    public void release()
+    {
+        if (buffer == null)
+            return;
+        giveBack(buffer);
+        buffer = null;
+    }
+
+    private void giveBack(ByteBuffer buffer)
+    {
+        if (buffer.capacity() > maxBufferSize)
+            pool.discard(buffer);
+        else
+            pool.release(buffer);
+    }
+}
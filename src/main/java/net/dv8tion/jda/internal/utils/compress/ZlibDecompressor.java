@@ -16,48 +16,46 @@
 
 package net.dv8tion.jda.internal.utils.compress;
 
+import net.dv8tion.jda.api.utils.BufferPool;
 import net.dv8tion.jda.api.utils.Compression;
 import net.dv8tion.jda.internal.utils.IOUtil;
 import net.dv8tion.jda.internal.utils.JDALogger;
 
-import java.io.ByteArrayOutputStream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.IOException;
-import java.lang.ref.SoftReference;
-import java.nio.ByteBuffer;
+import java.io.InputStream;
 import java.util.Arrays;
 import java.util.zip.DataFormatException;
 import java.util.zip.Inflater;
-import java.util.zip.InflaterOutputStream;
+import java.util.zip.ZipException;
 
 public class ZlibDecompressor implements Decompressor
 {
     private static final int Z_SYNC_FLUSH = 0x0000FFFF;
 
-    private final int maxBufferSize;
     private final Inflater inflater = new Inflater();
-    private ByteBuffer flushBuffer = null;
-    private SoftReference<ByteArrayOutputStream> decompressBuffer = null;
+    // Both buffers borrow their memory from the shared pool and only hold it while a message is handled
+    private final MessageBuffer flushBuffer;
+    private final MessageBuffer decompressBuffer;
+    private InflaterStream inflaterStream = null;
 
     public ZlibDecompressor(int maxBufferSize)
     {
-        this.maxBufferSize = maxBufferSize;
+        this(maxBufferSize, BufferPool.getDefault());
     }
 
-    private SoftReference<ByteArrayOutputStream> newDecompressBuffer()
+    public ZlibDecompressor(int maxBufferSize, BufferPool pool)
     {
-        return new SoftReference<>(new ByteArrayOutputStream(Math.min(1024, maxBufferSize)));
+        this.flushBuffer = new MessageBuffer(pool, maxBufferSize);
+        this.decompressBuffer = new MessageBuffer(pool, maxBufferSize);
     }
 
-    private ByteArrayOutputStream getDecompressBuffer()
+    private InflaterStream getInflaterStream()
     {
-        // If no buffer has been allocated yet we do that here (lazy init)
-        if (decompressBuffer == null)
-            decompressBuffer = newDecompressBuffer();
-        // Check if the buffer has been collected by the GC or not
-        ByteArrayOutputStream buffer = decompressBuffer.get();
-        if (buffer == null) // create a ne buffer because the GC got it
-            decompressBuffer = new SoftReference<>(buffer = new ByteArrayOutputStream(Math.min(1024, maxBufferSize)));
-        return buffer;
+        if (inflaterStream == null)
+            inflaterStream = new InflaterStream();
+        return inflaterStream;
     }
 
     private boolean isFlush(byte[] data)
@@ -68,23 +66,6 @@ public class ZlibDecompressor implements Decompressor
         return suffix == Z_SYNC_FLUSH;
     }
 
-    private void buffer(byte[] data)
-    {
-        if (flushBuffer == null)
-            flushBuffer = ByteBuffer.allocate(data.length * 2);
-
-        //Ensure the capacity can hold the new data, ByteBuffer doesn't grow automatically
-        if (flushBuffer.capacity() < data.length + flushBuffer.position())
-        {
-            //Flip to make it a read buffer
-            flushBuffer.flip();
-            //Reallocate for the new capacity
-            flushBuffer = IOUtil.reallocate(flushBuffer, (flushBuffer.capacity() + data.length) * 2);
-        }
-
-        flushBuffer.put(data);
-    }
-
     private Object lazy(byte[] data)
     {
         return JDALogger.getLazyString(() -> Arrays.toString(data));
@@ -100,6 +81,8 @@ public class ZlibDecompressor implements Decompressor
     public void reset()
     {
         inflater.reset();
+        // An incomplete message of the previous connection can never be completed
+        flushBuffer.release();
     }
 
     @Override
@@ -110,49 +93,120 @@ public class ZlibDecompressor implements Decompressor
 
     @Override
     public byte[] decompress(byte[] data) throws DataFormatException
+    {
+        data = completeMessage(data);
+        if (data == null)
+            return null; // signal failure to decompress
+        LOG.trace("Decompressing data {}", lazy(data));
+        inflater.setInput(data);
+        try
+        {
+            // Inflate the entire message into a pooled buffer, the inflated message is usually larger than the input
+            decompressBuffer.readFrom(getInflaterStream(), Math.max(1024, data.length));
+            // Once decompressed we re-interpret the data as a String which can be used for JSON parsing
+            return decompressBuffer.toByteArray();
+        }
+        catch (IOException e)
+        {
+            // Some issue appeared during decompression that caused a failure
+            throw (DataFormatException) new DataFormatException("Malformed").initCause(e);
+        }
+        finally
+        {
+            // The buffer goes back to the pool, to be used by any other shard
+            decompressBuffer.release();
+        }
+    }
+
+    @Override
+    public InputStream decompressStream(byte[] data)
+    {
+        data = completeMessage(data);
+        if (data == null)
+            return null; // signal failure to decompress
+        LOG.trace("Decompressing data {}", lazy(data));
+        // The inflater reads directly from the compressed message,
+        // the consumer of the stream provides the output buffer on every read
+        inflater.setInput(data);
+        return getInflaterStream();
+    }
+
+    @Nullable
+    private byte[] completeMessage(byte[] data)
     {
         //Handle split messages
         if (!isFlush(data))
         {
             //There is no flush suffix so this is not the end of the message
             LOG.debug("Received incomplete data, writing to buffer. Length: {}", data.length);
-            buffer(data);
-            return null; // signal failure to decompress
+            flushBuffer.write(data, 0, data.length);
+            return null;
         }
-        else if (flushBuffer != null)
+        else if (!flushBuffer.isEmpty())
         {
             //This has a flush suffix and we have an incomplete package buffered
             //concatenate the package with the new data and decompress it below
             LOG.debug("Received final part of incomplete data");
-            buffer(data);
-            byte[] arr = flushBuffer.array();
-            data = new byte[flushBuffer.position()];
-            System.arraycopy(arr, 0, data, 0, data.length);
-            flushBuffer = null;
+            flushBuffer.write(data, 0, data.length);
+            data = flushBuffer.toByteArray();
+            flushBuffer.release();
         }
-        LOG.trace("Decompressing data {}", lazy(data));
-        //Get the compressed message and inflate it
-        //We use the same buffer here to optimize gc use
-        ByteArrayOutputStream buffer = getDecompressBuffer();
-        try (InflaterOutputStream decompressor = new InflaterOutputStream(buffer, inflater))
+        return data;
+    }
+
+    // Reads the inflated message straight out of the inflater into the buffer provided by the reader.
+    // This instance is reused for every message, the input is replaced by decompressStream.
+    private class InflaterStream extends InputStream
+    {
+        private final byte[] single = new byte[1];
+        private byte[] skipBuffer;
+
+        @Override
+        public int read() throws IOException
         {
-            // This decompressor writes the received data and inflates it
-            decompressor.write(data);
-            // Once decompressed we re-interpret the data as a String which can be used for JSON parsing
-            return buffer.toByteArray();
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
         }
-        catch (IOException e)
+
+        @Override
+        public int read(@Nonnull byte[] b, int off, int len) throws IOException
         {
-            // Some issue appeared during decompression that caused a failure
-            throw (DataFormatException) new DataFormatException("Malformed").initCause(e);
+            if (len == 0)
+                return 0;
+            try
+            {
+                int read;
+                while ((read = inflater.inflate(b, off, len)) == 0)
+                {
+                    // The message ends with the sync flush, once all input is consumed we have reached the end
+                    if (inflater.finished() || inflater.needsInput())
+                        return -1;
+                    if (inflater.needsDictionary())
+                        throw new ZipException("Missing preset dictionary");
+                }
+                return read;
+            }
+            catch (DataFormatException e)
+            {
+                String message = e.getMessage();
+                throw new ZipException(message != null ? message : "Malformed");
+            }
         }
-        finally
+
+        @Override
+        public int available()
+        {
+            return inflater.needsInput() ? 0 : 1;
+        }
+
+        @Override
+        public void close() throws IOException
         {
-            // When done with decompression we want to reset the buffer so it can be used again later
-            if (buffer.size() > maxBufferSize)
-                decompressBuffer = newDecompressBuffer();
-            else
-                buffer.reset();
+            // The parser might stop before the end of the input, we have to consume the rest to keep the zlib context intact
+            if (inflater.needsInput() || inflater.finished())
+                return;
+            if (skipBuffer == null)
+                skipBuffer = new byte[512];
+            while (read(skipBuffer, 0, skipBuffer.length) != -1);
         }
     }
 }
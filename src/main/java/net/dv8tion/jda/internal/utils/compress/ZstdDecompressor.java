@@ -0,0 +1,223 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.internal.utils.compress;
+
+import com.github.luben.zstd.ZstdInputStreamNoFinalizer;
+import com.github.luben.zstd.util.Native;
+import net.dv8tion.jda.api.utils.BufferPool;
+import net.dv8tion.jda.api.utils.Compression;
+import net.dv8tion.jda.internal.utils.IOUtil;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.DataFormatException;
+
+/**
+ * Decompressor for the {@code zstd-stream} transport compression.
+ *
+ * <p>The gateway uses a single zstd frame for the entire connection, which is flushed at the end of every message.
+ * This decompressor keeps one decompression context open and feeds every message into it.
+ *
+ * <p>This requires the optional {@code zstd-jni} dependency, check {@link #isAvailable()} before creating an instance.
+ */
+public class ZstdDecompressor implements Decompressor
+{
+    private static Boolean available;
+
+    private final MessageSource source = new MessageSource();
+    private final MessageStream messageStream = new MessageStream();
+    private final MessageBuffer decompressBuffer;
+    private ZstdInputStreamNoFinalizer decompressor;
+
+    public ZstdDecompressor(int maxBufferSize)
+    {
+        this(maxBufferSize, BufferPool.getDefault());
+    }
+
+    public ZstdDecompressor(int maxBufferSize, BufferPool pool)
+    {
+        this.decompressBuffer = new MessageBuffer(pool, maxBufferSize);
+    }
+
+    public static synchronized boolean isAvailable()
+    {
+        if (available == null)
+        {
+            try
+            {
+                Native.load();
+                available = Native.isLoaded();
+            }
+            catch (LinkageError | SecurityException e)
+            {
+                LOG.debug("Failed to load zstd-jni", e);
+                available = false;
+            }
+        }
+        return available;
+    }
+
+    private ZstdInputStreamNoFinalizer getDecompressor() throws IOException
+    {
+        if (decompressor == null)
+        {
+            // Continuous mode allows us to read until the end of the current message without finishing the frame
+            decompressor = new ZstdInputStreamNoFinalizer(source);
+            decompressor.setContinuous(true);
+        }
+        return decompressor;
+    }
+
+    @Override
+    public Compression getType()
+    {
+        return Compression.ZSTD;
+    }
+
+    @Override
+    public void reset()
+    {
+        // A new connection starts a new frame, so we need a fresh context
+        if (decompressor != null)
+            IOUtil.silentClose(decompressor);
+        decompressor = null;
+        source.setInput(null);
+    }
+
+    @Override
+    public void shutdown()
+    {
+        reset();
+    }
+
+    @Override
+    public byte[] decompress(byte[] data) throws DataFormatException
+    {
+        source.setInput(data);
+        try
+        {
+            getDecompressor();
+            decompressBuffer.readFrom(messageStream, Math.max(1024, data.length));
+            return decompressBuffer.toByteArray();
+        }
+        catch (IOException e)
+        {
+            throw (DataFormatException) new DataFormatException("Malformed").initCause(e);
+        }
+        finally
+        {
+            decompressBuffer.release();
+        }
+    }
+
+    private int readMessage(byte[] b, int off, int len) throws IOException
+    {
+        int read = decompressor.read(b, off, len);
+        // When the previous read filled the buffer exactly, the decoder only notices the end of the input on the next pass
+        if (read == 0 && len > 0)
+            read = decompressor.read(b, off, len);
+        return read == 0 && len > 0 ? -1 : read;
+    }
+
+    @Override
+    public InputStream decompressStream(byte[] data) throws DataFormatException
+    {
+        source.setInput(data);
+        try
+        {
+            getDecompressor();
+        }
+        catch (IOException e)
+        {
+            throw (DataFormatException) new DataFormatException("Malformed").initCause(e);
+        }
+        return messageStream;
+    }
+
+    // Provides the compressed data of the current message to the zstd stream
+    private static class MessageSource extends InputStream
+    {
+        private byte[] input;
+        private int position;
+
+        private void setInput(byte[] input)
+        {
+            this.input = input;
+            this.position = 0;
+        }
+
+        @Override
+        public int read()
+        {
+            return input == null || position >= input.length ? -1 : input[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(@Nonnull byte[] b, int off, int len)
+        {
+            if (input == null || position >= input.length)
+                return -1;
+            int read = Math.min(len, input.length - position);
+            System.arraycopy(input, position, b, off, read);
+            position += read;
+            return read;
+        }
+
+        @Override
+        public int available()
+        {
+            return input == null ? 0 : input.length - position;
+        }
+
+        @Override
+        public void close() {}
+    }
+
+    // Reads the decompressed data of the current message, closing this consumes the remaining data of the message
+    private class MessageStream extends InputStream
+    {
+        private final byte[] single = new byte[1];
+        private byte[] skipBuffer;
+
+        @Override
+        public int read() throws IOException
+        {
+            return readMessage(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(@Nonnull byte[] b, int off, int len) throws IOException
+        {
+            return readMessage(b, off, len);
+        }
+
+        @Override
+        public int available() throws IOException
+        {
+            return decompressor.available();
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if (skipBuffer == null)
+                skipBuffer = new byte[512];
+            while (read(skipBuffer, 0, skipBuffer.length) > 0);
+        }
+    }
+}
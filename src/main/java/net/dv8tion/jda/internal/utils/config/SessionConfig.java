@@ -19,12 +19,16 @@ package net.dv8tion.jda.internal.utils.config;
 import com.neovisionaries.ws.client.WebSocketFactory;
 import net.dv8tion.jda.api.hooks.VoiceDispatchInterceptor;
 import net.dv8tion.jda.api.utils.ConcurrentSessionController;
+import net.dv8tion.jda.api.utils.GatewayQueuePolicy;
 import net.dv8tion.jda.api.utils.SessionController;
+import net.dv8tion.jda.api.utils.GatewayRecorder;
+import net.dv8tion.jda.api.utils.SessionResumeStore;
 import net.dv8tion.jda.internal.utils.config.flags.ConfigFlag;
 import okhttp3.OkHttpClient;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.nio.file.Path;
 import java.util.EnumSet;
 
 public class SessionConfig
@@ -36,6 +40,12 @@ public class SessionConfig
     private final int largeThreshold;
     private EnumSet<ConfigFlag> flags;
     private int maxReconnectDelay;
+    private int gatewayQueueSize = 0;
+    private GatewayQueuePolicy gatewayQueuePolicy = GatewayQueuePolicy.BLOCK;
+    private int dispatchThreads = 0;
+    private SessionResumeStore sessionResumeStore;
+    private Path cacheSnapshotDirectory;
+    private GatewayRecorder gatewayRecorder;
 
     public SessionConfig(
         @Nullable SessionController sessionController, @Nullable OkHttpClient httpClient,
@@ -64,6 +74,32 @@ public class SessionConfig
             flags.remove(ConfigFlag.AUTO_RECONNECT);
     }
 
+    public void setGatewayQueue(int size, @Nonnull GatewayQueuePolicy policy)
+    {
+        this.gatewayQueueSize = size;
+        this.gatewayQueuePolicy = policy;
+    }
+
+    public void setDispatchThreads(int dispatchThreads)
+    {
+        this.dispatchThreads = dispatchThreads;
+    }
+
+    public void setSessionResumeStore(@Nullable SessionResumeStore sessionResumeStore)
+    {
+        this.sessionResumeStore = sessionResumeStore;
+    }
+
+    public void setCacheSnapshotDirectory(@Nullable Path cacheSnapshotDirectory)
+    {
+        this.cacheSnapshotDirectory = cacheSnapshotDirectory;
+    }
+
+    public void setGatewayRecorder(@Nullable GatewayRecorder gatewayRecorder)
+    {
+        this.gatewayRecorder = gatewayRecorder;
+    }
+
     @Nonnull
     public SessionController getSessionController()
     {
@@ -118,6 +154,21 @@ public class SessionConfig
         return flags.contains(ConfigFlag.USE_RELATIVE_RATELIMIT);
     }
 
+    public boolean isStreamDecompression()
+    {
+        return flags.contains(ConfigFlag.STREAM_DECOMPRESSION);
+    }
+
+    public boolean isLazyParsing()
+    {
+        return flags.contains(ConfigFlag.LAZY_PARSING);
+    }
+
+    public boolean isSnowflakeDecoding()
+    {
+        return flags.contains(ConfigFlag.SNOWFLAKE_DECODING);
+    }
+
     public int getMaxReconnectDelay()
     {
         return maxReconnectDelay;
@@ -128,6 +179,40 @@ public class SessionConfig
         return largeThreshold;
     }
 
+    public int getGatewayQueueSize()
+    {
+        return gatewayQueueSize;
+    }
+
+    @Nonnull
+    public GatewayQueuePolicy getGatewayQueuePolicy()
+    {
+        return gatewayQueuePolicy;
+    }
+
+    public int getDispatchThreads()
+    {
+        return dispatchThreads;
+    }
+
+    @Nullable
+    public SessionResumeStore getSessionResumeStore()
+    {
+        return sessionResumeStore;
+    }
+
+    @Nullable
+    public Path getCacheSnapshotDirectory()
+    {
+        return cacheSnapshotDirectory;
+    }
+
+    @Nullable
+    public GatewayRecorder getGatewayRecorder()
+    {
+        return gatewayRecorder;
+    }
+
     public EnumSet<ConfigFlag> getFlags()
     {
         return flags;
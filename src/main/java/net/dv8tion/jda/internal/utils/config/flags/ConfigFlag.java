@@ -27,7 +27,10 @@ public enum ConfigFlag
     BULK_DELETE_SPLIT(true),
     SHUTDOWN_HOOK(true),
     MDC_CONTEXT(true),
-    AUTO_RECONNECT(true);
+    AUTO_RECONNECT(true),
+    STREAM_DECOMPRESSION,
+    LAZY_PARSING,
+    SNOWFLAKE_DECODING;
 
     private final boolean isDefault;
 
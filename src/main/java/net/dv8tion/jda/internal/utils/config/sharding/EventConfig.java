@@ -16,6 +16,7 @@
 
 package net.dv8tion.jda.internal.utils.config.sharding;
 
+import net.dv8tion.jda.api.events.GenericEvent;
 import net.dv8tion.jda.api.hooks.IEventManager;
 import net.dv8tion.jda.internal.utils.Checks;
 
@@ -23,6 +24,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.function.IntFunction;
 
 public class EventConfig
@@ -30,6 +32,7 @@ public class EventConfig
     private final List<Object> listeners = new ArrayList<>();
     private final List<IntFunction<Object>> listenerProviders = new ArrayList<>();
     private final IntFunction<? extends IEventManager> eventManagerProvider;
+    private Set<Class<? extends GenericEvent>> wantedEvents;
 
     public EventConfig(@Nullable IntFunction<? extends IEventManager> eventManagerProvider)
     {
@@ -78,6 +81,17 @@ public class EventConfig
         return eventManagerProvider;
     }
 
+    public void setWantedEvents(@Nullable Set<Class<? extends GenericEvent>> wantedEvents)
+    {
+        this.wantedEvents = wantedEvents;
+    }
+
+    @Nullable
+    public Set<Class<? extends GenericEvent>> getWantedEvents()
+    {
+        return wantedEvents;
+    }
+
     @Nonnull
     public static EventConfig getDefault()
     {
@@ -54,7 +54,12 @@ public class ShardingSessionConfig extends SessionConfig
 
     public SessionConfig toSessionConfig(OkHttpClient client)
     {
-        return new SessionConfig(getSessionController(), client, getWebSocketFactory(), getVoiceDispatchInterceptor(), getFlags(), getMaxReconnectDelay(), getLargeThreshold());
+        SessionConfig config = new SessionConfig(getSessionController(), client, getWebSocketFactory(), getVoiceDispatchInterceptor(), getFlags(), getMaxReconnectDelay(), getLargeThreshold());
+        config.setGatewayQueue(getGatewayQueueSize(), getGatewayQueuePolicy());
+        config.setDispatchThreads(getDispatchThreads());
+        config.setSessionResumeStore(getSessionResumeStore());
+        config.setCacheSnapshotDirectory(getCacheSnapshotDirectory());
+        return config;
     }
 
     public EnumSet<ShardingConfigFlag> getShardingFlags()
@@ -94,6 +94,11 @@ public class IntegrationTest
 
         when(response.isOk()).thenReturn(true);
         when(response.getArray()).thenReturn(array);
+        doAnswer(invocation -> {
+            Consumer<DataObject> consumer = invocation.getArgument(0);
+            array.stream(DataArray::getObject).forEach(consumer);
+            return null;
+        }).when(response).forEachObject(any());
 
         doNothing().when(request).onSuccess(assertArg(assertion));
 
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.test.compress;
+
+import net.dv8tion.jda.api.utils.BufferPool;
+import net.dv8tion.jda.internal.utils.compress.Decompressor;
+import net.dv8tion.jda.internal.utils.compress.ZlibDecompressor;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BufferPoolTest
+{
+    @Test
+    void testSizeClasses()
+    {
+        BufferPool pool = new BufferPool(1 << 20, false);
+        ByteBuffer small = pool.acquire(10);
+        ByteBuffer medium = pool.acquire(5000);
+        assertThat(small.capacity()).isEqualTo(BufferPool.MIN_BUFFER_SIZE);
+        assertThat(medium.capacity()).isEqualTo(8192);
+        assertThat(pool.getBorrowedBytes()).isEqualTo(BufferPool.MIN_BUFFER_SIZE + 8192);
+
+        medium.put((byte) 1);
+        pool.release(medium);
+        assertThat(pool.getPooledBytes()).isEqualTo(8192);
+        ByteBuffer reused = pool.acquire(4097);
+        assertThat(reused).isSameAs(medium);
+        assertThat(reused.position()).isZero();
+
+        assertThat(pool.getHitCount()).isEqualTo(1);
+        assertThat(pool.getMissCount()).isEqualTo(2);
+        assertThat(pool.getHitRate()).isEqualTo(1.0 / 3);
+        assertThat(pool.getPeakBytes()).isEqualTo(BufferPool.MIN_BUFFER_SIZE + 8192);
+    }
+
+    @Test
+    void testLimit()
+    {
+        BufferPool pool = new BufferPool(8192, true);
+        ByteBuffer first = pool.acquire(8192);
+        ByteBuffer second = pool.acquire(8192);
+        ByteBuffer huge = pool.acquire(BufferPool.MAX_BUFFER_SIZE + 1);
+        assertThat(first.isDirect()).isTrue();
+        assertThat(huge.capacity()).isEqualTo(BufferPool.MAX_BUFFER_SIZE + 1);
+
+        pool.release(huge);
+        pool.release(first);
+        // The pool is full, this buffer is dropped
+        pool.release(second);
+        assertThat(pool.getPooledBytes()).isEqualTo(8192);
+        assertThat(pool.getBorrowedBytes()).isZero();
+        assertThat(pool.getPeakBytes()).isEqualTo(2 * 8192 + BufferPool.MAX_BUFFER_SIZE + 1);
+
+        assertThat(pool.acquire(8192)).isSameAs(first);
+        assertThat(pool.acquire(8192)).isNotSameAs(second);
+        pool.clear();
+        assertThat(pool.getPooledBytes()).isZero();
+    }
+
+    @Test
+    void testDecompressorsShareDirectPool() throws Exception
+    {
+        BufferPool pool = new BufferPool(1 << 20, true);
+        Decompressor first = new ZlibDecompressor(1 << 16, pool);
+        Decompressor second = new ZlibDecompressor(1 << 16, pool);
+        String[] messages = { "{\"op\":11}", repeat("{\"t\":\"MESSAGE_CREATE\"}", 1000), repeat("x", 3000) };
+
+        Deflater firstDeflater = new Deflater(), secondDeflater = new Deflater();
+        for (String message : messages)
+        {
+            byte[] compressed = compress(firstDeflater, message);
+            // Split messages are buffered until the sync flush arrives
+            assertThat(first.decompress(Arrays.copyOfRange(compressed, 0, compressed.length / 2))).isNull();
+            byte[] decompressed = first.decompress(Arrays.copyOfRange(compressed, compressed.length / 2, compressed.length));
+            assertThat(new String(decompressed, StandardCharsets.UTF_8)).isEqualTo(message);
+            assertThat(new String(second.decompress(compress(secondDeflater, message)), StandardCharsets.UTF_8)).isEqualTo(message);
+            assertThat(pool.getBorrowedBytes()).isZero();
+        }
+        firstDeflater.end();
+        secondDeflater.end();
+
+        // After the first messages, the shards reuse the same buffers
+        assertThat(pool.getHitCount()).isGreaterThan(pool.getMissCount());
+        assertThat(pool.getPooledBytes()).isPositive().isLessThanOrEqualTo(pool.getPeakBytes());
+    }
+
+    private static byte[] compress(Deflater deflater, String message)
+    {
+        deflater.setInput(message.getBytes(StandardCharsets.UTF_8));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int length;
+        while ((length = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH)) > 0)
+            output.write(buffer, 0, length);
+        return output.toByteArray();
+    }
+
+    private static String repeat(String value, int count)
+    {
+        StringBuilder builder = new StringBuilder(value.length() * count);
+        for (int i = 0; i < count; i++)
+            builder.append(value);
+        return builder.toString();
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.test.compress;
+
+import net.dv8tion.jda.api.utils.data.DataArray;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.internal.utils.compress.Decompressor;
+import net.dv8tion.jda.internal.utils.compress.ZlibDecompressor;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ZlibDecompressorTest
+{
+    private static final int MAX_BUFFER_SIZE = 2048;
+
+    @Test
+    void testStreamMatchesBuffered() throws Exception
+    {
+        List<DataObject> payloads = Arrays.asList(createGuild(1, 10), createGuild(2, 500), createGuild(3, 0));
+        List<byte[]> frames = compress(payloads);
+
+        Decompressor buffered = new ZlibDecompressor(MAX_BUFFER_SIZE);
+        Decompressor streaming = new ZlibDecompressor(MAX_BUFFER_SIZE);
+        for (int i = 0; i < frames.size(); i++)
+        {
+            DataObject expected = DataObject.fromJson(buffered.decompress(frames.get(i)));
+            assertThat(expected).isEqualTo(DataObject.fromJson(payloads.get(i).toJson()));
+            assertThat(readStream(streaming, frames.get(i))).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void testStreamSplitMessage() throws Exception
+    {
+        List<DataObject> payloads = Arrays.asList(createGuild(1, 100), createGuild(2, 100));
+        List<byte[]> frames = compress(payloads);
+        byte[] first = frames.get(0);
+        int half = first.length / 2;
+
+        Decompressor streaming = new ZlibDecompressor(MAX_BUFFER_SIZE);
+        assertThat(streaming.decompressStream(Arrays.copyOfRange(first, 0, half))).isNull();
+        assertThat(readStream(streaming, Arrays.copyOfRange(first, half, first.length))).isEqualTo(DataObject.fromJson(payloads.get(0).toJson()));
+        assertThat(readStream(streaming, frames.get(1))).isEqualTo(DataObject.fromJson(payloads.get(1).toJson()));
+    }
+
+    private static DataObject readStream(Decompressor decompressor, byte[] frame) throws Exception
+    {
+        try (InputStream stream = decompressor.decompressStream(frame))
+        {
+            assertThat(stream).isNotNull();
+            return DataObject.fromJson(stream);
+        }
+    }
+
+    private static List<byte[]> compress(List<DataObject> payloads)
+    {
+        // Discord uses a shared zlib context for all messages on a connection, each message ends with a sync flush
+        Deflater deflater = new Deflater();
+        List<byte[]> frames = new ArrayList<>(payloads.size());
+        byte[] buffer = new byte[8192];
+        for (DataObject payload : payloads)
+        {
+            deflater.setInput(payload.toJson());
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            int length;
+            while ((length = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH)) > 0)
+                output.write(buffer, 0, length);
+            frames.add(output.toByteArray());
+        }
+        deflater.end();
+        return frames;
+    }
+
+    private static DataObject createGuild(long guildId, int memberCount)
+    {
+        DataArray members = DataArray.empty();
+        for (int i = 0; i < memberCount; i++)
+        {
+            members.add(DataObject.empty()
+                .put("user", DataObject.empty()
+                    .put("id", Long.toUnsignedString(guildId << 32 | i))
+                    .put("username", "user" + i)
+                    .put("discriminator", "0000")
+                    .put("avatar", null))
+                .put("roles", DataArray.empty().add(Long.toUnsignedString(guildId)))
+                .put("joined_at", "2024-01-01T12:34:56.789Z")
+                .put("deaf", false)
+                .put("mute", false));
+        }
+
+        return DataObject.empty()
+            .put("op", 0)
+            .put("s", guildId)
+            .put("t", "GUILD_CREATE")
+            .put("d", DataObject.empty()
+                .put("id", Long.toUnsignedString(guildId))
+                .put("name", "Guild " + guildId)
+                .put("member_count", memberCount)
+                .put("members", members));
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.test.compress;
+
+import com.github.luben.zstd.ZstdOutputStreamNoFinalizer;
+import net.dv8tion.jda.api.utils.Compression;
+import net.dv8tion.jda.api.utils.data.DataArray;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.internal.utils.compress.Decompressor;
+import net.dv8tion.jda.internal.utils.compress.ZstdDecompressor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assumptions.assumeThat;
+
+public class ZstdDecompressorTest
+{
+    @BeforeEach
+    void checkAvailable()
+    {
+        assumeThat(ZstdDecompressor.isAvailable()).isTrue();
+    }
+
+    @Test
+    void testDecompress() throws Exception
+    {
+        List<DataObject> payloads = Arrays.asList(createPayload(1, 10), createPayload(2, 2000), createPayload(3, 0));
+        List<byte[]> frames = compress(payloads);
+
+        Decompressor buffered = new ZstdDecompressor(2048);
+        Decompressor streaming = new ZstdDecompressor(2048);
+        assertThat(buffered.getType()).isEqualTo(Compression.ZSTD);
+        for (int i = 0; i < frames.size(); i++)
+        {
+            DataObject expected = DataObject.fromJson(payloads.get(i).toJson());
+            assertThat(DataObject.fromJson(buffered.decompress(frames.get(i)))).isEqualTo(expected);
+            try (InputStream stream = streaming.decompressStream(frames.get(i)))
+            {
+                assertThat(DataObject.fromJson(stream)).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void testReset() throws Exception
+    {
+        DataObject payload = createPayload(1, 100);
+        Decompressor decompressor = new ZstdDecompressor(2048);
+
+        // Every connection starts with a new frame
+        for (int i = 0; i < 2; i++)
+        {
+            byte[] frame = compress(Arrays.asList(payload)).get(0);
+            assertThat(DataObject.fromJson(decompressor.decompress(frame))).isEqualTo(DataObject.fromJson(payload.toJson()));
+            decompressor.reset();
+        }
+    }
+
+    private static List<byte[]> compress(List<DataObject> payloads) throws IOException
+    {
+        // The gateway keeps a single frame open and flushes at the end of every message
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        List<byte[]> frames = new ArrayList<>(payloads.size());
+        try (ZstdOutputStreamNoFinalizer compressor = new ZstdOutputStreamNoFinalizer(output))
+        {
+            for (DataObject payload : payloads)
+            {
+                compressor.write(payload.toJson());
+                compressor.flush();
+                frames.add(output.toByteArray());
+                output.reset();
+            }
+        }
+        return frames;
+    }
+
+    private static DataObject createPayload(int sequence, int size)
+    {
+        DataArray presences = DataArray.empty();
+        for (int i = 0; i < size; i++)
+        {
+            presences.add(DataObject.empty()
+                .put("user", DataObject.empty().put("id", String.valueOf(i)))
+                .put("status", "online"));
+        }
+
+        return DataObject.empty()
+            .put("op", 0)
+            .put("s", sequence)
+            .put("t", "PRESENCES_REPLACE")
+            .put("d", presences);
+    }
+}
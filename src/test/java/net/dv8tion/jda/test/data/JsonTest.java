@@ -19,8 +19,10 @@ package net.dv8tion.jda.test.data;
 import net.dv8tion.jda.api.exceptions.ParsingException;
 import net.dv8tion.jda.api.utils.data.DataArray;
 import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.api.utils.data.DataType;
 import net.dv8tion.jda.internal.utils.Helpers;
 import net.dv8tion.jda.test.PrettyRepresentation;
+import org.apache.commons.lang3.StringUtils;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
@@ -156,6 +158,145 @@ public class JsonTest
             assertThat(DataObject.fromJson(new ByteArrayInputStream(testJson.getBytes(StandardCharsets.UTF_8))))
                 .withRepresentation(new PrettyRepresentation())
                 .isEqualTo(reference);
+            assertThat(DataObject.fromJsonLazy(testJson.getBytes(StandardCharsets.UTF_8)))
+                .withRepresentation(new PrettyRepresentation())
+                .isEqualTo(reference);
+        }
+
+        @Test
+        void testParseLazy()
+        {
+            String json = jsonOf(
+                kv("op", 0),
+                kv("s", 42),
+                kv("t", "MESSAGE_CREATE"),
+                kv("d", (Object) testJson),
+                kv("list", (Object) testJsonArray)
+            );
+            DataObject reference = DataObject.fromJson(json);
+            DataObject lazy = DataObject.fromJsonLazy(json.getBytes(StandardCharsets.UTF_8));
+
+            assertThat(lazy.getInt("op")).isEqualTo(0);
+            assertThat(lazy.getInt("s")).isEqualTo(42);
+            assertThat(lazy.getString("t")).isEqualTo("MESSAGE_CREATE");
+            assertThat(lazy.isType("d", DataType.OBJECT)).isTrue();
+            assertThat(lazy.getArray("list")).isEqualTo(reference.getArray("list"));
+
+            DataObject content = lazy.getObject("d");
+            assertThat(content.getLong("long")).isEqualTo(100);
+            assertThat(content.getOffsetDateTime("time")).isEqualTo(TEST_TIME);
+            assertThat(content).isEqualTo(reference.getObject("d"));
+            assertThat(lazy)
+                .withRepresentation(new PrettyRepresentation())
+                .isEqualTo(reference);
+            assertThat(DataObject.fromJson(lazy.toString())).isEqualTo(reference);
+        }
+
+        @Test
+        void testParseLazyMalformed()
+        {
+            byte[] json = jsonOf(kv("op", 0), kv("d", (Object) "{\"key\": [}")).getBytes(StandardCharsets.UTF_8);
+
+            assertThatThrownBy(() -> DataObject.fromJsonLazy(json))
+                .isInstanceOf(ParsingException.class);
+            assertThatThrownBy(() -> DataObject.fromJsonLazy("[]".getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(ParsingException.class);
+        }
+
+        @Test
+        void testParseSnowflakes()
+        {
+            String member = jsonOf(
+                kv("user", (Object) jsonOf(kv("id", "86699011792191488"), kv("username", "minn"))),
+                kv("roles", (Object) "[\"125227483518861312\", \"0\"]"),
+                kv("guild_id", "125227483518861312"),
+                kv("custom_id", "007"),
+                kv("session_id", "a1b2c3"),
+                kv("name", "12345"),
+                kv("overflow_id", "99999999999999999999"),
+                kv("nonce", 42)
+            );
+            byte[] json = member.getBytes(StandardCharsets.UTF_8);
+            DataObject reference = DataObject.fromJson(member);
+
+            for (DataObject object : Arrays.asList(DataObject.fromJson(json, true), DataObject.fromJsonLazy(json, true)))
+            {
+                DataObject user = object.getObject("user");
+                assertThat(user.get("id")).isEqualTo("86699011792191488");
+                assertThat(user.getUnsignedLong("id")).isEqualTo(86699011792191488L);
+                assertThat(user.getLong("id")).isEqualTo(86699011792191488L);
+                assertThat(user.getString("id")).isEqualTo("86699011792191488");
+                assertThat(user.isType("id", DataType.STRING)).isTrue();
+
+                DataArray roles = object.getArray("roles");
+                assertThat(roles.getUnsignedLong(0)).isEqualTo(125227483518861312L);
+                assertThat(roles.getString(1)).isEqualTo("0");
+                assertThat(object.getUnsignedLong("guild_id")).isEqualTo(125227483518861312L);
+
+                // Strings which would not be identical as a number are kept
+                assertThat(object.get("custom_id")).isEqualTo("007");
+                assertThat(object.get("session_id")).isEqualTo("a1b2c3");
+                assertThat(object.get("overflow_id")).isEqualTo("99999999999999999999");
+                assertThat(object.get("name")).isEqualTo("12345");
+                assertThat(object.getInt("nonce")).isEqualTo(42);
+
+                // Decoded snowflakes are serialized as strings again
+                assertThat(DataObject.fromJson(object.toJson())).isEqualTo(reference);
+                assertThat(DataObject.fromETF(object.toETF())).isEqualTo(DataObject.fromETF(reference.toETF()));
+
+                // Raw maps and lists contain the same strings as without decoding
+                assertThat(object.getArray("roles").toList()).containsExactly("125227483518861312", "0");
+                assertThat(object.toMap()).isEqualTo(reference.toMap());
+            }
+
+            assertThat(DataObject.fromJson(json, false)).isEqualTo(reference);
+        }
+
+        @Test
+        void testETFKeys()
+        {
+            String longKey = StringUtils.repeat('k', 100);
+            DataObject member = DataObject.empty()
+                .put("joined_at", "2020-01-01T00:00:00.000000+00:00")
+                .put("nick", "minn")
+                .put("s\u00fc\u00df", "non-ascii")
+                .put(longKey, "long");
+            DataObject payload = DataObject.empty()
+                .put("members", DataArray.empty().add(member).add(member));
+
+            DataArray members = DataObject.fromETF(payload.toETF()).getArray("members");
+            DataObject first = members.getObject(0);
+            DataObject second = members.getObject(1);
+
+            assertThat(first).isEqualTo(member);
+            assertThat(second).isEqualTo(member);
+            // Repeated keys are decoded to the same string instance
+            assertThat(findKey(second, "joined_at")).isSameAs(findKey(first, "joined_at"));
+            assertThat(findKey(second, "nick")).isSameAs("nick");
+            assertThat(second.getString("s\u00fc\u00df")).isEqualTo("non-ascii");
+            assertThat(second.getString(longKey)).isEqualTo("long");
+        }
+
+        @Test
+        void testETFLongs()
+        {
+            DataObject object = DataObject.empty()
+                .put("small", 255L)
+                .put("int", (long) Integer.MAX_VALUE)
+                .put("unsigned", 4198498304L)
+                .put("snowflake", 125227483518861312L);
+
+            DataObject decoded = DataObject.fromETF(object.toETF());
+
+            assertThat(decoded.getLong("small")).isEqualTo(255L);
+            assertThat(decoded.getLong("int")).isEqualTo(Integer.MAX_VALUE);
+            assertThat(decoded.getLong("unsigned")).isEqualTo(4198498304L);
+            assertThat(decoded.getLong("snowflake")).isEqualTo(125227483518861312L);
+        }
+
+        private String findKey(DataObject object, String key)
+        {
+            return object.keys().stream().filter(key::equals).findFirst().orElse(null);
         }
     }
 
@@ -305,6 +446,27 @@ public class JsonTest
                 .isEqualTo(simpleEtfArray);
         }
 
+        @Test
+        void testForEachObject()
+        {
+            List<Integer> ids = new ArrayList<>();
+            int count = DataArray.forEachObject(new StringReader("[{\"id\": 1, \"user\": {\"id\": 2}}, {\"id\": 3}]"), object -> {
+                ids.add(object.getInt("id"));
+                if (object.hasKey("user"))
+                    ids.add(object.getObject("user").getInt("id"));
+            });
+            assertThat(count).isEqualTo(2);
+            assertThat(ids).containsExactly(1, 2, 3);
+            assertThat(DataArray.forEachObject(new StringReader("[]"), object -> {})).isZero();
+
+            assertThatThrownBy(() -> DataArray.forEachObject(new StringReader(testJson), object -> {}))
+                .isInstanceOf(ParsingException.class)
+                .hasMessage("Expected JSON array but got START_OBJECT");
+            assertThatThrownBy(() -> DataArray.forEachObject(new StringReader(testJsonArray), object -> {}))
+                .isInstanceOf(ParsingException.class)
+                .hasMessage("Expected JSON object but got VALUE_NUMBER_INT");
+        }
+
         @Test
         void testExTerm()
         {
@@ -0,0 +1,891 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.test.gateway;
+
+import net.dv8tion.jda.api.utils.data.DataArray;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.api.utils.data.DataType;
+import net.dv8tion.jda.internal.utils.JDALogger;
+import org.slf4j.Logger;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+
+/**
+ * Local gateway and REST server, which mimics the parts of Discord required to log in shards.
+ *
+ * <p>The server speaks HELLO, IDENTIFY, READY, HEARTBEAT, RESUME and REQUEST_GUILD_MEMBERS,
+ * with JSON or ETF encoding and optional {@code zlib-stream} compression.
+ * Every shard receives synthetic guilds of a configurable size, and can receive {@code MESSAGE_CREATE} events at a fixed rate.
+ * The REST endpoints {@code users/@me}, {@code users/{user_id}}, {@code gateway}, and {@code gateway/bot} are served on the same port,
+ * so a shard manager only needs a different {@link net.dv8tion.jda.api.requests.RestConfig#setBaseUrl(String) base url}:
+ *
+ * <pre>{@code
+ * MockGatewayServer server = new MockGatewayServer().setShardsTotal(256).setMaxConcurrency(16).setMembersPerGuild(5000).start();
+ * DefaultShardManagerBuilder.createLight("token")
+ *     .setRestConfig(new RestConfig().setBaseUrl(server.getRestUrl()))
+ *     .setSessionController(new ConcurrentSessionController())
+ *     .build();
+ * }</pre>
+ *
+ * <p>This is meant for load tests of logins, session controllers, and reconnects without a connection to Discord.
+ * The server does not enforce identify rate limits, and a resumed session does not replay missed events.
+ */
+public class MockGatewayServer implements Closeable
+{
+    public static final Logger LOG = JDALogger.getLog(MockGatewayServer.class);
+
+    public static final long SELF_ID = 1000L << 22;
+    public static final int CHUNK_SIZE = 1000;
+
+    private static final String WEBSOCKET_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    private static final String JOINED_AT = "2020-01-01T00:00:00.000000+00:00";
+
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger identifyCount = new AtomicInteger();
+    private final AtomicInteger resumeCount = new AtomicInteger();
+    private final AtomicInteger dispatchCount = new AtomicInteger();
+    private final Map<String, AtomicInteger> restCounts = new ConcurrentHashMap<>();
+
+    private int shardsTotal = 1;
+    private int maxConcurrency = 1;
+    private int guildsPerShard = 1;
+    private int membersPerGuild = 10;
+    private int dispatchRate = 0;
+    private int heartbeatInterval = 41250;
+    private int restDelay = 0;
+    private boolean renameUsersPerGuild = false;
+
+    private ServerSocket server;
+    private ExecutorService executor;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * The recommended shard total, returned by {@code gateway/bot}.
+     */
+    public MockGatewayServer setShardsTotal(int shardsTotal)
+    {
+        this.shardsTotal = shardsTotal;
+        return this;
+    }
+
+    /**
+     * The identify concurrency, returned by {@code gateway/bot}.
+     */
+    public MockGatewayServer setMaxConcurrency(int maxConcurrency)
+    {
+        this.maxConcurrency = maxConcurrency;
+        return this;
+    }
+
+    public MockGatewayServer setGuildsPerShard(int guildsPerShard)
+    {
+        this.guildsPerShard = guildsPerShard;
+        return this;
+    }
+
+    /**
+     * The number of members in every guild, including the bot itself.
+     * <br>Guilds above the {@code large_threshold} of the IDENTIFY only include the first members, the rest has to be chunked.
+     */
+    public MockGatewayServer setMembersPerGuild(int membersPerGuild)
+    {
+        this.membersPerGuild = Math.max(1, membersPerGuild);
+        return this;
+    }
+
+    /**
+     * The number of {@code MESSAGE_CREATE} events sent to every shard per second, once it is connected.
+     */
+    public MockGatewayServer setDispatchRate(int dispatchRate)
+    {
+        this.dispatchRate = dispatchRate;
+        return this;
+    }
+
+    public MockGatewayServer setHeartbeatInterval(int heartbeatInterval)
+    {
+        this.heartbeatInterval = heartbeatInterval;
+        return this;
+    }
+
+    /**
+     * The delay in milliseconds before a REST response is sent, which allows requests to overlap.
+     */
+    public MockGatewayServer setRestDelay(int restDelay)
+    {
+        this.restDelay = restDelay;
+        return this;
+    }
+
+    /**
+     * Whether the users, except the bot itself, have a different global name in each guild.
+     * <br>This is like a user which was renamed while the guilds were sent, the last completed guild has the current name.
+     */
+    public MockGatewayServer setRenameUsersPerGuild(boolean renameUsersPerGuild)
+    {
+        this.renameUsersPerGuild = renameUsersPerGuild;
+        return this;
+    }
+
+    public MockGatewayServer start() throws IOException
+    {
+        server = new ServerSocket(0, 1024, InetAddress.getLoopbackAddress());
+        executor = Executors.newCachedThreadPool(daemon("MockGateway-Worker"));
+        scheduler = Executors.newScheduledThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors() / 2), daemon("MockGateway-Dispatch"));
+        executor.execute(this::accept);
+        return this;
+    }
+
+    public String getGatewayUrl()
+    {
+        return "ws://127.0.0.1:" + server.getLocalPort() + "/";
+    }
+
+    public String getRestUrl()
+    {
+        return "http://127.0.0.1:" + server.getLocalPort() + "/api/";
+    }
+
+    public int getConnectionCount()
+    {
+        return connections.size();
+    }
+
+    public int getIdentifyCount()
+    {
+        return identifyCount.get();
+    }
+
+    public int getResumeCount()
+    {
+        return resumeCount.get();
+    }
+
+    public int getDispatchCount()
+    {
+        return dispatchCount.get();
+    }
+
+    /**
+     * The number of REST requests for the endpoint, relative to the {@link #getRestUrl() rest url} and without query.
+     */
+    public int getRestCount(String endpoint)
+    {
+        AtomicInteger count = restCounts.get(endpoint);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * Closes every connection with the provided close code, which causes a reconnect storm.
+     *
+     * @param code
+     *        The close code, codes which allow a resume keep the sessions valid
+     */
+    public void disconnectAll(int code)
+    {
+        for (Connection connection : connections)
+            connection.close(code);
+    }
+
+    /**
+     * Forgets all sessions, which makes every following RESUME fail with an INVALID_SESSION.
+     */
+    public void invalidateSessions()
+    {
+        sessions.clear();
+    }
+
+    @Override
+    public void close()
+    {
+        try
+        {
+            if (server != null)
+                server.close();
+        }
+        catch (IOException ignored) {}
+        disconnectAll(1001);
+        if (scheduler != null)
+            scheduler.shutdownNow();
+        if (executor != null)
+            executor.shutdownNow();
+    }
+
+    private void accept()
+    {
+        while (!server.isClosed())
+        {
+            try
+            {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                executor.execute(new Connection(socket));
+            }
+            catch (RejectedExecutionException | SocketException e)
+            {
+                return;
+            }
+            catch (IOException e)
+            {
+                LOG.error("Failed to accept connection", e);
+            }
+        }
+    }
+
+    // Synthetic entities
+
+    private static long getGuildId(int shardId, int shardsTotal, int index)
+    {
+        // The guild must belong to the shard, which is (id >> 22) % total
+        return ((long) (index + 1000) * shardsTotal + shardId) << 22;
+    }
+
+    private static long getUserId(int index)
+    {
+        return index == 0 ? SELF_ID : SELF_ID + index;
+    }
+
+    private static DataObject createUser(int index)
+    {
+        return DataObject.empty()
+                .put("id", Long.toUnsignedString(getUserId(index)))
+                .put("username", index == 0 ? "MockBot" : "user" + index)
+                .put("discriminator", "0")
+                .put("global_name", null)
+                .put("avatar", null)
+                .put("bot", index == 0);
+    }
+
+    /**
+     * The id of the role, which every member with an odd index has.
+     */
+    public static long getMemberRoleId(long guildId)
+    {
+        return guildId + 2;
+    }
+
+    private DataObject createMember(long guildId, int index)
+    {
+        DataArray roles = DataArray.empty();
+        if (index % 2 == 1)
+            roles.add(Long.toUnsignedString(getMemberRoleId(guildId)));
+        DataObject user = createUser(index);
+        if (renameUsersPerGuild && index != 0)
+            user.put("global_name", "User " + index + " of " + Long.toUnsignedString(guildId));
+        return DataObject.empty()
+                .put("user", user)
+                .put("roles", roles)
+                .put("joined_at", JOINED_AT)
+                .put("premium_since", null)
+                .put("communication_disabled_until", null)
+                .put("deaf", false)
+                .put("mute", false)
+                .put("pending", false)
+                .put("flags", 0);
+    }
+
+    private DataObject createGuild(long guildId, int largeThreshold)
+    {
+        String id = Long.toUnsignedString(guildId);
+        DataObject everyone = DataObject.empty()
+                .put("id", id)
+                .put("name", "@everyone")
+                .put("permissions", "1071698660929")
+                .put("position", 0)
+                .put("color", 0)
+                .put("hoist", false)
+                .put("managed", false)
+                .put("mentionable", false);
+        DataObject memberRole = DataObject.empty()
+                .put("id", Long.toUnsignedString(getMemberRoleId(guildId)))
+                .put("name", "Member")
+                .put("permissions", "0")
+                .put("position", 1)
+                .put("color", 0)
+                .put("hoist", false)
+                .put("managed", false)
+                .put("mentionable", false);
+        DataObject channel = DataObject.empty()
+                .put("id", Long.toUnsignedString(guildId + 1))
+                .put("type", 0)
+                .put("name", "general")
+                .put("position", 0)
+                .put("nsfw", false)
+                .put("permission_overwrites", DataArray.empty());
+
+        // Like Discord, large guilds only include a part of the members
+        int included = membersPerGuild > largeThreshold ? largeThreshold : membersPerGuild;
+        DataArray members = DataArray.empty();
+        for (int i = 0; i < included; i++)
+            members.add(createMember(guildId, i));
+
+        return DataObject.empty()
+                .put("id", id)
+                .put("name", "Guild " + id)
+                .put("icon", null)
+                .put("owner_id", Long.toUnsignedString(SELF_ID))
+                .put("afk_timeout", 300)
+                .put("verification_level", 0)
+                .put("default_message_notifications", 0)
+                .put("explicit_content_filter", 0)
+                .put("nsfw_level", 0)
+                .put("mfa_level", 0)
+                .put("premium_tier", 0)
+                .put("premium_progress_bar_enabled", false)
+                .put("preferred_locale", "en-US")
+                .put("features", DataArray.empty())
+                .put("large", membersPerGuild > largeThreshold)
+                .put("member_count", membersPerGuild)
+                .put("roles", DataArray.empty().add(everyone).add(memberRole))
+                .put("channels", DataArray.empty().add(channel))
+                .put("threads", DataArray.empty())
+                .put("guild_scheduled_events", DataArray.empty())
+                .put("emojis", DataArray.empty())
+                .put("stickers", DataArray.empty())
+                .put("voice_states", DataArray.empty())
+                .put("presences", DataArray.empty())
+                .put("members", members);
+    }
+
+    private DataObject createMessage(long guildId, long messageId, int author)
+    {
+        return DataObject.empty()
+                .put("id", Long.toUnsignedString(messageId))
+                .put("type", 0)
+                .put("guild_id", Long.toUnsignedString(guildId))
+                .put("channel_id", Long.toUnsignedString(guildId + 1))
+                .put("author", createMember(guildId, author).getObject("user"))
+                .put("member", createMember(guildId, author).remove("user"))
+                .put("content", "Message " + messageId)
+                .put("timestamp", JOINED_AT)
+                .put("edited_timestamp", null)
+                .put("tts", false)
+                .put("pinned", false)
+                .put("flags", 0)
+                .put("mention_everyone", false)
+                .put("mentions", DataArray.empty())
+                .put("mention_roles", DataArray.empty())
+                .put("attachments", DataArray.empty())
+                .put("embeds", DataArray.empty())
+                .put("components", DataArray.empty());
+    }
+
+    private static ThreadFactory daemon(String name)
+    {
+        AtomicInteger count = new AtomicInteger();
+        return r ->
+        {
+            Thread thread = new Thread(r, name + " " + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static class Session
+    {
+        private final String id = UUID.randomUUID().toString().replace("-", "");
+        private final int shardId;
+        private final int shardsTotal;
+        private final int largeThreshold;
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        private Session(int shardId, int shardsTotal, int largeThreshold)
+        {
+            this.shardId = shardId;
+            this.shardsTotal = shardsTotal;
+            this.largeThreshold = largeThreshold;
+        }
+    }
+
+    private class Connection implements Runnable
+    {
+        private final Socket socket;
+        private InputStream input;
+        private OutputStream output;
+        private boolean etf;
+        private Deflater deflater;
+        private volatile Session session;
+        private volatile ScheduledFuture<?> dispatcher;
+        private volatile boolean open;
+        private volatile boolean closed;
+
+        private Connection(Socket socket)
+        {
+            this.socket = socket;
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                input = new BufferedInputStream(socket.getInputStream(), 8192);
+                output = new BufferedOutputStream(socket.getOutputStream(), 65536);
+                if (handshake())
+                {
+                    connections.add(this);
+                    send(DataObject.empty().put("op", 10).put("d", DataObject.empty().put("heartbeat_interval", heartbeatInterval)));
+                    readFrames();
+                }
+            }
+            catch (IOException e)
+            {
+                if (!closed)
+                    LOG.debug("Connection failed", e);
+            }
+            finally
+            {
+                close(1000);
+                if (deflater != null)
+                    deflater.end();
+            }
+        }
+
+        // Uses the monitor of send(), so the close frame is the last frame on the socket
+        private synchronized void close(int code)
+        {
+            if (closed)
+                return;
+            closed = true;
+            connections.remove(this);
+            if (dispatcher != null)
+                dispatcher.cancel(false);
+            try
+            {
+                if (open)
+                    writeFrame(8, new byte[] { (byte) (code >> 8), (byte) code }, 2);
+            }
+            catch (IOException ignored) {}
+            try
+            {
+                socket.close();
+            }
+            catch (IOException ignored) {}
+        }
+
+        // HTTP
+
+        private boolean handshake() throws IOException
+        {
+            String requestLine = readLine();
+            if (requestLine == null)
+                return false;
+            Map<String, String> headers = new HashMap<>();
+            String line;
+            while ((line = readLine()) != null && !line.isEmpty())
+            {
+                int colon = line.indexOf(':');
+                if (colon > 0)
+                    headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+            }
+
+            String path = requestLine.split(" ")[1];
+            if (!"websocket".equalsIgnoreCase(headers.get("upgrade")))
+            {
+                handleRest(requestLine.split(" ")[0], path);
+                return false;
+            }
+
+            Map<String, String> query = new HashMap<>();
+            int start = path.indexOf('?');
+            if (start >= 0)
+            {
+                for (String parameter : path.substring(start + 1).split("&"))
+                {
+                    String[] pair = parameter.split("=", 2);
+                    query.put(pair[0], pair.length > 1 ? pair[1] : "");
+                }
+            }
+            String compress = query.get("compress");
+            if (compress != null && !compress.equals("zlib-stream"))
+            {
+                writeHttp("400 Bad Request", "{\"message\":\"Unsupported compression\",\"code\":0}");
+                return false;
+            }
+
+            etf = "etf".equals(query.get("encoding"));
+            // Every connection has its own compression context, just like the client
+            deflater = compress != null ? new Deflater() : null;
+
+            String accept;
+            try
+            {
+                MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+                byte[] digest = sha1.digest((headers.get("sec-websocket-key") + WEBSOCKET_GUID).getBytes(StandardCharsets.ISO_8859_1));
+                accept = Base64.getEncoder().encodeToString(digest);
+            }
+            catch (NoSuchAlgorithmException e)
+            {
+                throw new IllegalStateException(e);
+            }
+            output.write(("HTTP/1.1 101 Switching Protocols\r\n" +
+                    "Upgrade: websocket\r\n" +
+                    "Connection: Upgrade\r\n" +
+                    "Sec-WebSocket-Accept: " + accept + "\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+            output.flush();
+            open = true;
+            return true;
+        }
+
+        private void handleRest(String method, String path) throws IOException
+        {
+            int query = path.indexOf('?');
+            if (query >= 0)
+                path = path.substring(0, query);
+            if (path.startsWith("/api/"))
+                restCounts.computeIfAbsent(path.substring(5), k -> new AtomicInteger()).incrementAndGet();
+
+            if (restDelay > 0)
+            {
+                try
+                {
+                    Thread.sleep(restDelay);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+
+            DataObject body;
+            if (method.equals("GET") && path.endsWith("/users/@me"))
+            {
+                body = createUser(0)
+                        .put("verified", true)
+                        .put("mfa_enabled", false);
+            }
+            else if (method.equals("GET") && path.matches("/api/users/\\d+"))
+            {
+                long userId = Long.parseUnsignedLong(path.substring(path.lastIndexOf('/') + 1));
+                body = createUser((int) (userId - SELF_ID));
+            }
+            else if (method.equals("GET") && path.endsWith("/gateway/bot"))
+            {
+                body = DataObject.empty()
+                        .put("url", getGatewayUrl())
+                        .put("shards", shardsTotal)
+                        .put("session_start_limit", DataObject.empty()
+                                .put("total", 1000)
+                                .put("remaining", 1000)
+                                .put("reset_after", 0)
+                                .put("max_concurrency", maxConcurrency));
+            }
+            else if (method.equals("GET") && path.endsWith("/gateway"))
+            {
+                body = DataObject.empty().put("url", getGatewayUrl());
+            }
+            else
+            {
+                writeHttp("404 Not Found", "{\"message\":\"404: Not Found\",\"code\":0}");
+                return;
+            }
+            writeHttp("200 OK", body.toString());
+        }
+
+        private void writeHttp(String status, String body) throws IOException
+        {
+            byte[] content = body.getBytes(StandardCharsets.UTF_8);
+            output.write(("HTTP/1.1 " + status + "\r\n" +
+                    "Content-Type: application/json\r\n" +
+                    "Content-Length: " + content.length + "\r\n" +
+                    "Connection: close\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+            output.write(content);
+            output.flush();
+        }
+
+        private String readLine() throws IOException
+        {
+            StringBuilder line = new StringBuilder();
+            int c;
+            while ((c = input.read()) != '\n')
+            {
+                if (c < 0)
+                    return line.length() == 0 ? null : line.toString();
+                if (c != '\r')
+                    line.append((char) c);
+            }
+            return line.toString();
+        }
+
+        // Websocket
+
+        private void readFrames() throws IOException
+        {
+            DataInputStream data = new DataInputStream(input);
+            ByteArrayOutputStream message = new ByteArrayOutputStream();
+            int messageOpcode = 0;
+            while (!closed)
+            {
+                int head = data.read();
+                if (head < 0)
+                    return;
+                int lengthByte = data.readUnsignedByte();
+                boolean fin = (head & 0x80) != 0;
+                int opcode = head & 0x0F;
+                long length = lengthByte & 0x7F;
+                if (length == 126)
+                    length = data.readUnsignedShort();
+                else if (length == 127)
+                    length = data.readLong();
+                byte[] mask = new byte[4];
+                if ((lengthByte & 0x80) != 0)
+                    data.readFully(mask);
+                byte[] payload = new byte[(int) length];
+                data.readFully(payload);
+                for (int i = 0; i < payload.length; i++)
+                    payload[i] ^= mask[i & 3];
+
+                switch (opcode)
+                {
+                case 8:
+                    return;
+                case 9:
+                    writeFrame(10, payload, payload.length);
+                    continue;
+                case 10:
+                    continue;
+                case 0:
+                    break;
+                default:
+                    messageOpcode = opcode;
+                }
+
+                message.write(payload);
+                if (!fin)
+                    continue;
+                byte[] bytes = message.toByteArray();
+                message.reset();
+                handle(messageOpcode == 2 ? DataObject.fromETF(bytes) : DataObject.fromJson(bytes));
+            }
+        }
+
+        private void handle(DataObject payload)
+        {
+            switch (payload.getInt("op"))
+            {
+            case 1:
+                send(DataObject.empty().put("op", 11));
+                break;
+            case 2:
+                identify(payload.getObject("d"));
+                break;
+            case 6:
+                resume(payload.getObject("d"));
+                break;
+            case 8:
+                requestMembers(payload.getObject("d"));
+                break;
+            default:
+                break;
+            }
+        }
+
+        private void identify(DataObject identify)
+        {
+            identifyCount.incrementAndGet();
+            DataArray shard = identify.optArray("shard").orElseGet(() -> DataArray.empty().add(0).add(1));
+            Session session = new Session(shard.getInt(0), shard.getInt(1), identify.getInt("large_threshold", 50));
+            sessions.put(session.id, session);
+            this.session = session;
+
+            DataArray unavailable = DataArray.empty();
+            for (int i = 0; i < guildsPerShard; i++)
+            {
+                unavailable.add(DataObject.empty()
+                        .put("id", Long.toUnsignedString(getGuildId(session.shardId, session.shardsTotal, i)))
+                        .put("unavailable", true));
+            }
+            dispatch("READY", DataObject.empty()
+                    .put("v", 10)
+                    .put("user", createUser(0).put("verified", true).put("mfa_enabled", false))
+                    .put("application", DataObject.empty().put("id", Long.toUnsignedString(SELF_ID)).put("flags", 0))
+                    .put("guilds", unavailable)
+                    .put("private_channels", DataArray.empty())
+                    .put("session_id", session.id)
+                    .put("resume_gateway_url", getGatewayUrl())
+                    .put("shard", shard));
+            for (int i = 0; i < guildsPerShard; i++)
+                dispatch("GUILD_CREATE", createGuild(getGuildId(session.shardId, session.shardsTotal, i), session.largeThreshold));
+            startDispatcher();
+        }
+
+        private void resume(DataObject resume)
+        {
+            Session session = sessions.get(resume.getString("session_id"));
+            if (session == null)
+            {
+                send(DataObject.empty().put("op", 9).put("d", false));
+                return;
+            }
+            resumeCount.incrementAndGet();
+            this.session = session;
+            dispatch("RESUMED", DataObject.empty());
+            startDispatcher();
+        }
+
+        private void requestMembers(DataObject request)
+        {
+            // Merged requests contain an array of guild ids
+            DataArray guildIds = request.isType("guild_id", DataType.ARRAY)
+                    ? request.getArray("guild_id")
+                    : DataArray.empty().add(request.getString("guild_id"));
+            Optional<DataArray> userIds = request.optArray("user_ids");
+            String nonce = request.getString("nonce", null);
+            for (int i = 0; i < guildIds.length(); i++)
+            {
+                long guildId = guildIds.getUnsignedLong(i);
+                List<DataObject> members = new ArrayList<>();
+                DataArray notFound = DataArray.empty();
+                if (userIds.isPresent())
+                {
+                    for (int j = 0; j < userIds.get().length(); j++)
+                    {
+                        long index = userIds.get().getUnsignedLong(j) - SELF_ID;
+                        if (index >= 0 && index < membersPerGuild)
+                            members.add(createMember(guildId, (int) index));
+                        else
+                            notFound.add(userIds.get().getString(j));
+                    }
+                }
+                else
+                {
+                    for (int j = 0; j < membersPerGuild; j++)
+                        members.add(createMember(guildId, j));
+                }
+
+                int count = Math.max(1, (members.size() + CHUNK_SIZE - 1) / CHUNK_SIZE);
+                for (int chunk = 0; chunk < count; chunk++)
+                {
+                    List<DataObject> part = members.subList(chunk * CHUNK_SIZE, Math.min(members.size(), (chunk + 1) * CHUNK_SIZE));
+                    DataObject event = DataObject.empty()
+                            .put("guild_id", Long.toUnsignedString(guildId))
+                            .put("members", DataArray.fromCollection(part))
+                            .put("chunk_index", chunk)
+                            .put("chunk_count", count)
+                            .put("not_found", notFound);
+                    if (nonce != null)
+                        event.put("nonce", nonce);
+                    dispatch("GUILD_MEMBERS_CHUNK", event);
+                }
+            }
+        }
+
+        private void startDispatcher()
+        {
+            if (dispatchRate <= 0 || dispatcher != null)
+                return;
+            // Above 1000 events per second, a batch is sent every millisecond
+            long period = Math.max(TimeUnit.MILLISECONDS.toNanos(1), TimeUnit.SECONDS.toNanos(1) / dispatchRate);
+            int batch = Math.max(1, dispatchRate / 1000);
+            Session session = this.session;
+            AtomicInteger counter = new AtomicInteger();
+            dispatcher = scheduler.scheduleAtFixedRate(() ->
+            {
+                for (int i = 0; i < batch && !closed; i++)
+                {
+                    int index = counter.getAndIncrement();
+                    long guildId = getGuildId(session.shardId, session.shardsTotal, index % guildsPerShard);
+                    int author = 1 + index % Math.max(1, membersPerGuild - 1);
+                    dispatch("MESSAGE_CREATE", createMessage(guildId, (SELF_ID << 1) + index, Math.min(author, membersPerGuild - 1)));
+                }
+            }, period, period, TimeUnit.NANOSECONDS);
+        }
+
+        private void dispatch(String type, DataObject data)
+        {
+            Session session = this.session;
+            synchronized (this)
+            {
+                send(DataObject.empty()
+                        .put("op", 0)
+                        .put("t", type)
+                        .put("s", session.sequence.incrementAndGet())
+                        .put("d", data));
+            }
+            dispatchCount.incrementAndGet();
+        }
+
+        private synchronized void send(DataObject payload)
+        {
+            if (closed)
+                return;
+            byte[] data = etf ? payload.toETF() : payload.toJson();
+            try
+            {
+                if (deflater == null)
+                {
+                    writeFrame(etf ? 2 : 1, data, data.length);
+                    return;
+                }
+
+                // zlib-stream shares the context between messages, each message ends with a sync flush
+                deflater.setInput(data);
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream(data.length / 4 + 64);
+                byte[] buffer = new byte[8192];
+                int length;
+                do
+                {
+                    length = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    compressed.write(buffer, 0, length);
+                }
+                while (length == buffer.length);
+                writeFrame(2, compressed.toByteArray(), compressed.size());
+            }
+            catch (IOException e)
+            {
+                LOG.debug("Failed to send payload", e);
+                close(1011);
+            }
+        }
+
+        private synchronized void writeFrame(int opcode, byte[] data, int length) throws IOException
+        {
+            output.write(0x80 | opcode);
+            if (length < 126)
+            {
+                output.write(length);
+            }
+            else if (length <= 0xFFFF)
+            {
+                output.write(126);
+                output.write(length >> 8);
+                output.write(length);
+            }
+            else
+            {
+                output.write(127);
+                for (int shift = 56; shift >= 0; shift -= 8)
+                    output.write((int) ((long) length >> shift));
+            }
+            output.write(data, 0, length);
+            output.flush();
+        }
+    }
+}
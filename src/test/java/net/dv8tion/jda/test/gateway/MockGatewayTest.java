@@ -0,0 +1,241 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.test.gateway;
+
+import net.dv8tion.jda.api.GatewayEncoding;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.OnlineStatus;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.events.session.ReadyEvent;
+import net.dv8tion.jda.api.events.session.SessionResumeEvent;
+import net.dv8tion.jda.api.events.user.update.UserUpdateGlobalNameEvent;
+import net.dv8tion.jda.api.hooks.EventListener;
+import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.requests.GatewayPriority;
+import net.dv8tion.jda.api.requests.QueueTime;
+import net.dv8tion.jda.api.requests.RestConfig;
+import net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder;
+import net.dv8tion.jda.api.sharding.ShardManager;
+import net.dv8tion.jda.api.utils.ChunkingFilter;
+import net.dv8tion.jda.api.utils.Compression;
+import net.dv8tion.jda.api.utils.ConcurrentSessionController;
+import net.dv8tion.jda.api.utils.MemberCachePolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MockGatewayTest
+{
+    private static final int SHARDS = 2;
+
+    private MockGatewayServer server;
+    private ShardManager shardManager;
+
+    @BeforeEach
+    void setup() throws IOException
+    {
+        server = new MockGatewayServer()
+                .setShardsTotal(SHARDS)
+                .setMaxConcurrency(SHARDS)
+                .setGuildsPerShard(2)
+                .setMembersPerGuild(1200)
+                .start();
+    }
+
+    @AfterEach
+    void teardown()
+    {
+        if (shardManager != null)
+            shardManager.shutdown();
+        server.close();
+    }
+
+    @Test
+    void testLoginJson() throws InterruptedException
+    {
+        testLogin(GatewayEncoding.JSON, Compression.NONE);
+    }
+
+    @Test
+    void testLoginZlibEtf() throws InterruptedException
+    {
+        testLogin(GatewayEncoding.ETF, Compression.ZLIB);
+    }
+
+    @Test
+    void testDispatchAndResume() throws InterruptedException
+    {
+        server.setDispatchRate(200);
+        Listener listener = new Listener();
+        shardManager = build(GatewayEncoding.JSON, Compression.ZLIB, listener);
+
+        assertThat(listener.ready.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(listener.messages.await(10, TimeUnit.SECONDS)).isTrue();
+
+        server.disconnectAll(4000);
+        assertThat(listener.resumed.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(server.getResumeCount()).isEqualTo(SHARDS);
+        assertThat(server.getIdentifyCount()).isEqualTo(SHARDS);
+    }
+
+    @Test
+    void testSharedUsers() throws InterruptedException
+    {
+        // Both guilds of a shard have the same users, but with the global name of that guild
+        server.setRenameUsersPerGuild(true);
+        Listener listener = new Listener();
+        shardManager = build(GatewayEncoding.JSON, Compression.NONE, listener);
+
+        assertThat(listener.ready.await(10, TimeUnit.SECONDS)).isTrue();
+        for (JDA jda : shardManager.getShards())
+        {
+            List<Guild> guilds = jda.getGuilds();
+            assertThat(guilds).hasSize(2);
+            assertThat(jda.getUsers()).hasSize(1200);
+            for (User user : jda.getUsers())
+            {
+                for (Guild guild : guilds)
+                    assertThat(guild.getMember(user).getUser()).isSameAs(user);
+            }
+        }
+
+        // The users are updated by the guild completed last, once both guilds are in the cache
+        assertThat(listener.renames).hasValue(SHARDS * 1199);
+        assertThat(listener.earlyRenames).hasValue(0);
+    }
+
+    @Test
+    void testGatewaySendTime() throws InterruptedException
+    {
+        Listener listener = new Listener();
+        shardManager = build(GatewayEncoding.JSON, Compression.NONE, listener);
+
+        assertThat(listener.ready.await(10, TimeUnit.SECONDS)).isTrue();
+        JDA jda = shardManager.getShardById(0);
+        assertThat(jda.getGatewaySendTime(GatewayPriority.CHUNK).getCount()).isPositive();
+        // Identify is sent immediately instead of being queued
+        assertThat(jda.getGatewaySendTime(GatewayPriority.AUTHENTICATION).getCount()).isZero();
+
+        // Queued presence updates are merged, so each one waits for the previous to be sent
+        jda.getPresence().setStatus(OnlineStatus.IDLE);
+        awaitSendCount(jda, GatewayPriority.PRESENCE, 1);
+        jda.getPresence().setStatus(OnlineStatus.DO_NOT_DISTURB);
+        awaitSendCount(jda, GatewayPriority.PRESENCE, 2);
+        jda.getPresence().setStatus(OnlineStatus.ONLINE);
+        awaitSendCount(jda, GatewayPriority.PRESENCE, 3);
+
+        // The times are kept across connections of the shard
+        server.disconnectAll(4000);
+        assertThat(listener.resumed.await(10, TimeUnit.SECONDS)).isTrue();
+        jda.getPresence().setStatus(OnlineStatus.IDLE);
+        awaitSendCount(jda, GatewayPriority.PRESENCE, 4);
+
+        QueueTime time = jda.getGatewaySendTime(GatewayPriority.PRESENCE);
+        assertThat(time.getMaxTime()).isLessThanOrEqualTo(time.getTotalTime());
+        assertThat(time.getAverageTime()).isEqualTo(time.getTotalTime() / 4.0);
+    }
+
+    private static void awaitSendCount(JDA jda, GatewayPriority priority, long count) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (jda.getGatewaySendTime(priority).getCount() < count && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertThat(jda.getGatewaySendTime(priority).getCount()).isEqualTo(count);
+    }
+
+    private void testLogin(GatewayEncoding encoding, Compression compression) throws InterruptedException
+    {
+        Listener listener = new Listener();
+        shardManager = build(encoding, compression, listener);
+
+        // Ready is only fired after the members of every guild have been chunked
+        assertThat(listener.ready.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(server.getIdentifyCount()).isEqualTo(SHARDS);
+        assertThat(shardManager.getGuilds()).hasSize(SHARDS * 2);
+        for (Guild guild : shardManager.getGuilds())
+        {
+            assertThat(guild.getMemberCount()).isEqualTo(1200);
+            assertThat(guild.getMembers()).hasSize(1200);
+            assertThat(guild.getSelfMember().getIdLong()).isEqualTo(MockGatewayServer.SELF_ID);
+            // Members are created while the guild is set up, but must use the cached guild and roles
+            Role role = guild.getRoleById(MockGatewayServer.getMemberRoleId(guild.getIdLong()));
+            assertThat(guild.getMembersWithRoles(role)).hasSize(600);
+            for (Member member : guild.getMembers())
+            {
+                assertThat(member.getGuild()).isSameAs(guild);
+                assertThat(member.getUser()).isSameAs(guild.getJDA().getUserById(member.getIdLong()));
+                for (Role memberRole : member.getRoles())
+                    assertThat(memberRole).isSameAs(role);
+            }
+            assertThat(shardManager.getShardById(guild.getJDA().getShardInfo().getShardId())).isSameAs(guild.getJDA());
+        }
+    }
+
+    private ShardManager build(GatewayEncoding encoding, Compression compression, Listener listener)
+    {
+        return DefaultShardManagerBuilder.createLight("mock-token", GatewayIntent.GUILD_MEMBERS, GatewayIntent.GUILD_MESSAGES)
+                .setRestConfig(new RestConfig().setBaseUrl(server.getRestUrl()))
+                .setSessionController(new ConcurrentSessionController())
+                .setGatewayEncoding(encoding)
+                .setCompression(compression)
+                .setChunkingFilter(ChunkingFilter.ALL)
+                .setMemberCachePolicy(MemberCachePolicy.ALL)
+                .setEnableShutdownHook(false)
+                .addEventListeners(listener)
+                .build();
+    }
+
+    private static class Listener implements EventListener
+    {
+        private final CountDownLatch ready = new CountDownLatch(SHARDS);
+        private final CountDownLatch resumed = new CountDownLatch(SHARDS);
+        private final CountDownLatch messages = new CountDownLatch(20);
+        private final AtomicInteger renames = new AtomicInteger();
+        private final AtomicInteger earlyRenames = new AtomicInteger();
+
+        @Override
+        public void onEvent(@Nonnull GenericEvent event)
+        {
+            if (event instanceof ReadyEvent)
+                ready.countDown();
+            else if (event instanceof SessionResumeEvent)
+                resumed.countDown();
+            else if (event instanceof MessageReceivedEvent)
+                messages.countDown();
+            else if (event instanceof UserUpdateGlobalNameEvent)
+            {
+                renames.incrementAndGet();
+                if (event.getJDA().getGuilds().size() < 2)
+                    earlyRenames.incrementAndGet();
+            }
+        }
+    }
+}
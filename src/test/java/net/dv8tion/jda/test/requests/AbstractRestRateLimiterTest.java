@@ -0,0 +1,379 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.test.requests;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.requests.FileRateLimitStore;
+import net.dv8tion.jda.api.requests.MappedRateLimitCoordinator;
+import net.dv8tion.jda.api.requests.RateLimitCoordinator;
+import net.dv8tion.jda.api.requests.RateLimitStore;
+import net.dv8tion.jda.api.requests.RequestPriority;
+import net.dv8tion.jda.api.requests.RestRateLimiter;
+import net.dv8tion.jda.api.requests.Route;
+import okhttp3.Headers;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.annotation.Nonnull;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public abstract class AbstractRestRateLimiterTest
+{
+    protected static final Route ROUTE = Route.get("channels/{channel_id}/messages");
+
+    protected final BlockingQueue<AsyncWork> started = new LinkedBlockingQueue<>();
+    protected ScheduledExecutorService scheduler;
+    protected RestRateLimiter rateLimiter;
+
+    protected abstract RestRateLimiter createRateLimiter(RestRateLimiter.RateLimitConfig config);
+
+    @BeforeEach
+    void setup()
+    {
+        // A single thread has to be enough for any number of pending requests
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        rateLimiter = createRateLimiter(new RestRateLimiter.RateLimitConfig(scheduler, RestRateLimiter.GlobalRateLimit.create(), true));
+    }
+
+    @AfterEach
+    void teardown()
+    {
+        rateLimiter.stop(true, () -> {});
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void testPendingRequestsDoNotBlockWorkers() throws Exception
+    {
+        List<AsyncWork> works = new ArrayList<>();
+        for (int i = 0; i < 20; i++)
+        {
+            AsyncWork work = new AsyncWork(ROUTE.compile(Integer.toString(i)));
+            works.add(work);
+            rateLimiter.enqueue(work);
+        }
+
+        for (int i = 0; i < works.size(); i++)
+            assertThat(started.poll(5, TimeUnit.SECONDS)).isNotNull();
+
+        for (AsyncWork work : works)
+            work.complete();
+
+        CompletableFuture<Void> stopped = new CompletableFuture<>();
+        rateLimiter.stop(false, () -> stopped.complete(null));
+        stopped.get(5, TimeUnit.SECONDS);
+        for (AsyncWork work : works)
+            assertThat(work.isDone()).isTrue();
+    }
+
+    @Test
+    void testBucketOrder() throws Exception
+    {
+        Route.CompiledRoute route = ROUTE.compile("42");
+        AsyncWork first = new AsyncWork(route), second = new AsyncWork(route);
+        rateLimiter.enqueue(first);
+        rateLimiter.enqueue(second);
+
+        assertThat(started.poll(5, TimeUnit.SECONDS)).isSameAs(first);
+        // The bucket waits for the response, before it starts the next request
+        assertThat(started.poll(100, TimeUnit.MILLISECONDS)).isNull();
+
+        first.complete();
+        assertThat(started.poll(5, TimeUnit.SECONDS)).isSameAs(second);
+        second.complete();
+    }
+
+    @Test
+    void testBucketHash() throws Exception
+    {
+        Route.CompiledRoute route = ROUTE.compile("42");
+        AsyncWork first = new AsyncWork(route), second = new AsyncWork(route), third = new AsyncWork(route);
+        rateLimiter.enqueue(first);
+        rateLimiter.enqueue(second);
+        rateLimiter.enqueue(third);
+
+        assertThat(started.poll(5, TimeUnit.SECONDS)).isSameAs(first);
+        // The pending requests are moved to the bucket of the hash, and keep their order
+        first.complete(new Headers.Builder()
+                .add(RestRateLimiter.HASH_HEADER, "abc")
+                .add(RestRateLimiter.REMAINING_HEADER, "5")
+                .add(RestRateLimiter.RESET_AFTER_HEADER, "1")
+                .add("via", "1.1 google")
+                .build());
+        assertThat(started.poll(5, TimeUnit.SECONDS)).isSameAs(second);
+        second.complete();
+        assertThat(started.poll(5, TimeUnit.SECONDS)).isSameAs(third);
+        third.complete();
+    }
+
+    @Test
+    void testPriorityOrder() throws Exception
+    {
+        Route.CompiledRoute route = ROUTE.compile("42");
+        AsyncWork first = new AsyncWork(route);
+        rateLimiter.enqueue(first);
+        assertThat(started.poll(5, TimeUnit.SECONDS)).isSameAs(first);
+
+        AsyncWork background = new AsyncWork(route, RequestPriority.BACKGROUND);
+        AsyncWork normal = new AsyncWork(route, RequestPriority.NORMAL);
+        AsyncWork critical = new AsyncWork(route, RequestPriority.CRITICAL);
+        rateLimiter.enqueue(background);
+        rateLimiter.enqueue(normal);
+        rateLimiter.enqueue(critical);
+
+        first.complete();
+        for (AsyncWork expected : new AsyncWork[] { critical, normal, background })
+        {
+            assertThat(started.poll(5, TimeUnit.SECONDS)).isSameAs(expected);
+            expected.complete();
+        }
+    }
+
+    @Test
+    void testPriorityStarvation() throws Exception
+    {
+        Route.CompiledRoute route = ROUTE.compile("42");
+        AsyncWork first = new AsyncWork(route);
+        rateLimiter.enqueue(first);
+        assertThat(started.poll(5, TimeUnit.SECONDS)).isSameAs(first);
+
+        AsyncWork background = new AsyncWork(route, RequestPriority.BACKGROUND);
+        rateLimiter.enqueue(background);
+        for (int i = 0; i < 12; i++)
+            rateLimiter.enqueue(new AsyncWork(route, RequestPriority.CRITICAL));
+
+        first.complete();
+        List<RequestPriority> order = new ArrayList<>();
+        for (int i = 0; i < 13; i++)
+        {
+            AsyncWork work = started.poll(5, TimeUnit.SECONDS);
+            assertThat(work).isNotNull();
+            order.add(work.getPriority());
+            work.complete();
+        }
+
+        // The background request gets its turn after 8 critical requests
+        assertThat(order.indexOf(RequestPriority.BACKGROUND)).isEqualTo(8);
+    }
+
+    @Test
+    void testStoreRestoresBuckets(@TempDir Path directory) throws Exception
+    {
+        Path file = directory.resolve("rate-limits.json");
+        RestRateLimiter stored = createRateLimiter(new RestRateLimiter.RateLimitConfig(
+                scheduler, scheduler, RestRateLimiter.GlobalRateLimit.create(), true, new FileRateLimitStore(file)));
+        Route.CompiledRoute route = ROUTE.compile("42");
+        AsyncWork first = new AsyncWork(route);
+        stored.enqueue(first);
+        assertThat(started.poll(5, TimeUnit.SECONDS)).isSameAs(first);
+        first.complete(new Headers.Builder()
+                .add(RestRateLimiter.HASH_HEADER, "abc")
+                .add(RestRateLimiter.REMAINING_HEADER, "0")
+                .add(RestRateLimiter.RESET_AFTER_HEADER, "60")
+                .add("via", "1.1 google")
+                .build());
+
+        CompletableFuture<Void> stopped = new CompletableFuture<>();
+        stored.stop(false, () -> stopped.complete(null));
+        stopped.get(5, TimeUnit.SECONDS);
+
+        RateLimitStore.Snapshot snapshot = new FileRateLimitStore(file).load();
+        assertThat(snapshot.getHashes()).containsEntry(ROUTE, "abc");
+        assertThat(snapshot.getBuckets()).hasSize(1);
+        assertThat(snapshot.getBuckets().values().iterator().next().getRemaining()).isZero();
+
+        // A new rate-limiter knows the hash before the first response, and waits for the reset of the bucket
+        RestRateLimiter restored = createRateLimiter(new RestRateLimiter.RateLimitConfig(
+                scheduler, scheduler, RestRateLimiter.GlobalRateLimit.create(), true, new FileRateLimitStore(file)));
+        AsyncWork second = new AsyncWork(route), other = new AsyncWork(ROUTE.compile("43"));
+        restored.enqueue(second);
+        restored.enqueue(other);
+        assertThat(started.poll(5, TimeUnit.SECONDS)).isSameAs(other);
+        assertThat(started.poll(100, TimeUnit.MILLISECONDS)).isNull();
+        other.complete();
+        restored.stop(true, () -> {});
+    }
+
+    @Test
+    void testCoordinatorSharesBuckets(@TempDir Path directory) throws Exception
+    {
+        try (MappedRateLimitCoordinator coordinator = new MappedRateLimitCoordinator(directory.resolve("rate-limits"));
+             MappedRateLimitCoordinator otherProcess = new MappedRateLimitCoordinator(directory.resolve("rate-limits")))
+        {
+            // Completes once the response of the first request is written to the shared file
+            CompletableFuture<Integer> updated = new CompletableFuture<>();
+            RateLimitCoordinator observed = new RateLimitCoordinator()
+            {
+                @Nonnull
+                @Override
+                public RestRateLimiter.GlobalRateLimit getGlobalRateLimit()
+                {
+                    return coordinator.getGlobalRateLimit();
+                }
+
+                @Override
+                public long acquire(@Nonnull String bucketId, long now)
+                {
+                    return coordinator.acquire(bucketId, now);
+                }
+
+                @Override
+                public void update(@Nonnull String bucketId, int remaining, long reset)
+                {
+                    coordinator.update(bucketId, remaining, reset);
+                    updated.complete(remaining);
+                }
+            };
+            RestRateLimiter shared = createRateLimiter(new RestRateLimiter.RateLimitConfig(
+                    scheduler, scheduler, coordinator.getGlobalRateLimit(), true, null, observed));
+            Route.CompiledRoute route = ROUTE.compile("42");
+            AsyncWork first = new AsyncWork(route), second = new AsyncWork(route);
+            shared.enqueue(first);
+            assertThat(started.poll(5, TimeUnit.SECONDS)).isSameAs(first);
+            first.complete(new Headers.Builder()
+                    .add(RestRateLimiter.HASH_HEADER, "abc")
+                    .add(RestRateLimiter.REMAINING_HEADER, "1")
+                    .add(RestRateLimiter.RESET_AFTER_HEADER, "60")
+                    .add("via", "1.1 google")
+                    .build());
+
+            assertThat(updated.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+
+            // The other process takes the last use of the bucket
+            assertThat(otherProcess.acquire("abc:" + route.getMajorParameters(), System.currentTimeMillis())).isZero();
+            shared.enqueue(second);
+            assertThat(started.poll(100, TimeUnit.MILLISECONDS)).isNull();
+
+            // The global rate-limit of the other process applies as well
+            otherProcess.getGlobalRateLimit().setClassic(System.currentTimeMillis() + 60000);
+            AsyncWork other = new AsyncWork(ROUTE.compile("43"));
+            shared.enqueue(other);
+            assertThat(started.poll(100, TimeUnit.MILLISECONDS)).isNull();
+            shared.stop(true, () -> {});
+        }
+    }
+
+    protected class AsyncWork implements RestRateLimiter.Work
+    {
+        private final Route.CompiledRoute route;
+        private final RequestPriority priority;
+        private final CompletableFuture<Response> future = new CompletableFuture<>();
+        private volatile boolean done;
+
+        protected AsyncWork(Route.CompiledRoute route)
+        {
+            this(route, RequestPriority.NORMAL);
+        }
+
+        protected AsyncWork(Route.CompiledRoute route, RequestPriority priority)
+        {
+            this.route = route;
+            this.priority = priority;
+        }
+
+        protected void complete()
+        {
+            complete(new Headers.Builder().build());
+        }
+
+        protected void complete(Headers headers)
+        {
+            done = true;
+            future.complete(new Response.Builder()
+                    .request(new okhttp3.Request.Builder().url("http://localhost/" + route.getCompiledRoute()).build())
+                    .protocol(Protocol.HTTP_1_1)
+                    .code(200)
+                    .message("OK")
+                    .headers(headers)
+                    .build());
+        }
+
+        @Nonnull
+        @Override
+        public Route.CompiledRoute getRoute()
+        {
+            return route;
+        }
+
+        @Nonnull
+        @Override
+        public JDA getJDA()
+        {
+            return mock();
+        }
+
+        @Override
+        public Response execute()
+        {
+            throw new UnsupportedOperationException("Blocking execution is not expected");
+        }
+
+        @Nonnull
+        @Override
+        public CompletableFuture<Response> executeAsync()
+        {
+            started.add(this);
+            return future;
+        }
+
+        @Override
+        public boolean isSkipped()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean isDone()
+        {
+            return done;
+        }
+
+        @Override
+        public boolean isPriority()
+        {
+            return false;
+        }
+
+        @Nonnull
+        @Override
+        public RequestPriority getPriority()
+        {
+            return priority;
+        }
+
+        @Override
+        public boolean isCancelled()
+        {
+            return false;
+        }
+
+        @Override
+        public void cancel()
+        {
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.test.requests;
+
+import net.dv8tion.jda.api.requests.ConcurrentRestRateLimiter;
+import net.dv8tion.jda.api.requests.RestRateLimiter;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConcurrentRestRateLimiterTest extends AbstractRestRateLimiterTest
+{
+    @Override
+    protected RestRateLimiter createRateLimiter(RestRateLimiter.RateLimitConfig config)
+    {
+        return new ConcurrentRestRateLimiter(config);
+    }
+
+    @Test
+    void testConcurrentEnqueue() throws Exception
+    {
+        List<AsyncWork> works = new ArrayList<>();
+        for (int i = 0; i < 4000; i++)
+        {
+            AsyncWork work = new AsyncWork(ROUTE.compile(Integer.toString(i % 50)));
+            work.complete();
+            works.add(work);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try
+        {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++)
+            {
+                List<AsyncWork> slice = works.subList(thread * 500, (thread + 1) * 500);
+                futures.add(executor.submit(() -> slice.forEach(rateLimiter::enqueue)));
+            }
+            for (Future<?> future : futures)
+                future.get(5, TimeUnit.SECONDS);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        // Every request is executed exactly once, before the rate limiter shuts down
+        CompletableFuture<Void> stopped = new CompletableFuture<>();
+        rateLimiter.stop(false, () -> stopped.complete(null));
+        stopped.get(5, TimeUnit.SECONDS);
+        assertThat(started).hasSize(works.size());
+        assertThat(started).containsExactlyInAnyOrderElementsOf(works);
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.test.requests;
+
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.message.react.GenericMessageReactionEvent;
+import net.dv8tion.jda.api.events.message.react.MessageReactionAddEvent;
+import net.dv8tion.jda.api.events.user.UserTypingEvent;
+import net.dv8tion.jda.api.hooks.AnnotatedEventManager;
+import net.dv8tion.jda.api.hooks.EventListener;
+import net.dv8tion.jda.api.hooks.InterfacedEventManager;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.utils.MemberCachePolicy;
+import net.dv8tion.jda.api.utils.cache.CacheFlag;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.internal.requests.DispatchFilter;
+import net.dv8tion.jda.test.IntegrationTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+public class DispatchFilterTest extends IntegrationTest
+{
+    private InterfacedEventManager eventManager;
+    private DispatchFilter filter;
+
+    @BeforeEach
+    void setupFilter()
+    {
+        eventManager = new InterfacedEventManager();
+        when(jda.getEventManager()).thenReturn(eventManager);
+        when(jda.isRawEvents()).thenReturn(false);
+        when(jda.isCacheFlagSet(any())).thenReturn(false);
+        when(jda.getWantedEvents()).thenReturn(null);
+        when(jda.getMemberCachePolicy()).thenReturn(MemberCachePolicy.NONE);
+        filter = new DispatchFilter(jda);
+    }
+
+    @Test
+    void testDropWithoutListeners()
+    {
+        assertThat(checkJson("TYPING_START", 42)).isEqualTo(42);
+        assertThat(checkJson("MESSAGE_REACTION_ADD", 43)).isEqualTo(43);
+        assertThat(checkJson("MESSAGE_CREATE", 44)).isEqualTo(DispatchFilter.PROCESS);
+        assertThat(checkJson("SOME_NEW_EVENT", 45)).isEqualTo(DispatchFilter.PROCESS);
+    }
+
+    @Test
+    void testListenerAdapter()
+    {
+        eventManager.register(new ListenerAdapter()
+        {
+            @Override
+            public void onMessageReactionAdd(@Nonnull MessageReactionAddEvent event) {}
+        });
+        filter.invalidateListeners();
+
+        assertThat(checkJson("MESSAGE_REACTION_ADD", 1)).isEqualTo(DispatchFilter.PROCESS);
+        assertThat(checkJson("MESSAGE_REACTION_REMOVE", 2)).isEqualTo(2);
+        assertThat(checkJson("TYPING_START", 3)).isEqualTo(3);
+
+        eventManager.register(new ListenerAdapter()
+        {
+            @Override
+            public void onGenericMessageReaction(@Nonnull GenericMessageReactionEvent event) {}
+        });
+        filter.invalidateListeners();
+
+        assertThat(checkJson("MESSAGE_REACTION_REMOVE", 4)).isEqualTo(DispatchFilter.PROCESS);
+        assertThat(checkJson("TYPING_START", 5)).isEqualTo(5);
+
+        eventManager.register(new ListenerAdapter()
+        {
+            @Override
+            public void onGenericEvent(@Nonnull GenericEvent event) {}
+        });
+        filter.invalidateListeners();
+
+        assertThat(checkJson("TYPING_START", 6)).isEqualTo(DispatchFilter.PROCESS);
+    }
+
+    @Test
+    void testCachedListeners()
+    {
+        assertThat(checkJson("TYPING_START", 1)).isEqualTo(1);
+
+        // The listeners are resolved again once they have changed
+        eventManager.register(new ListenerAdapter()
+        {
+            @Override
+            public void onUserTyping(@Nonnull UserTypingEvent event) {}
+        });
+        assertThat(checkJson("TYPING_START", 2)).isEqualTo(2);
+        filter.invalidateListeners();
+        assertThat(checkJson("TYPING_START", 3)).isEqualTo(DispatchFilter.PROCESS);
+
+        eventManager.unregister(eventManager.getRegisteredListeners().get(0));
+        filter.invalidateListeners();
+        assertThat(checkJson("TYPING_START", 4)).isEqualTo(4);
+    }
+
+    @Test
+    void testUnknownListeners()
+    {
+        eventManager.register((EventListener) event -> {});
+        filter.invalidateListeners();
+        assertThat(checkJson("TYPING_START", 1)).isEqualTo(DispatchFilter.PROCESS);
+
+        when(jda.getEventManager()).thenReturn(new AnnotatedEventManager());
+        assertThat(checkJson("TYPING_START", 2)).isEqualTo(DispatchFilter.PROCESS);
+    }
+
+    @Test
+    void testWantedEvents()
+    {
+        // Declared events take precedence over the registered listeners
+        eventManager.register((EventListener) event -> {});
+        filter.invalidateListeners();
+        Set<Class<? extends GenericEvent>> wanted = Collections.singleton(GenericMessageReactionEvent.class);
+        when(jda.getWantedEvents()).thenReturn(wanted);
+
+        assertThat(checkJson("MESSAGE_REACTION_ADD", 1)).isEqualTo(DispatchFilter.PROCESS);
+        assertThat(checkJson("MESSAGE_REACTION_REMOVE", 2)).isEqualTo(DispatchFilter.PROCESS);
+        assertThat(checkJson("TYPING_START", 3)).isEqualTo(3);
+
+        wanted = Collections.singleton(UserTypingEvent.class);
+        when(jda.getWantedEvents()).thenReturn(wanted);
+        assertThat(checkJson("TYPING_START", 4)).isEqualTo(DispatchFilter.PROCESS);
+    }
+
+    @Test
+    void testRequiredByCache()
+    {
+        assertThat(checkJson("PRESENCE_UPDATE", 1)).isEqualTo(1);
+
+        when(jda.isCacheFlagSet(CacheFlag.ONLINE_STATUS)).thenReturn(true);
+        assertThat(checkJson("PRESENCE_UPDATE", 2)).isEqualTo(DispatchFilter.PROCESS);
+    }
+
+    @Test
+    void testRequiredByMemberCache()
+    {
+        // Typing and reactions update the member cache, even without listeners
+        when(jda.getMemberCachePolicy()).thenReturn(MemberCachePolicy.ALL);
+        assertThat(checkJson("TYPING_START", 1)).isEqualTo(DispatchFilter.PROCESS);
+        assertThat(checkJson("MESSAGE_REACTION_ADD", 2)).isEqualTo(DispatchFilter.PROCESS);
+        assertThat(checkJson("MESSAGE_REACTION_REMOVE", 3)).isEqualTo(DispatchFilter.PROCESS);
+        assertThat(checkJson("MESSAGE_REACTION_REMOVE_ALL", 4)).isEqualTo(4);
+    }
+
+    @Test
+    void testRawEvents()
+    {
+        when(jda.isRawEvents()).thenReturn(true);
+        assertThat(checkJson("TYPING_START", 1)).isEqualTo(DispatchFilter.PROCESS);
+    }
+
+    @Test
+    void testJsonEnvelope()
+    {
+        // Only the envelope is needed, the payload can be truncated
+        byte[] truncated = "{\"t\":\"TYPING_START\",\"s\":7,\"op\":0,\"d\":{\"chan".getBytes(StandardCharsets.UTF_8);
+        assertThat(filter.checkJson(truncated, truncated.length)).isEqualTo(7);
+
+        byte[] spaced = "{ \"t\" : \"TYPING_START\" ,\n \"s\" : 8 , \"op\" : 0 , \"d\" : {} }".getBytes(StandardCharsets.UTF_8);
+        assertThat(filter.checkJson(spaced, spaced.length)).isEqualTo(8);
+
+        // Unexpected order is left to the parser
+        byte[] reordered = "{\"d\":{},\"t\":\"TYPING_START\",\"s\":9,\"op\":0}".getBytes(StandardCharsets.UTF_8);
+        assertThat(filter.checkJson(reordered, reordered.length)).isEqualTo(DispatchFilter.PROCESS);
+
+        byte[] heartbeat = "{\"t\":null,\"s\":null,\"op\":11,\"d\":null}".getBytes(StandardCharsets.UTF_8);
+        assertThat(filter.checkJson(heartbeat, heartbeat.length)).isEqualTo(DispatchFilter.PROCESS);
+
+        byte[] incomplete = "{\"t\":\"TYPING_START\",\"s\":1".getBytes(StandardCharsets.UTF_8);
+        assertThat(filter.checkJson(incomplete, incomplete.length)).isEqualTo(DispatchFilter.PROCESS);
+    }
+
+    @Test
+    void testETF()
+    {
+        byte[] typing = dispatch("TYPING_START", 300).toETF();
+        assertThat(filter.checkETF(typing, typing.length)).isEqualTo(300);
+
+        byte[] message = dispatch("MESSAGE_CREATE", 301).toETF();
+        assertThat(filter.checkETF(message, message.length)).isEqualTo(DispatchFilter.PROCESS);
+
+        byte[] truncated = dispatch("TYPING_START", 302).toETF();
+        assertThat(filter.checkETF(truncated, 10)).isEqualTo(DispatchFilter.PROCESS);
+    }
+
+    private int checkJson(String type, int sequence)
+    {
+        byte[] json = String.format("{\"t\":\"%s\",\"s\":%d,\"op\":0,\"d\":%s}", type, sequence, dispatch(type, sequence).getObject("d"))
+            .getBytes(StandardCharsets.UTF_8);
+        return filter.checkJson(json, json.length);
+    }
+
+    private static DataObject dispatch(String type, int sequence)
+    {
+        return DataObject.empty()
+            .put("t", type)
+            .put("s", sequence)
+            .put("op", 0)
+            .put("d", DataObject.empty()
+                .put("channel_id", "125227483518861312")
+                .put("user_id", "86699011792191488")
+                .put("timestamp", 1719000000)
+                .put("nested", DataObject.empty().put("list", Collections.singletonList(1.5))));
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.test.requests;
+
+import net.dv8tion.jda.api.utils.GatewayQueuePolicy;
+import net.dv8tion.jda.internal.requests.GatewayQueue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GatewayQueueTest
+{
+    private final BlockingQueue<Object> handled = new LinkedBlockingQueue<>();
+    private final AtomicInteger overflows = new AtomicInteger();
+    private GatewayQueue queue;
+
+    @AfterEach
+    void shutdown()
+    {
+        if (queue != null)
+            queue.shutdown();
+    }
+
+    @Test
+    void testOrder() throws InterruptedException
+    {
+        queue = start(1000, GatewayQueuePolicy.BLOCK, handled::add);
+
+        for (int i = 0; i < 10000; i++)
+            assertThat(queue.offer(i)).isTrue();
+
+        for (int i = 0; i < 10000; i++)
+            assertThat(handled.poll(5, TimeUnit.SECONDS)).isEqualTo(i);
+        assertThat(queue.size()).isEqualTo(0);
+    }
+
+    @Test
+    void testBlock() throws Exception
+    {
+        CountDownLatch release = new CountDownLatch(1);
+        queue = start(2, GatewayQueuePolicy.BLOCK, item -> {
+            await(release);
+            handled.add(item);
+        });
+
+        // The first item is taken by the consumer, which then waits for the latch
+        queue.offer(0);
+        queue.offer(1);
+        queue.offer(2);
+        assertThat(queue.size()).isEqualTo(2);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            Future<Boolean> blocked = executor.submit(() -> queue.offer(3));
+            Thread.sleep(50);
+            assertThat(blocked).isNotDone();
+
+            release.countDown();
+            assertThat(blocked.get(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(poll(4)).containsExactly(0, 1, 2, 3);
+            assertThat(queue.getLastQueueTime()).isGreaterThanOrEqualTo(0);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testReconnect() throws Exception
+    {
+        CountDownLatch release = new CountDownLatch(1);
+        queue = start(2, GatewayQueuePolicy.RECONNECT, item -> {
+            await(release);
+            handled.add(item);
+        });
+
+        queue.offer(0);
+        Thread.sleep(50);
+        assertThat(queue.offer(1)).isTrue();
+        assertThat(queue.offer(2)).isTrue();
+        assertThat(queue.offer(3)).isFalse();
+        assertThat(overflows.get()).isEqualTo(1);
+
+        // Everything is dropped until the queue is discarded
+        assertThat(queue.offer(4)).isFalse();
+        assertThat(overflows.get()).isEqualTo(1);
+
+        queue.discard();
+        assertThat(queue.size()).isEqualTo(0);
+        release.countDown();
+
+        assertThat(queue.offer(5)).isTrue();
+        assertThat(poll(2)).containsExactly(0, 5);
+    }
+
+    @Test
+    void testHandlerFailure() throws InterruptedException
+    {
+        queue = start(10, GatewayQueuePolicy.BLOCK, item -> {
+            if (item.equals(0))
+                throw new IllegalStateException("Expected failure");
+            handled.add(item);
+        });
+
+        queue.offer(0);
+        queue.offer(1);
+        assertThat(handled.poll(5, TimeUnit.SECONDS)).isEqualTo(1);
+    }
+
+    private GatewayQueue start(int capacity, GatewayQueuePolicy policy, Consumer<Object> handler)
+    {
+        GatewayQueue queue = new GatewayQueue(capacity, policy, Thread::new, handler, overflows::incrementAndGet);
+        queue.start();
+        return queue;
+    }
+
+    private List<Object> poll(int count)
+    {
+        return IntStream.range(0, count).mapToObj(i -> {
+            try
+            {
+                return handled.poll(5, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e)
+            {
+                throw new RuntimeException(e);
+            }
+        }).collect(Collectors.toList());
+    }
+
+    private static void await(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.test.requests;
+
+import net.dv8tion.jda.api.requests.GatewayPriority;
+import net.dv8tion.jda.internal.requests.GatewayRateLimiter;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GatewayRateLimiterTest
+{
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private long now = 0;
+    private final GatewayRateLimiter rateLimiter = new GatewayRateLimiter(
+        GatewayRateLimiter.DEFAULT_CAPACITY, GatewayRateLimiter.DEFAULT_REFILL_INTERVAL, () -> now);
+
+    @Test
+    void testReservedTokens()
+    {
+        int sent = 0;
+        while (rateLimiter.tryAcquire(GatewayPriority.PRESENCE))
+            sent++;
+        assertThat(sent).isEqualTo(GatewayRateLimiter.DEFAULT_CAPACITY - GatewayRateLimiter.RESERVED_TOKENS);
+        assertThat(rateLimiter.getDelay(GatewayPriority.CHUNK)).isEqualTo(SECOND);
+
+        // Heartbeats and identify can still use the reserved tokens
+        assertThat(rateLimiter.getDelay(GatewayPriority.HEARTBEAT)).isEqualTo(0);
+        assertThat(rateLimiter.tryAcquire(GatewayPriority.HEARTBEAT)).isTrue();
+        assertThat(rateLimiter.tryAcquire(GatewayPriority.AUTHENTICATION)).isTrue();
+        assertThat(rateLimiter.tryAcquire(GatewayPriority.AUTHENTICATION)).isTrue();
+        assertThat(rateLimiter.tryAcquire(GatewayPriority.HEARTBEAT)).isFalse();
+        assertThat(rateLimiter.getDelay(GatewayPriority.HEARTBEAT)).isEqualTo(SECOND);
+        assertThat(rateLimiter.getDelay(GatewayPriority.VOICE)).isEqualTo(4 * SECOND);
+    }
+
+    @Test
+    void testRefill()
+    {
+        for (int i = 0; i < GatewayRateLimiter.DEFAULT_CAPACITY; i++)
+            assertThat(rateLimiter.tryAcquire(GatewayPriority.HEARTBEAT)).isTrue();
+        assertThat(rateLimiter.getTokens()).isEqualTo(0);
+
+        now += SECOND / 2;
+        assertThat(rateLimiter.getDelay(GatewayPriority.HEARTBEAT)).isEqualTo(SECOND / 2);
+        now += SECOND / 2;
+        assertThat(rateLimiter.getTokens()).isEqualTo(1);
+
+        now += 1000 * SECOND;
+        assertThat(rateLimiter.getTokens()).isEqualTo(GatewayRateLimiter.DEFAULT_CAPACITY);
+
+        rateLimiter.tryAcquire(GatewayPriority.HEARTBEAT);
+        rateLimiter.reset();
+        assertThat(rateLimiter.getTokens()).isEqualTo(GatewayRateLimiter.DEFAULT_CAPACITY);
+    }
+
+    @Test
+    void testWindowLimit()
+    {
+        // Sending as fast as possible must never exceed 120 commands in any 60 second window
+        Deque<Long> window = new ArrayDeque<>();
+        long step = SECOND / 10;
+        for (int i = 0; i < 10 * 600; i++)
+        {
+            while (rateLimiter.tryAcquire(i % 2 == 0 ? GatewayPriority.HEARTBEAT : GatewayPriority.PRESENCE))
+                window.addLast(now);
+            while (!window.isEmpty() && window.peekFirst() <= now - 60 * SECOND)
+                window.removeFirst();
+            assertThat(window.size()).isLessThanOrEqualTo(120);
+            now += step;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.test.requests;
+
+import net.dv8tion.jda.api.requests.MappedRateLimitCoordinator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+public class MappedRateLimitCoordinatorTest
+{
+    @Test
+    void testSharedBucket(@TempDir Path directory)
+    {
+        Path file = directory.resolve("rate-limits");
+        // Each instance stands in for another process using the same file
+        try (MappedRateLimitCoordinator first = new MappedRateLimitCoordinator(file, 16);
+             MappedRateLimitCoordinator second = new MappedRateLimitCoordinator(file))
+        {
+            assertThat(second.getSlots()).isEqualTo(16);
+            long now = System.currentTimeMillis();
+            // Unknown buckets are not limited
+            assertThat(first.acquire("abc:channel_id=42", now)).isZero();
+
+            first.update("abc:channel_id=42", 2, now + 5000);
+            assertThat(second.acquire("abc:channel_id=42", now)).isZero();
+            assertThat(first.acquire("abc:channel_id=42", now)).isZero();
+            assertThat(second.acquire("abc:channel_id=42", now)).isEqualTo(5000);
+            assertThat(first.acquire("abc:channel_id=43", now)).isZero();
+
+            // An older response of the same window does not restore the used up remaining uses
+            second.update("abc:channel_id=42", 1, now + 4900);
+            assertThat(first.acquire("abc:channel_id=42", now)).isEqualTo(5000);
+            // Once the bucket resets, the state is unknown again
+            assertThat(first.acquire("abc:channel_id=42", now + 5000)).isZero();
+        }
+    }
+
+    @Test
+    void testSharedGlobalRateLimit(@TempDir Path directory)
+    {
+        Path file = directory.resolve("rate-limits");
+        try (MappedRateLimitCoordinator first = new MappedRateLimitCoordinator(file))
+        {
+            first.getGlobalRateLimit().setClassic(1234);
+            first.getGlobalRateLimit().setCloudflare(5678);
+        }
+
+        try (MappedRateLimitCoordinator second = new MappedRateLimitCoordinator(file))
+        {
+            assertThat(second.getGlobalRateLimit().getClassic()).isEqualTo(1234);
+            assertThat(second.getGlobalRateLimit().getCloudflare()).isEqualTo(5678);
+        }
+    }
+
+    @Test
+    void testClosed(@TempDir Path directory)
+    {
+        Path file = directory.resolve("rate-limits");
+        MappedRateLimitCoordinator coordinator = new MappedRateLimitCoordinator(file, 16);
+        long now = System.currentTimeMillis();
+        coordinator.update("abc:channel_id=42", 0, now + 5000);
+        coordinator.getGlobalRateLimit().setClassic(now + 5000);
+        coordinator.close();
+        coordinator.close();
+
+        // The buffer is unmapped, so the closed coordinator no longer limits anything
+        assertThat(coordinator.acquire("abc:channel_id=42", now)).isZero();
+        assertThat(coordinator.getGlobalRateLimit().getClassic()).isZero();
+        coordinator.update("abc:channel_id=42", 0, now + 5000);
+
+        try (MappedRateLimitCoordinator reopened = new MappedRateLimitCoordinator(file))
+        {
+            assertThat(reopened.acquire("abc:channel_id=42", now)).isEqualTo(5000);
+            assertThat(reopened.getGlobalRateLimit().getClassic()).isEqualTo(now + 5000);
+        }
+    }
+
+    @Test
+    void testInvalidFile(@TempDir Path directory) throws Exception
+    {
+        Path file = Files.write(directory.resolve("other"), new byte[64]);
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> new MappedRateLimitCoordinator(file))
+                .withMessageContaining("not a rate-limit file");
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.test.requests;
+
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.utils.data.DataArray;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.internal.entities.EntityBuilder;
+import net.dv8tion.jda.internal.entities.GuildImpl;
+import net.dv8tion.jda.internal.entities.MemberImpl;
+import net.dv8tion.jda.internal.requests.MemberChunkManager;
+import net.dv8tion.jda.internal.requests.WebSocketClient;
+import net.dv8tion.jda.test.IntegrationTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class MemberChunkManagerTest extends IntegrationTest
+{
+    private static final long GUILD_ID = 42;
+
+    @Mock
+    private WebSocketClient client;
+    @Mock
+    private GuildImpl guild;
+    @Mock
+    private EntityBuilder entityBuilder;
+
+    private final List<DataObject> queued = new ArrayList<>();
+    private final List<DataObject> sent = new ArrayList<>();
+    private MemberChunkManager chunkManager;
+
+    @BeforeEach
+    void setupChunkManager()
+    {
+        when(client.getJDA()).thenReturn(jda);
+        when(jda.getGatewayPool()).thenReturn(scheduledExecutorService);
+        when(jda.getEntityBuilder()).thenReturn(entityBuilder);
+        when(guild.getJDA()).thenReturn(jda);
+        when(guild.getIdLong()).thenReturn(GUILD_ID);
+        when(guild.getId()).thenReturn(String.valueOf(GUILD_ID));
+        when(entityBuilder.createMember(any(), any(), any(), any())).thenAnswer(invocation -> {
+            DataObject json = invocation.getArgument(1);
+            MemberImpl member = mock(MemberImpl.class);
+            when(member.getIdLong()).thenReturn(json.getObject("user").getUnsignedLong("id"));
+            return member;
+        });
+
+        doAnswer(invocation -> queued.add(invocation.getArgument(0))).when(client).sendChunkRequest(any());
+        when(client.updateChunkRequest(anyString(), any())).thenAnswer(invocation -> {
+            String nonce = invocation.getArgument(0);
+            Consumer<DataObject> update = invocation.getArgument(1);
+            for (DataObject request : queued)
+            {
+                if (request.getString("nonce").equals(nonce) && !sent.contains(request))
+                {
+                    update.accept(request);
+                    return true;
+                }
+            }
+            return false;
+        });
+
+        chunkManager = new MemberChunkManager(client);
+    }
+
+    @Test
+    void testMergeRequests()
+    {
+        List<Long> first = new ArrayList<>(), second = new ArrayList<>(), third = new ArrayList<>();
+        MemberChunkManager.ChunkRequest firstRequest = chunkManager.chunkGuild(guild, false, new long[]{1, 2}, collect(first));
+        MemberChunkManager.ChunkRequest secondRequest = chunkManager.chunkGuild(guild, false, new long[]{2, 3}, collect(second));
+        MemberChunkManager.ChunkRequest thirdRequest = chunkManager.chunkGuild(guild, false, new long[]{4}, collect(third));
+
+        assertThat(queued).hasSize(1);
+        DataObject request = queued.get(0);
+        assertThat(request.getArray("user_ids").stream(DataArray::getLong)).containsExactly(1L, 2L, 3L, 4L);
+
+        // Member 4 was not found
+        assertThat(chunkManager.handleChunk(GUILD_ID, chunk(request, 1, 2, 3))).isTrue();
+        assertThat(first).containsExactly(1L, 2L);
+        assertThat(second).containsExactly(2L, 3L);
+        assertThat(third).isEmpty();
+        assertThat(firstRequest).isCompleted();
+        assertThat(secondRequest).isCompleted();
+        assertThat(thirdRequest).isCompleted();
+
+        // The completed batch is not extended anymore
+        chunkManager.chunkGuild(guild, false, new long[]{5}, collect(new ArrayList<>()));
+        assertThat(queued).hasSize(2);
+    }
+
+    @Test
+    void testSentRequestIsNotExtended()
+    {
+        chunkManager.chunkGuild(guild, false, new long[]{1}, collect(new ArrayList<>()));
+        sent.add(queued.get(0));
+        chunkManager.chunkGuild(guild, false, new long[]{2}, collect(new ArrayList<>()));
+
+        assertThat(queued).hasSize(2);
+        assertThat(queued.get(0).getArray("user_ids").length()).isEqualTo(1);
+        assertThat(queued.get(1).getArray("user_ids").stream(DataArray::getLong)).containsExactly(2L);
+    }
+
+    @Test
+    void testRequestLimits()
+    {
+        chunkManager.chunkGuild(guild, false, LongStream.rangeClosed(1, 60).toArray(), collect(new ArrayList<>()));
+        chunkManager.chunkGuild(guild, false, LongStream.rangeClosed(41, 100).toArray(), collect(new ArrayList<>()));
+        assertThat(queued).hasSize(1);
+        assertThat(queued.get(0).getArray("user_ids").length()).isEqualTo(100);
+
+        chunkManager.chunkGuild(guild, false, new long[]{101}, collect(new ArrayList<>()));
+        chunkManager.chunkGuild(guild, true, new long[]{102}, collect(new ArrayList<>()));
+        assertThat(queued).hasSize(3);
+        assertThat(queued.get(2).getBoolean("presences")).isTrue();
+    }
+
+    private static DataObject chunk(DataObject request, long... userIds)
+    {
+        DataArray members = DataArray.empty();
+        for (long id : userIds)
+            members.add(DataObject.empty().put("user", DataObject.empty().put("id", id)));
+        return DataObject.empty()
+            .put("nonce", request.getString("nonce"))
+            .put("chunk_index", 0)
+            .put("chunk_count", 1)
+            .put("members", members);
+    }
+
+    private static java.util.function.BiConsumer<Boolean, List<Member>> collect(List<Long> ids)
+    {
+        return (last, members) -> ids.addAll(members.stream().map(Member::getIdLong).collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.test.requests;
+
+import net.dv8tion.jda.internal.handle.GuildSetupController;
+import net.dv8tion.jda.internal.handle.SocketHandler;
+import net.dv8tion.jda.internal.requests.ParallelDispatcher;
+import net.dv8tion.jda.test.IntegrationTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+public class ParallelDispatcherTest extends IntegrationTest
+{
+    @Mock
+    private GuildSetupController setupController;
+
+    private ParallelDispatcher dispatcher;
+
+    @BeforeEach
+    void setupDispatcher()
+    {
+        when(jda.getIdentifierString()).thenReturn("JDA");
+        when(jda.getGuildSetupController()).thenReturn(setupController);
+        when(setupController.isLocked(anyLong())).thenReturn(false);
+        dispatcher = new ParallelDispatcher(jda, 4, HashMap::new);
+    }
+
+    @AfterEach
+    void shutdownDispatcher()
+    {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void testOrderWithinGuild()
+    {
+        Map<Long, List<Integer>> events = new ConcurrentHashMap<>();
+        for (int i = 0; i < 1000; i++)
+        {
+            long guildId = 100 + i % 10;
+            int sequence = i;
+            boolean parallel = dispatcher.dispatch("MESSAGE_CREATE", guildId, (handlers) ->
+                events.computeIfAbsent(guildId, k -> Collections.synchronizedList(new ArrayList<>())).add(sequence));
+            assertThat(parallel).isTrue();
+        }
+
+        dispatcher.awaitIdle();
+        assertThat(dispatcher.getPending()).isEqualTo(0);
+        assertThat(events).hasSize(10);
+        events.forEach((guildId, sequences) -> {
+            assertThat(sequences).hasSize(100);
+            assertThat(sequences).isSorted();
+        });
+    }
+
+    @Test
+    void testSerialEvents() throws InterruptedException
+    {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+        dispatcher.dispatch("MESSAGE_CREATE", 1, (handlers) -> {
+            started.countDown();
+            try
+            {
+                release.await();
+            }
+            catch (InterruptedException ignored) {}
+            order.add("MESSAGE_CREATE");
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        Thread releaseThread = new Thread(() -> {
+            try
+            {
+                Thread.sleep(50);
+            }
+            catch (InterruptedException ignored) {}
+            order.add("RELEASE");
+            release.countDown();
+        });
+        releaseThread.start();
+
+        // Serial events wait for all pending events before they are handled by the caller
+        assertThat(dispatcher.dispatch("GUILD_MEMBER_UPDATE", 1, (handlers) -> {})).isFalse();
+        order.add("GUILD_MEMBER_UPDATE");
+        assertThat(order).containsExactly("RELEASE", "MESSAGE_CREATE", "GUILD_MEMBER_UPDATE");
+
+        assertThat(dispatcher.dispatch("USER_UPDATE", 0, (handlers) -> {})).isFalse();
+        assertThat(dispatcher.dispatch("TYPING_START", 0, (handlers) -> {})).isFalse();
+        releaseThread.join();
+    }
+
+    @Test
+    void testLockedGuild()
+    {
+        when(setupController.isLocked(42)).thenReturn(true);
+        assertThat(dispatcher.dispatch("MESSAGE_CREATE", 42, (handlers) -> {})).isFalse();
+        assertThat(dispatcher.dispatch("MESSAGE_CREATE", 43, (handlers) -> {})).isTrue();
+    }
+
+    @Test
+    void testWorkerHandlers() throws InterruptedException
+    {
+        // Each worker has its own handlers, the same guild always uses the same worker
+        Set<Map<String, SocketHandler>> first = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+        Set<Map<String, SocketHandler>> all = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+        for (int i = 0; i < 100; i++)
+        {
+            dispatcher.dispatch("MESSAGE_CREATE", 7, first::add);
+            dispatcher.dispatch("MESSAGE_CREATE", i + 1, all::add);
+        }
+        dispatcher.awaitIdle();
+
+        assertThat(first).hasSize(1);
+        assertThat(all).hasSize(4);
+    }
+}
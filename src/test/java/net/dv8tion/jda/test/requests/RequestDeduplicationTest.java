@@ -0,0 +1,144 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.test.requests;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.JDABuilder;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.requests.RestConfig;
+import net.dv8tion.jda.api.requests.Route;
+import net.dv8tion.jda.api.utils.ConcurrentSessionController;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.internal.requests.RestActionImpl;
+import net.dv8tion.jda.test.gateway.MockGatewayServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RequestDeduplicationTest
+{
+    private static final long USER_ID = MockGatewayServer.SELF_ID + 5;
+
+    private MockGatewayServer server;
+    private JDA jda;
+
+    @BeforeEach
+    void setup() throws IOException
+    {
+        server = new MockGatewayServer().start();
+    }
+
+    @AfterEach
+    void teardown()
+    {
+        if (jda != null)
+            jda.shutdownNow();
+        server.close();
+    }
+
+    @Test
+    void testIdenticalRequestsAreShared() throws Exception
+    {
+        jda = login(true);
+        server.setRestDelay(200);
+
+        List<User> users = retrieveUsers(10);
+        assertThat(server.getRestCount("users/" + USER_ID)).isEqualTo(1);
+        assertThat(jda.getDeduplicatedRequestCount()).isEqualTo(9);
+        for (User user : users)
+            assertThat(user.getIdLong()).isEqualTo(USER_ID);
+
+        // Once the response is handled, the next request is sent again
+        server.setRestDelay(0);
+        assertThat(jda.retrieveUserById(USER_ID).submit().get(5, TimeUnit.SECONDS).getIdLong()).isEqualTo(USER_ID);
+        assertThat(server.getRestCount("users/" + USER_ID)).isEqualTo(2);
+    }
+
+    @Test
+    void testRequestsParseOwnBody() throws Exception
+    {
+        jda = login(true);
+        server.setRestDelay(200);
+
+        // Each handler changes the data it receives, which must not be visible to the other requests
+        List<CompletableFuture<DataObject>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+        {
+            String name = "user-" + i;
+            Route.CompiledRoute route = Route.Users.GET_USER.compile(Long.toUnsignedString(USER_ID));
+            futures.add(new RestActionImpl<DataObject>(jda, route, (response, request) -> response.getObject().put("username", name)).submit());
+        }
+
+        for (int i = 0; i < futures.size(); i++)
+            assertThat(futures.get(i).get(5, TimeUnit.SECONDS).getString("username")).isEqualTo("user-" + i);
+        assertThat(server.getRestCount("users/" + USER_ID)).isEqualTo(1);
+        assertThat(jda.getDeduplicatedRequestCount()).isEqualTo(2);
+    }
+
+    @Test
+    void testDisabledByDefault() throws Exception
+    {
+        jda = login(false);
+        server.setRestDelay(50);
+
+        retrieveUsers(3);
+        assertThat(server.getRestCount("users/" + USER_ID)).isEqualTo(3);
+        assertThat(jda.getDeduplicatedRequestCount()).isZero();
+    }
+
+    private List<User> retrieveUsers(int count) throws Exception
+    {
+        List<CompletableFuture<User>> futures = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            futures.add(jda.retrieveUserById(USER_ID).submit());
+
+        List<User> users = new ArrayList<>();
+        for (CompletableFuture<User> future : futures)
+            users.add(future.get(5, TimeUnit.SECONDS));
+        return users;
+    }
+
+    private JDA login(boolean deduplicate) throws InterruptedException
+    {
+        RestConfig config = new RestConfig().setBaseUrl(server.getRestUrl());
+        if (deduplicate)
+            config.setDeduplicateRequests(true);
+        return JDABuilder.createLight("mock-token")
+                .setRestConfig(config)
+                .setSessionController(new ConcurrentSessionController()
+                {
+                    @Nonnull
+                    @Override
+                    public String getGateway()
+                    {
+                        return server.getGatewayUrl();
+                    }
+                })
+                .setEnableShutdownHook(false)
+                .build()
+                .awaitReady();
+    }
+}
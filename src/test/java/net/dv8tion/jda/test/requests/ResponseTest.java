@@ -0,0 +1,88 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.test.requests;
+
+import net.dv8tion.jda.api.exceptions.ParsingException;
+import net.dv8tion.jda.api.requests.Response;
+import net.dv8tion.jda.api.utils.data.DataArray;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.ResponseBody;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+public class ResponseTest
+{
+    private static final String BODY = "[{\"id\": 1}, {\"id\": 2}]";
+
+    @Test
+    void testStreaming()
+    {
+        Response response = createResponse();
+        List<Integer> ids = new ArrayList<>();
+        response.forEachObject(object -> ids.add(object.getInt("id")));
+        assertThat(ids).containsExactly(1, 2);
+
+        // The body is consumed while streaming
+        assertThatIllegalStateException().isThrownBy(response::getArray);
+    }
+
+    @Test
+    void testParsedResponse()
+    {
+        Response response = createResponse();
+        assertThat(response.getArray().length()).isEqualTo(2);
+        for (int i = 0; i < 2; i++)
+        {
+            List<Integer> ids = new ArrayList<>();
+            response.forEachObject(object -> ids.add(object.getInt("id")));
+            assertThat(ids).containsExactly(1, 2);
+        }
+        assertThat(response.getArray().stream(DataArray::getObject).map(object -> object.getInt("id"))).containsExactly(1, 2);
+    }
+
+    @Test
+    void testInvalidBody()
+    {
+        Response response = createResponse("{\"id\": 1}");
+        assertThatExceptionOfType(ParsingException.class).isThrownBy(() -> response.forEachObject(object -> {}));
+    }
+
+    private static Response createResponse()
+    {
+        return createResponse(BODY);
+    }
+
+    private static Response createResponse(String body)
+    {
+        okhttp3.Response raw = new okhttp3.Response.Builder()
+                .request(new okhttp3.Request.Builder().url("http://localhost/").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .body(ResponseBody.create(body, MediaType.get("application/json")))
+                .build();
+        return new Response(raw, -1, Collections.emptySet());
+    }
+}
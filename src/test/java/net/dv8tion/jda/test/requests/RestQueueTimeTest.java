@@ -0,0 +1,93 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.test.requests;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.JDABuilder;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.requests.RequestPriority;
+import net.dv8tion.jda.api.requests.RestConfig;
+import net.dv8tion.jda.api.requests.QueueTime;
+import net.dv8tion.jda.api.utils.ConcurrentSessionController;
+import net.dv8tion.jda.test.gateway.MockGatewayServer;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RestQueueTimeTest
+{
+    private static final long USER_ID = MockGatewayServer.SELF_ID + 5;
+
+    @Test
+    void testQueueTimePerPriority() throws Exception
+    {
+        try (MockGatewayServer server = new MockGatewayServer().start())
+        {
+            JDA jda = login(server);
+            try
+            {
+                QueueTime initial = jda.getRestQueueTime(RequestPriority.BACKGROUND);
+                assertThat(initial.getCount()).isZero();
+                assertThat(initial.getAverageTime()).isZero();
+
+                // Requests of the same bucket are sent one after another, each waits for the previous responses
+                server.setRestDelay(100);
+                List<CompletableFuture<User>> futures = new ArrayList<>();
+                for (int i = 0; i < 3; i++)
+                    futures.add(jda.retrieveUserById(USER_ID).setPriority(RequestPriority.BACKGROUND).submit());
+                for (CompletableFuture<User> future : futures)
+                    future.get(5, TimeUnit.SECONDS);
+
+                QueueTime time = jda.getRestQueueTime(RequestPriority.BACKGROUND);
+                assertThat(time.getCount()).isEqualTo(3);
+                assertThat(time.getMaxTime()).isGreaterThanOrEqualTo(150);
+                assertThat(time.getTotalTime()).isGreaterThanOrEqualTo(time.getMaxTime() + 50);
+                assertThat(time.getAverageTime()).isEqualTo(time.getTotalTime() / 3.0);
+
+                assertThat(jda.getRestQueueTime(RequestPriority.CRITICAL).getCount()).isZero();
+            }
+            finally
+            {
+                jda.shutdownNow();
+            }
+        }
+    }
+
+    private static JDA login(MockGatewayServer server) throws InterruptedException
+    {
+        return JDABuilder.createLight("mock-token")
+                .setRestConfig(new RestConfig().setBaseUrl(server.getRestUrl()))
+                .setSessionController(new ConcurrentSessionController()
+                {
+                    @Nonnull
+                    @Override
+                    public String getGateway()
+                    {
+                        return server.getGatewayUrl();
+                    }
+                })
+                .setEnableShutdownHook(false)
+                .build()
+                .awaitReady();
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.test.requests;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.JDABuilder;
+import net.dv8tion.jda.api.requests.MemoryRestResponseCache;
+import net.dv8tion.jda.api.requests.RestConfig;
+import net.dv8tion.jda.api.requests.RestResponseCache;
+import net.dv8tion.jda.api.requests.Route;
+import net.dv8tion.jda.api.utils.ConcurrentSessionController;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.internal.JDAImpl;
+import net.dv8tion.jda.test.gateway.MockGatewayServer;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+public class RestResponseCacheTest
+{
+    private static final long USER_ID = MockGatewayServer.SELF_ID + 5;
+
+    private MockGatewayServer server;
+    private JDA jda;
+
+    @AfterEach
+    void teardown()
+    {
+        if (jda != null)
+            jda.shutdownNow();
+        if (server != null)
+            server.close();
+    }
+
+    @Test
+    void testCachedResponseSkipsRequest() throws Exception
+    {
+        MemoryRestResponseCache cache = new MemoryRestResponseCache(10)
+                .cache(Route.Users.GET_USER, Duration.ofMinutes(1));
+        jda = login(cache);
+
+        assertThat(retrieveUser()).isEqualTo(USER_ID);
+        assertThat(retrieveUser()).isEqualTo(USER_ID);
+        assertThat(retrieveUser()).isEqualTo(USER_ID);
+        assertThat(server.getRestCount("users/" + USER_ID)).isEqualTo(1);
+        assertThat(cache.getHitCount()).isEqualTo(2);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+
+        // Gateway events only remove the affected routes
+        ((JDAImpl) jda).getRequester().invalidateCache("GUILD_EMOJIS_UPDATE", DataObject.empty().put("guild_id", "1"));
+        assertThat(cache.size()).isEqualTo(1);
+        cache.invalidate("users/" + USER_ID);
+        assertThat(retrieveUser()).isEqualTo(USER_ID);
+        assertThat(server.getRestCount("users/" + USER_ID)).isEqualTo(2);
+    }
+
+    @Test
+    void testExpiredResponse() throws Exception
+    {
+        MemoryRestResponseCache cache = new MemoryRestResponseCache(10)
+                .cache(Route.Users.GET_USER, Duration.ofMillis(50));
+        jda = login(cache);
+
+        assertThat(retrieveUser()).isEqualTo(USER_ID);
+        Thread.sleep(100);
+        assertThat(retrieveUser()).isEqualTo(USER_ID);
+        assertThat(server.getRestCount("users/" + USER_ID)).isEqualTo(2);
+        assertThat(cache.getHitCount()).isZero();
+    }
+
+    @Test
+    void testInvalidateRelatedPaths()
+    {
+        MemoryRestResponseCache cache = new MemoryRestResponseCache(10)
+                .cache(Route.Emojis.GET_EMOJIS, Duration.ofMinutes(1))
+                .cache(Route.Emojis.GET_EMOJI, Duration.ofMinutes(1))
+                .cache(Route.Stickers.GET_GUILD_STICKERS, Duration.ofMinutes(1));
+        RestResponseCache.CachedResponse response = createResponse();
+
+        cache.put(Route.Emojis.GET_EMOJIS.compile("1"), response);
+        cache.put(Route.Emojis.GET_EMOJI.compile("1", "5"), response);
+        cache.put(Route.Emojis.GET_EMOJIS.compile("12"), response);
+        cache.put(Route.Stickers.GET_GUILD_STICKERS.compile("1"), response);
+        // Other routes are not cached
+        cache.put(Route.Users.GET_USER.compile("1"), response);
+        assertThat(cache.size()).isEqualTo(4);
+
+        cache.invalidate("guilds/1/emojis/5");
+        assertThat(cache.get(Route.Emojis.GET_EMOJIS.compile("1"))).isNull();
+        assertThat(cache.get(Route.Emojis.GET_EMOJI.compile("1", "5"))).isNull();
+        assertThat(cache.get(Route.Emojis.GET_EMOJIS.compile("12"))).isSameAs(response);
+        assertThat(cache.get(Route.Stickers.GET_GUILD_STICKERS.compile("1"))).isSameAs(response);
+
+        cache.invalidate("guilds/12");
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void testLeastRecentlyUsed()
+    {
+        MemoryRestResponseCache cache = new MemoryRestResponseCache(2)
+                .cache(Route.Users.GET_USER, Duration.ofMinutes(1));
+        RestResponseCache.CachedResponse response = createResponse();
+
+        cache.put(Route.Users.GET_USER.compile("1"), response);
+        cache.put(Route.Users.GET_USER.compile("2"), response);
+        assertThat(cache.get(Route.Users.GET_USER.compile("1"))).isSameAs(response);
+        cache.put(Route.Users.GET_USER.compile("3"), response);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get(Route.Users.GET_USER.compile("2"))).isNull();
+        assertThat(cache.get(Route.Users.GET_USER.compile("1"))).isSameAs(response);
+
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> cache.cache(Route.Users.GET_USER, Duration.ZERO));
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> cache.cache(Route.Messages.SEND_MESSAGE, Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void testCachedResponseBody() throws IOException
+    {
+        RestResponseCache.CachedResponse response = createResponse();
+        // Every use reads the body again
+        for (int i = 0; i < 2; i++)
+        {
+            try (Response raw = response.toResponse())
+            {
+                assertThat(raw.code()).isEqualTo(200);
+                assertThat(raw.body().string()).isEqualTo("{\"id\":\"1\"}");
+            }
+        }
+    }
+
+    private long retrieveUser() throws Exception
+    {
+        return jda.retrieveUserById(USER_ID).submit().get(5, TimeUnit.SECONDS).getIdLong();
+    }
+
+    private static RestResponseCache.CachedResponse createResponse()
+    {
+        Response response = new Response.Builder()
+                .request(new okhttp3.Request.Builder().url("http://localhost/").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .build();
+        return new RestResponseCache.CachedResponse(response, "{\"id\":\"1\"}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private JDA login(RestResponseCache cache) throws IOException, InterruptedException
+    {
+        server = new MockGatewayServer().start();
+        return JDABuilder.createLight("mock-token")
+                .setRestConfig(new RestConfig().setBaseUrl(server.getRestUrl()).setResponseCache(cache))
+                .setSessionController(new ConcurrentSessionController()
+                {
+                    @Nonnull
+                    @Override
+                    public String getGateway()
+                    {
+                        return server.getGatewayUrl();
+                    }
+                })
+                .setEnableShutdownHook(false)
+                .build()
+                .awaitReady();
+    }
+}
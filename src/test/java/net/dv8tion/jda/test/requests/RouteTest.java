@@ -0,0 +1,59 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.test.requests;
+
+import net.dv8tion.jda.api.requests.Route;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RouteTest
+{
+    @Test
+    void testCompile()
+    {
+        Route.CompiledRoute route = Route.Messages.EDIT_MESSAGE.compile("123", "456");
+        assertThat(route.getCompiledRoute()).isEqualTo("channels/123/messages/456");
+        assertThat(route.getMajorParameters()).isEqualTo("channel_id=123");
+        assertThat(route.withQueryParams("limit", "10").getCompiledRoute()).isEqualTo("channels/123/messages/456?limit=10");
+        assertThat(route.withQueryParams("limit", "10").getMajorParameters()).isEqualTo("channel_id=123");
+
+        Route.CompiledRoute custom = Route.get("users/{user_id}/name").compile("a b");
+        assertThat(custom.getCompiledRoute()).isEqualTo("users/a+b/name");
+        assertThat(custom.getMajorParameters()).isEqualTo("n/a");
+    }
+
+    @Test
+    void testInteractionToken()
+    {
+        String token = "aW50ZXJhY3Rpb246MTIzNDU2Nzg5MDEyMzQ1Njc4OTA6dG9rZW4";
+        Route.CompiledRoute route = Route.Interactions.CREATE_FOLLOWUP.compile("123", token);
+        assertThat(route.getCompiledRoute()).isEqualTo("webhooks/123/" + token);
+        assertThat(route.getMajorParameters()).isEqualTo("interaction_token=" + Integer.toUnsignedString(token.hashCode()));
+    }
+
+    @Test
+    void testEquality()
+    {
+        Route.CompiledRoute first = Route.Messages.EDIT_MESSAGE.compile("123", "456");
+        Route.CompiledRoute second = Route.Messages.EDIT_MESSAGE.compile("123", "456");
+        assertThat(first).isEqualTo(second).hasSameHashCodeAs(second);
+        assertThat(first).isNotEqualTo(Route.Messages.DELETE_MESSAGE.compile("123", "456"));
+        assertThat(first).isNotEqualTo(Route.Messages.EDIT_MESSAGE.compile("123", "789"));
+        assertThat(Route.Messages.EDIT_MESSAGE).hasSameHashCodeAs(Route.custom(Route.Messages.EDIT_MESSAGE.getMethod(), "channels/{channel_id}/messages/{message_id}"));
+    }
+}
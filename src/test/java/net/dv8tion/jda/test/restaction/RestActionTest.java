@@ -16,7 +16,13 @@
 
 package net.dv8tion.jda.test.restaction;
 
+import net.dv8tion.jda.api.requests.RequestPriority;
+import net.dv8tion.jda.api.requests.RestAction;
+import net.dv8tion.jda.api.requests.Route;
+import net.dv8tion.jda.api.requests.restaction.AuditableRestAction;
 import net.dv8tion.jda.internal.requests.CompletedRestAction;
+import net.dv8tion.jda.internal.requests.RestActionImpl;
+import net.dv8tion.jda.internal.requests.restaction.AuditableRestActionImpl;
 import net.dv8tion.jda.test.IntegrationTest;
 import org.junit.jupiter.api.Test;
 
@@ -100,6 +106,26 @@ public class RestActionTest extends IntegrationTest
             .schedule(any(Runnable.class), eq(3L), eq(TimeUnit.SECONDS));
     }
 
+    @Test
+    void testPriority()
+    {
+        RestAction<Void> callback = new RestActionImpl<>(jda, Route.Interactions.CALLBACK.compile("1", "token"));
+        RestAction<Void> message = new RestActionImpl<>(jda, Route.Messages.SEND_MESSAGE.compile("1"));
+        assertThat(callback.getPriority()).isEqualTo(RequestPriority.CRITICAL);
+        assertThat(message.getPriority()).isEqualTo(RequestPriority.NORMAL);
+
+        // Operators apply the priority to the wrapped action
+        RestAction<Integer> mapped = message.map(v -> 1).setPriority(RequestPriority.BACKGROUND);
+        assertThat(mapped.getPriority()).isEqualTo(RequestPriority.BACKGROUND);
+        assertThat(message.getPriority()).isEqualTo(RequestPriority.BACKGROUND);
+
+        // Fluent subtypes keep their type
+        AuditableRestAction<Void> auditable = new AuditableRestActionImpl<Void>(jda, Route.Roles.DELETE_ROLE.compile("1", "2"))
+            .setPriority(RequestPriority.BACKGROUND)
+            .reason("cleanup");
+        assertThat(auditable.getPriority()).isEqualTo(RequestPriority.BACKGROUND);
+    }
+
     @Test
     void testQueueAfter()
     {
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.test.util;
+
+import gnu.trove.set.TLongSet;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.JDABuilder;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.ISnowflake;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.guild.GuildAvailableEvent;
+import net.dv8tion.jda.api.events.guild.GuildJoinEvent;
+import net.dv8tion.jda.api.hooks.EventListener;
+import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.requests.RestConfig;
+import net.dv8tion.jda.api.utils.ConcurrentSessionController;
+import net.dv8tion.jda.api.utils.FileSessionResumeStore;
+import net.dv8tion.jda.api.utils.MemberCachePolicy;
+import net.dv8tion.jda.api.utils.SessionResumeStore;
+import net.dv8tion.jda.api.utils.data.DataArray;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.internal.JDAImpl;
+import net.dv8tion.jda.internal.utils.cache.CacheSnapshot;
+import net.dv8tion.jda.test.gateway.MockGatewayServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.annotation.Nonnull;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CacheSnapshotTest
+{
+    private static final long REMOVED_USER_ID = MockGatewayServer.SELF_ID + 1000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testWriteAndRead()
+    {
+        Path file = CacheSnapshot.getFile(directory.resolve("cache"), new JDA.ShardInfo(1, 4));
+        assertThat(file.getFileName().toString()).isEqualTo("cache-1-4.etf");
+        assertThat(CacheSnapshot.read(file)).isNull();
+
+        DataObject guild = DataObject.empty()
+                .put("id", 125227483518861312L)
+                .put("name", "JDA")
+                .put("icon", null)
+                .put("roles", DataArray.empty().add(DataObject.empty().put("id", 125227483518861312L).put("permissions", 1L << 40)))
+                .put("members", DataArray.empty());
+        CacheSnapshot.write(file, snapshot("abc", 42, guild));
+        // The previous snapshot is replaced
+        CacheSnapshot.write(file, snapshot("def", 7, guild));
+
+        DataObject snapshot = CacheSnapshot.read(file);
+        assertThat(snapshot).isNotNull();
+        assertThat(CacheSnapshot.isSessionSnapshot(snapshot, "def", 7)).isTrue();
+        assertThat(CacheSnapshot.isSessionSnapshot(snapshot, "def", 8)).isFalse();
+        assertThat(CacheSnapshot.isSessionSnapshot(snapshot, "abc", 7)).isFalse();
+
+        DataObject restored = snapshot.getArray("guilds").getObject(0);
+        assertThat(restored.getUnsignedLong("id")).isEqualTo(125227483518861312L);
+        assertThat(restored.getString("name")).isEqualTo("JDA");
+        assertThat(restored.isNull("icon")).isTrue();
+        assertThat(restored.getArray("roles").getObject(0).getLong("permissions")).isEqualTo(1L << 40);
+        assertThat(directory.resolve("cache").toFile().list()).containsExactly("cache-1-4.etf");
+    }
+
+    @Test
+    void testVersionMismatch()
+    {
+        Path file = CacheSnapshot.getFile(directory, JDA.ShardInfo.SINGLE);
+        CacheSnapshot.write(file, snapshot("abc", 1).put("version", CacheSnapshot.VERSION + 1));
+        assertThat(CacheSnapshot.read(file)).isNull();
+    }
+
+    @Test
+    void testRestoreGuilds() throws Exception
+    {
+        try (MockGatewayServer server = new MockGatewayServer().setGuildsPerShard(2).setMembersPerGuild(20).start())
+        {
+            JDAImpl jda = login(server, new GuildListener());
+            try
+            {
+                List<Guild> guilds = jda.getGuilds();
+                Path file = CacheSnapshot.getFile(directory, JDA.ShardInfo.SINGLE);
+                CacheSnapshot.write(file, CacheSnapshot.create(jda, "abc", 42));
+
+                TLongSet upToDate = CacheSnapshot.restore(jda, CacheSnapshot.read(file));
+                assertThat(upToDate.size()).isEqualTo(2);
+                for (Guild original : guilds)
+                {
+                    Guild restored = jda.getGuildById(original.getIdLong());
+                    assertThat(restored).isNotSameAs(original);
+                    assertThat(restored.isStale()).isTrue();
+                    assertThat(upToDate.contains(restored.getIdLong())).isTrue();
+                    assertThat(restored.getName()).isEqualTo(original.getName());
+                    assertThat(ids(restored.getRoles())).containsExactlyElementsOf(ids(original.getRoles()));
+                    assertThat(ids(restored.getChannels())).containsExactlyElementsOf(ids(original.getChannels()));
+                    assertThat(ids(restored.getMembers())).containsExactlyInAnyOrderElementsOf(ids(original.getMembers()));
+                    for (Member member : restored.getMembers())
+                    {
+                        Member originalMember = original.getMember(member.getUser());
+                        assertThat(member.getUser()).isSameAs(jda.getUserById(member.getIdLong()));
+                        assertThat(member.getUser().getName()).isEqualTo(originalMember.getUser().getName());
+                        assertThat(ids(member.getRoles())).containsExactlyElementsOf(ids(originalMember.getRoles()));
+                        assertThat(member.getTimeJoined()).isEqualTo(originalMember.getTimeJoined());
+                    }
+                }
+            }
+            finally
+            {
+                jda.shutdownNow();
+            }
+        }
+    }
+
+    @Test
+    void testReplaceStaleGuild() throws Exception
+    {
+        try (MockGatewayServer server = new MockGatewayServer().setMembersPerGuild(20).start())
+        {
+            GuildListener listener = new GuildListener();
+            JDAImpl jda = login(server, listener);
+            try
+            {
+                long guildId = jda.getGuilds().get(0).getIdLong();
+                DataObject guildCreate = CacheSnapshot.create(jda, null, 0).getArray("guilds").getObject(0);
+
+                // The snapshot has a member, which is no longer in the guild
+                DataObject snapshot = CacheSnapshot.create(jda, null, 0);
+                DataArray members = snapshot.getArray("guilds").getObject(0).getArray("members");
+                DataObject removedMember = DataObject.fromJson(members.getObject(1).toJson());
+                removedMember.getObject("user").put("id", REMOVED_USER_ID).put("username", "removed");
+                members.add(removedMember);
+                CacheSnapshot.restore(jda, snapshot);
+                assertThat(jda.getUserById(REMOVED_USER_ID)).isNotNull();
+                assertThat(jda.getGuildById(guildId).isStale()).isTrue();
+
+                // The GUILD_CREATE of a stale guild makes it available again, it was not joined
+                jda.getGuildSetupController().onCreate(guildId, guildCreate);
+                assertThat(listener.available).hasValue(1);
+                assertThat(listener.joined).hasValue(0);
+                Guild guild = jda.getGuildById(guildId);
+                assertThat(guild.isStale()).isFalse();
+                assertThat(guild.getMembers()).hasSize(20);
+                assertThat(jda.getUserById(REMOVED_USER_ID)).isNull();
+                assertThat(jda.getUsers()).hasSize(20);
+            }
+            finally
+            {
+                jda.shutdownNow();
+            }
+        }
+    }
+
+    @Test
+    void testResumeWithSnapshot() throws Exception
+    {
+        try (MockGatewayServer server = new MockGatewayServer().setGuildsPerShard(2).setMembersPerGuild(20).start())
+        {
+            FileSessionResumeStore store = new FileSessionResumeStore(directory.resolve("sessions"));
+            Path cache = directory.resolve("cache");
+
+            JDAImpl jda = login(server, new GuildListener(), store, cache);
+            jda.shutdown();
+            assertThat(jda.awaitShutdown(Duration.ofSeconds(5))).isTrue();
+            assertThat(server.getIdentifyCount()).isEqualTo(1);
+
+            // The stored session is resumed with the guilds of the snapshot
+            jda = login(server, new GuildListener(), store, cache);
+            try
+            {
+                assertThat(server.getIdentifyCount()).isEqualTo(1);
+                assertThat(server.getResumeCount()).isEqualTo(1);
+                assertThat(jda.getGuilds()).hasSize(2).noneMatch(Guild::isStale);
+            }
+            finally
+            {
+                jda.shutdown();
+                assertThat(jda.awaitShutdown(Duration.ofSeconds(5))).isTrue();
+            }
+        }
+    }
+
+    @Test
+    void testResumeWithoutSnapshot() throws Exception
+    {
+        try (MockGatewayServer server = new MockGatewayServer().setGuildsPerShard(2).setMembersPerGuild(20).start())
+        {
+            FileSessionResumeStore store = new FileSessionResumeStore(directory.resolve("sessions"));
+
+            JDAImpl jda = login(server, new GuildListener(), store, null);
+            jda.shutdown();
+            assertThat(jda.awaitShutdown(Duration.ofSeconds(5))).isTrue();
+            assertThat(store.load(JDA.ShardInfo.SINGLE)).isNotNull();
+
+            // Without the cache, a resumed session would never receive its guilds
+            jda = login(server, new GuildListener(), store, null);
+            try
+            {
+                assertThat(server.getIdentifyCount()).isEqualTo(2);
+                assertThat(server.getResumeCount()).isZero();
+                assertThat(jda.getGuilds()).hasSize(2);
+            }
+            finally
+            {
+                jda.shutdownNow();
+            }
+        }
+    }
+
+    private static JDAImpl login(MockGatewayServer server, GuildListener listener) throws InterruptedException
+    {
+        return login(server, listener, null, null);
+    }
+
+    private static JDAImpl login(MockGatewayServer server, GuildListener listener, SessionResumeStore store, Path cache) throws InterruptedException
+    {
+        return (JDAImpl) JDABuilder.createLight("mock-token", GatewayIntent.GUILD_MEMBERS)
+                .setSessionResumeStore(store)
+                .setCacheSnapshotDirectory(cache)
+                .setRestConfig(new RestConfig().setBaseUrl(server.getRestUrl()))
+                .setSessionController(new ConcurrentSessionController()
+                {
+                    @Nonnull
+                    @Override
+                    public String getGateway()
+                    {
+                        return server.getGatewayUrl();
+                    }
+                })
+                .setMemberCachePolicy(MemberCachePolicy.ALL)
+                .setEnableShutdownHook(false)
+                .addEventListeners(listener)
+                .build()
+                .awaitReady();
+    }
+
+    private static List<Long> ids(List<? extends ISnowflake> entities)
+    {
+        return entities.stream().map(ISnowflake::getIdLong).collect(Collectors.toList());
+    }
+
+    private static DataObject snapshot(String sessionId, long sequence, DataObject... guilds)
+    {
+        DataArray array = DataArray.empty();
+        for (DataObject guild : guilds)
+            array.add(guild);
+        return DataObject.empty()
+                .put("version", CacheSnapshot.VERSION)
+                .put("session_id", sessionId)
+                .put("seq", sequence)
+                .put("guilds", array);
+    }
+
+    private static class GuildListener implements EventListener
+    {
+        private final AtomicInteger available = new AtomicInteger();
+        private final AtomicInteger joined = new AtomicInteger();
+
+        @Override
+        public void onEvent(@Nonnull GenericEvent event)
+        {
+            if (event instanceof GuildAvailableEvent)
+                available.incrementAndGet();
+            else if (event instanceof GuildJoinEvent)
+                joined.incrementAndGet();
+        }
+    }
+}
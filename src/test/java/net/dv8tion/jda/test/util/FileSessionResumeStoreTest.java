@@ -0,0 +1,65 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.test.util;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.utils.FileSessionResumeStore;
+import net.dv8tion.jda.api.utils.SessionResumeStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FileSessionResumeStoreTest
+{
+    @TempDir
+    Path directory;
+
+    @Test
+    void testSaveAndLoad()
+    {
+        FileSessionResumeStore store = new FileSessionResumeStore(directory.resolve("sessions"));
+        JDA.ShardInfo first = new JDA.ShardInfo(0, 2);
+        JDA.ShardInfo second = new JDA.ShardInfo(1, 2);
+
+        assertThat(store.load(first)).isNull();
+
+        store.save(first, new SessionResumeStore.ResumeState("abc", "wss://gateway.example", 42));
+        store.save(second, new SessionResumeStore.ResumeState("def", null, 7));
+
+        SessionResumeStore.ResumeState state = store.load(first);
+        assertThat(state).isNotNull();
+        assertThat(state.getSessionId()).isEqualTo("abc");
+        assertThat(state.getResumeUrl()).isEqualTo("wss://gateway.example");
+        assertThat(state.getSequence()).isEqualTo(42);
+
+        state = store.load(second);
+        assertThat(state).isNotNull();
+        assertThat(state.getSessionId()).isEqualTo("def");
+        assertThat(state.getResumeUrl()).isNull();
+
+        // A different shard total is a different session
+        assertThat(store.load(new JDA.ShardInfo(0, 4))).isNull();
+
+        store.save(first, null);
+        assertThat(store.load(first)).isNull();
+        assertThat(store.load(second)).isNotNull();
+        assertThat(directory.resolve("sessions").toFile().list()).containsExactly("session-1-2.json");
+    }
+}
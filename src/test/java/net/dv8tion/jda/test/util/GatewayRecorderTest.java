@@ -0,0 +1,189 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.test.util;
+
+import net.dv8tion.jda.api.GatewayEncoding;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.JDABuilder;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.events.guild.GuildReadyEvent;
+import net.dv8tion.jda.api.hooks.EventListener;
+import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.requests.RestConfig;
+import net.dv8tion.jda.api.utils.Compression;
+import net.dv8tion.jda.api.utils.ConcurrentSessionController;
+import net.dv8tion.jda.api.utils.GatewayRecorder;
+import net.dv8tion.jda.api.utils.MemberCachePolicy;
+import net.dv8tion.jda.test.gateway.MockGatewayServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class GatewayRecorderTest
+{
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRecordAndRead()
+    {
+        Path file = directory.resolve("gateway.rec");
+        byte[] hello = "{\"op\":10}".getBytes(StandardCharsets.UTF_8);
+        byte[] binary = {1, 2, 3, 4, 5};
+        try (GatewayRecorder recorder = new GatewayRecorder(file, GatewayRecorder.Mode.COMPRESSED))
+        {
+            recorder.recordConnect(Compression.ZLIB, GatewayEncoding.ETF);
+            recorder.recordFrame(GatewayRecorder.TEXT, hello, hello.length);
+            // Only the provided length is recorded
+            recorder.recordFrame(GatewayRecorder.BINARY, binary, 3);
+        }
+
+        try (GatewayRecorder.Reader reader = GatewayRecorder.read(file))
+        {
+            assertThat(reader.getMode()).isEqualTo(GatewayRecorder.Mode.COMPRESSED);
+            assertThat(reader.getCompression()).isEqualTo(Compression.ZLIB);
+            assertThat(reader.getEncoding()).isEqualTo(GatewayEncoding.ETF);
+
+            assertThat(reader.next().getType()).isEqualTo(GatewayRecorder.CONNECT);
+            GatewayRecorder.Frame text = reader.next();
+            assertThat(text.getType()).isEqualTo(GatewayRecorder.TEXT);
+            assertThat(text.getData()).isEqualTo(hello);
+            GatewayRecorder.Frame frame = reader.next();
+            assertThat(frame.getType()).isEqualTo(GatewayRecorder.BINARY);
+            assertThat(frame.getData()).containsExactly(1, 2, 3);
+            assertThat(frame.getTime()).isGreaterThanOrEqualTo(text.getTime());
+            assertThat(reader.next()).isNull();
+        }
+    }
+
+    @Test
+    void testDecompressed()
+    {
+        Path file = directory.resolve("gateway.rec");
+        try (GatewayRecorder recorder = new GatewayRecorder(file, GatewayRecorder.Mode.DECOMPRESSED))
+        {
+            recorder.recordConnect(Compression.ZSTD, GatewayEncoding.JSON);
+        }
+
+        // Decompressed frames are replayed without compression
+        try (GatewayRecorder.Reader reader = GatewayRecorder.read(file))
+        {
+            assertThat(reader.getMode()).isEqualTo(GatewayRecorder.Mode.DECOMPRESSED);
+            assertThat(reader.getCompression()).isEqualTo(Compression.NONE);
+            assertThat(reader.getEncoding()).isEqualTo(GatewayEncoding.JSON);
+        }
+    }
+
+    @Test
+    void testIncompleteFrame() throws IOException
+    {
+        Path file = directory.resolve("gateway.rec");
+        byte[] data = new byte[100];
+        try (GatewayRecorder recorder = new GatewayRecorder(file, GatewayRecorder.Mode.COMPRESSED))
+        {
+            recorder.recordConnect(Compression.NONE, GatewayEncoding.JSON);
+            recorder.recordFrame(GatewayRecorder.TEXT, data, data.length);
+        }
+
+        // Cut the last frame, like a process that was killed while recording
+        byte[] content = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(content, content.length - 10));
+
+        try (GatewayRecorder.Reader reader = GatewayRecorder.read(file))
+        {
+            assertThat(reader.next().getType()).isEqualTo(GatewayRecorder.CONNECT);
+            assertThat(reader.next()).isNull();
+        }
+    }
+
+    @Test
+    void testReplay() throws Exception
+    {
+        Path file = directory.resolve("gateway.rec");
+        List<Long> guilds;
+        try (MockGatewayServer server = new MockGatewayServer().setGuildsPerShard(2).setMembersPerGuild(20).start();
+             GatewayRecorder recorder = new GatewayRecorder(file, GatewayRecorder.Mode.COMPRESSED))
+        {
+            JDA jda = JDABuilder.createLight("mock-token", GatewayIntent.GUILD_MEMBERS)
+                    .setRestConfig(new RestConfig().setBaseUrl(server.getRestUrl()))
+                    .setSessionController(new ConcurrentSessionController()
+                    {
+                        @Nonnull
+                        @Override
+                        public String getGateway()
+                        {
+                            return server.getGatewayUrl();
+                        }
+                    })
+                    .setMemberCachePolicy(MemberCachePolicy.ALL)
+                    .setEnableShutdownHook(false)
+                    .setGatewayRecorder(recorder)
+                    .build()
+                    .awaitReady();
+            guilds = jda.getGuilds().stream().map(Guild::getIdLong).collect(Collectors.toList());
+            jda.shutdownNow();
+            assertThat(jda.awaitShutdown(Duration.ofSeconds(5))).isTrue();
+        }
+
+        // The recording is handled again without a connection, creating the same guilds
+        AtomicInteger ready = new AtomicInteger();
+        JDA replay = JDABuilder.createLight("mock-token", GatewayIntent.GUILD_MEMBERS)
+                .setMemberCachePolicy(MemberCachePolicy.ALL)
+                .setEnableShutdownHook(false)
+                .addEventListeners((EventListener) event -> {
+                    if (event instanceof GuildReadyEvent)
+                        ready.incrementAndGet();
+                })
+                .buildReplay(file, false);
+        try
+        {
+            assertThat(ready.get()).isEqualTo(2);
+            assertThat(replay.getSelfUser().getIdLong()).isEqualTo(MockGatewayServer.SELF_ID);
+            assertThat(replay.getGuilds()).extracting(Guild::getIdLong).containsExactlyElementsOf(guilds);
+            for (Guild guild : replay.getGuilds())
+                assertThat(guild.getMembers()).hasSize(20);
+        }
+        finally
+        {
+            replay.shutdownNow();
+        }
+    }
+
+    @Test
+    void testInvalidFile() throws IOException
+    {
+        Path file = directory.resolve("gateway.rec");
+        Files.write(file, "not a recording".getBytes(StandardCharsets.UTF_8));
+        assertThatThrownBy(() -> GatewayRecorder.read(file))
+            .isInstanceOf(UncheckedIOException.class)
+            .hasMessageContaining("not a gateway recording");
+    }
+}